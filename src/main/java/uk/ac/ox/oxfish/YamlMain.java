@@ -59,6 +59,9 @@ public class YamlMain {
     @Parameter(names={"--heatmap"},description = "year at which point to start gathering tow heatmap data. Negative values turns it off")
     private Integer towHeatmapGatherer = null;
 
+    @Parameter(names={"--fisherThreads"},description = "threads stepping the fishers in parallel; 0 steps them one at a time")
+    private int fisherThreads = 0;
+
     public static void main(String[] args) throws IOException {
 
         /**
@@ -73,7 +76,10 @@ public class YamlMain {
         FishStateUtilities.run(simulationName, inputFile, Paths.get("output", simulationName), main.seed, main.logLevel,
                                main.additionalData, main.policyScript,
                                main.yearsToRun, main.saveOnExit,
-                               main.towHeatmapGatherer, null, null);
+                               main.towHeatmapGatherer, null,
+                               main.fisherThreads > 0 ?
+                                       model -> model.setParallelFisherThreads(main.fisherThreads) :
+                                       null);
 
 
     }
@@ -186,4 +192,22 @@ public class YamlMain {
     public void setAdditionalData(boolean additionalData) {
         this.additionalData = additionalData;
     }
+
+    /**
+     * Getter for property 'fisherThreads'.
+     *
+     * @return Value for property 'fisherThreads'.
+     */
+    public int getFisherThreads() {
+        return fisherThreads;
+    }
+
+    /**
+     * Setter for property 'fisherThreads'.
+     *
+     * @param fisherThreads Value to set for property 'fisherThreads'.
+     */
+    public void setFisherThreads(int fisherThreads) {
+        this.fisherThreads = fisherThreads;
+    }
 }
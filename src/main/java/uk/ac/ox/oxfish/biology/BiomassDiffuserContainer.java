@@ -28,12 +28,15 @@ import sim.engine.Steppable;
 import sim.util.Bag;
 import uk.ac.ox.oxfish.geography.NauticalMap;
 import uk.ac.ox.oxfish.geography.SeaTile;
+import uk.ac.ox.oxfish.geography.TileIndex;
 import uk.ac.ox.oxfish.utility.FishStateUtilities;
 import uk.ac.ox.oxfish.utility.Pair;
 
 import java.util.*;
+import java.util.function.IntConsumer;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * An object that spreads biomass around as long as the underlying local biology is Logistic
@@ -107,6 +110,43 @@ public class BiomassDiffuserContainer implements Steppable {
      */
     private final Map<SeaTile, List<SeaTile>> neighbors = new HashMap<>();
 
+    /**
+     * when true species moving by {@link SmoothMovementRule} are all moved at once, computing every movement from the
+     * biomass at the start of the day and then applying them, in parallel across tiles. The result doesn't depend on
+     * the order tiles are visited in (nor on the number of threads) and the model randomizer isn't used
+     */
+    private boolean parallel = false;
+
+    /**
+     * the tile index the arrays below were built from, and the local biology of each water tile at that time
+     */
+    private TileIndex graphIndex;
+
+    private LocalBiology[] waterBiologies;
+
+    private BiomassLocalBiology[] locals;
+
+    /**
+     * links from tile i (to tiles edgeTarget[firstEdge[i]] ... edgeTarget[firstEdge[i+1]-1]); reverseEdge gives the
+     * link going the other way
+     */
+    private int[] firstEdge;
+
+    private int[] edgeTarget;
+
+    private int[] reverseEdge;
+
+    private double[] flows;
+
+    private double[] biomass;
+
+    private double[] carryingCapacity;
+
+    private double[] outScale;
+
+    private double[] inScale;
+
+
     @Override
     public void step(SimState simState) {
 
@@ -114,6 +154,28 @@ public class BiomassDiffuserContainer implements Steppable {
         if(movementRules.isEmpty())
             return;
 
+        if(!parallel) {
+            diffuseSequentially(false);
+            return;
+        }
+
+        boolean othersLeft = false;
+        for (Map.Entry<Species, BiomassMovementRule> movementRuleEntry : movementRules.entrySet()) {
+            if (movementRuleEntry.getValue() instanceof SmoothMovementRule)
+                diffuseInParallel(movementRuleEntry.getKey(), (SmoothMovementRule) movementRuleEntry.getValue());
+            else
+                othersLeft = true;
+        }
+        if(othersLeft)
+            diffuseSequentially(true);
+
+    }
+
+    /**
+     * the original diffusion: tiles in random order, each moving biomass to its neighbours one pair at a time
+     * @param skipSmoothMovement when true species moving by {@link SmoothMovementRule} are left alone
+     */
+    private void diffuseSequentially(boolean skipSmoothMovement) {
 
         //get all the tiles that are in the sea
         final List<SeaTile> tiles = map.getAllSeaTilesExcludingLandAsList().stream().filter(new Predicate<SeaTile>() {
@@ -140,6 +202,8 @@ public class BiomassDiffuserContainer implements Steppable {
                 //for each specie
                 for (Map.Entry<Species, BiomassMovementRule> movementRuleEntry : movementRules.entrySet())
                 {
+                    if(skipSmoothMovement && movementRuleEntry.getValue() instanceof SmoothMovementRule)
+                        continue;
 
                     //if here there are more than there
                     final Species species = movementRuleEntry.getKey();
@@ -189,6 +253,145 @@ public class BiomassDiffuserContainer implements Steppable {
     }
 
 
+    /**
+     * moves the species between every pair of neighbouring tiles at once, with all movements computed from the
+     * biomass at the start of the day. Same rule as {@link SmoothMovementRule} pair by pair, but when a tile would give
+     * away more than it has (or receive more than it has room for) all its movements are scaled down
+     */
+    private void diffuseInParallel(Species species, SmoothMovementRule rule) {
+
+        buildGraphIfNeeded();
+        final int size = locals.length;
+        if(size == 0)
+            return;
+        final int index = species.getIndex();
+        final double differentialPercentageToMove = rule.getDifferentialPercentageToMove();
+        final double percentageLimitOnDailyMovement = rule.getPercentageLimitOnDailyMovement();
+
+        forEachTile(size, i -> {
+            biomass[i] = locals[i].getBiomass(species);
+            carryingCapacity[i] = locals[i].getCarryingCapacity(species);
+        });
+
+        //compute: each tile computes what it would like to send to each of its neighbors
+        forEachTile(size, i -> {
+            double out = 0;
+            for (int edge = firstEdge[i]; edge < firstEdge[i + 1]; edge++) {
+                final int j = edgeTarget[edge];
+                double flow = 0;
+                if (carryingCapacity[i] > FishStateUtilities.EPSILON &&
+                        carryingCapacity[j] > FishStateUtilities.EPSILON &&
+                        carryingCapacity[j] - biomass[j] > FishStateUtilities.EPSILON &&
+                        biomass[i] > biomass[j]) {
+                    final double differential = FishStateUtilities.round(
+                            Math.min(biomass[i] - biomass[j], carryingCapacity[j] - biomass[j]));
+                    if (differential > 0)
+                        flow = Math.min(differentialPercentageToMove * differential,
+                                        percentageLimitOnDailyMovement * biomass[i]);
+                }
+                flows[edge] = flow;
+                out += flow;
+            }
+            outScale[i] = out > 0 && out > biomass[i] ? biomass[i] / out : 1;
+        });
+        forEachTile(size, i -> {
+            double in = 0;
+            for (int edge = firstEdge[i]; edge < firstEdge[i + 1]; edge++)
+                in += flows[reverseEdge[edge]];
+            final double room = carryingCapacity[i] - biomass[i];
+            inScale[i] = in > 0 && in > room ? Math.max(room, 0) / in : 1;
+        });
+
+        //apply: each tile only writes its own biomass
+        forEachTile(size, i -> {
+            double change = 0;
+            for (int edge = firstEdge[i]; edge < firstEdge[i + 1]; edge++) {
+                final int j = edgeTarget[edge];
+                change -= flows[edge] * Math.min(outScale[i], inScale[j]);
+                change += flows[reverseEdge[edge]] * Math.min(outScale[j], inScale[i]);
+            }
+            if (change != 0)
+                locals[i].getCurrentBiomass()[index] = Math.max(biomass[i] + change, 0);
+        });
+
+    }
+
+    private void forEachTile(int size, IntConsumer action) {
+        IntStream.range(0, size).parallel().forEach(action);
+    }
+
+    /**
+     * the water tiles with a biomass local biology and the links between them, stored as arrays. Rebuilt only when
+     * the map's tiles or any of their local biologies change
+     */
+    private void buildGraphIfNeeded() {
+
+        final TileIndex index = map.getTileIndex();
+        final int water = index.getNumberOfWaterTiles();
+        boolean changed = index != graphIndex;
+        for (int id = 0; !changed && id < water; id++)
+            changed = index.getTile(id).getBiology() != waterBiologies[id];
+        if (!changed)
+            return;
+
+        waterBiologies = new LocalBiology[water];
+        final int[] localIds = new int[water];
+        Arrays.fill(localIds, -1);
+        final List<BiomassLocalBiology> eligible = new ArrayList<>();
+        final List<Integer> eligibleIds = new ArrayList<>();
+        for (int id = 0; id < water; id++) {
+            final LocalBiology local = index.getTile(id).getBiology();
+            waterBiologies[id] = local;
+            if (local instanceof BiomassLocalBiology) {
+                localIds[id] = eligible.size();
+                eligible.add((BiomassLocalBiology) local);
+                eligibleIds.add(id);
+            }
+        }
+        final int size = eligible.size();
+        locals = eligible.toArray(new BiomassLocalBiology[size]);
+
+        final int[] first = index.getFirstNeighbor();
+        final int[] neighbors = index.getNeighbors();
+        firstEdge = new int[size + 1];
+        int[] targets = new int[size * 8];
+        int edges = 0;
+        for (int i = 0; i < size; i++) {
+            firstEdge[i] = edges;
+            final int id = eligibleIds.get(i);
+            for (int k = first[id]; k < first[id + 1]; k++) {
+                //land tiles have ids past the water ones and are never eligible
+                final int j = neighbors[k] < water ? localIds[neighbors[k]] : -1;
+                if (j >= 0) {
+                    if (edges == targets.length)
+                        targets = Arrays.copyOf(targets, targets.length * 2);
+                    targets[edges++] = j;
+                }
+            }
+        }
+        firstEdge[size] = edges;
+        edgeTarget = Arrays.copyOf(targets, edges);
+
+        //moore neighborhoods are symmetric, so every link has a way back
+        reverseEdge = new int[edges];
+        for (int i = 0; i < size; i++)
+            for (int edge = firstEdge[i]; edge < firstEdge[i + 1]; edge++) {
+                final int j = edgeTarget[edge];
+                int back = firstEdge[j];
+                while (edgeTarget[back] != i)
+                    back++;
+                reverseEdge[edge] = back;
+            }
+
+        flows = new double[edges];
+        biomass = new double[size];
+        carryingCapacity = new double[size];
+        outScale = new double[size];
+        inScale = new double[size];
+        graphIndex = index;
+    }
+
+
     /**
      * get all the neighbors of a given tile that have the right local biology and are above water
      * @param tile the tile we want the neighbors of
@@ -218,4 +421,22 @@ public class BiomassDiffuserContainer implements Steppable {
     public Map<Species, BiomassMovementRule> getMovementRules() {
         return movementRules;
     }
+
+    /**
+     * Getter for property 'parallel'.
+     *
+     * @return Value for property 'parallel'.
+     */
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    /**
+     * Setter for property 'parallel'.
+     *
+     * @param parallel Value to set for property 'parallel'.
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
 }
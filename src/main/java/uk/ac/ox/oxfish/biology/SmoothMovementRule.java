@@ -73,4 +73,22 @@ public class SmoothMovementRule implements BiomassMovementRule {
         }
 
     }
+
+    /**
+     * Getter for property 'differentialPercentageToMove'.
+     *
+     * @return Value for property 'differentialPercentageToMove'.
+     */
+    public double getDifferentialPercentageToMove() {
+        return differentialPercentageToMove;
+    }
+
+    /**
+     * Getter for property 'percentageLimitOnDailyMovement'.
+     *
+     * @return Value for property 'percentageLimitOnDailyMovement'.
+     */
+    public double getPercentageLimitOnDailyMovement() {
+        return percentageLimitOnDailyMovement;
+    }
 }
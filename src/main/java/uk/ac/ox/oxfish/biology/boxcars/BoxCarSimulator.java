@@ -1,13 +1,14 @@
 package uk.ac.ox.oxfish.biology.boxcars;
 
-import uk.ac.ox.oxfish.biology.GlobalBiology;
-import uk.ac.ox.oxfish.biology.Species;
+import org.jetbrains.annotations.Nullable;
 import uk.ac.ox.oxfish.biology.complicated.*;
 import uk.ac.ox.oxfish.biology.complicated.factory.RecruitmentBySpawningJackKnifeMaturity;
 import uk.ac.ox.oxfish.model.FishState;
 import uk.ac.ox.oxfish.utility.FishStateUtilities;
 import uk.ac.ox.oxfish.utility.parameters.FixedDoubleParameter;
 
+import java.nio.file.Path;
+
 /**
  * given a bunch of box car objects simulates a virgin population
  */
@@ -24,50 +25,44 @@ public class BoxCarSimulator {
     final private NaturalMortalityProcess mortalityProcess;
 
 
+    /**
+     * where virgin abundances are stored between runs; null to never store them
+     */
+    @Nullable
+    final private Path cacheDirectory;
+
+
     public BoxCarSimulator(
             double initialRecruits,
             FixedBoxcarAging dailyStep,
             YearlyRecruitmentProcess recruitmentProcess,
             GrowthBinByList meristics, NaturalMortalityProcess mortalityProcess) {
+        this(initialRecruits, dailyStep, recruitmentProcess, meristics, mortalityProcess, null);
+    }
+
+    public BoxCarSimulator(
+            double initialRecruits,
+            FixedBoxcarAging dailyStep,
+            YearlyRecruitmentProcess recruitmentProcess,
+            GrowthBinByList meristics, NaturalMortalityProcess mortalityProcess,
+            @Nullable Path cacheDirectory) {
         this.initialRecruits = initialRecruits;
         this.dailyStep = dailyStep;
         this.recruitmentProcess = recruitmentProcess;
         this.meristics = meristics;
         this.mortalityProcess = mortalityProcess;
+        this.cacheDirectory = cacheDirectory;
     }
 
+    /**
+     * the abundance once aging, recruitment and mortality have settled, see {@link VirginEquilibrium}
+     * @param state the model
+     * @param yearsToVirgin years to simulate at most; the simulation stops earlier once a year changes nothing
+     */
     public StructuredAbundance virginCondition(FishState state,
                                                int yearsToVirgin){
-        Species species = new Species("simulated",meristics);
-        dailyStep.start(species);
-
-        //create a single local biology hosting everything
-        AbundanceLocalBiology biology = new AbundanceLocalBiology(new GlobalBiology(species));
-        biology.getAbundance(species).asMatrix()[0][0] = initialRecruits;
-
-        //now step on it
-        for(int year = 0; year< yearsToVirgin; year++) {
-            for (int day = 0; day < 365; day++) {
-                dailyStep.ageLocally(biology,
-                        species,
-                        state,
-                        false,
-                        1);
-                double recruit = recruitmentProcess.recruit(species,
-                        species.getMeristics(),
-                        biology.getAbundance(species),
-                        day,
-                        1);
-      //          double recruit = initialRecruits/365d;
-                mortalityProcess.cull(meristics,false,biology.getAbundance(species),1);
-                biology.getAbundance(species).asMatrix()[0][0] += recruit;
-
-            }
-
-
-        }
-
-        return biology.getAbundance(species);
+        return new VirginEquilibrium(dailyStep, recruitmentProcess, meristics, mortalityProcess, cacheDirectory).
+                virginCondition(state, initialRecruits, yearsToVirgin);
     }
 
     public static void main(String[] args)
@@ -0,0 +1,467 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2017  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+package uk.ac.ox.oxfish.biology.boxcars;
+
+import com.esotericsoftware.minlog.Log;
+import com.google.common.annotations.VisibleForTesting;
+import org.apache.commons.math3.linear.LUDecomposition;
+import org.apache.commons.math3.linear.MatrixUtils;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.RealVector;
+import org.apache.commons.math3.linear.SingularMatrixException;
+import org.jetbrains.annotations.Nullable;
+import uk.ac.ox.oxfish.biology.GlobalBiology;
+import uk.ac.ox.oxfish.biology.Species;
+import uk.ac.ox.oxfish.biology.complicated.AbundanceLocalBiology;
+import uk.ac.ox.oxfish.biology.complicated.LocalAgingProcess;
+import uk.ac.ox.oxfish.biology.complicated.Meristics;
+import uk.ac.ox.oxfish.biology.complicated.NaturalMortalityProcess;
+import uk.ac.ox.oxfish.biology.complicated.StructuredAbundance;
+import uk.ac.ox.oxfish.biology.complicated.YearlyRecruitmentProcess;
+import uk.ac.ox.oxfish.model.FishState;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Finds the virgin (unfished) abundance of a single species by stepping aging, recruitment and natural mortality
+ * the same way {@link BoxCarSimulator} always did, but:
+ * <ul>
+ *     <li> aging and mortality are probed one bin at a time into daily matrices; when both are linear the
+ *     equilibrium is solved directly (one linear solve plus a one-dimensional search for the recruits that
+ *     replace themselves) and the simulation only starts from there</li>
+ *     <li> the simulation stops as soon as a whole year leaves the abundance unchanged</li>
+ *     <li> results are remembered, in memory and optionally on disk, keyed by a fingerprint of the daily
+ *     matrices, the meristics and the recruitment function's response</li>
+ * </ul>
+ * All three processes are assumed deterministic, which they are during a virgin spin-up (noise is added later).
+ */
+public class VirginEquilibrium {
+
+    private static final int MAGIC_NUMBER = 0x56495247; //"VIRG"
+
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * a year changing no bin by more than this (relative to the largest bin) means we are at equilibrium
+     */
+    public static final double CONVERGENCE_TOLERANCE = 1e-10;
+
+    /**
+     * tolerance when checking that aging and mortality are linear
+     */
+    private static final double LINEARITY_TOLERANCE = 1e-9;
+
+    private static final int MEMORY_CACHE_SIZE = 1000;
+
+    private static final Map<Long, double[][]> MEMORY_CACHE = new LinkedHashMap<Long, double[][]>(
+        16, .75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, double[][]> eldest) {
+            return size() > MEMORY_CACHE_SIZE;
+        }
+    };
+
+    private final LocalAgingProcess aging;
+
+    private final YearlyRecruitmentProcess recruitment;
+
+    private final Meristics meristics;
+
+    private final NaturalMortalityProcess mortality;
+
+    /**
+     * where solutions are stored between runs; null to keep them in memory only
+     */
+    @Nullable
+    private final Path cacheDirectory;
+
+    /**
+     * how many years the last call simulated (0 if the answer came from a cache)
+     */
+    private int yearsSimulated = 0;
+
+    /**
+     * whether the last call managed to solve the equilibrium directly
+     */
+    private boolean solvedDirectly = false;
+
+    public VirginEquilibrium(
+        LocalAgingProcess aging,
+        YearlyRecruitmentProcess recruitment,
+        Meristics meristics,
+        NaturalMortalityProcess mortality,
+        @Nullable Path cacheDirectory) {
+        this.aging = aging;
+        this.recruitment = recruitment;
+        this.meristics = meristics;
+        this.mortality = mortality;
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    /**
+     * the abundance at the end of a year once the population has settled
+     * @param state the model (the aging process may want it)
+     * @param initialRecruits recruits in the first bin when we have to simulate from scratch
+     * @param maxYears years to simulate at most
+     */
+    public StructuredAbundance virginCondition(FishState state, double initialRecruits, int maxYears) {
+        yearsSimulated = 0;
+        solvedDirectly = false;
+        final Species species = new Species("simulated", meristics);
+        aging.start(species);
+        final int subdivisions = meristics.getNumberOfSubdivisions();
+        final int bins = meristics.getNumberOfBins();
+
+        final RealMatrix growth = probe(bins, subdivisions, abundance -> {
+            final AbundanceLocalBiology biology = new AbundanceLocalBiology(new GlobalBiology(species));
+            copy(abundance.asMatrix(), biology.getAbundance(species).asMatrix());
+            aging.ageLocally(biology, species, state, false, 1);
+            copy(biology.getAbundance(species).asMatrix(), abundance.asMatrix());
+        });
+        final RealMatrix cull = probe(bins, subdivisions, abundance ->
+            mortality.cull(meristics, false, abundance, 1)
+        );
+
+        final Long key = fingerprint(species, growth, cull, initialRecruits, maxYears);
+        double[][] solution = recall(key);
+        if (solution == null) {
+            StructuredAbundance start = null;
+            if (growth != null && cull != null)
+                start = solve(species, growth, cull);
+            solvedDirectly = start != null;
+            if (start == null) {
+                start = new StructuredAbundance(subdivisions, bins);
+                start.asMatrix()[0][0] = initialRecruits;
+            }
+            solution = simulate(species, state, start, maxYears).asMatrix();
+            remember(key, solution);
+        }
+        final double[][] copy = new double[subdivisions][bins];
+        copy(solution, copy);
+        return new StructuredAbundance(copy);
+    }
+
+    /**
+     * steps aging, recruitment and mortality a year at a time until a year goes by without changes
+     */
+    private StructuredAbundance simulate(
+        Species species, FishState state, StructuredAbundance start, int maxYears) {
+        final AbundanceLocalBiology biology = new AbundanceLocalBiology(new GlobalBiology(species));
+        final StructuredAbundance abundance = biology.getAbundance(species);
+        copy(start.asMatrix(), abundance.asMatrix());
+        final double[][] lastYear = new double[abundance.getSubdivisions()][abundance.getBins()];
+        for (int year = 0; year < maxYears; year++) {
+            copy(abundance.asMatrix(), lastYear);
+            for (int day = 0; day < 365; day++) {
+                aging.ageLocally(biology, species, state, false, 1);
+                final double recruit = recruitment.recruit(species, meristics, abundance, day, 1);
+                mortality.cull(meristics, false, abundance, 1);
+                abundance.asMatrix()[0][0] += recruit;
+            }
+            yearsSimulated++;
+            if (converged(lastYear, abundance.asMatrix()))
+                break;
+        }
+        return abundance;
+    }
+
+    private static boolean converged(double[][] before, double[][] after) {
+        double largest = 0;
+        double largestChange = 0;
+        for (int subdivision = 0; subdivision < after.length; subdivision++)
+            for (int bin = 0; bin < after[subdivision].length; bin++) {
+                largest = Math.max(largest, Math.abs(after[subdivision][bin]));
+                largestChange = Math.max(largestChange, Math.abs(after[subdivision][bin] - before[subdivision][bin]));
+            }
+        return largestChange <= CONVERGENCE_TOLERANCE * largest;
+    }
+
+    /**
+     * Solves for the end-of-year abundance that a year of aging, mortality and recruitment leaves unchanged.
+     * With A the daily aging-then-mortality matrix, recruits entering the first bin at r per day (or R once a
+     * year) settle into r (I - A)^-1 e (or R (I - A^365)^-1 e); what is left is finding the recruits that this
+     * abundance itself would produce. Returns null when there is no such (positive) abundance.
+     */
+    @Nullable
+    private StructuredAbundance solve(Species species, RealMatrix growth, RealMatrix cull) {
+        final int size = growth.getRowDimension();
+        final RealMatrix daily = cull.multiply(growth);
+        final RealMatrix period = recruitment.isRecruitEveryday() ? daily : daily.power(365);
+        //the abundance recruitment looks at, relative to the end of the previous year's abundance
+        final RealMatrix spawners = recruitment.isRecruitEveryday() ? growth : growth.multiply(daily.power(364));
+        final int spawningDay = recruitment.isRecruitEveryday() ? 0 : YearlyRecruitmentProcess.YEARLY_RECRUITMENT_SPAWNING_DAY;
+
+        final RealVector perRecruit;
+        try {
+            perRecruit = new LUDecomposition(MatrixUtils.createRealIdentityMatrix(size).subtract(period)).
+                getSolver().solve(firstBin(size));
+        } catch (SingularMatrixException e) {
+            return null;
+        }
+        for (int i = 0; i < size; i++)
+            if (!Double.isFinite(perRecruit.getEntry(i)) || perRecruit.getEntry(i) < 0)
+                return null;
+        final RealVector spawnersPerRecruit = spawners.operate(perRecruit);
+
+        //recruits produced minus recruits assumed: positive below the equilibrium, negative above it
+        final DoubleUnaryOperator excess = recruits -> {
+            final StructuredAbundance abundance = reshape(spawnersPerRecruit.mapMultiply(recruits), species);
+            return recruitment.recruit(species, meristics, abundance, spawningDay, 1) - recruits;
+        };
+        //find some recruits that can't replace themselves...
+        double high = 1;
+        while (excess.applyAsDouble(high) >= 0) {
+            high *= 2;
+            if (high > Double.MAX_VALUE / 4)
+                return null;
+        }
+        //...and, going down, the largest that can
+        double low = high;
+        do {
+            low /= 2;
+            if (low < Double.MIN_NORMAL)
+                return null;
+        } while (excess.applyAsDouble(low) <= 0);
+        high = low * 2;
+        for (int i = 0; i < 200 && high - low > low * 1e-15; i++) {
+            final double middle = (low + high) / 2;
+            if (excess.applyAsDouble(middle) > 0)
+                low = middle;
+            else
+                high = middle;
+        }
+        return reshape(perRecruit.mapMultiply(low), species);
+    }
+
+    /**
+     * applies a one-day process to each bin on its own to fill the columns of its matrix
+     * @return the matrix or null if the process turns out not to be linear
+     */
+    @Nullable
+    private static RealMatrix probe(int bins, int subdivisions, Consumer<StructuredAbundance> process) {
+        final int size = bins * subdivisions;
+        final RealMatrix matrix = MatrixUtils.createRealMatrix(size, size);
+        for (int i = 0; i < size; i++) {
+            final StructuredAbundance abundance = new StructuredAbundance(subdivisions, bins);
+            abundance.asMatrix()[i / bins][i % bins] = 1;
+            process.accept(abundance);
+            matrix.setColumnVector(i, flatten(abundance));
+        }
+        //a mix of all bins has to end up as the same mix of the columns
+        final double[] weights = new double[size];
+        final StructuredAbundance mix = new StructuredAbundance(subdivisions, bins);
+        for (int i = 0; i < size; i++) {
+            weights[i] = 1 + i;
+            mix.asMatrix()[i / bins][i % bins] = weights[i];
+        }
+        process.accept(mix);
+        final RealVector expected = matrix.operate(MatrixUtils.createRealVector(weights));
+        final double error = flatten(mix).subtract(expected).getLInfNorm();
+        return error <= LINEARITY_TOLERANCE * Math.max(1, expected.getLInfNorm()) ? matrix : null;
+    }
+
+    /**
+     * a hash of everything the answer depends on; null if aging or mortality can't be summarised by a matrix
+     */
+    @Nullable
+    private Long fingerprint(
+        Species species, @Nullable RealMatrix growth, @Nullable RealMatrix cull,
+        double initialRecruits, int maxYears) {
+        if (growth == null || cull == null)
+            return null;
+        long hash = 1125899906842597L;
+        hash = 31 * hash + FORMAT_VERSION;
+        hash = hash(hash, growth.getData());
+        hash = hash(hash, cull.getData());
+        for (int subdivision = 0; subdivision < meristics.getNumberOfSubdivisions(); subdivision++)
+            for (int bin = 0; bin < meristics.getNumberOfBins(); bin++) {
+                hash = hash(hash, meristics.getWeight(subdivision, bin));
+                hash = hash(hash, meristics.getLength(subdivision, bin));
+            }
+        //recruitment is summarised by how it responds to a few populations
+        hash = 31 * hash + recruitment.getClass().getName().hashCode();
+        hash = 31 * hash + Boolean.hashCode(recruitment.isRecruitEveryday());
+        for (double fish = 1; fish <= 1e12; fish *= 100) {
+            final StructuredAbundance abundance =
+                new StructuredAbundance(meristics.getNumberOfSubdivisions(), meristics.getNumberOfBins());
+            for (double[] row : abundance.asMatrix())
+                Arrays.fill(row, fish);
+            hash = hash(hash, recruitment.recruit(species, meristics, abundance,
+                                                  YearlyRecruitmentProcess.YEARLY_RECRUITMENT_SPAWNING_DAY, 1));
+            hash = hash(hash, recruitment.recruit(species, meristics, abundance, 0, 1));
+        }
+        hash = hash(hash, initialRecruits);
+        hash = 31 * hash + maxYears;
+        return hash;
+    }
+
+    private static long hash(long hash, double value) {
+        return 31 * hash + Double.doubleToLongBits(value);
+    }
+
+    private static long hash(long hash, double[][] values) {
+        for (double[] row : values)
+            for (double value : row)
+                hash = hash(hash, value);
+        return hash;
+    }
+
+    @Nullable
+    private double[][] recall(@Nullable Long key) {
+        if (key == null)
+            return null;
+        synchronized (MEMORY_CACHE) {
+            final double[][] solution = MEMORY_CACHE.get(key);
+            if (solution != null)
+                return solution;
+        }
+        if (cacheDirectory == null)
+            return null;
+        final Path file = cacheFile(cacheDirectory, key);
+        if (!Files.exists(file))
+            return null;
+        try {
+            final double[][] solution = read(file, key);
+            synchronized (MEMORY_CACHE) {
+                MEMORY_CACHE.put(key, solution);
+            }
+            return solution;
+        } catch (IOException e) {
+            Log.warn("Failed to read virgin abundance from " + file + ", recomputing it: " + e);
+            return null;
+        }
+    }
+
+    private void remember(@Nullable Long key, double[][] solution) {
+        if (key == null)
+            return;
+        final double[][] copy = new double[solution.length][solution[0].length];
+        copy(solution, copy);
+        synchronized (MEMORY_CACHE) {
+            MEMORY_CACHE.put(key, copy);
+        }
+        if (cacheDirectory == null)
+            return;
+        final Path file = cacheFile(cacheDirectory, key);
+        try {
+            Files.createDirectories(cacheDirectory);
+            write(file, key, copy);
+        } catch (IOException e) {
+            Log.warn("Failed to cache virgin abundance in " + file + ": " + e);
+        }
+    }
+
+    /**
+     * the name of the file a solution would be cached in
+     */
+    public static Path cacheFile(Path directory, long key) {
+        return directory.resolve("virgin_abundance_" + Long.toHexString(key) + ".bin");
+    }
+
+    private static void write(Path file, long key, double[][] solution) throws IOException {
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            output.writeInt(MAGIC_NUMBER);
+            output.writeInt(FORMAT_VERSION);
+            output.writeLong(key);
+            output.writeInt(solution.length);
+            output.writeInt(solution[0].length);
+            for (double[] row : solution)
+                for (double value : row)
+                    output.writeDouble(value);
+        }
+    }
+
+    private static double[][] read(Path file, long key) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (input.readInt() != MAGIC_NUMBER || input.readInt() != FORMAT_VERSION)
+                throw new IOException("Not a virgin abundance file, or an old version of it");
+            if (input.readLong() != key)
+                throw new IOException("Virgin abundance file was computed for different parameters");
+            final double[][] solution = new double[input.readInt()][input.readInt()];
+            for (double[] row : solution)
+                for (int bin = 0; bin < row.length; bin++)
+                    row[bin] = input.readDouble();
+            return solution;
+        }
+    }
+
+    @VisibleForTesting
+    static void clearMemoryCache() {
+        synchronized (MEMORY_CACHE) {
+            MEMORY_CACHE.clear();
+        }
+    }
+
+    private static RealVector firstBin(int size) {
+        final RealVector vector = MatrixUtils.createRealVector(new double[size]);
+        vector.setEntry(0, 1);
+        return vector;
+    }
+
+    private static RealVector flatten(StructuredAbundance abundance) {
+        final int bins = abundance.getBins();
+        final RealVector vector = MatrixUtils.createRealVector(new double[abundance.getSubdivisions() * bins]);
+        for (int i = 0; i < vector.getDimension(); i++)
+            vector.setEntry(i, abundance.asMatrix()[i / bins][i % bins]);
+        return vector;
+    }
+
+    private static StructuredAbundance reshape(RealVector vector, Species species) {
+        final int bins = species.getNumberOfBins();
+        final double[][] abundance = new double[species.getNumberOfSubdivisions()][bins];
+        for (int i = 0; i < vector.getDimension(); i++)
+            abundance[i / bins][i % bins] = vector.getEntry(i);
+        return new StructuredAbundance(abundance);
+    }
+
+    private static void copy(double[][] from, double[][] to) {
+        for (int subdivision = 0; subdivision < from.length; subdivision++)
+            System.arraycopy(from[subdivision], 0, to[subdivision], 0, from[subdivision].length);
+    }
+
+    /**
+     * Getter for property 'yearsSimulated'.
+     *
+     * @return how many years the last call simulated (0 if the answer came from a cache)
+     */
+    public int getYearsSimulated() {
+        return yearsSimulated;
+    }
+
+    /**
+     * Getter for property 'solvedDirectly'.
+     *
+     * @return whether the last call found the equilibrium by solving for it rather than simulating from scratch
+     */
+    public boolean isSolvedDirectly() {
+        return solvedDirectly;
+    }
+}
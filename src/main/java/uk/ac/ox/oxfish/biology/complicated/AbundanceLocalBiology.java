@@ -30,7 +30,6 @@ import uk.ac.ox.oxfish.model.FishState;
 import uk.ac.ox.oxfish.utility.FishStateUtilities;
 
 import java.util.Arrays;
-import java.util.HashMap;
 
 /**
  * A local biology object based on abundance.
@@ -44,15 +43,21 @@ public class AbundanceLocalBiology implements LocalBiology
 
 
     /**
-     * the hashmap contains for each species a table [age][male-female] corresponding to the number of fish of that
-     * age and that sex
+     * for each species (by index) a table [subdivision][bin] corresponding to the number of fish in that bin and
+     * subdivision
      */
-    private final HashMap<Species,double[][]>  abundance = new HashMap<>();
+    private final double[][][] abundance;
+
+    /**
+     * the structured abundance wrapping each table; these are live views so we hand out the same one every time
+     * rather than creating a new one each call
+     */
+    private final StructuredAbundance[] views;
 
 
 
     /**
-     * biomass gets computed somewhat lazily (but this number gets reset under any interaction with the object, no matter how trivial)
+     * biomass gets computed somewhat lazily (but this number gets reset under any interaction with the species, no matter how trivial)
      */
     private double lastComputedBiomass[];
 
@@ -63,18 +68,32 @@ public class AbundanceLocalBiology implements LocalBiology
     public AbundanceLocalBiology(GlobalBiology biology)
     {
 
+        abundance = new double[biology.getSize()][][];
+        views = new StructuredAbundance[biology.getSize()];
         //for each species create cohorts
         for(Species species : biology.getSpecies()) {
             double[][] fish = new double[species.getNumberOfSubdivisions()][];
             for(int i=0; i<fish.length; i++)
                 fish[i] = new double[species.getNumberOfBins()];
-            abundance.put(species, fish);
+            abundance[species.getIndex()] = fish;
+            views[species.getIndex()] = new StructuredAbundance(fish);
         }
         //done!
-        lastComputedBiomass = new double[biology.getSpecies().size()];
+        lastComputedBiomass = new double[biology.getSize()];
         Arrays.fill(lastComputedBiomass,Double.NaN);
     }
 
+    /**
+     * for subclasses keeping their numbers elsewhere: they need to override {@link #getAbundance(Species)},
+     * {@link #getBiomass(Species)} and {@link #start(FishState)}
+     */
+    protected AbundanceLocalBiology()
+    {
+        abundance = null;
+        views = null;
+        lastComputedBiomass = null;
+    }
+
 
     /**
      * the biomass at this location for a single species.
@@ -87,7 +106,7 @@ public class AbundanceLocalBiology implements LocalBiology
 
         if(Double.isNaN(lastComputedBiomass[species.getIndex()] )) {
             lastComputedBiomass[species.getIndex()] = FishStateUtilities.weigh(
-                    getAbundance(species),
+                    views[species.getIndex()],
                     species.getMeristics()
             );
             assert !Double.isNaN(lastComputedBiomass[species.getIndex()] );
@@ -141,7 +160,7 @@ public class AbundanceLocalBiology implements LocalBiology
             Preconditions.checkArgument(catches.getSubdivisions()==species.getNumberOfSubdivisions(), "wrong number of cohorts/subdivisions");
 
 
-            final double[][] abundanceHere = this.abundance.get(species);
+            final double[][] abundanceHere = getAbundance(species).asMatrix();
 
 
             double[][] catchesMatrix = catches.asMatrix();
@@ -150,30 +169,31 @@ public class AbundanceLocalBiology implements LocalBiology
             for(int subdivision =0;subdivision<catches.getSubdivisions(); subdivision++ ) {
                 for (int bin = 0; bin < catches.getBins(); bin++) {
                     abundanceHere[subdivision][bin] -= catchesMatrix[subdivision][bin];
-                    Preconditions.checkArgument(abundanceHere[subdivision][bin] >= -FishStateUtilities.EPSILON,
-                                                "There is now a negative amount of male fish left" );
-                    //overfished, but could be a numerical issue
+                    //overfished, but could be a numerical issue (only check when it matters, this loop is hot)
                     if(abundanceHere[subdivision][bin]<0)
                     {
-                        assert  abundanceHere[subdivision][bin] >= -FishStateUtilities.EPSILON;
+                        Preconditions.checkArgument(abundanceHere[subdivision][bin] >= -FishStateUtilities.EPSILON,
+                                                    "There is now a negative amount of male fish left" );
                         abundanceHere[subdivision][bin]=0;
                     }
 
                 }
             }
-            lastComputedBiomass[species.getIndex()]=Double.NaN;
         }
 
 
     }
 
 
+    /**
+     * the live abundance of this species here; since the caller may modify it, the biomass of this species will be
+     * recounted next time it is asked for
+     */
     @Override
     public StructuredAbundance getAbundance(Species species) {
-        Arrays.fill(lastComputedBiomass,Double.NaN); //force a recount after calling this
+        lastComputedBiomass[species.getIndex()] = Double.NaN; //force a recount after calling this
 
-        return new StructuredAbundance(abundance.get(species)
-        );
+        return views[species.getIndex()];
 
     }
 
@@ -52,5 +52,19 @@ public interface AgingProcess {
             Collection<AbundanceLocalBiology> localBiology, Species species,
             FishState model, boolean rounding, int daysToSimulate);
 
+    /**
+     * ages the abundance of many tiles at once, as a {@link FlatAbundanceStore} keeps it: tile after tile, each a
+     * block of subdivision after subdivision
+     * @param abundance the abundance of every tile (and what actually gets modified)
+     * @param tiles number of tiles
+     * @param rounding whether we expect numbers to be rounded to integers
+     * @param daysToSimulate simulation days
+     * @return false if this process can only age local biologies, in which case nothing was done
+     */
+    default boolean age(
+            Species species, double[] abundance, int tiles, boolean rounding, int daysToSimulate) {
+        return false;
+    }
+
 
 }
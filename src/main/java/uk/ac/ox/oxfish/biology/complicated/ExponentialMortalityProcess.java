@@ -83,5 +83,31 @@ public class ExponentialMortalityProcess implements NaturalMortalityProcess {
         }
     }
 
+    /**
+     * same as culling each tile, in one pass over the store
+     */
+    @Override
+    public void cull(
+            Meristics species, boolean rounding, double[] abundance, int tiles, int daysSimulated) {
+        Preconditions.checkArgument(species.getNumberOfSubdivisions() ==mortalityParameters.length,
+                                    "There ought to be a mortality parameter for each subdivision/cohort");
+
+        double scaling = daysSimulated/365d;
+        final int bins = species.getNumberOfBins();
+        final double[] survivingProportion = new double[mortalityParameters.length];
+        for(int subdivision=0; subdivision<survivingProportion.length; subdivision++)
+            survivingProportion[subdivision] = Math.exp((-mortalityParameters[subdivision] * scaling));
+
+        int cell = 0;
+        for(int tile=0; tile<tiles; tile++)
+            for(int subdivision=0; subdivision<survivingProportion.length; subdivision++)
+                for (int i = 0; i < bins; i++, cell++)
+                {
+                    abundance[cell] = abundance[cell] * survivingProportion[subdivision];
+                    if (rounding)
+                        abundance[cell] = (int) FishStateUtilities.round(abundance[cell]);
+                }
+    }
+
 
 }
@@ -0,0 +1,147 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2017  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+
+package uk.ac.ox.oxfish.biology.complicated;
+
+import com.google.common.base.MoreObjects;
+import uk.ac.ox.oxfish.biology.GlobalBiology;
+import uk.ac.ox.oxfish.biology.Species;
+import uk.ac.ox.oxfish.model.FishState;
+import uk.ac.ox.oxfish.utility.FishStateUtilities;
+
+/**
+ * An abundance local biology whose numbers live in a {@link FlatAbundanceStore}. Asking for the abundance of a
+ * species checks its numbers out of the store into a matrix this biology keeps (and reuses), which holds them until
+ * the store takes them back before its next loop over all tiles.
+ */
+public class FlatAbundanceLocalBiology extends AbundanceLocalBiology {
+
+    private final FlatAbundanceStore store;
+
+    /**
+     * this tile's position in the store
+     */
+    private final int slot;
+
+    /**
+     * for each species (by index) the matrix its numbers are checked out into, null until first needed
+     */
+    private final double[][][] matrices;
+
+    /**
+     * the structured abundance wrapping each matrix
+     */
+    private final StructuredAbundance[] views;
+
+    /**
+     * for each species (by index) whether the matrix, rather than the store, holds the numbers
+     */
+    private final boolean[] checkedOut;
+
+    FlatAbundanceLocalBiology(FlatAbundanceStore store, int slot, GlobalBiology biology) {
+        this.store = store;
+        this.slot = slot;
+        matrices = new double[biology.getSize()][][];
+        views = new StructuredAbundance[biology.getSize()];
+        checkedOut = new boolean[biology.getSize()];
+    }
+
+    /**
+     * the live abundance of this species here, good until the store next loops over every tile; since the caller
+     * may modify it, the biomass of this species will be recounted next time it is asked for
+     */
+    @Override
+    public StructuredAbundance getAbundance(Species species) {
+        final int index = species.getIndex();
+        if (!checkedOut[index]) {
+            if (matrices[index] == null) {
+                matrices[index] = new double[species.getNumberOfSubdivisions()][species.getNumberOfBins()];
+                views[index] = new StructuredAbundance(matrices[index]);
+            }
+            final double[] numbers = store.getAbundance(index);
+            final int bins = species.getNumberOfBins();
+            final int start = slot * store.getStride(species);
+            for (int subdivision = 0; subdivision < matrices[index].length; subdivision++)
+                System.arraycopy(numbers, start + subdivision * bins, matrices[index][subdivision], 0, bins);
+            checkedOut[index] = true;
+        }
+        store.getBiomass(index)[slot] = Double.NaN;
+        return views[index];
+    }
+
+    @Override
+    public double getBiomass(Species species) {
+        final int index = species.getIndex();
+        final double[] biomass = store.getBiomass(index);
+        if (Double.isNaN(biomass[slot])) {
+            biomass[slot] = checkedOut[index] ?
+                FishStateUtilities.weigh(views[index], species.getMeristics()) :
+                store.weigh(species, slot);
+            assert !Double.isNaN(biomass[slot]);
+        }
+        return biomass[slot];
+    }
+
+    @Override
+    public void start(FishState model) {
+        for (int index = 0; index < checkedOut.length; index++)
+            store.getBiomass(index)[slot] = Double.NaN;
+    }
+
+    /**
+     * copies the matrix of this species back into the store, if checked out
+     */
+    void checkIn(int speciesIndex, double[] numbers) {
+        if (!checkedOut[speciesIndex])
+            return;
+        final double[][] matrix = matrices[speciesIndex];
+        final int bins = matrix[0].length;
+        final int start = slot * matrix.length * bins;
+        for (int subdivision = 0; subdivision < matrix.length; subdivision++)
+            System.arraycopy(matrix[subdivision], 0, numbers, start + subdivision * bins, bins);
+        checkedOut[speciesIndex] = false;
+    }
+
+    /**
+     * drops the matrices of the species that are not checked out
+     */
+    void release() {
+        for (int index = 0; index < matrices.length; index++)
+            if (!checkedOut[index]) {
+                matrices[index] = null;
+                views[index] = null;
+            }
+    }
+
+    FlatAbundanceStore getStore() {
+        return store;
+    }
+
+    int getSlot() {
+        return slot;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("slot", slot)
+                .toString();
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2017  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+
+package uk.ac.ox.oxfish.biology.complicated;
+
+import uk.ac.ox.oxfish.biology.GlobalBiology;
+import uk.ac.ox.oxfish.biology.Species;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps the abundance of many tiles species by species, each in one flat array: tile after tile, subdivision after
+ * subdivision, bin after bin. The tiles' local biologies are {@link FlatAbundanceLocalBiology} views into it. <br>
+ * Java can't hand out rows of a larger array, so a view asked for its {@link StructuredAbundance} copies its block
+ * into a matrix of its own and from then on that matrix holds the numbers ("checked out"). Every loop over the whole
+ * store (natural processes, flux diffusion) first copies the checked out matrices back, so an abundance object
+ * obtained from a view is only good until the next biology step. Tiles are rarely touched one by one (fishing,
+ * mostly) so most of them never need a matrix.
+ */
+public class FlatAbundanceStore {
+
+    private final GlobalBiology biology;
+
+    /**
+     * for each species (by index), how many numbers each tile keeps: subdivisions times bins
+     */
+    private final int[] strides;
+
+    /**
+     * for each species (by index), all the abundance
+     */
+    private final double[][] abundance;
+
+    /**
+     * for each species (by index) and tile, the biomass last weighed; NaN when it needs recounting
+     */
+    private final double[][] biomass;
+
+    private final List<FlatAbundanceLocalBiology> locals = new ArrayList<>();
+
+    /**
+     * number of tiles the arrays have room for
+     */
+    private int capacity = 0;
+
+    public FlatAbundanceStore(GlobalBiology biology) {
+        this.biology = biology;
+        strides = new int[biology.getSize()];
+        abundance = new double[biology.getSize()][];
+        biomass = new double[biology.getSize()][];
+        for (Species species : biology.getSpecies()) {
+            strides[species.getIndex()] = species.getNumberOfSubdivisions() * species.getNumberOfBins();
+            abundance[species.getIndex()] = new double[0];
+            biomass[species.getIndex()] = new double[0];
+        }
+    }
+
+    /**
+     * adds a tile to the store, empty
+     * @return its local biology
+     */
+    public FlatAbundanceLocalBiology newLocal() {
+        final int slot = locals.size();
+        if (slot == capacity) {
+            capacity = Math.max(16, slot * 2);
+            for (int index = 0; index < abundance.length; index++) {
+                abundance[index] = Arrays.copyOf(abundance[index], capacity * strides[index]);
+                biomass[index] = Arrays.copyOf(biomass[index], capacity);
+            }
+        }
+        for (double[] weights : biomass)
+            weights[slot] = Double.NaN;
+        final FlatAbundanceLocalBiology local = new FlatAbundanceLocalBiology(this, slot, biology);
+        locals.add(local);
+        return local;
+    }
+
+    /**
+     * copies every checked out matrix back and lets the locals drop them; useful once the tiles have been filled
+     * one by one
+     */
+    public void compact() {
+        for (Species species : biology.getSpecies())
+            checkIn(species);
+        for (FlatAbundanceLocalBiology local : locals)
+            local.release();
+    }
+
+    /**
+     * @return number of tiles in the store
+     */
+    public int getNumberOfTiles() {
+        return locals.size();
+    }
+
+    /**
+     * @return the store of these biologies when they are all (and only) the tiles of one store, null otherwise
+     */
+    static FlatAbundanceStore of(List<? extends AbundanceLocalBiology> biologies) {
+        if (biologies.isEmpty() || !(biologies.get(0) instanceof FlatAbundanceLocalBiology))
+            return null;
+        final FlatAbundanceStore store = ((FlatAbundanceLocalBiology) biologies.get(0)).getStore();
+        if (store.getNumberOfTiles() != biologies.size())
+            return null;
+        final boolean[] seen = new boolean[biologies.size()];
+        for (AbundanceLocalBiology biology : biologies) {
+            if (!(biology instanceof FlatAbundanceLocalBiology) ||
+                ((FlatAbundanceLocalBiology) biology).getStore() != store ||
+                seen[((FlatAbundanceLocalBiology) biology).getSlot()])
+                return null;
+            seen[((FlatAbundanceLocalBiology) biology).getSlot()] = true;
+        }
+        return store;
+    }
+
+    /**
+     * @return for each biology (all of them views of a store) its tile in the store
+     */
+    static int[] slotsOf(List<? extends AbundanceLocalBiology> biologies) {
+        final int[] slots = new int[biologies.size()];
+        for (int i = 0; i < slots.length; i++)
+            slots[i] = ((FlatAbundanceLocalBiology) biologies.get(i)).getSlot();
+        return slots;
+    }
+
+    /**
+     * copies back the checked out matrices of this species and forgets its biomass, ready for a loop over every tile
+     * @return the abundance of this species, live
+     */
+    double[] checkIn(Species species) {
+        final int index = species.getIndex();
+        for (FlatAbundanceLocalBiology local : locals)
+            local.checkIn(index, abundance[index]);
+        forget(species);
+        return abundance[index];
+    }
+
+    /**
+     * the whole species' biomass will be recounted
+     */
+    void forget(Species species) {
+        Arrays.fill(biomass[species.getIndex()], 0, locals.size(), Double.NaN);
+    }
+
+    int getStride(Species species) {
+        return strides[species.getIndex()];
+    }
+
+    double[] getAbundance(int speciesIndex) {
+        return abundance[speciesIndex];
+    }
+
+    double[] getBiomass(int speciesIndex) {
+        return biomass[speciesIndex];
+    }
+
+    /**
+     * same sum, in the same order, as {@link uk.ac.ox.oxfish.utility.FishStateUtilities#weigh(StructuredAbundance, Meristics)}
+     */
+    double weigh(Species species, int slot) {
+        final Meristics meristics = species.getMeristics();
+        final double[] numbers = abundance[species.getIndex()];
+        final int bins = meristics.getNumberOfBins();
+        final int start = slot * strides[species.getIndex()];
+        double totalWeight = 0;
+        for (int subdivision = 0; subdivision < meristics.getNumberOfSubdivisions(); subdivision++)
+            for (int bin = 0; bin < bins; bin++)
+                totalWeight += numbers[start + subdivision * bins + bin] * meristics.getWeight(subdivision, bin);
+        return totalWeight;
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2017  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+package uk.ac.ox.oxfish.biology.complicated;
+
+import com.google.common.base.Preconditions;
+import sim.util.Bag;
+import uk.ac.ox.oxfish.biology.Species;
+import uk.ac.ox.oxfish.geography.NauticalMap;
+import uk.ac.ox.oxfish.geography.SeaTile;
+import uk.ac.ox.oxfish.model.FishState;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * A deterministic alternative to {@link ConstantRateAbundanceDiffuser}: rather than visiting tile pairs in random
+ * order and moving (randomly rounded) fish one pair at a time, every bin of every tile exchanges
+ * rate * (fish there - fish here) with each of its neighbours, all computed from the abundance at the start of the
+ * day. Since the neighbourhood is symmetric what leaves a tile arrives somewhere else and no fish are created or lost.
+ * <br>
+ * The neighbour graph is built the first time and kept as index arrays; each day the abundance is copied into one
+ * flat array and then every tile writes only its own new abundance, so tiles can be updated in parallel and the
+ * result does not depend on the number of threads. Only bins between smallest and largest moving bin move. When the
+ * tiles are those of a {@link FlatAbundanceStore} its array is updated directly, without going through the tiles.
+ */
+public class FluxAbundanceDiffuser implements AbundanceDiffuser {
+
+    /**
+     * how many cells distant can this species move in a day?
+     */
+    private final int diffusingRange;
+
+    /**
+     * % of differential that moves from here to there
+     */
+    private final double diffusingRate;
+
+    private final int smallestMovingBin;
+
+    private final int largestMovingBin;
+
+    /**
+     * when true the tiles are updated in parallel (the results do not change)
+     */
+    private final boolean parallel;
+
+    /**
+     * the biologies map the graph below was built for
+     */
+    private Map<SeaTile, AbundanceLocalBiology> graphOf;
+
+    private AbundanceLocalBiology[] locals;
+
+    /**
+     * for each tile, the index (in locals) of all its neighbours
+     */
+    private int[][] neighbors;
+
+    /**
+     * the store the tiles are all views of, or null
+     */
+    private FlatAbundanceStore store;
+
+    /**
+     * for each tile, its position in the store
+     */
+    private int[] slots;
+
+    /**
+     * the rate actually used: the diffusing rate, lowered if needed so that no tile can give away more fish than it has
+     */
+    private double rate;
+
+    /**
+     * start of the day abundance: tile after tile, subdivision after subdivision
+     */
+    private double[] snapshot = new double[0];
+
+    public FluxAbundanceDiffuser(
+            int diffusingRange, double diffusingRate,
+            int smallestMovingBin, int largestMovingBin,
+            boolean parallel) {
+        Preconditions.checkArgument(diffusingRange >= 0);
+        Preconditions.checkArgument(diffusingRate >= 0);
+        Preconditions.checkArgument(diffusingRate <= 1);
+        Preconditions.checkArgument(smallestMovingBin <= largestMovingBin);
+        this.diffusingRange = diffusingRange;
+        this.diffusingRate = diffusingRate;
+        this.smallestMovingBin = smallestMovingBin;
+        this.largestMovingBin = largestMovingBin;
+        this.parallel = parallel;
+    }
+
+    public FluxAbundanceDiffuser(int diffusingRange, double diffusingRate) {
+        this(diffusingRange, diffusingRate, 0, Integer.MAX_VALUE, false);
+    }
+
+    @Override
+    public void step(
+            Species species,
+            Map<SeaTile, AbundanceLocalBiology> biologies,
+            FishState model) {
+
+        if (graphOf != biologies || locals.length != biologies.size())
+            buildGraph(biologies, model.getMap());
+        final int tiles = locals.length;
+        if (tiles == 0 || rate == 0)
+            return;
+
+        if (store != null) {
+            stepFlat(species, tiles);
+            return;
+        }
+
+        final double[][][] abundance = new double[tiles][][];
+        for (int i = 0; i < tiles; i++)
+            abundance[i] = locals[i].getAbundance(species).asMatrix();
+        final int subdivisions = abundance[0].length;
+        final int bins = abundance[0][0].length;
+        final int from = Math.max(smallestMovingBin, 0);
+        final int to = Math.min(largestMovingBin, bins - 1);
+        if (from > to)
+            return;
+
+        final int stride = subdivisions * bins;
+        if (snapshot.length != tiles * stride)
+            snapshot = new double[tiles * stride];
+        final double[] before = snapshot;
+        run(tiles, i -> {
+            for (int subdivision = 0; subdivision < subdivisions; subdivision++)
+                System.arraycopy(abundance[i][subdivision], 0, before, i * stride + subdivision * bins, bins);
+        });
+        run(tiles, i -> {
+            final int[] around = neighbors[i];
+            final double stay = 1d - rate * around.length;
+            for (int subdivision = 0; subdivision < subdivisions; subdivision++) {
+                final double[] here = abundance[i][subdivision];
+                final int offset = subdivision * bins;
+                final int start = i * stride + offset;
+                for (int bin = from; bin <= to; bin++)
+                    here[bin] = before[start + bin] * stay;
+                for (int neighbor : around) {
+                    final int there = neighbor * stride + offset;
+                    for (int bin = from; bin <= to; bin++)
+                        here[bin] += rate * before[there + bin];
+                }
+            }
+        });
+    }
+
+    /**
+     * the same update, reading a copy of the store's array and writing into it
+     */
+    private void stepFlat(Species species, int tiles) {
+        final double[] abundance = store.checkIn(species);
+        final int bins = species.getNumberOfBins();
+        final int subdivisions = species.getNumberOfSubdivisions();
+        final int from = Math.max(smallestMovingBin, 0);
+        final int to = Math.min(largestMovingBin, bins - 1);
+        if (from > to)
+            return;
+
+        final int stride = store.getStride(species);
+        if (snapshot.length != tiles * stride)
+            snapshot = new double[tiles * stride];
+        final double[] before = snapshot;
+        System.arraycopy(abundance, 0, before, 0, tiles * stride);
+        run(tiles, i -> {
+            final int[] around = neighbors[i];
+            final double stay = 1d - rate * around.length;
+            for (int subdivision = 0; subdivision < subdivisions; subdivision++) {
+                final int offset = subdivision * bins;
+                final int start = slots[i] * stride + offset;
+                for (int bin = from; bin <= to; bin++)
+                    abundance[start + bin] = before[start + bin] * stay;
+                for (int neighbor : around) {
+                    final int there = slots[neighbor] * stride + offset;
+                    for (int bin = from; bin <= to; bin++)
+                        abundance[start + bin] += rate * before[there + bin];
+                }
+            }
+        });
+    }
+
+    private void run(int tiles, IntConsumer update) {
+        if (parallel)
+            IntStream.range(0, tiles).parallel().forEach(update);
+        else
+            for (int i = 0; i < tiles; i++)
+                update.accept(i);
+    }
+
+    /**
+     * indexes the tiles in the order the map iterates them and stores for each the neighbours that also have an
+     * abundance biology
+     */
+    private void buildGraph(Map<SeaTile, AbundanceLocalBiology> biologies, NauticalMap map) {
+        final Map<SeaTile, Integer> indices = new HashMap<>();
+        locals = new AbundanceLocalBiology[biologies.size()];
+        final SeaTile[] tiles = new SeaTile[biologies.size()];
+        for (Map.Entry<SeaTile, AbundanceLocalBiology> entry : biologies.entrySet()) {
+            indices.put(entry.getKey(), indices.size());
+            tiles[indices.size() - 1] = entry.getKey();
+            locals[indices.size() - 1] = entry.getValue();
+        }
+
+        neighbors = new int[tiles.length][];
+        int mostNeighbors = 0;
+        for (int i = 0; i < tiles.length; i++) {
+            final Bag mooreNeighbors = map.getMooreNeighbors(tiles[i], diffusingRange);
+            final int[] kept = new int[mooreNeighbors.size()];
+            int size = 0;
+            for (Object inBag : mooreNeighbors) {
+                final Integer index = indices.get(inBag);
+                if (index != null && index != i)
+                    kept[size++] = index;
+            }
+            neighbors[i] = Arrays.copyOf(kept, size);
+            mostNeighbors = Math.max(mostNeighbors, size);
+        }
+        rate = mostNeighbors == 0 ? 0 : Math.min(diffusingRate, 1d / mostNeighbors);
+        store = FlatAbundanceStore.of(Arrays.asList(locals));
+        slots = store == null ? null : FlatAbundanceStore.slotsOf(Arrays.asList(locals));
+        graphOf = biologies;
+    }
+
+    /**
+     * Getter for property 'diffusingRange'.
+     *
+     * @return Value for property 'diffusingRange'.
+     */
+    public int getDiffusingRange() {
+        return diffusingRange;
+    }
+
+    /**
+     * Getter for property 'diffusingRate'.
+     *
+     * @return Value for property 'diffusingRate'.
+     */
+    public double getDiffusingRate() {
+        return diffusingRate;
+    }
+
+    /**
+     * Getter for property 'parallel'.
+     *
+     * @return Value for property 'parallel'.
+     */
+    public boolean isParallel() {
+        return parallel;
+    }
+}
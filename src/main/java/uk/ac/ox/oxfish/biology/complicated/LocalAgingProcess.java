@@ -57,4 +57,14 @@ public abstract class LocalAgingProcess implements AgingProcess {
             int daysToSimulate);
 
 
+    /**
+     * whether {@link #ageLocally} can be called on different local biologies at the same time. Processes that draw
+     * from the model randoms need to return false so that tiles are aged one at a time, in order.
+     * @return true by default
+     */
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+
 }
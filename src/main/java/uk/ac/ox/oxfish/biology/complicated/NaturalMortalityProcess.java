@@ -31,4 +31,29 @@ public interface NaturalMortalityProcess {
      */
     void cull(
             Meristics species, boolean rounding, StructuredAbundance structuredAbundance, int daysSimulated);
+
+    /**
+     * culls the abundance of many tiles at once, as a {@link FlatAbundanceStore} keeps it: tile after tile, each a
+     * block of subdivision after subdivision. By default each tile is copied into a matrix and culled on its own;
+     * processes that can should do it in one loop
+     * @param species the fish species to kill
+     * @param rounding whether we want the process to round all abundances to closest int
+     * @param abundance the abundance of every tile (and what actually gets modified)
+     * @param tiles number of tiles
+     * @param daysSimulated how many days are we simulating the mortality for
+     */
+    default void cull(
+            Meristics species, boolean rounding, double[] abundance, int tiles, int daysSimulated) {
+        final StructuredAbundance tile = new StructuredAbundance(species.getNumberOfSubdivisions(),
+                                                                 species.getNumberOfBins());
+        final double[][] matrix = tile.asMatrix();
+        final int bins = species.getNumberOfBins();
+        for (int start = 0; start < tiles * matrix.length * bins; start += matrix.length * bins) {
+            for (int subdivision = 0; subdivision < matrix.length; subdivision++)
+                System.arraycopy(abundance, start + subdivision * bins, matrix[subdivision], 0, bins);
+            cull(species, rounding, tile, daysSimulated);
+            for (int subdivision = 0; subdivision < matrix.length; subdivision++)
+                System.arraycopy(matrix[subdivision], 0, abundance, start + subdivision * bins, bins);
+        }
+    }
 }
@@ -91,6 +91,14 @@ public class ProportionalAgingProcess extends LocalAgingProcess {
     }
 
 
+    /**
+     * draws from the model randoms, tiles need to age one at a time
+     */
+    @Override
+    public boolean isThreadSafe() {
+        return false;
+    }
+
     /**
      * tells you for these many fish how many age and how many don't
      * @param binAbundance the number of fish
@@ -55,4 +55,20 @@ public class ProportionalMortalityProcess implements NaturalMortalityProcess {
                     abundanceMatrix[cohort][bin] = FishStateUtilities.quickRounding(abundanceMatrix[cohort][bin]);
             }
     }
+
+    /**
+     * the same proportion everywhere, so the whole store is culled in one pass
+     */
+    @Override
+    public void cull(
+            Meristics species, boolean rounding, double[] abundance, int tiles, int daysSimulated) {
+        double scaling = daysSimulated/365d;
+        double effectiveMortality = 1d-Math.pow(1d-yearlyMortality,scaling);
+        final int cells = tiles * species.getNumberOfSubdivisions() * species.getNumberOfBins();
+        for(int cell=0; cell<cells; cell++) {
+            abundance[cell] -= abundance[cell] * (effectiveMortality);
+            if(rounding)
+                abundance[cell] = FishStateUtilities.quickRounding(abundance[cell]);
+        }
+    }
 }
@@ -32,11 +32,12 @@ import uk.ac.ox.oxfish.model.Startable;
 import uk.ac.ox.oxfish.model.StepOrder;
 import uk.ac.ox.oxfish.utility.FishStateUtilities;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.function.ToDoubleFunction;
+import java.util.function.Consumer;
 
 /**
  * An aggregator of natural processes that applies recruitment, mortality
@@ -97,6 +98,30 @@ public class SingleSpeciesNaturalProcesses implements Steppable, Startable
 
     private final Map<SeaTile,AbundanceLocalBiology> biologies = new LinkedHashMap<>();
 
+    /**
+     * the same biologies (and their tiles) in the order they were added; iterated by index every step
+     */
+    private final List<AbundanceLocalBiology> biologyList = new ArrayList<>();
+
+    private final List<SeaTile> tileList = new ArrayList<>();
+
+    /**
+     * when true mortality and (thread safe) aging are applied to each local biology in parallel. Recruitment and
+     * allocation stay sequential as they may draw from the model randoms, so results do not change
+     */
+    private boolean parallel = false;
+
+    /**
+     * when the biologies are all the tiles of one {@link FlatAbundanceStore} the processes loop over its arrays
+     * rather than going through each biology; null otherwise
+     */
+    private FlatAbundanceStore store;
+
+    /**
+     * for each biology (in the order they were added) its tile in the store
+     */
+    private int[] slots;
+
     /**
      * schedules itself every year
      *
@@ -107,6 +132,8 @@ public class SingleSpeciesNaturalProcesses implements Steppable, Startable
     {
 
         this.agingProcess.start(species);
+        store = FlatAbundanceStore.of(biologyList);
+        slots = store == null ? null : FlatAbundanceStore.slotsOf(biologyList);
         if(!daily) {
             model.scheduleEveryYear(this, StepOrder.BIOLOGY_PHASE);
             model.scheduleEveryDay(new Steppable() {
@@ -154,24 +181,19 @@ public class SingleSpeciesNaturalProcesses implements Steppable, Startable
          *
          */
         //we need to sum up all the abundances
-        List<StructuredAbundance> abundances = new LinkedList<>();
-        for (AbundanceLocalBiology biology : biologies.values()) {
-            abundances.add(biology.getAbundance(species));
-        }
+        StructuredAbundance total = store == null ? sumAbundance() : sumFlatAbundance();
         //now create the total number of recruits
         lastRecruits = recruitment.recruit(species, species.getMeristics(),
-                                           StructuredAbundance.sum(abundances, abundances.get(0).getBins(),
-                                                                   abundances.get(0).getSubdivisions()),
+                                           total,
                                            model.getDayOfTheYear(),
                                            daysSimulated());
         if (rounding)
             lastRecruits = (int) (lastRecruits);
-        abundances.clear();
 
 
         //decide where recruits are going to go before mortality hits
         //either allocate recruits with given allocator or proportional to where biomass is
-        final LinkedHashMap<AbundanceLocalBiology, Double> biomassWeight = prepareAllocation(model);
+        final double[] biomassWeight = prepareAllocation(model);
 
         /***
          *      __  __         _        _ _ _
@@ -190,11 +212,7 @@ public class SingleSpeciesNaturalProcesses implements Steppable, Startable
          *     /_/ \_\__, |_|_||_\__, |
          *           |___/       |___/
          */
-        agingProcess.age(biologies.values(),
-                         species,
-                         model,
-                         rounding,
-                         daysSimulated());
+        age(model);
 
 
         /***
@@ -210,80 +228,125 @@ public class SingleSpeciesNaturalProcesses implements Steppable, Startable
 
 
         }
+        if(store != null)
+            store.forget(species);
     }
 
-    @NotNull
-    private LinkedHashMap<AbundanceLocalBiology, Double> prepareAllocation(FishState model) {
-        final LinkedHashMap<AbundanceLocalBiology, Double> biomassWeight= new LinkedHashMap<>();
-        if (lastRecruits > 0) {
-            if (recruitsAllocator != null) {
-
-                double sum = 0;
-                for (Map.Entry<SeaTile, AbundanceLocalBiology> entry : biologies.entrySet()) {
-                    double weight = recruitsAllocator.allocate(entry.getKey(),
-                                                               model.getMap(),
-                                                               model.getRandom());
-                    sum += weight;
-                    biomassWeight.put(entry.getValue(), weight);
-
-                }
-                Preconditions.checkArgument(sum > 0, "No area valid for recruits!");
-                for (AbundanceLocalBiology biology : biologies.values()) {
-                    biomassWeight.replace(biology, biomassWeight.get(biology) / sum);
-                    Preconditions.checkArgument(Double.isFinite(biomassWeight.get(biology)),
-                                                "some weights are not finite");
-                }
+    private StructuredAbundance sumAbundance() {
+        StructuredAbundance firstAbundance = biologyList.get(0).getAbundance(species);
+        StructuredAbundance total = new StructuredAbundance(firstAbundance.getSubdivisions(),
+                                                            firstAbundance.getBins());
+        for (AbundanceLocalBiology biology : biologyList) {
+            double[][] local = biology.getAbundance(species).asMatrix();
+            for (int subdivision = 0; subdivision < local.length; subdivision++) {
+                double[] totalRow = total.asMatrix()[subdivision];
+                for (int bin = 0; bin < totalRow.length; bin++)
+                    totalRow[bin] += local[subdivision][bin];
+            }
+        }
+        return total;
+    }
 
+    /**
+     * same sum, in the same order, straight from the store
+     */
+    private StructuredAbundance sumFlatAbundance() {
+        final double[] abundance = store.checkIn(species);
+        final int bins = species.getNumberOfBins();
+        final int stride = store.getStride(species);
+        StructuredAbundance total = new StructuredAbundance(species.getNumberOfSubdivisions(), bins);
+        for (int slot : slots) {
+            for (int subdivision = 0; subdivision < total.getSubdivisions(); subdivision++) {
+                double[] totalRow = total.asMatrix()[subdivision];
+                final int start = slot * stride + subdivision * bins;
+                for (int bin = 0; bin < bins; bin++)
+                    totalRow[bin] += abundance[start + bin];
             }
-            else {
-                //map for each biology its total weight
-                double totalBiomass = biologies.values().stream().mapToDouble(
-                        value -> {
-                            Double biomass = value.getBiomass(species);
-                            biomassWeight.put(value, biomass);
-                            return biomass;
-                        }).sum();
-                //reweight so they add up to 1
-                for (AbundanceLocalBiology bio : biomassWeight.keySet())
-                    biomassWeight.put(bio, biomassWeight.get(bio) / totalBiomass);
+        }
+        return total;
+    }
 
+    /**
+     * @return for each biology (in the order they were added) the share of recruits it receives;
+     * an empty array if there are no recruits
+     */
+    @NotNull
+    private double[] prepareAllocation(FishState model) {
+        if (lastRecruits <= 0)
+            return new double[0];
+        final double[] biomassWeight = new double[biologyList.size()];
+        if (recruitsAllocator != null) {
+
+            double sum = 0;
+            for (int i = 0; i < biomassWeight.length; i++) {
+                double weight = recruitsAllocator.allocate(tileList.get(i),
+                                                           model.getMap(),
+                                                           model.getRandom());
+                sum += weight;
+                biomassWeight[i] = weight;
 
             }
+            Preconditions.checkArgument(sum > 0, "No area valid for recruits!");
+            for (int i = 0; i < biomassWeight.length; i++) {
+                biomassWeight[i] = biomassWeight[i] / sum;
+                Preconditions.checkArgument(Double.isFinite(biomassWeight[i]),
+                                            "some weights are not finite");
+            }
+
+        }
+        else {
+            //map for each biology its total weight
+            for (int i = 0; i < biomassWeight.length; i++)
+                biomassWeight[i] = biologyList.get(i).getBiomass(species);
+            double totalBiomass = Arrays.stream(biomassWeight).sum();
+            //reweight so they add up to 1
+            for (int i = 0; i < biomassWeight.length; i++)
+                biomassWeight[i] = biomassWeight[i] / totalBiomass;
+
+
         }
         return biomassWeight;
     }
 
-    private void allocate(@NotNull LinkedHashMap<AbundanceLocalBiology, Double> biomassWeight) {
+    /**
+     * recruits are handed out one biology at a time (in the order they were added) since, when rounding,
+     * whatever can't be allocated in one place is carried over to the next
+     */
+    private void allocate(@NotNull double[] biomassWeight) {
         //make sure it all sum up to 1!
-        assert Math.abs(biomassWeight.values().stream().
-                mapToDouble(
-                        new ToDoubleFunction<Double>() {
-                            @Override
-                            public double applyAsDouble(Double value) {
-                                return value;
-                            }
-                        }).sum()-1d)<.001d;
+        assert Math.abs(Arrays.stream(biomassWeight).sum()-1d)<.001d;
         double leftOver = 0;
-        for (Map.Entry<AbundanceLocalBiology, Double> biologyBiomass : biomassWeight.entrySet()) {
-            double ratio = biologyBiomass.getValue();
+        final int subdivisions = species.getNumberOfSubdivisions();
+        //with a store the recruits go straight in its array, first bin of each subdivision
+        final double[] flat = store == null ? null : store.checkIn(species);
+        for (int i = 0; i < biomassWeight.length; i++) {
+            double ratio = biomassWeight[i];
             double recruitsHere = ((lastRecruits + leftOver) * ratio);
-            StructuredAbundance abundance = biologyBiomass.getKey().getAbundance(species);
+            final double[][] abundance = store == null ? biologyList.get(i).getAbundance(species).asMatrix() : null;
+            final int start = store == null ? 0 : slots[i] * store.getStride(species);
+            final int bins = species.getNumberOfBins();
 
             if(rounding)
             {
                 recruitsHere = (int) recruitsHere;
                 int totalAllocated = 0;
-                for(int subdivision = 0; subdivision <abundance.getSubdivisions(); subdivision++) {
-                    abundance.asMatrix()[subdivision][0] += ((int) recruitsHere) / (abundance.getSubdivisions());
-                    totalAllocated+= ((int) recruitsHere) / (abundance.getSubdivisions());
+                for(int subdivision = 0; subdivision <subdivisions; subdivision++) {
+                    if(abundance != null)
+                        abundance[subdivision][0] += ((int) recruitsHere) / (subdivisions);
+                    else
+                        flat[start + subdivision * bins] += ((int) recruitsHere) / (subdivisions);
+                    totalAllocated+= ((int) recruitsHere) / (subdivisions);
                 }
                 leftOver = ((lastRecruits + leftOver) * ratio) -totalAllocated;
 
 
             }
             else {
-                for (int subdivision = 0; subdivision < abundance.getSubdivisions(); subdivision++) {
-                    abundance.asMatrix()[subdivision][0] += (recruitsHere) / ((double)abundance.getSubdivisions());
+                for (int subdivision = 0; subdivision < subdivisions; subdivision++) {
+                    if(abundance != null)
+                        abundance[subdivision][0] += (recruitsHere) / ((double)subdivisions);
+                    else
+                        flat[start + subdivision * bins] += (recruitsHere) / ((double)subdivisions);
 
                 }
             }
@@ -291,12 +354,45 @@ public class SingleSpeciesNaturalProcesses implements Steppable, Startable
         }
     }
 
+    /**
+     * mortality is independent from tile to tile, so a store is culled in one pass and, when running in parallel,
+     * each biology is culled on its own fork-join task
+     */
     private void kill() {
-        for (AbundanceLocalBiology abundanceBasedLocalBiology : biologies.values()) {
-            mortality.cull(
-                    species.getMeristics(), rounding,
-                    abundanceBasedLocalBiology.getAbundance(species), daysSimulated());
+        if (store != null) {
+            mortality.cull(species.getMeristics(), rounding, store.checkIn(species),
+                           store.getNumberOfTiles(), daysSimulated());
+            return;
         }
+        final Consumer<AbundanceLocalBiology> cull = biology -> mortality.cull(
+                species.getMeristics(), rounding,
+                biology.getAbundance(species), daysSimulated());
+        if (parallel)
+            biologyList.parallelStream().forEach(cull);
+        else
+            biologyList.forEach(cull);
+    }
+
+    /**
+     * a store is aged in one pass if the process can; local aging processes that are thread safe can age each
+     * biology on its own fork-join task; everything else goes through the aging process as usual
+     */
+    private void age(FishState model) {
+        if (store != null &&
+                agingProcess.age(species, store.checkIn(species), store.getNumberOfTiles(), rounding, daysSimulated()))
+            return;
+        if (parallel && agingProcess instanceof LocalAgingProcess &&
+                ((LocalAgingProcess) agingProcess).isThreadSafe()) {
+            final LocalAgingProcess localAging = (LocalAgingProcess) agingProcess;
+            biologyList.parallelStream().forEach(
+                    biology -> localAging.ageLocally(biology, species, model, rounding, daysSimulated()));
+        }
+        else
+            agingProcess.age(biologyList,
+                             species,
+                             model,
+                             rounding,
+                             daysSimulated());
     }
 
     private int daysSimulated() {
@@ -310,6 +406,8 @@ public class SingleSpeciesNaturalProcesses implements Steppable, Startable
         Preconditions.checkArgument(!biologies.containsKey(tile));
         Preconditions.checkArgument(!biologies.containsKey(localBiology));
         biologies.put(tile, localBiology);
+        biologyList.add(localBiology);
+        tileList.add(tile);
     }
 
 
@@ -420,4 +518,22 @@ public class SingleSpeciesNaturalProcesses implements Steppable, Startable
     public Species getSpecies() {
         return species;
     }
+
+    /**
+     * Getter for property 'parallel'.
+     *
+     * @return Value for property 'parallel'.
+     */
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    /**
+     * Setter for property 'parallel'.
+     *
+     * @param parallel Value to set for property 'parallel'.
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
 }
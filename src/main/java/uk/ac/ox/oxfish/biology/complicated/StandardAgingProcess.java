@@ -81,6 +81,26 @@ public class StandardAgingProcess extends LocalAgingProcess {
         }
     }
 
+    /**
+     * the same escalator, segment by segment along the store
+     */
+    @Override
+    public boolean age(
+            Species species, double[] abundance, int tiles, boolean rounding, int daysToSimulate) {
+        Preconditions.checkArgument(daysToSimulate==365, "This should be used yearly!");
+        final int bins = species.getNumberOfBins();
+        final int segments = tiles * species.getNumberOfSubdivisions();
+        for(int start=0; start<segments*bins; start+=bins)
+        {
+            double oldest = abundance[start+bins-1];
+            System.arraycopy(abundance,start,abundance,start+1,bins-1);
+            abundance[start] = 0;
+            if(preserveLastAge)
+                abundance[start+bins-1]+= oldest;
+        }
+        return true;
+    }
+
 
     /**
      * Getter for property 'preserveLastAge'.
@@ -82,8 +82,7 @@ public class VariableProportionAging extends LocalAgingProcess {
         double[][] abundance = localBiology.getAbundance(species).asMatrix();
 
         //scale graduating proportion lazily
-        lazyEvaluation(daysToSimulate);
-        assert daysToSimulateLastLazyEvaluation == daysToSimulate;
+        double[][] graduation = lazyEvaluation(daysToSimulate);
 
         for(int subdivision=0; subdivision<abundance.length; subdivision++)
         {
@@ -91,7 +90,7 @@ public class VariableProportionAging extends LocalAgingProcess {
                                                 abundance[subdivision].length, "length mismatch between aging speed and # of bins");
             variableAging(
                     abundance[subdivision],
-                    lazyGraduation[subdivision]
+                    graduation[subdivision]
             );
         }
 
@@ -100,9 +99,10 @@ public class VariableProportionAging extends LocalAgingProcess {
 
 
     /**
-     * quick helper to avoid rescaling the same vector by the same factor every time
+     * quick helper to avoid rescaling the same vector by the same factor every time;
+     * synchronized since tiles may be aged in parallel
      */
-    private void lazyEvaluation(int daysToSimulate){
+    private synchronized double[][] lazyEvaluation(int daysToSimulate){
         if(daysToSimulate==daysToSimulateLastLazyEvaluation)
         {
             assert lazyGraduation !=null;
@@ -117,6 +117,7 @@ public class VariableProportionAging extends LocalAgingProcess {
             }
             this.daysToSimulateLastLazyEvaluation = daysToSimulate;
         }
+        return lazyGraduation;
     }
 
 
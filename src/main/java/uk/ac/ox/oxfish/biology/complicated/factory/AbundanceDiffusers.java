@@ -48,6 +48,7 @@ public class AbundanceDiffusers {
         NAMES.put(NoDiffuserFactory.class, "No Diffusion");
         NAMES.put(ConstantRateDiffuserFactory.class, "Constant Rate Diffusion");
         NAMES.put(AgeLimitedConstantRateDiffuserFactory.class, "Bin-Restricted Diffusion");
+        NAMES.put(FluxDiffuserFactory.class, "Deterministic Flux Diffusion");
         CONSTRUCTORS = Constructors.fromNames(NAMES);
     }
 
@@ -95,10 +95,12 @@ public class MultipleIndependentSpeciesBiomassInitializer implements BiologyInit
 
 
         ArrayList<Pair<Species,BiomassMovementRule>> movements = new ArrayList<>(initializers.size());
+        boolean parallelDiffusion = false;
         for (SingleSpeciesBiomassInitializer initializer : initializers)
         {
             //do not let them create their own movement!
             initializer.setForceMovementOff(true);
+            parallelDiffusion = parallelDiffusion || initializer.isParallelDiffusion();
 
             initializer.processMap(biology, map, random, model);
             movements.add(
@@ -122,6 +124,7 @@ public class MultipleIndependentSpeciesBiomassInitializer implements BiologyInit
         BiomassDiffuserContainer diffuser = new BiomassDiffuserContainer(
                 map,random,biology,movements.toArray(new Pair[movements.size()])
         );
+        diffuser.setParallel(parallelDiffusion);
         model.scheduleEveryDay(diffuser, StepOrder.BIOLOGY_PHASE);
 
 
@@ -109,6 +109,21 @@ public class SingleSpeciesAbundanceInitializer implements BiologyInitializer
     private final boolean daily;
     private final boolean rounding;
 
+    /**
+     * whether the natural processes cull and age tiles in parallel
+     */
+    private boolean parallelNaturalProcesses = false;
+
+    /**
+     * whether the tiles keep their abundance in one {@link FlatAbundanceStore} rather than each on its own
+     */
+    private boolean flatAbundance = false;
+
+    /**
+     * the store of all the tiles generated, when flat
+     */
+    private FlatAbundanceStore store;
+
     public SingleSpeciesAbundanceInitializer(
             String speciesName,
             InitialAbundance initialAbundance,
@@ -215,7 +230,9 @@ public class SingleSpeciesAbundanceInitializer implements BiologyInitializer
         )  <= 0))
             return  new EmptyLocalBiology();
         else {
-            AbundanceLocalBiology local = new AbundanceLocalBiology(biology);
+            if(flatAbundance && store == null)
+                store = new FlatAbundanceStore(biology);
+            AbundanceLocalBiology local = flatAbundance ? store.newLocal() : new AbundanceLocalBiology(biology);
             initialWeights.put(seaTile, weight);
             return local;
         }
@@ -273,6 +290,7 @@ public class SingleSpeciesAbundanceInitializer implements BiologyInitializer
                 mortality, daily);
         if(recruitmentAllocator !=null)
             processes.setRecruitsAllocator(recruitmentAllocator);
+        processes.setParallel(parallelNaturalProcesses);
 
 
         final DataColumn recruitmentColumn = model.getDailyDataSet().registerGatherer(
@@ -316,6 +334,10 @@ public class SingleSpeciesAbundanceInitializer implements BiologyInitializer
         }
 
 
+        //the tiles were filled one by one, put the numbers back in the store
+        if(store != null)
+            store.compact();
+
         //start it!
         model.registerStartable(processes);
 
@@ -411,4 +433,20 @@ public class SingleSpeciesAbundanceInitializer implements BiologyInitializer
     public Map<SeaTile, Double> getInitialWeights() {
         return initialWeights;
     }
+
+    public boolean isParallelNaturalProcesses() {
+        return parallelNaturalProcesses;
+    }
+
+    public void setParallelNaturalProcesses(boolean parallelNaturalProcesses) {
+        this.parallelNaturalProcesses = parallelNaturalProcesses;
+    }
+
+    public boolean isFlatAbundance() {
+        return flatAbundance;
+    }
+
+    public void setFlatAbundance(boolean flatAbundance) {
+        this.flatAbundance = flatAbundance;
+    }
 }
@@ -86,6 +86,11 @@ public class SingleSpeciesBiomassInitializer implements BiologyInitializer{
      */
     private boolean forceMovementOff = false;
 
+    /**
+     * when true the biomass diffuser moves all tiles at once, in parallel (see {@link BiomassDiffuserContainer#setParallel(boolean)})
+     */
+    private boolean parallelDiffusion = false;
+
 
     private boolean hasAlreadyWarned = false;
 
@@ -317,6 +322,7 @@ public class SingleSpeciesBiomassInitializer implements BiologyInitializer{
                             movementRule
                     )
             );
+            diffuser.setParallel(parallelDiffusion);
             model.scheduleEveryDay(diffuser, StepOrder.BIOLOGY_PHASE);
         }
 
@@ -471,4 +477,22 @@ public class SingleSpeciesBiomassInitializer implements BiologyInitializer{
     public void setUnfishable(boolean unfishable) {
         this.unfishable = unfishable;
     }
+
+    /**
+     * Getter for property 'parallelDiffusion'.
+     *
+     * @return Value for property 'parallelDiffusion'.
+     */
+    public boolean isParallelDiffusion() {
+        return parallelDiffusion;
+    }
+
+    /**
+     * Setter for property 'parallelDiffusion'.
+     *
+     * @param parallelDiffusion Value to set for property 'parallelDiffusion'.
+     */
+    public void setParallelDiffusion(boolean parallelDiffusion) {
+        this.parallelDiffusion = parallelDiffusion;
+    }
 }
@@ -68,6 +68,17 @@ public class SingleSpeciesAbundanceFactory implements AlgorithmFactory<SingleSpe
 
     private boolean histogrammerOutput = false;
 
+    /**
+     * when true mortality and aging are applied to each tile in parallel
+     */
+    private boolean parallelNaturalProcesses = false;
+
+    /**
+     * when true all tiles keep their abundance in one flat array per species, which the natural processes (and the
+     * flux diffuser) loop over directly
+     */
+    private boolean flatAbundance = false;
+
     /**
      * Applies this function to the given argument.
      *
@@ -80,7 +91,7 @@ public class SingleSpeciesAbundanceFactory implements AlgorithmFactory<SingleSpe
         if(histogrammerOutput)
             state.getOutputPlugins().add(new CatchesHistogrammer());
 
-        return new SingleSpeciesAbundanceInitializer(
+        SingleSpeciesAbundanceInitializer initializer = new SingleSpeciesAbundanceInitializer(
                 speciesName,
                 initialAbundanceFactory.apply(state),
                 initialAbundanceAllocator.apply(state),
@@ -92,7 +103,9 @@ public class SingleSpeciesAbundanceFactory implements AlgorithmFactory<SingleSpe
                 recruitAllocator.apply(state),
                 habitabilityAllocator.apply(state),
                 mortalityProcess.apply(state), daily, rounding);
-
+        initializer.setParallelNaturalProcesses(parallelNaturalProcesses);
+        initializer.setFlatAbundance(flatAbundance);
+        return initializer;
 
     }
 
@@ -359,4 +372,40 @@ public class SingleSpeciesAbundanceFactory implements AlgorithmFactory<SingleSpe
     public void setHistogrammerOutput(boolean histogrammerOutput) {
         this.histogrammerOutput = histogrammerOutput;
     }
+
+    /**
+     * Getter for property 'parallelNaturalProcesses'.
+     *
+     * @return Value for property 'parallelNaturalProcesses'.
+     */
+    public boolean isParallelNaturalProcesses() {
+        return parallelNaturalProcesses;
+    }
+
+    /**
+     * Setter for property 'parallelNaturalProcesses'.
+     *
+     * @param parallelNaturalProcesses Value to set for property 'parallelNaturalProcesses'.
+     */
+    public void setParallelNaturalProcesses(boolean parallelNaturalProcesses) {
+        this.parallelNaturalProcesses = parallelNaturalProcesses;
+    }
+
+    /**
+     * Getter for property 'flatAbundance'.
+     *
+     * @return Value for property 'flatAbundance'.
+     */
+    public boolean isFlatAbundance() {
+        return flatAbundance;
+    }
+
+    /**
+     * Setter for property 'flatAbundance'.
+     *
+     * @param flatAbundance Value to set for property 'flatAbundance'.
+     */
+    public void setFlatAbundance(boolean flatAbundance) {
+        this.flatAbundance = flatAbundance;
+    }
 }
@@ -62,6 +62,11 @@ public class SingleSpeciesBiomassFactory implements AlgorithmFactory<SingleSpeci
 
     private boolean unfishable = false;
 
+    /**
+     * diffuse biomass between all tiles at once, in parallel
+     */
+    private boolean parallelDiffusion = false;
+
     /**Si
      * Applies this function to the given argument.
      *
@@ -75,7 +80,7 @@ public class SingleSpeciesBiomassFactory implements AlgorithmFactory<SingleSpeci
         double  movementRate = differentialPercentageToMove.apply(state.getRandom());
         double  movementLimit = percentageLimitOnDailyMovement.apply(state.getRandom());
 
-        return new SingleSpeciesBiomassInitializer(
+        SingleSpeciesBiomassInitializer initializer = new SingleSpeciesBiomassInitializer(
                 initialBiomassAllocator.apply(state),
                 initialCapacityAllocator.apply(state),
                 movementRate > 0 & movementLimit > 0 ?
@@ -90,6 +95,8 @@ public class SingleSpeciesBiomassFactory implements AlgorithmFactory<SingleSpeci
 
 
                 unfishable);
+        initializer.setParallelDiffusion(parallelDiffusion);
+        return initializer;
 
 
 
@@ -225,4 +232,22 @@ public class SingleSpeciesBiomassFactory implements AlgorithmFactory<SingleSpeci
     public void setUnfishable(boolean unfishable) {
         this.unfishable = unfishable;
     }
+
+    /**
+     * Getter for property 'parallelDiffusion'.
+     *
+     * @return Value for property 'parallelDiffusion'.
+     */
+    public boolean isParallelDiffusion() {
+        return parallelDiffusion;
+    }
+
+    /**
+     * Setter for property 'parallelDiffusion'.
+     *
+     * @param parallelDiffusion Value to set for property 'parallelDiffusion'.
+     */
+    public void setParallelDiffusion(boolean parallelDiffusion) {
+        this.parallelDiffusion = parallelDiffusion;
+    }
 }
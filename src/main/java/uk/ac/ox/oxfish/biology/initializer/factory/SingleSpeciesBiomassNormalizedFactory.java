@@ -77,6 +77,11 @@ public class SingleSpeciesBiomassNormalizedFactory implements AlgorithmFactory<S
 
     private boolean unfishable = false;
 
+    /**
+     * diffuse biomass between all tiles at once, in parallel
+     */
+    private boolean parallelDiffusion = false;
+
     /**
      * Applies this function to the given argument.
      *
@@ -92,7 +97,7 @@ public class SingleSpeciesBiomassNormalizedFactory implements AlgorithmFactory<S
 
 
         Double actualCarryingCapacity = carryingCapacity.apply(state.getRandom());
-        return new SingleSpeciesBiomassInitializer(
+        SingleSpeciesBiomassInitializer initializer = new SingleSpeciesBiomassInitializer(
                 new ConstantInitialBiomass(Double.NaN)
                 ,
                 initialBiomassAllocator.apply(state),
@@ -110,6 +115,8 @@ public class SingleSpeciesBiomassNormalizedFactory implements AlgorithmFactory<S
                 grower.apply(state),
                 true,
                 unfishable);
+        initializer.setParallelDiffusion(parallelDiffusion);
+        return initializer;
 
 
     }
@@ -285,4 +292,22 @@ public class SingleSpeciesBiomassNormalizedFactory implements AlgorithmFactory<S
     public void setUnfishable(boolean unfishable) {
         this.unfishable = unfishable;
     }
+
+    /**
+     * Getter for property 'parallelDiffusion'.
+     *
+     * @return Value for property 'parallelDiffusion'.
+     */
+    public boolean isParallelDiffusion() {
+        return parallelDiffusion;
+    }
+
+    /**
+     * Setter for property 'parallelDiffusion'.
+     *
+     * @param parallelDiffusion Value to set for property 'parallelDiffusion'.
+     */
+    public void setParallelDiffusion(boolean parallelDiffusion) {
+        this.parallelDiffusion = parallelDiffusion;
+    }
 }
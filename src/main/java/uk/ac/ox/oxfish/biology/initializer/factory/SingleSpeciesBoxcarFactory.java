@@ -38,6 +38,8 @@ import uk.ac.ox.oxfish.utility.FishStateUtilities;
 import uk.ac.ox.oxfish.utility.parameters.DoubleParameter;
 import uk.ac.ox.oxfish.utility.parameters.FixedDoubleParameter;
 
+import java.nio.file.Paths;
+
 
 /**
  * a factory for box car that keeps track of most parameters in one place and then feeds them to independent natural process factories.
@@ -107,6 +109,11 @@ public class SingleSpeciesBoxcarFactory implements AlgorithmFactory<SingleSpecie
 
     private AlgorithmFactory<? extends BiomassAllocator> habitabilityAllocator = new ConstantAllocatorFactory();
 
+    /**
+     * folder where virgin abundances are stored between runs; leave empty to never store them
+     */
+    private String virginAbundanceCacheDirectory = "";
+
 
     /**
      * Applies this function to the given argument.
@@ -149,7 +156,9 @@ public class SingleSpeciesBoxcarFactory implements AlgorithmFactory<SingleSpecie
                 aging,
                 recruitmentInstance,
                 meristicsInstance,
-                mortality);
+                mortality,
+                virginAbundanceCacheDirectory == null || virginAbundanceCacheDirectory.trim().isEmpty() ?
+                        null : Paths.get(virginAbundanceCacheDirectory));
         StructuredAbundance structuredAbundance = simulator.virginCondition(state, 100);
         Preconditions.checkState(structuredAbundance.getSubdivisions()==1, "invalid boxcar abundance structure!");
         double scaling = initialBtOverK.apply(state.getRandom());
@@ -518,4 +527,22 @@ public class SingleSpeciesBoxcarFactory implements AlgorithmFactory<SingleSpecie
     public void setAbundanceSimulator(BoxCarSimulator abundanceSimulator) {
         this.abundanceSimulator = abundanceSimulator;
     }
+
+    /**
+     * Getter for property 'virginAbundanceCacheDirectory'.
+     *
+     * @return Value for property 'virginAbundanceCacheDirectory'.
+     */
+    public String getVirginAbundanceCacheDirectory() {
+        return virginAbundanceCacheDirectory;
+    }
+
+    /**
+     * Setter for property 'virginAbundanceCacheDirectory'.
+     *
+     * @param virginAbundanceCacheDirectory Value to set for property 'virginAbundanceCacheDirectory'.
+     */
+    public void setVirginAbundanceCacheDirectory(String virginAbundanceCacheDirectory) {
+        this.virginAbundanceCacheDirectory = virginAbundanceCacheDirectory;
+    }
 }
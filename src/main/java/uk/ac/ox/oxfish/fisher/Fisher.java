@@ -31,9 +31,11 @@ import uk.ac.ox.oxfish.biology.LocalBiology;
 import uk.ac.ox.oxfish.biology.Species;
 import uk.ac.ox.oxfish.fisher.actions.Action;
 import uk.ac.ox.oxfish.fisher.actions.ActionResult;
+import uk.ac.ox.oxfish.fisher.actions.AtPort;
 import uk.ac.ox.oxfish.fisher.actions.Moving;
 import uk.ac.ox.oxfish.fisher.equipment.Boat;
 import uk.ac.ox.oxfish.fisher.equipment.Catch;
+import uk.ac.ox.oxfish.fisher.equipment.CatchBuffer;
 import uk.ac.ox.oxfish.fisher.equipment.Hold;
 import uk.ac.ox.oxfish.fisher.equipment.gear.Gear;
 import uk.ac.ox.oxfish.fisher.erotetic.FeatureExtractor;
@@ -51,7 +53,9 @@ import uk.ac.ox.oxfish.fisher.strategies.weather.WeatherEmergencyStrategy;
 import uk.ac.ox.oxfish.geography.NauticalMap;
 import uk.ac.ox.oxfish.geography.SeaTile;
 import uk.ac.ox.oxfish.geography.ports.Port;
+import uk.ac.ox.oxfish.model.BatchedFishing;
 import uk.ac.ox.oxfish.model.FishState;
+import uk.ac.ox.oxfish.model.ParallelFisherPhase;
 import uk.ac.ox.oxfish.model.Startable;
 import uk.ac.ox.oxfish.model.StepOrder;
 import uk.ac.ox.oxfish.model.data.collectors.*;
@@ -183,6 +187,41 @@ public class Fisher implements Steppable, Startable{
      */
     private Stoppable receipt;
 
+    /**
+     * this fisher's own randomizer when stepped by a {@link ParallelFisherPhase}, null otherwise
+     */
+    private MersenneTwisterFast randomStream;
+
+    /**
+     * the departure decision taken in parallel before this step, if any; null once used (or if none was taken)
+     */
+    private Boolean plannedDeparture;
+
+    /**
+     * where to go if we do depart, chosen in parallel before this step; null once used (or if none was chosen)
+     */
+    private SeaTile plannedDestination;
+
+    /**
+     * hours of this step still to act once the batched catch we are waiting for is in the hold; 0 if not waiting
+     */
+    private double hoursLeftInStep = 0;
+
+    /**
+     * what the gear caught in the last tow, reused from tow to tow
+     */
+    private final CatchBuffer caughtBuffer = new CatchBuffer();
+
+    /**
+     * what was kept of the last tow, reused from tow to tow
+     */
+    private final CatchBuffer keptBuffer = new CatchBuffer();
+
+    /**
+     * handle of the effort column in the yearly counter, counted at every tow; resolved once memory is started
+     */
+    private int yearlyEffortColumn = -1;
+
 
     /**
      * collection of adaptation algorithms to fire every 2 months
@@ -314,11 +353,15 @@ public class Fisher implements Steppable, Startable{
 
         this.state = state;
         this.status.setNetwork(state.getSocialNetwork());
-        receipt = state.scheduleEveryStep(this, StepOrder.FISHER_PHASE);
+        if(state.getParallelFisherPhase() != null)
+            receipt = state.getParallelFisherPhase().add(this, state);
+        else
+            receipt = state.scheduleEveryStep(this, StepOrder.FISHER_PHASE);
 
 
         //start datas
         memory.start(state, this);
+        yearlyEffortColumn = memory.getYearlyCounter().getHandle(FisherYearlyTimeSeries.EFFORT);
 
         //start the regulations
         getRegulation().start(state,this);
@@ -391,7 +434,36 @@ public class Fisher implements Steppable, Startable{
         equipment.getBoat().newStep();
 
         //run the state machine
-        double hoursLeft = model.getHoursPerStep();
+        act(model, model.getHoursPerStep());
+
+        plannedDeparture = null;
+        plannedDestination = null;
+
+    }
+
+    /**
+     * carries on with the step after it was interrupted to wait for a batched catch (see {@link #hasStepLeft()})
+     */
+    public void resumeStep(FishState model) {
+        Preconditions.checkState(hasStepLeft());
+        act(model, hoursLeftInStep);
+    }
+
+    /**
+     * @return true if the fisher stopped halfway through its step to wait for the catch it asked for to be in the
+     * hold and still has hours left to act this step
+     */
+    public boolean hasStepLeft() {
+        return hoursLeftInStep > 0;
+    }
+
+    /**
+     * takes actions until the hours are over or, when fishing is batched, until we are waiting for the catch to be
+     * hauled (as everything we do next may depend on what's in the hold)
+     */
+    private void act(FishState model, double hoursLeft) {
+        hoursLeftInStep = 0;
+        final BatchedFishing batchedFishing = model.getBatchedFishing();
         while(true)
         {
             //pre-action accounting
@@ -418,17 +490,69 @@ public class Fisher implements Steppable, Startable{
                 assert  Math.abs(hoursLeft)<.001 : hoursLeft; //shouldn't be negative!
                 break;
             }
+
+            //if you asked to fish, wait for the catch before doing anything else
+            if(batchedFishing != null && batchedFishing.isWaitingForCatch(this))
+            {
+                hoursLeftInStep = hoursLeft;
+                break;
+            }
         }
+    }
 
+    /**
+     * The part of the step that only reads the world and can therefore run in parallel with the other fishers: if at
+     * port, decide whether to leave and, when leaving and the destination strategy allows it (see
+     * {@link DestinationStrategy#canChooseInParallel()}), where to go. Nothing shared changes while the fishers
+     * prepare, so they all see the world (heatmaps, other fishers, the map) as it was at the start of the step. The
+     * {@link ParallelFisherPhase} calls this for every fisher before stepping them; the step itself then commits the
+     * destination, unless by then the regulations keep the fisher home.
+     */
+    public void prepareStep(FishState model) {
+        if(status.getAction() instanceof AtPort)
+        {
+            updateFuelEmergencyFlag(model.getMap());
+            plannedDeparture = shouldDepart(model, status.getRegulation());
+            if(plannedDeparture && !status.isAnyEmergencyFlagOn() && destinationStrategy.canChooseInParallel())
+                plannedDestination = destinationStrategy.chooseDestination(this, grabRandomizer(), model,
+                                                                           status.getAction());
+        }
+    }
 
+    /**
+     * asked every hour the fisher spends at port. If the decision for this hour was already taken in
+     * {@link #prepareStep(FishState)} return that
+     * @param model the model
+     * @param regulation the regulation that tells us whether we can leave
+     * @return true if the fisher wants and is allowed to leave port now
+     */
+    public boolean decideWhetherToDepart(FishState model, Regulation regulation) {
+        if(plannedDeparture != null)
+        {
+            final boolean decision = plannedDeparture;
+            plannedDeparture = null;
+            return decision;
+        }
+        return shouldDepart(model, regulation);
+    }
 
+    private boolean shouldDepart(FishState model, Regulation regulation) {
+        return (regulation.allowedAtSea(this, model) || isCheater()) && shouldFisherLeavePort(model);
     }
 
     /**
      * weird name to avoid beans
      */
     public MersenneTwisterFast grabRandomizer() {
-        return status.getRandom();
+        return randomStream != null ? randomStream : status.getRandom();
+    }
+
+    /**
+     * weird name to avoid beans
+     * @param randomStream the randomizer this fisher should draw from, null to go back to the one it was built with
+     */
+    public void assignRandomStream(MersenneTwisterFast randomStream) {
+        this.randomStream = randomStream;
     }
 
 
@@ -547,6 +671,11 @@ public class Fisher implements Steppable, Startable{
         double gasExpenditure = litersBought * status.getHomePort().getGasPricePerLiter();
         spendForTrip(gasExpenditure);
         memory.getYearlyCounter().count(FisherYearlyTimeSeries.FUEL_EXPENDITURE, gasExpenditure);
+        final FleetAccumulator fleet = getFleetAccumulator();
+        if(fleet != null) {
+            fleet.countHoursOut(this, status.getHoursAtSea());
+            fleet.countFuelConsumption(this, litersBought);
+        }
         if(status.getHoursAtSea()>0) //if you have been somewhere at all
         {
             memory.getYearlyCounter().count(FisherYearlyTimeSeries.TRIPS, 1);
@@ -579,6 +708,8 @@ public class Fisher implements Steppable, Startable{
 	        //account for the costs
 	        memory.getYearlyCounter().count(FisherYearlyTimeSeries.VARIABLE_COSTS,finished.getTotalCosts());
 	        memory.getYearlyCounter().count(FisherYearlyTimeSeries.EARNINGS,finished.getEarnings());
+	        if(fleet != null)
+	            fleet.countTrip(this, finished.getEarnings(), finished.getTotalCosts());
 
         }
 
@@ -612,9 +743,13 @@ public class Fisher implements Steppable, Startable{
                 (!status.getRegulation().allowedAtSea(this, model) && !cheater )
                         || status.isAnyEmergencyFlagOn())
             status.setDestination(status.getHomePort().getLocation());
+        //if we chose where to go while preparing the step, go there
+        else if(plannedDestination != null)
+            status.setDestination(plannedDestination);
         else
             status.setDestination(
                     destinationStrategy.chooseDestination(this, status.getRandom(), model, currentAction));
+        plannedDestination = null;
         Preconditions.checkNotNull(status.getDestination(), "Destination can never be null!");
     }
 
@@ -789,11 +924,17 @@ public class Fisher implements Steppable, Startable{
      */
     public void fishHere(GlobalBiology modelBiology, int hoursSpentFishing, FishState state)
     {
-
+        //preamble
+        SeaTile here = status.getLocation();
+        Preconditions.checkState(here.isWater(), "can't fish on land!");
         //compute the catches (but kill nothing yet)
-        fishHere(modelBiology,hoursSpentFishing,state,status.getLocation());
-
-
+        catchHere(here, here, hoursSpentFishing, modelBiology);
+        Catch kept = keepFromCatchBuffer(here, hoursSpentFishing, modelBiology, state);
+        Catch catchOfTheDay = caughtBuffer.toCatch(modelBiology);
+        //make local react to catches (involves killing, usually)
+        removeFishAfterFishing(modelBiology, catchOfTheDay, kept, here);
+        //pull the fish up, store it, and burn fuel
+        recordAndHaulCatch(hoursSpentFishing, here, catchOfTheDay, kept, state);
     }
 
     /**
@@ -811,31 +952,76 @@ public class Fisher implements Steppable, Startable{
         SeaTile here = status.getLocation();
         Preconditions.checkState(here.isWater(), "can't fish on land!");
         //compute the catches (but kill nothing yet)
-        Pair<Catch, Catch> catchesAndKept = computeCatchesHere(status.getLocation(),
-                                                               localBiology,
-                                                               hoursSpentFishing,
-                                                               modelBiology,
-                                                               state);
+        catchHere(here, localBiology, hoursSpentFishing, modelBiology);
+        Catch kept = keepFromCatchBuffer(here, hoursSpentFishing, modelBiology, state);
+        Catch catchOfTheDay = caughtBuffer.toCatch(modelBiology);
         //make local react to catches (involves killing, usually)
-        removeFishAfterFishing(modelBiology, catchesAndKept.getFirst(), catchesAndKept.getSecond(), localBiology);
+        removeFishAfterFishing(modelBiology, catchOfTheDay, kept, localBiology);
         //pull the fish up, store it, and burn fuel
-        recordAndHaulCatch(hoursSpentFishing, here, catchesAndKept.getFirst(), catchesAndKept.getSecond(), state);
-        return catchesAndKept;
+        recordAndHaulCatch(hoursSpentFishing, here, catchOfTheDay, kept, state);
+        return new Pair<>(catchOfTheDay, kept);
     }
 
 
 
-    private Pair<Catch,Catch> computeCatchesHere(SeaTile context,
-                                                 LocalBiology biology,
-                                                int hoursSpentFishing, GlobalBiology modelBiology, FishState state)
+    /**
+     * fills this fisher's catch buffer with what the gear catches from the biology; nothing is killed. The buffer is
+     * reused at the next tow so whatever the caller needs to keep has to go through {@link CatchBuffer#toCatch(GlobalBiology)}
+     * @param context where the fisher is fishing
+     * @param biology what is being fished
+     * @param hoursSpentFishing hours spent fishing
+     * @param modelBiology the global biology object
+     * @return the catch buffer, filled
+     */
+    public CatchBuffer catchHere(SeaTile context,
+                                 LocalBiology biology,
+                                 int hoursSpentFishing, GlobalBiology modelBiology)
+    {
+        equipment.getGear().fish(caughtBuffer,
+                                 this,
+                                 biology,
+                                 context ,
+                                 hoursSpentFishing,
+                                 modelBiology);
+        return caughtBuffer;
+    }
+
+    /**
+     * asks the discarding strategy which part of the catch buffer (as filled by
+     * {@link #catchHere(SeaTile, LocalBiology, int, GlobalBiology)}, or set since) to keep
+     * @param context where the fish was caught
+     * @param hoursSpentFishing hours spent fishing
+     * @param modelBiology the global biology object
+     * @param state the model
+     * @return the part of the catch that is not discarded; the caught catch itself when nothing is
+     */
+    public Catch keepFromCatchBuffer(SeaTile context, int hoursSpentFishing, GlobalBiology modelBiology, FishState state)
     {
-        //transfer fish from local to here
-        Catch catchOfTheDay = equipment.getGear().fish(this,
-                                                       biology,
-                                                       context ,
-                                                       hoursSpentFishing,
-                                                       modelBiology);
-        Catch kept = discardingStrategy.chooseWhatToKeep(
+        boolean discarded = discardingStrategy.chooseWhatToKeep(
+                context,
+                this,
+                caughtBuffer,
+                keptBuffer,
+                hoursSpentFishing,
+                getRegulation(),
+                state,
+                grabRandomizer()
+        );
+        return discarded ?
+                keptBuffer.toCatch(modelBiology) :
+                caughtBuffer.toCatch(modelBiology);
+    }
+
+    /**
+     * ask the discarding strategy which part of the catch to keep
+     * @param context where the fish was caught
+     * @param catchOfTheDay everything the gear caught
+     * @param hoursSpentFishing hours spent fishing
+     * @param state the model
+     * @return the part of the catch that is not discarded
+     */
+    public Catch chooseWhatToKeep(SeaTile context, Catch catchOfTheDay, int hoursSpentFishing, FishState state) {
+        return discardingStrategy.chooseWhatToKeep(
                 context,
                 this,
                 catchOfTheDay,
@@ -844,24 +1030,56 @@ public class Fisher implements Steppable, Startable{
                 state,
                 grabRandomizer()
         );
-        return new Pair<>(catchOfTheDay,kept);
+    }
+
+    /**
+     * the second half of fishing, for when the local biology has already reacted to the catch (see
+     * {@link uk.ac.ox.oxfish.model.BatchedFishing}): count the catch, record it, let the regulations know, store it and
+     * burn fuel
+     * @param modelBiology the global biology object
+     * @param hoursSpentFishing hours spent fishing
+     * @param here where the fish was caught
+     * @param catchOfTheDay everything the gear caught
+     * @param notDiscarded the part of the catch that is kept
+     * @param state the model
+     */
+    public void haulCatch(
+            GlobalBiology modelBiology, int hoursSpentFishing, SeaTile here,
+            Catch catchOfTheDay, Catch notDiscarded, FishState state) {
+        if(catchOfTheDay.totalCatchWeight()> FishStateUtilities.EPSILON)
+            countCatches(modelBiology, catchOfTheDay);
+        recordAndHaulCatch(hoursSpentFishing, here, catchOfTheDay, notDiscarded, state);
     }
 
     private void removeFishAfterFishing(
             GlobalBiology modelBiology, Catch catchOfTheDay, Catch notDiscarded, LocalBiology biology) {
         if(catchOfTheDay.totalCatchWeight()> FishStateUtilities.EPSILON) {
             biology.reactToThisAmountOfBiomassBeingFished(catchOfTheDay, notDiscarded, modelBiology);
-            //now count catches (which isn't necessarilly landings)
-            for(Species species : modelBiology.getSpecies()) {
-                getDailyCounter().countCatches(species, catchOfTheDay.getWeightCaught(species));
+            countCatches(modelBiology, catchOfTheDay);
+        }
+    }
+
+    /**
+     * the fleet sums to push into, if the model keeps any
+     */
+    private FleetAccumulator getFleetAccumulator() {
+        return state == null ? null : state.getFleetAccumulator();
+    }
 
-                if(catchOfTheDay.hasAbundanceInformation() && species.getNumberOfBins() > 0) {
-                    getDailyCounter().countLandinngPerBin(species, catchOfTheDay);
-                    assert doubleCheckCounters(species);
+    private void countCatches(GlobalBiology modelBiology, Catch catchOfTheDay) {
+        //now count catches (which isn't necessarilly landings)
+        final FleetAccumulator fleet = getFleetAccumulator();
+        for(Species species : modelBiology.getSpecies()) {
+            getDailyCounter().countCatches(species, catchOfTheDay.getWeightCaught(species));
+            if(fleet != null)
+                fleet.countCatches(this, species, catchOfTheDay.getWeightCaught(species));
 
-                }
+            if(catchOfTheDay.hasAbundanceInformation() && species.getNumberOfBins() > 0) {
+                getDailyCounter().countLandinngPerBin(species, catchOfTheDay);
+                assert doubleCheckCounters(species);
 
             }
+
         }
     }
 
@@ -883,8 +1101,11 @@ public class Fisher implements Steppable, Startable{
         if(litersBurned>0)
             consumeFuel(litersBurned);
 
-        memory.getYearlyCounter().count(FisherYearlyTimeSeries.EFFORT, hoursSpentFishing);
-        memory.getDailyCounter().count(FisherYearlyTimeSeries.EFFORT, hoursSpentFishing);
+        memory.getYearlyCounter().count(yearlyEffortColumn, hoursSpentFishing);
+        memory.getDailyCounter().countEffort(hoursSpentFishing);
+        final FleetAccumulator fleet = getFleetAccumulator();
+        if(fleet != null)
+            fleet.countEffort(this, hoursSpentFishing);
     }
 
     public Gear getGear() {
@@ -945,7 +1166,7 @@ public class Fisher implements Steppable, Startable{
     public void earn(double moneyEarned)
     {
         status.setBankBalance(status.getBankBalance() + moneyEarned);
-        getDailyCounter().count(FisherYearlyTimeSeries.CASH_FLOW_COLUMN, moneyEarned);
+        getDailyCounter().countCashFlow(moneyEarned);
 
     }
 
@@ -958,7 +1179,7 @@ public class Fisher implements Steppable, Startable{
     {
         spendExogenously(moneySpent);
         memory.getTripLogger().recordCosts(moneySpent);
-        getDailyCounter().count(FisherYearlyTimeSeries.CASH_FLOW_COLUMN, -moneySpent);
+        getDailyCounter().countCashFlow(-moneySpent);
 
     }
 
@@ -982,7 +1203,7 @@ public class Fisher implements Steppable, Startable{
      */
     public void spendExogenously(double moneySpent){
         status.setBankBalance(status.getBankBalance() - moneySpent);
-        getDailyCounter().count(FisherYearlyTimeSeries.CASH_FLOW_COLUMN, -moneySpent);
+        getDailyCounter().countCashFlow(-moneySpent);
 
     }
 
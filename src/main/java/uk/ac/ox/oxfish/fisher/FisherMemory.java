@@ -173,6 +173,8 @@ public class FisherMemory implements Serializable, FisherStartable {
         yearlyCounter.addColumn(FisherYearlyTimeSeries.HOURS_OUT);
         dailyCounter = new FisherDailyCounter(model.getSpecies().size());
 
+        if(model.getFisherDailyDataRetention() > 0)
+            dailyTimeSeries.setRetentionWindow(model.getFisherDailyDataRetention());
         dailyTimeSeries.start(model, fisher);
         yearlyTimeSeries.start(model, fisher);
         yearlyCounter.start(model);
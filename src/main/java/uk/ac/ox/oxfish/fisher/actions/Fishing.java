@@ -22,6 +22,7 @@ package uk.ac.ox.oxfish.fisher.actions;
 
 import com.google.common.base.Preconditions;
 import uk.ac.ox.oxfish.fisher.Fisher;
+import uk.ac.ox.oxfish.model.BatchedFishing;
 import uk.ac.ox.oxfish.model.FishState;
 import uk.ac.ox.oxfish.model.regs.Regulation;
 
@@ -81,8 +82,12 @@ public class Fishing implements Action
         }
 
         if (hoursLeft >= MINIMUM_HOURS_TO_PRODUCE_A_CATCH) {
-            //fish!
-            agent.fishHere(model.getBiology(), MINIMUM_HOURS_TO_PRODUCE_A_CATCH, model);
+            //fish! (or, when fishing is batched, ask to; the fisher then waits for the catch before acting again)
+            final BatchedFishing batchedFishing = model.getBatchedFishing();
+            if(batchedFishing != null)
+                batchedFishing.request(agent, MINIMUM_HOURS_TO_PRODUCE_A_CATCH, model);
+            else
+                agent.fishHere(model.getBiology(), MINIMUM_HOURS_TO_PRODUCE_A_CATCH, model);
 
             model.recordFishing(agent.getLocation());
 
@@ -81,7 +81,7 @@ public class DeployFad extends PurseSeinerAction {
     ) {
         if (canHappen()) {
             SeaTile here = fisher.getLocation();
-            getFadManager().deployFad(here, model.getStep(), model.random); // TODO: make this a listener?
+            getFadManager().deployFad(here, model.getStep(), model.getRandom()); // TODO: make this a listener?
             getFadManager().reactTo(this);
         }
         return new ActionResult(new Arriving(), hoursLeft - toHours(getDuration()));
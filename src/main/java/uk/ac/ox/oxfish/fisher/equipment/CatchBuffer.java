@@ -0,0 +1,154 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2017  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+
+package uk.ac.ox.oxfish.fisher.equipment;
+
+import com.google.common.base.Preconditions;
+import uk.ac.ox.oxfish.biology.GlobalBiology;
+import uk.ac.ox.oxfish.biology.Species;
+import uk.ac.ox.oxfish.biology.complicated.Meristics;
+import uk.ac.ox.oxfish.biology.complicated.StructuredAbundance;
+
+import java.util.Arrays;
+
+/**
+ * A reusable, mutable holder for one tow's catch so that gears and discarding strategies can write into arrays that
+ * are allocated once per fisher rather than once per tow. <p>
+ * The buffer holds either a {@link Catch} (see {@link #set(Catch)}) or its own arrays, which are zeroed by
+ * {@link #reset(GlobalBiology, boolean)} and written until {@link #toCatch(GlobalBiology)}. That is where the
+ * (persistent) catch object is built, once per tow: the arrays are handed over to it rather than copied, and from
+ * then on the buffer is a view of that catch until the next reset.
+ */
+public class CatchBuffer {
+
+    private static final double[] NO_BIOMASS = new double[0];
+
+    private static final double[][][] NO_ABUNDANCE = new double[0][][];
+
+    private double[] biomass = NO_BIOMASS;
+
+    /**
+     * first index is species, then subdivision and bin; a species' matrix is null once handed over to a catch
+     */
+    private double[][][] abundance = NO_ABUNDANCE;
+
+    private boolean withAbundance = false;
+
+    /**
+     * the catch this buffer is a view of, null if the buffer holds its own numbers
+     */
+    private Catch source = null;
+
+    /**
+     * zeroes the buffer and readies it to be written
+     * @param biology the model biology
+     * @param withAbundance true if the catch is binned, in which case the biomass is computed from the abundance
+     */
+    public void reset(GlobalBiology biology, boolean withAbundance) {
+        source = null;
+        this.withAbundance = withAbundance;
+        final int numberOfSpecies = biology.getSize();
+        if (withAbundance) {
+            if (abundance.length != numberOfSpecies)
+                abundance = new double[numberOfSpecies][][];
+            for (Species species : biology.getSpecies()) {
+                final double[][] matrix = abundance[species.getIndex()];
+                if (matrix == null ||
+                    matrix.length != species.getNumberOfSubdivisions() ||
+                    (matrix.length > 0 && matrix[0].length != species.getNumberOfBins()))
+                    abundance[species.getIndex()] =
+                        new double[species.getNumberOfSubdivisions()][species.getNumberOfBins()];
+                else
+                    for (double[] row : matrix)
+                        Arrays.fill(row, 0);
+            }
+        }
+        else if (biomass.length != numberOfSpecies)
+            biomass = new double[numberOfSpecies];
+        else
+            Arrays.fill(biomass, 0);
+    }
+
+    /**
+     * makes this buffer a view of the catch (nothing is copied)
+     */
+    public void set(Catch caught) {
+        source = Preconditions.checkNotNull(caught);
+        withAbundance = caught.hasAbundanceInformation();
+    }
+
+    public boolean hasAbundanceInformation() {
+        return withAbundance;
+    }
+
+    /**
+     * the live abundance matrix (subdivisions x bins) of this species; write into it only after a reset
+     */
+    public double[][] getAbundance(int speciesIndex) {
+        Preconditions.checkState(withAbundance, "this catch is not binned");
+        return source != null ? source.getAbundance(speciesIndex).asMatrix() : abundance[speciesIndex];
+    }
+
+    /**
+     * pounds caught of this species (for binned catches this weighs the abundance every time it's called)
+     */
+    public double getWeightCaught(Species species) {
+        if (source != null)
+            return source.getWeightCaught(species);
+        if (withAbundance)
+            return weigh(abundance[species.getIndex()], species.getMeristics());
+        return biomass[species.getIndex()];
+    }
+
+    /**
+     * the catch object holding this buffer's numbers. The arrays become the catch's (they are not copied), so the
+     * buffer turns into a view of the catch and asking again returns the same object; the next reset allocates new
+     * arrays
+     */
+    public Catch toCatch(GlobalBiology biology) {
+        if (source != null)
+            return source;
+        if (!withAbundance) {
+            Preconditions.checkState(biomass.length == biology.getSize(), "nothing was written in the buffer");
+            source = new Catch(biomass);
+            biomass = NO_BIOMASS;
+            return source;
+        }
+        Preconditions.checkState(abundance.length == biology.getSize(), "nothing was written in the buffer");
+        final StructuredAbundance[] handedOver = new StructuredAbundance[abundance.length];
+        for (int index = 0; index < abundance.length; index++) {
+            handedOver[index] = new StructuredAbundance(abundance[index]);
+            abundance[index] = null;
+        }
+        source = new Catch(handedOver, biology);
+        return source;
+    }
+
+    /**
+     * same sum, in the same order, as {@link uk.ac.ox.oxfish.utility.FishStateUtilities#weigh(StructuredAbundance, Meristics)}
+     */
+    private static double weigh(double[][] abundance, Meristics meristics) {
+        double totalWeight = 0;
+        for (int subdivision = 0; subdivision < meristics.getNumberOfSubdivisions(); subdivision++)
+            for (int bin = 0; bin < meristics.getNumberOfBins(); bin++)
+                totalWeight += abundance[subdivision][bin] * meristics.getWeight(subdivision, bin);
+        return totalWeight;
+    }
+}
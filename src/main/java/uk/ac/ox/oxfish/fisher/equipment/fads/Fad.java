@@ -107,6 +107,16 @@ public class Fad implements Locatable {
      * In the unlikely event that the sea tile's carrying capacity is exceeded, the extra fish is lost.
      */
     public void releaseFish(Iterable<Species> allSpecies, VariableBiomassBasedBiology seaTileBiology) {
+        transferFish(allSpecies, seaTileBiology);
+        // release whatever is left in the FAD if the sea tile could not absorb it
+        releaseFish(allSpecies);
+    }
+
+    /**
+     * Send as much of the FAD biomass as the sea tile can absorb down to the sea tile's biology, keeping the rest.
+     * Only touches the two biologies, so FADs on different tiles can do this at the same time.
+     */
+    public void transferFish(Iterable<Species> allSpecies, VariableBiomassBasedBiology seaTileBiology) {
         allSpecies.forEach(species -> {
             final double seaTileBiomass = seaTileBiology.getBiomass(species);
             final double fadBiomass = biology.getBiomass(species);
@@ -116,8 +126,6 @@ public class Fad implements Locatable {
             biology.setCurrentBiomass(species, max(0, fadBiomass - biomassToTransfer));
             seaTileBiology.setCurrentBiomass(species, min(totalSeaTileCapacity, seaTileBiomass + biomassToTransfer));
         });
-        // release whatever is left in the FAD if the sea tile could not absorb it
-        releaseFish(allSpecies);
     }
 
     public void maybeReleaseFish(Iterable<Species> allSpecies, MersenneTwisterFast rng) {
@@ -136,6 +144,8 @@ public class Fad implements Locatable {
 
     public FadManager getOwner() { return owner; }
 
+    public double getFishReleaseProbability() { return fishReleaseProbability; }
+
     public double valueOfSet(Fisher fisher) {
         double buoyValue = getOwner() == getFadManager(fisher) ? BUOY_VALUE : 0;
         return buoyValue + priceOfFishHere(getBiology(), getMarkets(fisher));
@@ -25,6 +25,7 @@ import uk.ac.ox.oxfish.biology.LocalBiology;
 import uk.ac.ox.oxfish.fisher.Fisher;
 import uk.ac.ox.oxfish.fisher.equipment.Boat;
 import uk.ac.ox.oxfish.fisher.equipment.Catch;
+import uk.ac.ox.oxfish.fisher.equipment.CatchBuffer;
 import uk.ac.ox.oxfish.geography.SeaTile;
 
 /**
@@ -39,6 +40,20 @@ public interface Gear {
             SeaTile context, int hoursSpentFishing,
             GlobalBiology modelBiology);
 
+    /**
+     * Same as {@link #fish(Fisher, LocalBiology, SeaTile, int, GlobalBiology)} but writing the catch into a buffer
+     * the caller reuses from tow to tow. Gears that can fill the buffer without building a catch should override
+     * this; by default it just fishes and wraps the result.
+     */
+    default void fish(
+            CatchBuffer buffer,
+            Fisher fisher,
+            LocalBiology localBiology,
+            SeaTile context, int hoursSpentFishing,
+            GlobalBiology modelBiology) {
+        buffer.set(fish(fisher, localBiology, context, hoursSpentFishing, modelBiology));
+    }
+
     /**
      * get how much gas is consumed by fishing a spot with this gear
      * @param fisher  the dude fishing
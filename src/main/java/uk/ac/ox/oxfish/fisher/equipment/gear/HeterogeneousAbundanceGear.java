@@ -24,15 +24,15 @@ import com.google.common.base.Preconditions;
 import uk.ac.ox.oxfish.biology.GlobalBiology;
 import uk.ac.ox.oxfish.biology.LocalBiology;
 import uk.ac.ox.oxfish.biology.Species;
-import uk.ac.ox.oxfish.biology.complicated.StructuredAbundance;
 import uk.ac.ox.oxfish.fisher.Fisher;
 import uk.ac.ox.oxfish.fisher.equipment.Boat;
 import uk.ac.ox.oxfish.fisher.equipment.Catch;
+import uk.ac.ox.oxfish.fisher.equipment.CatchBuffer;
 import uk.ac.ox.oxfish.geography.SeaTile;
 import uk.ac.ox.oxfish.utility.Pair;
 
-import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -78,63 +78,48 @@ public class HeterogeneousAbundanceGear implements Gear
             Fisher fisher, LocalBiology localBiology, SeaTile context,
             int hoursSpentFishing, GlobalBiology modelBiology)
     {
-        Preconditions.checkArgument(hoursSpentFishing>0);
-        //create array containing biomass
-        return new Catch(catchesAsArray(localBiology, hoursSpentFishing, modelBiology), modelBiology);
-    }
-
-
-    //a temp keeping a bunch of empty abundances so that when we hit an area with no fish we can just recycle these
-    //rather than building more matrices
-    private StructuredAbundance[] emptyCatchesCache;
-
-    private StructuredAbundance getEmptyCatches(GlobalBiology biology, Species species)
-    {
-        if(emptyCatchesCache==null)
-            emptyCatchesCache = new StructuredAbundance[biology.getSize()];
-        if(emptyCatchesCache[species.getIndex()]==null)
-            emptyCatchesCache[species.getIndex()] = new StructuredAbundance(species.getNumberOfSubdivisions(),species.getNumberOfBins());
-        else
-            for(int row=0; row<species.getNumberOfSubdivisions(); row++)
-                Arrays.fill(emptyCatchesCache[species.getIndex()].asMatrix()[row],0d);
-        return emptyCatchesCache[species.getIndex()];
+        CatchBuffer buffer = new CatchBuffer();
+        fish(buffer, fisher, localBiology, context, hoursSpentFishing, modelBiology);
+        return buffer.toCatch(modelBiology);
     }
 
-    private StructuredAbundance[] catchesAsArray(
-            LocalBiology where, int hoursSpentFishing, GlobalBiology modelBiology) {
-
-
-        StructuredAbundance[] caught = new  StructuredAbundance[modelBiology.getSize()];
+    /**
+     * each species is fished by its own gear straight into the buffer; species without a gear are left empty
+     */
+    @Override
+    public void fish(
+            CatchBuffer buffer, Fisher fisher, LocalBiology localBiology, SeaTile context,
+            int hoursSpentFishing, GlobalBiology modelBiology) {
+        Preconditions.checkArgument(hoursSpentFishing>0);
+        buffer.reset(modelBiology, true);
         for(Species species : modelBiology.getSpecies())
         {
             if(species.isImaginary() || !gears.containsKey(species) )
-            {
-                //if it's imaginary or not set or there is no fish, just return empty
-                //double[][] abundance = HomogeneousAbundanceGear.emptyAbundance(species);
-                caught[species.getIndex()] = getEmptyCatches(modelBiology,species);
-
-            }
-            else {
-                caught[species.getIndex()] = gears.get(species).catchesAsAbundanceForThisSpecies(where,hoursSpentFishing,species);
-            }
-
+                continue;
+            gears.get(species).addCatchesOfThisSpecies(buffer.getAbundance(species.getIndex()),
+                                                       localBiology, hoursSpentFishing, species);
         }
-        return caught;
     }
 
+
     @Override
     public double[] expectedHourlyCatch(
             Fisher fisher, SeaTile where, int hoursSpentFishing, GlobalBiology modelBiology) {
-        StructuredAbundance[] abundances = catchesAsArray(where, hoursSpentFishing, modelBiology);
-        assert modelBiology.getSpecies().size() == abundances.length;
+        if(expectationBuffer == null)
+            expectationBuffer = new CatchBuffer();
+        fish(expectationBuffer, fisher, where, where, hoursSpentFishing, modelBiology);
 
-        double[] weights = new double[abundances.length];
+        double[] weights = new double[modelBiology.getSize()];
         for(Species species : modelBiology.getSpecies())
-            weights[species.getIndex()] = abundances[species.getIndex()].computeWeight(species);
-
+            weights[species.getIndex()] = expectationBuffer.getWeightCaught(species);
         return weights;
     }
 
+    /**
+     * scratch space for expectations, which never leave this gear
+     */
+    private CatchBuffer expectationBuffer;
+
     /**
      *  Gas consumed is the average of all consumptions
      *
@@ -161,7 +146,11 @@ public class HeterogeneousAbundanceGear implements Gear
 
     @Override
     public Gear makeCopy() {
-        HeterogeneousAbundanceGear heterogeneousAbundanceGear = new HeterogeneousAbundanceGear(gears);
+        //sub-gears keep scratch arrays, so every copy needs its own
+        HashMap<Species, HomogeneousAbundanceGear> copies = new HashMap<>();
+        for (Map.Entry<Species, HomogeneousAbundanceGear> gear : gears.entrySet())
+            copies.put(gear.getKey(), (HomogeneousAbundanceGear) gear.getValue().makeCopy());
+        HeterogeneousAbundanceGear heterogeneousAbundanceGear = new HeterogeneousAbundanceGear(copies);
         heterogeneousAbundanceGear.setHourlyGasPriceOverride(this.hourlyGasPriceOverride);
         return heterogeneousAbundanceGear;
     }
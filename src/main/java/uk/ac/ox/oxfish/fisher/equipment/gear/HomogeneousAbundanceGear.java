@@ -30,6 +30,7 @@ import uk.ac.ox.oxfish.biology.complicated.StructuredAbundance;
 import uk.ac.ox.oxfish.fisher.Fisher;
 import uk.ac.ox.oxfish.fisher.equipment.Boat;
 import uk.ac.ox.oxfish.fisher.equipment.Catch;
+import uk.ac.ox.oxfish.fisher.equipment.CatchBuffer;
 import uk.ac.ox.oxfish.fisher.equipment.gear.components.AbundanceFilter;
 import uk.ac.ox.oxfish.geography.SeaTile;
 
@@ -72,23 +73,23 @@ public class HomogeneousAbundanceGear implements Gear {
             Fisher fisher, LocalBiology localBiology, SeaTile context,
             int hoursSpentFishing, GlobalBiology modelBiology)
     {
-        StructuredAbundance[] catches = catchesToArray(localBiology, hoursSpentFishing, modelBiology);
-
-
-        return new Catch(catches,modelBiology);
+        CatchBuffer buffer = new CatchBuffer();
+        fish(buffer, fisher, localBiology, context, hoursSpentFishing, modelBiology);
+        return buffer.toCatch(modelBiology);
 
 
     }
 
-    private StructuredAbundance[] catchesToArray(
-            LocalBiology where, int hoursSpentFishing, GlobalBiology modelBiology) {
-        //create array containing biomass
-        StructuredAbundance[] abundances = new StructuredAbundance[modelBiology.getSize()];
+    /**
+     * fills the buffer species by species, without building any intermediate abundance object
+     */
+    @Override
+    public void fish(
+            CatchBuffer buffer, Fisher fisher, LocalBiology localBiology, SeaTile context,
+            int hoursSpentFishing, GlobalBiology modelBiology) {
+        buffer.reset(modelBiology, true);
         for(Species species : modelBiology.getSpecies())
-        {
-            abundances[species.getIndex()] = catchesAsAbundanceForThisSpecies(where, hoursSpentFishing, species);
-        }
-        return abundances;
+            addCatchesOfThisSpecies(buffer.getAbundance(species.getIndex()), localBiology, hoursSpentFishing, species);
     }
 
     /**
@@ -103,8 +104,19 @@ public class HomogeneousAbundanceGear implements Gear {
         prepTempAbundance(species);
 
         double[][] catches = tempAbundance;
+        addCatchesOfThisSpecies(catches, where, hoursSpentFishing, species);
+        return new StructuredAbundance(catches);
+    }
 
-
+    /**
+     * fishes this species and adds the catch to the given matrix (subdivisions x bins)
+     * @param catches where to sum the catches
+     * @param where where the fishing occurs
+     * @param hoursSpentFishing hours spent fishing
+     * @param species the species considered
+     */
+    public void addCatchesOfThisSpecies(
+            double[][] catches, LocalBiology where, int hoursSpentFishing, Species species) {
         //you are going to fish every hour until you are done
         int hoursSpentFishingThisSpecies = hoursSpentFishing;
 
@@ -117,7 +129,6 @@ public class HomogeneousAbundanceGear implements Gear {
             hoursSpentFishingThisSpecies = hoursSpentFishingThisSpecies - 1;
 
         }
-        return new StructuredAbundance(catches);
     }
 
     //basically if every hour of fishing we create a matrix we are going to collapse under our own weight
@@ -153,16 +164,22 @@ public class HomogeneousAbundanceGear implements Gear {
     @Override
     public double[] expectedHourlyCatch(
             Fisher fisher, SeaTile where, int hoursSpentFishing, GlobalBiology modelBiology) {
-        StructuredAbundance[] abundances = catchesToArray(where, hoursSpentFishing, modelBiology);
-        assert modelBiology.getSpecies().size() == abundances.length;
+        if(expectationBuffer == null)
+            expectationBuffer = new CatchBuffer();
+        fish(expectationBuffer, fisher, where, where, hoursSpentFishing, modelBiology);
 
-        double[] weights = new double[abundances.length];
+        double[] weights = new double[modelBiology.getSize()];
         for(Species species : modelBiology.getSpecies())
-            weights[species.getIndex()] = abundances[species.getIndex()].computeWeight(species);
+            weights[species.getIndex()] = expectationBuffer.getWeightCaught(species);
 
         return weights;
     }
 
+    /**
+     * scratch space for expectations, which never leave this gear
+     */
+    private CatchBuffer expectationBuffer;
+
 
     /**
      * fish for one hour targeting one species and returns the abundance caught
@@ -20,12 +20,12 @@
 
 package uk.ac.ox.oxfish.fisher.equipment.gear.components;
 
-import com.google.common.collect.HashBasedTable;
-import com.google.common.collect.Table;
 import uk.ac.ox.oxfish.biology.Species;
 import uk.ac.ox.oxfish.utility.FishStateUtilities;
 
 import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -54,17 +54,17 @@ public abstract class FormulaAbundanceFilter implements AbundanceFilter {
 
 
     //most formula filters will probably be single use, so it's probably even faster to just store the last used selectivity
-    //without going through the general formula filter
-    private double[][] lastUsedSelectivity = null;
-
-    private Species lastCalledSpecies = null;
+    //without going through the general formula filter. Species and selectivity are swapped in together, as tiles may be
+    //fished in parallel (see BatchedFishing)
+    private volatile LastUsed lastUsed = null;
 
 
     /**
-     * table for memoization: stores the selectivity array for each species so you don't need to recompute it
+     * memoization: stores the selectivity array for each species so you don't need to recompute it.
+     * Kept per filter rather than in a static table so that models running side by side (and the species
+     * of models long finished) are never shared or kept alive. Guarded by itself
      */
-    private final static Table<FormulaAbundanceFilter,Species,double[][]> precomputed =
-            HashBasedTable.create(1, 5);
+    private final Map<Species,double[][]> precomputed = new IdentityHashMap<>(5);
 
     /**
      * returns a int[2][age+1] array with male and female fish that are not filtered out
@@ -78,8 +78,9 @@ public abstract class FormulaAbundanceFilter implements AbundanceFilter {
 
         double[][] selectivity = getProbabilityMatrix(species);
 
-        lastUsedSelectivity = selectivity;
-        lastCalledSpecies = species;
+        final LastUsed last = lastUsed;
+        if(last == null || last.species != species || last.selectivity != selectivity)
+            lastUsed = new LastUsed(species, selectivity);
         for(int subdivision =0; subdivision<abundance.length; subdivision++) {
             for (int age = 0; age < abundance[subdivision].length; age++) {
                 abundance[subdivision][age] =
@@ -110,15 +111,19 @@ public abstract class FormulaAbundanceFilter implements AbundanceFilter {
     public double[][] getProbabilityMatrix(Species species){
         double[][] selectivity = null;
         if(memoization) {
-            if(species==lastCalledSpecies && lastUsedSelectivity!=null)
-                return lastUsedSelectivity;
-            selectivity = precomputed.get(this, species);
+            final LastUsed last = lastUsed;
+            if(last != null && species==last.species)
+                return last.selectivity;
+            synchronized (precomputed) {
+                selectivity = precomputed.get(species);
+                if (selectivity == null) {
+                    selectivity = computeSelectivity(species);
+                    precomputed.put(species, selectivity);
+                }
+            }
         }
-        if(selectivity == null) {
+        else
             selectivity = computeSelectivity(species);
-            if(memoization)
-                precomputed.put(this,species,selectivity);
-        }
         assert selectivity != null;
         return selectivity;
     }
@@ -155,4 +160,16 @@ public abstract class FormulaAbundanceFilter implements AbundanceFilter {
     public boolean isRounding() {
         return rounding;
     }
+
+    private static final class LastUsed {
+
+        private final Species species;
+
+        private final double[][] selectivity;
+
+        private LastUsed(Species species, double[][] selectivity) {
+            this.species = species;
+            this.selectivity = selectivity;
+        }
+    }
 }
@@ -23,12 +23,14 @@ package uk.ac.ox.oxfish.fisher.heatmap.acquisition;
 import ec.util.MersenneTwisterFast;
 import uk.ac.ox.oxfish.fisher.Fisher;
 import uk.ac.ox.oxfish.fisher.heatmap.regression.numerical.GeographicalRegression;
+import uk.ac.ox.oxfish.fisher.heatmap.regression.numerical.HeatmapRegression;
 import uk.ac.ox.oxfish.geography.NauticalMap;
 import uk.ac.ox.oxfish.geography.SeaTile;
 import uk.ac.ox.oxfish.model.FishState;
 import uk.ac.ox.oxfish.utility.FishStateUtilities;
 import uk.ac.ox.oxfish.utility.Pair;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
@@ -68,16 +70,24 @@ public class ExhaustiveAcquisitionFunction  implements AcquisitionFunction
             NauticalMap map, GeographicalRegression regression,
             FishState state, Fisher fisher, SeaTile current) {
 
-        List<SeaTile> seaTiles = map.getAllSeaTilesExcludingLandAsList();
+        List<SeaTile> seaTiles = new ArrayList<>(map.getAllSeaTilesExcludingLandAsList());
 
         MersenneTwisterFast random = state.getRandom();
         Collections.shuffle(seaTiles,new Random(random.nextLong()));
 
 
 
+        //regressions that keep a whole heatmap can be read directly (null otherwise)
+        final double[] heatmap = regression instanceof HeatmapRegression ?
+                ((HeatmapRegression) regression).getHeatmap() : null;
+        final int height = map.getHeight();
+
         Pair<SeaTile,Double> best;
         if(current!=null)
-            best = new Pair<>(current, regression.predict(current, state.getHoursSinceStart(), fisher,state ));
+            best = new Pair<>(current,
+                              heatmap == null ?
+                                      regression.predict(current, state.getHoursSinceStart(), fisher,state ) :
+                                      heatmap[current.getGridX() * height + current.getGridY()]);
         else
             best = new Pair<>(null,-Double.MAX_VALUE);
         assert Double.isFinite(best.getSecond());
@@ -88,7 +98,9 @@ public class ExhaustiveAcquisitionFunction  implements AcquisitionFunction
                             (!ignoreProtectedAreas || fisher.isAllowedToFishHere(tile,state)) &&
                             random.nextBoolean(proportionSearched))
             {
-                double predicted = regression.predict(tile, state.getHoursSinceStart(), fisher,state );
+                double predicted = heatmap == null ?
+                        regression.predict(tile, state.getHoursSinceStart(), fisher,state ) :
+                        heatmap[tile.getGridX() * height + tile.getGridY()];
                 if(Double.isFinite(predicted) && predicted > best.getSecond())
                     best=new Pair<>(tile,predicted);
             }
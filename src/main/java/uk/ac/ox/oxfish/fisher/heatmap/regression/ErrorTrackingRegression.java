@@ -23,6 +23,7 @@ package uk.ac.ox.oxfish.fisher.heatmap.regression;
 import uk.ac.ox.oxfish.fisher.Fisher;
 import uk.ac.ox.oxfish.fisher.heatmap.regression.numerical.GeographicalObservation;
 import uk.ac.ox.oxfish.fisher.heatmap.regression.numerical.GeographicalRegression;
+import uk.ac.ox.oxfish.fisher.heatmap.regression.numerical.HeatmapRegression;
 import uk.ac.ox.oxfish.geography.SeaTile;
 import uk.ac.ox.oxfish.model.FishState;
 
@@ -32,7 +33,7 @@ import java.util.LinkedList;
  * This is a decorator that tracks the error rate of all the regressions
  * Created by carrknight on 8/19/16.
  */
-public class ErrorTrackingRegression<V> implements GeographicalRegression<V>
+public class ErrorTrackingRegression<V> implements GeographicalRegression<V>, HeatmapRegression
 {
 
 
@@ -160,4 +161,12 @@ public class ErrorTrackingRegression<V> implements GeographicalRegression<V>
     public GeographicalRegression<V> getDelegate() {
         return delegate;
     }
+
+    /**
+     * the delegate's heatmap, if it keeps one
+     */
+    @Override
+    public double[] getHeatmap() {
+        return delegate instanceof HeatmapRegression ? ((HeatmapRegression) delegate).getHeatmap() : null;
+    }
 }
@@ -23,6 +23,7 @@ package uk.ac.ox.oxfish.fisher.heatmap.regression;
 import uk.ac.ox.oxfish.fisher.Fisher;
 import uk.ac.ox.oxfish.fisher.heatmap.regression.numerical.GeographicalObservation;
 import uk.ac.ox.oxfish.fisher.heatmap.regression.numerical.GeographicalRegression;
+import uk.ac.ox.oxfish.fisher.heatmap.regression.numerical.HeatmapRegression;
 import uk.ac.ox.oxfish.geography.SeaTile;
 import uk.ac.ox.oxfish.model.FishState;
 import uk.ac.ox.oxfish.utility.FishStateUtilities;
@@ -33,7 +34,7 @@ import java.util.Arrays;
  * Just a gradient descent over latest prediction error
  * Created by carrknight on 9/13/16.
  */
-public class PersonalTuningRegression implements GeographicalRegression<Double>
+public class PersonalTuningRegression implements GeographicalRegression<Double>, HeatmapRegression
 {
 
     /**
@@ -196,4 +197,21 @@ public class PersonalTuningRegression implements GeographicalRegression<Double>
     public void setParameters(double[] parameterArray) {
         delegate.setParameters(parameterArray);
     }
+
+    /**
+     * Getter for property 'delegate'.
+     *
+     * @return Value for property 'delegate'.
+     */
+    public GeographicalRegression<Double> getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * the delegate's heatmap, if it keeps one
+     */
+    @Override
+    public double[] getHeatmap() {
+        return delegate instanceof HeatmapRegression ? ((HeatmapRegression) delegate).getHeatmap() : null;
+    }
 }
@@ -26,6 +26,7 @@ import sim.engine.Steppable;
 import uk.ac.ox.oxfish.fisher.Fisher;
 import uk.ac.ox.oxfish.fisher.heatmap.regression.numerical.GeographicalObservation;
 import uk.ac.ox.oxfish.fisher.heatmap.regression.numerical.GeographicalRegression;
+import uk.ac.ox.oxfish.fisher.heatmap.regression.numerical.HeatmapRegression;
 import uk.ac.ox.oxfish.fisher.selfanalysis.CashFlowObjective;
 import uk.ac.ox.oxfish.fisher.strategies.destination.HeatmapDestinationStrategy;
 import uk.ac.ox.oxfish.geography.SeaTile;
@@ -46,7 +47,7 @@ import java.util.function.Predicate;
  * A regression that works by Beam hill-climbing to update regression parameters of its delegate
  * Created by carrknight on 8/26/16.
  */
-public class SocialTuningRegression<V>  implements GeographicalRegression<V>
+public class SocialTuningRegression<V>  implements GeographicalRegression<V>, HeatmapRegression
 {
 
     /**
@@ -258,4 +259,21 @@ public class SocialTuningRegression<V>  implements GeographicalRegression<V>
     public boolean isYearly() {
         return yearly;
     }
+
+    /**
+     * Getter for property 'delegate'.
+     *
+     * @return Value for property 'delegate'.
+     */
+    public GeographicalRegression<V> getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * the delegate's heatmap, if it keeps one
+     */
+    @Override
+    public double[] getHeatmap() {
+        return delegate instanceof HeatmapRegression ? ((HeatmapRegression) delegate).getHeatmap() : null;
+    }
 }
@@ -0,0 +1,108 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2017  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+
+package uk.ac.ox.oxfish.fisher.heatmap.regression.factory;
+
+import uk.ac.ox.oxfish.fisher.heatmap.regression.numerical.CompactKernelTransduction;
+import uk.ac.ox.oxfish.fisher.heatmap.regression.numerical.KernelStencil;
+import uk.ac.ox.oxfish.model.FishState;
+import uk.ac.ox.oxfish.utility.AlgorithmFactory;
+import uk.ac.ox.oxfish.utility.parameters.DoubleParameter;
+import uk.ac.ox.oxfish.utility.parameters.FixedDoubleParameter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Builds a space-only kernel transduction whose kernel is cut off where it becomes negligible. All the regressions
+ * built by the same factory (that is, fishers of the same type) share the kernel stencil of their bandwidth.
+ */
+public class CompactKernelTransductionFactory implements AlgorithmFactory<CompactKernelTransduction> {
+
+
+    private DoubleParameter spaceBandwidth = new FixedDoubleParameter(5);
+
+
+    private DoubleParameter forgettingFactor = new FixedDoubleParameter(1);
+
+    /**
+     * kernel weights below this are treated as 0
+     */
+    private DoubleParameter kernelCutoff = new FixedDoubleParameter(0.001);
+
+
+    private final Map<Double, Map<Double, KernelStencil>> stencils = new HashMap<>();
+
+
+    /**
+     * Applies this function to the given argument.
+     *
+     * @param state the function argument
+     * @return the function result
+     */
+    @Override
+    public CompactKernelTransduction apply(FishState state) {
+        final double bandwidth = spaceBandwidth.apply(state.getRandom());
+        final double forgetting = forgettingFactor.apply(state.getRandom());
+        final double cutoff = kernelCutoff.apply(state.getRandom());
+        final KernelStencil stencil;
+        synchronized (stencils) {
+            stencil = stencils
+                .computeIfAbsent(bandwidth, __ -> new HashMap<>())
+                .computeIfAbsent(cutoff, __ -> new KernelStencil(bandwidth, cutoff));
+        }
+        return new CompactKernelTransduction(state.getMap(), forgetting, stencil);
+    }
+
+
+    public DoubleParameter getSpaceBandwidth() {
+        return spaceBandwidth;
+    }
+
+    public void setSpaceBandwidth(DoubleParameter spaceBandwidth) {
+        this.spaceBandwidth = spaceBandwidth;
+    }
+
+    public DoubleParameter getForgettingFactor() {
+        return forgettingFactor;
+    }
+
+    public void setForgettingFactor(DoubleParameter forgettingFactor) {
+        this.forgettingFactor = forgettingFactor;
+    }
+
+    /**
+     * Getter for property 'kernelCutoff'.
+     *
+     * @return Value for property 'kernelCutoff'.
+     */
+    public DoubleParameter getKernelCutoff() {
+        return kernelCutoff;
+    }
+
+    /**
+     * Setter for property 'kernelCutoff'.
+     *
+     * @param kernelCutoff Value to set for property 'kernelCutoff'.
+     */
+    public void setKernelCutoff(DoubleParameter kernelCutoff) {
+        this.kernelCutoff = kernelCutoff;
+    }
+}
@@ -49,6 +49,8 @@ public class NumericalGeographicalRegressions {
         NAMES.put(NearestNeighborTransductionFactory.class, "Nearest Neighbor Transduction");
         NAMES.put(KernelTransductionFactory.class, "Kernel Transduction");
         NAMES.put(DefaultRBFKernelTransductionFactory.class, "RBF Kernel Transduction");
+        NAMES.put(CompactKernelTransductionFactory.class, "Compact Kernel Transduction");
+        NAMES.put(SharedHeatmapRegressionFactory.class, "Shared Heatmap");
         NAMES.put(ParticleFilterRegressionFactory.class, "Particle Filter Regression");
         NAMES.put(SimpleKalmanRegressionFactory.class, "Simple Kalman");
         NAMES.put(GeographicallyWeightedRegressionFactory.class, "GWR");
@@ -0,0 +1,132 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2017  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+
+package uk.ac.ox.oxfish.fisher.heatmap.regression.factory;
+
+import uk.ac.ox.oxfish.fisher.heatmap.regression.numerical.CompactKernelTransduction;
+import uk.ac.ox.oxfish.fisher.heatmap.regression.numerical.KernelStencil;
+import uk.ac.ox.oxfish.fisher.heatmap.regression.numerical.SharedHeatmap;
+import uk.ac.ox.oxfish.fisher.heatmap.regression.numerical.SharedHeatmapRegression;
+import uk.ac.ox.oxfish.model.FishState;
+import uk.ac.ox.oxfish.utility.AlgorithmFactory;
+import uk.ac.ox.oxfish.utility.parameters.DoubleParameter;
+import uk.ac.ox.oxfish.utility.parameters.FixedDoubleParameter;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * All the fishers built by the same factory (a fleet, or a club if each club has its own factory) learn into a
+ * single shared heatmap. Fishers can optionally keep personal offsets on top of it.
+ */
+public class SharedHeatmapRegressionFactory implements AlgorithmFactory<SharedHeatmapRegression> {
+
+
+    private DoubleParameter spaceBandwidth = new FixedDoubleParameter(5);
+
+
+    private DoubleParameter forgettingFactor = new FixedDoubleParameter(1);
+
+    /**
+     * kernel weights below this are treated as 0
+     */
+    private DoubleParameter kernelCutoff = new FixedDoubleParameter(0.001);
+
+    /**
+     * when true each fisher also learns how its own observations differ from the fleet's heatmap
+     */
+    private boolean personalOffsets = false;
+
+
+    /**
+     * one heatmap per model this factory builds fishers for
+     */
+    private final Map<FishState, SharedHeatmap> sharedHeatmaps = new WeakHashMap<>();
+
+
+    /**
+     * Applies this function to the given argument.
+     *
+     * @param state the function argument
+     * @return the function result
+     */
+    @Override
+    public SharedHeatmapRegression apply(FishState state) {
+        final SharedHeatmap heatmap;
+        synchronized (sharedHeatmaps) {
+            heatmap = sharedHeatmaps.computeIfAbsent(
+                    state,
+                    model -> new SharedHeatmap(
+                            model.getMap(),
+                            forgettingFactor.apply(model.getRandom()),
+                            new KernelStencil(spaceBandwidth.apply(model.getRandom()),
+                                              kernelCutoff.apply(model.getRandom()))));
+        }
+        return new SharedHeatmapRegression(
+                heatmap,
+                personalOffsets ?
+                        new CompactKernelTransduction(state.getMap(), heatmap.getForgettingFactor(),
+                                                      heatmap.getStencil()) :
+                        null);
+    }
+
+
+    public DoubleParameter getSpaceBandwidth() {
+        return spaceBandwidth;
+    }
+
+    public void setSpaceBandwidth(DoubleParameter spaceBandwidth) {
+        this.spaceBandwidth = spaceBandwidth;
+    }
+
+    public DoubleParameter getForgettingFactor() {
+        return forgettingFactor;
+    }
+
+    public void setForgettingFactor(DoubleParameter forgettingFactor) {
+        this.forgettingFactor = forgettingFactor;
+    }
+
+    public DoubleParameter getKernelCutoff() {
+        return kernelCutoff;
+    }
+
+    public void setKernelCutoff(DoubleParameter kernelCutoff) {
+        this.kernelCutoff = kernelCutoff;
+    }
+
+    /**
+     * Getter for property 'personalOffsets'.
+     *
+     * @return Value for property 'personalOffsets'.
+     */
+    public boolean isPersonalOffsets() {
+        return personalOffsets;
+    }
+
+    /**
+     * Setter for property 'personalOffsets'.
+     *
+     * @param personalOffsets Value to set for property 'personalOffsets'.
+     */
+    public void setPersonalOffsets(boolean personalOffsets) {
+        this.personalOffsets = personalOffsets;
+    }
+}
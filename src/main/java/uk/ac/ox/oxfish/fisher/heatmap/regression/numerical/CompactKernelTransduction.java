@@ -0,0 +1,186 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2017  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+
+package uk.ac.ox.oxfish.fisher.heatmap.regression.numerical;
+
+import com.google.common.base.Preconditions;
+import uk.ac.ox.oxfish.fisher.Fisher;
+import uk.ac.ox.oxfish.geography.NauticalMap;
+import uk.ac.ox.oxfish.geography.SeaTile;
+import uk.ac.ox.oxfish.model.FishState;
+import uk.ac.ox.oxfish.utility.FishStateUtilities;
+
+import java.util.Arrays;
+
+/**
+ * Same spatial kernel transduction as a {@link KernelTransduction} over grid-x and grid-y, but with the kernel
+ * truncated wherever it drops below a cutoff. Each observation then only touches the cells within a radius that
+ * follows from the bandwidth instead of every tile of the map.
+ * <br>
+ * Every cell keeps a kernel-weighted sum of observations (numerator) and a sum of kernel weights (denominator) in
+ * primitive arrays; the prediction is their ratio. Forgetting is applied lazily: rather than discounting every cell
+ * at each observation, new observations are inflated by 1/forgettingFactor^t, which leaves all ratios unchanged.
+ * The arrays are brought back to scale once in a while so they never overflow.
+ */
+public class CompactKernelTransduction implements GeographicalRegression<Double>, HeatmapRegression {
+
+    /**
+     * once new observations are inflated by more than this, every cell is rescaled
+     */
+    private static final double MAXIMUM_SCALE = 1e100;
+
+    private final int width;
+
+    private final int height;
+
+    private final boolean[] water;
+
+    private final double[] numerators;
+
+    private final double[] denominators;
+
+    private final double[] predictions;
+
+    private final double forgettingFactor;
+
+    /**
+     * weight given to the next observation relative to the cells' sums
+     */
+    private double scale = 1;
+
+    private KernelStencil stencil;
+
+    public CompactKernelTransduction(NauticalMap map, double forgettingFactor, KernelStencil stencil) {
+        Preconditions.checkArgument(forgettingFactor > 0 && forgettingFactor <= 1,
+                                    "forgetting factor must be in (0,1]");
+        this.width = map.getWidth();
+        this.height = map.getHeight();
+        this.forgettingFactor = forgettingFactor;
+        this.stencil = stencil;
+        water = new boolean[width * height];
+        numerators = new double[width * height];
+        denominators = new double[width * height];
+        predictions = new double[width * height];
+        Arrays.fill(predictions, Double.NaN);
+        for (SeaTile tile : map.getAllSeaTilesExcludingLandAsList()) {
+            final int cell = tile.getGridX() * height + tile.getGridY();
+            water[cell] = true;
+            predictions[cell] = 0;
+        }
+    }
+
+    @Override
+    public double predict(SeaTile tile, double time, Fisher fisher, FishState model) {
+        return predictions[tile.getGridX() * height + tile.getGridY()];
+    }
+
+    /**
+     * updates the cells within the kernel's reach
+     */
+    @Override
+    public void addObservation(GeographicalObservation<Double> observation, Fisher fisher, FishState model) {
+        scale /= forgettingFactor;
+        if (scale > MAXIMUM_SCALE)
+            rescale();
+
+        final int x = observation.getTile().getGridX();
+        final int y = observation.getTile().getGridY();
+        final double value = observation.getValue();
+        for (int i = 0; i < stencil.size(); i++) {
+            final int cellX = x + stencil.getXOffset(i);
+            final int cellY = y + stencil.getYOffset(i);
+            if (cellX < 0 || cellY < 0 || cellX >= width || cellY >= height)
+                continue;
+            final int cell = cellX * height + cellY;
+            if (!water[cell])
+                continue;
+            final double weight = stencil.getWeight(i) * scale;
+            numerators[cell] += weight * value;
+            denominators[cell] += weight;
+            predictions[cell] = numerators[cell] / denominators[cell];
+        }
+    }
+
+    private void rescale() {
+        for (int cell = 0; cell < numerators.length; cell++) {
+            numerators[cell] /= scale;
+            denominators[cell] /= scale;
+        }
+        scale = 1;
+    }
+
+    @Override
+    public double[] getHeatmap() {
+        return predictions;
+    }
+
+    /**
+     * ignored
+     */
+    @Override
+    public void start(FishState model, Fisher fisher) {
+
+    }
+
+    /**
+     * ignored
+     */
+    @Override
+    public void turnOff(Fisher fisher) {
+
+    }
+
+    /**
+     * It's already a double so return it!
+     */
+    @Override
+    public double extractNumericalYFromObservation(
+            GeographicalObservation<Double> observation, Fisher fisher) {
+        return observation.getValue();
+    }
+
+    /**
+     * the space bandwidth
+     */
+    @Override
+    public double[] getParametersAsArray() {
+        return new double[]{stencil.getBandwidth()};
+    }
+
+    /**
+     * changes the bandwidth used for future observations (tuners may push it to 0 or below, in which case
+     * observations only count in their own cell)
+     */
+    @Override
+    public void setParameters(double[] parameterArray) {
+        Preconditions.checkArgument(parameterArray.length == 1);
+        final double bandwidth = Math.max(parameterArray[0], FishStateUtilities.EPSILON);
+        if (bandwidth != stencil.getBandwidth())
+            stencil = new KernelStencil(bandwidth, stencil.getCutoff());
+    }
+
+    public double getForgettingFactor() {
+        return forgettingFactor;
+    }
+
+    public KernelStencil getStencil() {
+        return stencil;
+    }
+}
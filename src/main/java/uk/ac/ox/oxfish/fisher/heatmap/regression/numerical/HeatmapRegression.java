@@ -0,0 +1,40 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2017  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+
+package uk.ac.ox.oxfish.fisher.heatmap.regression.numerical;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A geographical regression that keeps a prediction for every cell of the map and can hand them out all at once,
+ * so that whoever needs to look at the whole map (acquisition functions mostly) can read an array rather than
+ * calling predict tile by tile.
+ */
+public interface HeatmapRegression {
+
+    /**
+     * the current prediction for each cell of the map, at index gridX * mapHeight + gridY; NaN where the regression
+     * makes no prediction (land). This is the live array, read it but don't write to it.
+     * @return the predictions or null if this regression only wraps one and the wrapped one keeps no heatmap
+     */
+    @Nullable
+    double[] getHeatmap();
+
+}
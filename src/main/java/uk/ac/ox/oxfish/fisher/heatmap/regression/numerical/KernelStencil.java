@@ -0,0 +1,98 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2017  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+
+package uk.ac.ox.oxfish.fisher.heatmap.regression.numerical;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+
+/**
+ * The cells an observation reaches when using a spatial RBF kernel truncated to compact support: the kernel
+ * weight of every cell offset whose weight is at least the cutoff. Weights are the product of the x and y RBF kernels,
+ * exactly as {@link KernelTilePredictor} computes them with a grid-x and a grid-y extractor of the same bandwidth.
+ * <br>
+ * Stencils are immutable, so one can be shared by every regression with the same bandwidth and cutoff.
+ */
+public final class KernelStencil {
+
+    private final double bandwidth;
+
+    private final double cutoff;
+
+    private final int[] xOffsets;
+
+    private final int[] yOffsets;
+
+    private final double[] weights;
+
+    public KernelStencil(double bandwidth, double cutoff) {
+        Preconditions.checkArgument(bandwidth > 0, "bandwidth must be positive");
+        Preconditions.checkArgument(cutoff > 0 && cutoff < 1, "cutoff must be in (0,1)");
+        this.bandwidth = bandwidth;
+        this.cutoff = cutoff;
+        //exp(-d^2/h) >= cutoff  <=>  |d| <= sqrt(h * ln(1/cutoff))
+        final int radius = (int) Math.floor(Math.sqrt(bandwidth * Math.log(1d / cutoff)));
+        final int side = 2 * radius + 1;
+        int[] xs = new int[side * side];
+        int[] ys = new int[side * side];
+        double[] ws = new double[side * side];
+        int size = 0;
+        for (int dx = -radius; dx <= radius; dx++)
+            for (int dy = -radius; dy <= radius; dy++) {
+                double weight = 1;
+                weight *= Math.exp(-(double) dx * dx / bandwidth);
+                weight *= Math.exp(-(double) dy * dy / bandwidth);
+                if (weight >= cutoff) {
+                    xs[size] = dx;
+                    ys[size] = dy;
+                    ws[size] = weight;
+                    size++;
+                }
+            }
+        xOffsets = Arrays.copyOf(xs, size);
+        yOffsets = Arrays.copyOf(ys, size);
+        weights = Arrays.copyOf(ws, size);
+    }
+
+    public int size() {
+        return weights.length;
+    }
+
+    public int getXOffset(int i) {
+        return xOffsets[i];
+    }
+
+    public int getYOffset(int i) {
+        return yOffsets[i];
+    }
+
+    public double getWeight(int i) {
+        return weights[i];
+    }
+
+    public double getBandwidth() {
+        return bandwidth;
+    }
+
+    public double getCutoff() {
+        return cutoff;
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2017  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+
+package uk.ac.ox.oxfish.fisher.heatmap.regression.numerical;
+
+import com.google.common.base.Preconditions;
+import uk.ac.ox.oxfish.geography.NauticalMap;
+import uk.ac.ox.oxfish.geography.SeaTile;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A compact-support kernel heatmap (see {@link CompactKernelTransduction}) meant to be fed by a whole fleet at once:
+ * every fisher writes its observations into the same per-cell accumulators and reads predictions straight out of
+ * the same array, so memory and work no longer grow with fishers times friends times tiles.
+ * <br>
+ * Writers may run concurrently. Each cell is guarded by one of a fixed number of striped locks, held only for the
+ * few arithmetic operations needed to add one weighted observation to one cell; readers never lock and see, for
+ * each cell, the prediction left by the last write to it.
+ * <br>
+ * Forgetting works as in {@link CompactKernelTransduction}: each observation gets a ticket and is inflated by
+ * 1/forgettingFactor^(ticket - epoch). When inflation gets too large a new epoch starts and every cell is rescaled,
+ * which is the only time all stripes are locked together.
+ */
+public class SharedHeatmap {
+
+    private static final int NUMBER_OF_STRIPES = 64;
+
+    /**
+     * inflation we allow before starting a new epoch
+     */
+    private static final double MAXIMUM_SCALE = 1e100;
+
+    private final int width;
+
+    private final int height;
+
+    private final boolean[] water;
+
+    private final double[] numerators;
+
+    private final double[] denominators;
+
+    private final double[] predictions;
+
+    private final ReentrantLock[] stripes = new ReentrantLock[NUMBER_OF_STRIPES];
+
+    private final KernelStencil stencil;
+
+    private final double forgettingFactor;
+
+    /**
+     * how many tickets fit in an epoch before inflation goes past {@link #MAXIMUM_SCALE}
+     */
+    private final long ticketsPerEpoch;
+
+    private final AtomicLong tickets = new AtomicLong();
+
+    /**
+     * ticket at which the current epoch started; only changes while every stripe is locked
+     */
+    private volatile long epoch = 0;
+
+    public SharedHeatmap(NauticalMap map, double forgettingFactor, KernelStencil stencil) {
+        Preconditions.checkArgument(forgettingFactor > 0 && forgettingFactor <= 1,
+                                    "forgetting factor must be in (0,1]");
+        this.width = map.getWidth();
+        this.height = map.getHeight();
+        this.forgettingFactor = forgettingFactor;
+        this.stencil = stencil;
+        this.ticketsPerEpoch = forgettingFactor == 1 ? Long.MAX_VALUE :
+                (long) (Math.log(MAXIMUM_SCALE) / -Math.log(forgettingFactor));
+        for (int i = 0; i < NUMBER_OF_STRIPES; i++)
+            stripes[i] = new ReentrantLock();
+        water = new boolean[width * height];
+        numerators = new double[width * height];
+        denominators = new double[width * height];
+        predictions = new double[width * height];
+        Arrays.fill(predictions, Double.NaN);
+        for (SeaTile tile : map.getAllSeaTilesExcludingLandAsList()) {
+            final int cell = tile.getGridX() * height + tile.getGridY();
+            water[cell] = true;
+            predictions[cell] = 0;
+        }
+    }
+
+    /**
+     * adds one observation to every cell within the kernel's reach. Safe to call from many threads at once
+     */
+    public void addObservation(SeaTile tile, double value) {
+        final long ticket = tickets.incrementAndGet();
+        if (ticket - epoch > ticketsPerEpoch)
+            startNewEpoch(ticket);
+
+        final int x = tile.getGridX();
+        final int y = tile.getGridY();
+        long scaledAtEpoch = -1;
+        double scale = 1;
+        for (int i = 0; i < stencil.size(); i++) {
+            final int cellX = x + stencil.getXOffset(i);
+            final int cellY = y + stencil.getYOffset(i);
+            if (cellX < 0 || cellY < 0 || cellX >= width || cellY >= height)
+                continue;
+            final int cell = cellX * height + cellY;
+            if (!water[cell])
+                continue;
+            final ReentrantLock stripe = stripes[cell % NUMBER_OF_STRIPES];
+            stripe.lock();
+            try {
+                //the epoch can't move while we hold a stripe
+                if (scaledAtEpoch != epoch) {
+                    scaledAtEpoch = epoch;
+                    scale = forgettingFactor == 1 ? 1 : Math.pow(forgettingFactor, -(ticket - scaledAtEpoch));
+                }
+                final double weight = stencil.getWeight(i) * scale;
+                numerators[cell] += weight * value;
+                denominators[cell] += weight;
+                predictions[cell] = numerators[cell] / denominators[cell];
+            } finally {
+                stripe.unlock();
+            }
+        }
+    }
+
+    /**
+     * deflates every cell back to the scale of the given ticket
+     */
+    private synchronized void startNewEpoch(long ticket) {
+        //somebody else may have just done it
+        if (ticket - epoch <= ticketsPerEpoch)
+            return;
+        for (ReentrantLock stripe : stripes)
+            stripe.lock();
+        try {
+            final double deflation = Math.pow(forgettingFactor, ticket - epoch);
+            for (int cell = 0; cell < numerators.length; cell++) {
+                numerators[cell] *= deflation;
+                denominators[cell] *= deflation;
+            }
+            epoch = ticket;
+        } finally {
+            for (ReentrantLock stripe : stripes)
+                stripe.unlock();
+        }
+    }
+
+    /**
+     * the current prediction at this tile (NaN on land)
+     */
+    public double predict(SeaTile tile) {
+        return predictions[tile.getGridX() * height + tile.getGridY()];
+    }
+
+    /**
+     * the live prediction array, indexed gridX * height + gridY. Don't write to it
+     */
+    public double[] getPredictions() {
+        return predictions;
+    }
+
+    public double getForgettingFactor() {
+        return forgettingFactor;
+    }
+
+    public KernelStencil getStencil() {
+        return stencil;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+}
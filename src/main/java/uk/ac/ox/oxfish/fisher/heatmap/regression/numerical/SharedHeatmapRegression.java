@@ -0,0 +1,136 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2017  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+
+package uk.ac.ox.oxfish.fisher.heatmap.regression.numerical;
+
+import org.jetbrains.annotations.Nullable;
+import uk.ac.ox.oxfish.fisher.Fisher;
+import uk.ac.ox.oxfish.geography.SeaTile;
+import uk.ac.ox.oxfish.model.FishState;
+
+/**
+ * One fisher's view of a fleet-wide {@link SharedHeatmap}. Observations go straight into the shared heatmap and
+ * predictions are read from it, without any copy.
+ * <br>
+ * Optionally the fisher also keeps personal offsets: a private compact kernel transduction of how far its own
+ * observations are from what the fleet predicts. Predictions are then fleet plus personal offset. Only fishers
+ * configured this way pay for a per-tile array of their own.
+ * <br>
+ * Since friends write to the same heatmap, their trips must not be replayed into it.
+ */
+public class SharedHeatmapRegression implements GeographicalRegression<Double>, HeatmapRegression {
+
+    private final SharedHeatmap shared;
+
+    @Nullable
+    private final CompactKernelTransduction personalOffsets;
+
+    /**
+     * fleet plus personal predictions, rebuilt whenever the whole heatmap is asked for
+     */
+    private double[] combined;
+
+    public SharedHeatmapRegression(SharedHeatmap shared, @Nullable CompactKernelTransduction personalOffsets) {
+        this.shared = shared;
+        this.personalOffsets = personalOffsets;
+    }
+
+    @Override
+    public double predict(SeaTile tile, double time, Fisher fisher, FishState model) {
+        final double prediction = shared.predict(tile);
+        return personalOffsets == null ?
+                prediction :
+                prediction + personalOffsets.predict(tile, time, fisher, model);
+    }
+
+    @Override
+    public void addObservation(GeographicalObservation<Double> observation, Fisher fisher, FishState model) {
+        shared.addObservation(observation.getTile(), observation.getValue());
+        //the residual is taken after the fleet has learned from this observation too, so that the offset only
+        //captures what the fleet keeps getting wrong for this fisher
+        if (personalOffsets != null) {
+            final double residual = observation.getValue() - shared.predict(observation.getTile());
+            personalOffsets.addObservation(
+                    new GeographicalObservation<>(observation.getTile(), observation.getTime(), residual),
+                    fisher, model);
+        }
+    }
+
+    @Override
+    public double[] getHeatmap() {
+        final double[] fleet = shared.getPredictions();
+        if (personalOffsets == null)
+            return fleet;
+        final double[] personal = personalOffsets.getHeatmap();
+        if (combined == null)
+            combined = new double[fleet.length];
+        for (int cell = 0; cell < fleet.length; cell++)
+            combined[cell] = fleet[cell] + personal[cell];
+        return combined;
+    }
+
+    /**
+     * ignored
+     */
+    @Override
+    public void start(FishState model, Fisher fisher) {
+
+    }
+
+    /**
+     * ignored
+     */
+    @Override
+    public void turnOff(Fisher fisher) {
+
+    }
+
+    /**
+     * It's already a double so return it!
+     */
+    @Override
+    public double extractNumericalYFromObservation(
+            GeographicalObservation<Double> observation, Fisher fisher) {
+        return observation.getValue();
+    }
+
+    /**
+     * the bandwidth of the personal offsets, if any; the fleet heatmap is not the fisher's to tune
+     */
+    @Override
+    public double[] getParametersAsArray() {
+        return personalOffsets == null ? new double[0] : personalOffsets.getParametersAsArray();
+    }
+
+    @Override
+    public void setParameters(double[] parameterArray) {
+        if (personalOffsets != null)
+            personalOffsets.setParameters(parameterArray);
+    }
+
+    public SharedHeatmap getShared() {
+        return shared;
+    }
+
+    @Nullable
+    public CompactKernelTransduction getPersonalOffsets() {
+        return personalOffsets;
+    }
+}
@@ -204,6 +204,14 @@ public class BanditDestinationStrategy implements DestinationStrategy{
         return delegate.chooseDestination(fisher, random, model, currentAction);
     }
 
+    /**
+     * the favorite spot only changes when adapting, choosing just goes there
+     */
+    @Override
+    public boolean canChooseInParallel() {
+        return delegate.canChooseInParallel();
+    }
+
 
     @Override
     public void turnOff(Fisher fisher) {
@@ -48,7 +48,16 @@ public interface DestinationStrategy extends FisherStartable {
             FishState model,
             Action currentAction);
 
-	
+    /**
+     * whether {@link #chooseDestination(Fisher, MersenneTwisterFast, FishState, Action)} only changes this strategy
+     * and only reads the rest of the world, so that a {@link uk.ac.ox.oxfish.model.ParallelFisherPhase} can have all
+     * the fishers leaving port choose at the same time. Strategies that fill shared caches (routes, for example) or
+     * read what other fishers' strategies are changing must say no.
+     */
+    default boolean canChooseInParallel() {
+        return false;
+    }
+
 
 
 }
@@ -126,7 +126,7 @@ public class ExploreExploitImitateDestinationStrategy extends PerTripIterativeDe
 
 
             getDelegate().setFavoriteSpot(
-                    validSeatiles.get(model.random.nextInt(validSeatiles.size()))
+                    validSeatiles.get(model.getRandom().nextInt(validSeatiles.size()))
             );
 
 
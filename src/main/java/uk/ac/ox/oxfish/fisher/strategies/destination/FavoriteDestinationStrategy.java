@@ -102,6 +102,14 @@ public class FavoriteDestinationStrategy implements DestinationStrategy {
 
     }
 
+    /**
+     * only reads the fisher and its own favorite spot
+     */
+    @Override
+    public boolean canChooseInParallel() {
+        return true;
+    }
+
 
     public SeaTile getFavoriteSpot() {
         return favoriteSpot;
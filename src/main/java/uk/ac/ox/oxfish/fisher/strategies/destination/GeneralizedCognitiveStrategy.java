@@ -48,7 +48,10 @@ import uk.ac.ox.oxfish.model.market.MarketMap;
  */
 public class GeneralizedCognitiveStrategy implements DestinationStrategy {
 
-	static List<PubliclySharedProfit> publicProfit=new ArrayList<PubliclySharedProfit>();
+	/**
+	 * profits fishers made public; shared by all the strategies of the same model (see the factory)
+	 */
+	final List<PubliclySharedProfit> publicProfit;
 	double minAbsoluteSatisfactoryProfit,
 			minRelativeSatisfactoryProfit,
 			weightProfit,
@@ -131,7 +134,7 @@ public class GeneralizedCognitiveStrategy implements DestinationStrategy {
 		}
 	}
 	
-	class PubliclySharedProfit{
+	public static class PubliclySharedProfit{
 		double profit;
 		Fisher fisher;
 		
@@ -166,6 +169,24 @@ public class GeneralizedCognitiveStrategy implements DestinationStrategy {
 //			double timeScalarParameter2,
 			double kExplore/*,
 			double numberOfTerritorySites*/){
+		this(minAbsoluteSatisfactoryProfit, minRelativeSatisfactoryProfit, weightProfit, weightLaw, weightCommunal,
+			 weightReputation, timeScalarFunction, kExplore, new ArrayList<>());
+	}
+
+	/**
+	 * @param publicProfit the list where public profits are posted; pass the same list to every strategy of a model
+	 */
+	public GeneralizedCognitiveStrategy(
+			double minAbsoluteSatisfactoryProfit,
+			double minRelativeSatisfactoryProfit,
+			double weightProfit,
+			double weightLaw,
+			double weightCommunal,
+			double weightReputation,
+			TimeScalarFunction timeScalarFunction,
+			double kExplore,
+			List<PubliclySharedProfit> publicProfit){
+		this.publicProfit=publicProfit;
 		this.minAbsoluteSatisfactoryProfit=minAbsoluteSatisfactoryProfit;
 		this.minRelativeSatisfactoryProfit=minRelativeSatisfactoryProfit;
 		this.weightProfit=weightProfit; 
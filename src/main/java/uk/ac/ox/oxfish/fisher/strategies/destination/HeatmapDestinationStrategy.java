@@ -26,8 +26,11 @@ import uk.ac.ox.oxfish.fisher.Fisher;
 import uk.ac.ox.oxfish.fisher.actions.Action;
 import uk.ac.ox.oxfish.fisher.heatmap.acquisition.AcquisitionFunction;
 import uk.ac.ox.oxfish.fisher.heatmap.regression.ErrorTrackingRegression;
+import uk.ac.ox.oxfish.fisher.heatmap.regression.PersonalTuningRegression;
+import uk.ac.ox.oxfish.fisher.heatmap.regression.SocialTuningRegression;
 import uk.ac.ox.oxfish.fisher.heatmap.regression.numerical.GeographicalObservation;
 import uk.ac.ox.oxfish.fisher.heatmap.regression.numerical.GeographicalRegression;
+import uk.ac.ox.oxfish.fisher.heatmap.regression.numerical.SharedHeatmapRegression;
 import uk.ac.ox.oxfish.fisher.log.TripListener;
 import uk.ac.ox.oxfish.fisher.log.TripRecord;
 import uk.ac.ox.oxfish.fisher.selfanalysis.ObjectiveFunction;
@@ -152,8 +155,8 @@ public class HeatmapDestinationStrategy implements DestinationStrategy, TripList
                 learnFromTripRecord(record, tile, this.fisher, model);
 
         //go through your friends and add their observations if they are new
-        // (with imitation probability)
-        if(this.fisher.getDirectedFriends()!=null)
+        // (with imitation probability); a shared heatmap has them already
+        if(this.fisher.getDirectedFriends()!=null && !isShared(heatmap))
             for(Fisher friend : this.fisher.getDirectedFriends())
             {
                 TripRecord friendTrip = friend.getLastFinishedTrip();
@@ -181,6 +184,26 @@ public class HeatmapDestinationStrategy implements DestinationStrategy, TripList
     }
 
 
+    /**
+     * goes through the wrappers (error tracking, tuning) to check whether at the bottom there is a fleet-wide heatmap
+     * @param regression the regression to check
+     * @return true if the observations end up in a heatmap shared with the rest of the fleet
+     */
+    static boolean isShared(GeographicalRegression<?> regression) {
+        while (true) {
+            if (regression instanceof SharedHeatmapRegression)
+                return true;
+            else if (regression instanceof ErrorTrackingRegression)
+                regression = ((ErrorTrackingRegression<?>) regression).getDelegate();
+            else if (regression instanceof SocialTuningRegression)
+                regression = ((SocialTuningRegression<?>) regression).getDelegate();
+            else if (regression instanceof PersonalTuningRegression)
+                regression = ((PersonalTuningRegression) regression).getDelegate();
+            else
+                return false;
+        }
+    }
+
     public GeographicalRegression getHeatmap() {
         return heatmap;
     }
@@ -211,6 +234,14 @@ public class HeatmapDestinationStrategy implements DestinationStrategy, TripList
         return delegate.chooseDestination(fisher,random,model,currentAction);
     }
 
+    /**
+     * the favorite spot only changes when adapting, choosing just goes there
+     */
+    @Override
+    public boolean canChooseInParallel() {
+        return delegate.canChooseInParallel();
+    }
+
     public SeaTile getFavoriteSpot() {
         return delegate.getFavoriteSpot();
     }
@@ -173,6 +173,14 @@ public class PerTripIterativeDestinationStrategy implements DestinationStrategy
         return delegate.chooseDestination(fisher, random, model, currentAction);
     }
 
+    /**
+     * the favorite spot only changes when adapting, choosing just goes there
+     */
+    @Override
+    public boolean canChooseInParallel() {
+        return delegate.canChooseInParallel();
+    }
+
 
     /**
      * Getter for property 'delegate'.
@@ -70,6 +70,14 @@ public class RandomThenBackToPortDestinationStrategy implements DestinationStrat
 
     }
 
+    /**
+     * draws from the randomizer it is given and only reads the map
+     */
+    @Override
+    public boolean canChooseInParallel() {
+        return true;
+    }
+
 
     /**
      * ignored
@@ -120,6 +120,14 @@ public class YearlyIterativeDestinationStrategy implements DestinationStrategy
         return delegate.chooseDestination(fisher, random, model, currentAction);
     }
 
+    /**
+     * the favorite spot only changes when adapting, choosing just goes there
+     */
+    @Override
+    public boolean canChooseInParallel() {
+        return delegate.canChooseInParallel();
+    }
+
 
     public ExploreImitateAdaptation<SeaTile> getAlgorithm() {
         return algorithm;
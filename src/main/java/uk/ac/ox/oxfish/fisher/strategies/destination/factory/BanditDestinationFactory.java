@@ -44,7 +44,10 @@ public class BanditDestinationFactory implements AlgorithmFactory<BanditDestinat
 
 
 
-    private static Locker<String,MapDiscretization> locker = new Locker();
+    /**
+     * one discretization per model; not static so that models built side by side don't evict each other's
+     */
+    private final Locker<String,MapDiscretization> locker = new Locker<>();
 
     private AlgorithmFactory<? extends Averager> average = new ExponentialMovingAverageFactory();
 
@@ -30,6 +30,11 @@ import uk.ac.ox.oxfish.utility.parameters.BetaDoubleParameter;
 import uk.ac.ox.oxfish.utility.parameters.DoubleParameter;
 import uk.ac.ox.oxfish.utility.parameters.FixedDoubleParameter;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
 /**
  * Factory for the Generalized Cognitive Strategy
  * Created by Brian Powers 4/4/2019
@@ -46,9 +51,19 @@ public class GeneralizedCognitiveStrategyFactory implements AlgorithmFactory<Gen
             new InverseTimeScalarFactory();
 	private DoubleParameter kExploration = new FixedDoubleParameter(.1);
 
+	/**
+	 * all the strategies built for the same model share the same list of public profits
+	 */
+	private final Map<FishState, List<GeneralizedCognitiveStrategy.PubliclySharedProfit>> publicProfit =
+			new WeakHashMap<>();
+
 	@Override
 	public GeneralizedCognitiveStrategy apply(FishState state) {
         MersenneTwisterFast random = state.random;
+		List<GeneralizedCognitiveStrategy.PubliclySharedProfit> sharedProfits;
+		synchronized (publicProfit) {
+			sharedProfits = publicProfit.computeIfAbsent(state, model -> new ArrayList<>());
+		}
 		return new GeneralizedCognitiveStrategy(
 				minAbsoluteSatisfactoryProfit.apply(random),
 				minRelativeSatisfactoryProfit.apply(random),
@@ -58,7 +73,8 @@ public class GeneralizedCognitiveStrategyFactory implements AlgorithmFactory<Gen
 				weightReputation.apply(random),
 				timeScalarFunction.apply(state),
 				kExploration.apply(random)/*,//kExplore
-				numberOfTerritorySites.apply(random)*/);
+				numberOfTerritorySites.apply(random)*/,
+				sharedProfits);
 	}
 	
 /*    private DoubleParameter numberOfTerritorySites = new FixedDoubleParameter(5);
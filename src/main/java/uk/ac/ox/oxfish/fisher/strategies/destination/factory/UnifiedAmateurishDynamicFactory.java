@@ -58,7 +58,11 @@ public class UnifiedAmateurishDynamicFactory implements AlgorithmFactory<Amateur
     private DoubleParameter explorationSize = new FixedDoubleParameter(5);
 
 
-    private WeakHashMap<FishState,AmateurishDynamicStrategy> instances = new WeakHashMap<>();
+    /**
+     * one strategy per model; the factory itself is a singleton, so models built on different threads share this map
+     * and every access goes through the synchronized apply
+     */
+    private final WeakHashMap<FishState,AmateurishDynamicStrategy> instances = new WeakHashMap<>();
 
 
     private UnifiedAmateurishDynamicFactory(){};
@@ -77,7 +81,7 @@ public class UnifiedAmateurishDynamicFactory implements AlgorithmFactory<Amateur
      * @return the function result
      */
     @Override
-    public AmateurishDynamicStrategy apply(FishState state) {
+    public synchronized AmateurishDynamicStrategy apply(FishState state) {
 
         AmateurishDynamicStrategy strategy = instances.get(state);
         if(strategy == null)
@@ -21,18 +21,19 @@ package uk.ac.ox.oxfish.fisher.strategies.destination.fad;
 
 import com.google.common.collect.ArrayTable;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.MapMaker;
 import com.google.common.collect.Table;
 import uk.ac.ox.oxfish.fisher.Fisher;
 import uk.ac.ox.oxfish.geography.NauticalMap;
 import uk.ac.ox.oxfish.geography.SeaTile;
 import uk.ac.ox.oxfish.geography.ports.Port;
 import uk.ac.ox.oxfish.model.FishState;
-import uk.ac.ox.oxfish.utility.Locker;
 
 import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.ToDoubleBiFunction;
 import java.util.stream.Stream;
 
@@ -42,7 +43,12 @@ import static uk.ac.ox.oxfish.utility.FishStateUtilities.entry;
 @SuppressWarnings("UnstableApiUsage")
 public class FadDeploymentRouteSelector extends AbstractRouteSelector {
 
-    private final static Locker<NauticalMap, ImmutableList<SeaTile>> possibleRouteTilesLocker = new Locker<>();
+    /**
+     * Shared by all the selectors on the same map. Weak keys compare maps by identity and let a finished run's map
+     * go, and concurrent runs each keep their own entry.
+     */
+    private final static ConcurrentMap<NauticalMap, ImmutableList<SeaTile>> possibleRouteTilesByMap =
+        new MapMaker().weakKeys().makeMap();
 
     private final ImmutableList<SeaTile> possibleRouteTiles; // will serve as row keys for our ArrayTable of values
     private Map<SeaTile, Double> deploymentLocationValues;
@@ -64,9 +70,9 @@ public class FadDeploymentRouteSelector extends AbstractRouteSelector {
         super(fishState, maxTravelTimeInHours, travelSpeedMultiplier);
         this.deploymentLocationValues = deploymentLocationValues;
         this.possibleRouteTiles =
-            possibleRouteTilesLocker.presentKey(fishState.getMap(), () -> Stream.concat(
-                fishState.getMap().getPorts().stream().map(Port::getLocation),
-                fishState.getMap().getAllSeaTilesExcludingLandAsList().stream()
+            possibleRouteTilesByMap.computeIfAbsent(fishState.getMap(), map -> Stream.concat(
+                map.getPorts().stream().map(Port::getLocation),
+                map.getAllSeaTilesExcludingLandAsList().stream()
             ).collect(toImmutableList()));
     }
 
@@ -22,9 +22,11 @@ package uk.ac.ox.oxfish.fisher.strategies.discarding;
 
 import com.google.common.base.Preconditions;
 import ec.util.MersenneTwisterFast;
+import uk.ac.ox.oxfish.biology.Species;
 import uk.ac.ox.oxfish.biology.complicated.StructuredAbundance;
 import uk.ac.ox.oxfish.fisher.Fisher;
 import uk.ac.ox.oxfish.fisher.equipment.Catch;
+import uk.ac.ox.oxfish.fisher.equipment.CatchBuffer;
 import uk.ac.ox.oxfish.geography.SeaTile;
 import uk.ac.ox.oxfish.model.FishState;
 import uk.ac.ox.oxfish.model.regs.Regulation;
@@ -100,6 +102,43 @@ public class DiscardUnderaged implements DiscardingStrategy {
 
 
 
+    }
+
+    /**
+     * same as the catch-based method, but copies the kept bins straight into the buffer
+     */
+    @Override
+    public boolean chooseWhatToKeep(
+            SeaTile where, Fisher who, CatchBuffer fishCaught, CatchBuffer kept, int hoursSpentFishing,
+            Regulation regulation, FishState model, MersenneTwisterFast random) {
+
+        Preconditions.checkArgument(fishCaught.hasAbundanceInformation(), "this discarding equation" +
+                " requires abundance information");
+
+        //empty fish doesn't get discarded
+        double totalWeight = 0;
+        for(Species species : model.getBiology().getSpecies())
+            totalWeight += fishCaught.getWeightCaught(species);
+        if(totalWeight<=0)
+            return false;
+
+        boolean discarded = false;
+        kept.reset(model.getBiology(), true);
+        for(Species species : model.getBiology().getSpecies())
+        {
+            double[][] caught = fishCaught.getAbundance(species.getIndex());
+            double[][] filtered = kept.getAbundance(species.getIndex());
+            for(int subdivision=0; subdivision<filtered.length; subdivision++ )
+                for (int bin = 0; bin < filtered[subdivision].length; bin++)
+                {
+                    if(bin<minAge)
+                        discarded |= caught[subdivision][bin] > 0;
+                    else
+                        filtered[subdivision][bin] = caught[subdivision][bin];
+                }
+        }
+        return discarded;
+
     }
 
 
@@ -23,6 +23,7 @@ package uk.ac.ox.oxfish.fisher.strategies.discarding;
 import ec.util.MersenneTwisterFast;
 import uk.ac.ox.oxfish.fisher.Fisher;
 import uk.ac.ox.oxfish.fisher.equipment.Catch;
+import uk.ac.ox.oxfish.fisher.equipment.CatchBuffer;
 import uk.ac.ox.oxfish.geography.SeaTile;
 import uk.ac.ox.oxfish.model.FishState;
 import uk.ac.ox.oxfish.model.FisherStartable;
@@ -57,5 +58,31 @@ public interface DiscardingStrategy extends FisherStartable
             FishState model,
             MersenneTwisterFast random);
 
+    /**
+     * Same as {@link #chooseWhatToKeep(SeaTile, Fisher, Catch, int, Regulation, FishState, MersenneTwisterFast)}
+     * but reading the catch from a buffer and, if anything is discarded, writing what is kept in another; both are
+     * reused from tow to tow. By default this turns the buffer into its catch (nothing is copied) and wraps whatever
+     * the object-based method returns.
+     * @return true if something was discarded and the kept buffer holds the rest, false if everything is kept (the
+     * kept buffer is then meaningless)
+     */
+    default boolean chooseWhatToKeep(
+            SeaTile where,
+            Fisher who,
+            CatchBuffer fishCaught,
+            CatchBuffer kept,
+            int hoursSpentFishing,
+            Regulation regulation,
+            FishState model,
+            MersenneTwisterFast random)
+    {
+        final Catch caught = fishCaught.toCatch(model.getBiology());
+        final Catch toKeep = chooseWhatToKeep(where, who, caught, hoursSpentFishing, regulation, model, random);
+        if(toKeep == caught)
+            return false;
+        kept.set(toKeep);
+        return true;
+    }
+
 
 }
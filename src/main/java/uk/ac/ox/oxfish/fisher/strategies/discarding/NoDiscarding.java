@@ -23,6 +23,7 @@ package uk.ac.ox.oxfish.fisher.strategies.discarding;
 import ec.util.MersenneTwisterFast;
 import uk.ac.ox.oxfish.fisher.Fisher;
 import uk.ac.ox.oxfish.fisher.equipment.Catch;
+import uk.ac.ox.oxfish.fisher.equipment.CatchBuffer;
 import uk.ac.ox.oxfish.geography.SeaTile;
 import uk.ac.ox.oxfish.model.FishState;
 import uk.ac.ox.oxfish.model.regs.Regulation;
@@ -51,6 +52,16 @@ public class NoDiscarding implements DiscardingStrategy {
         return fishCaught;
     }
 
+    /**
+     * keeps everything, without building a catch
+     */
+    @Override
+    public boolean chooseWhatToKeep(
+            SeaTile where, Fisher who, CatchBuffer fishCaught, CatchBuffer kept, int hoursSpentFishing,
+            Regulation regulation, FishState model, MersenneTwisterFast random) {
+        return false;
+    }
+
 
     @Override
     public void start(FishState model, Fisher fisher) {
@@ -0,0 +1,101 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2017  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+
+package uk.ac.ox.oxfish.geography;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometryFactory;
+import sim.field.geo.GeomGridField;
+import sim.util.geo.MasonGeometry;
+
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Turns MPA polygons into the set of grid cells whose centre they cover (the same test
+ * GeomVectorField.getCoveringObjects does for each cell). Only the cells within each polygon's bounding box are
+ * tested, against a prepared geometry, and the result is kept for each polygon (cell x,y is bit x * height + y) so
+ * that rasterising an MPA happens once no matter how often the map's protected areas are recomputed.
+ */
+public class MpaRasterizer {
+
+    private final GeomGridField raster;
+
+    private final Map<MasonGeometry, BitSet> masks = new IdentityHashMap<>();
+
+    /**
+     * the raster bounds the masks were computed with
+     */
+    private final Envelope bounds;
+
+    private final int width;
+
+    private final int height;
+
+    public MpaRasterizer(GeomGridField raster) {
+        this.raster = raster;
+        this.bounds = new Envelope(raster.getMBR());
+        this.width = raster.getGridWidth();
+        this.height = raster.getGridHeight();
+    }
+
+    /**
+     * @return false if the raster has been resized or moved since the masks were computed
+     */
+    public boolean isUpToDate() {
+        return bounds.equals(raster.getMBR()) &&
+            width == raster.getGridWidth() && height == raster.getGridHeight();
+    }
+
+    /**
+     * @return the cells covered by the MPA; shared, don't modify it
+     */
+    public BitSet getMask(MasonGeometry mpa) {
+        return masks.computeIfAbsent(mpa, this::rasterize);
+    }
+
+    private BitSet rasterize(MasonGeometry mpa) {
+        final BitSet mask = new BitSet(width * height);
+        final Geometry geometry = mpa.getGeometry();
+        if (geometry == null || geometry.isEmpty())
+            return mask;
+
+        //grid rows grow southward, so sort the corners out and pad by a cell against rounding at the border
+        final Envelope envelope = geometry.getEnvelopeInternal();
+        final int x1 = raster.toXCoord(envelope.getMinX());
+        final int x2 = raster.toXCoord(envelope.getMaxX());
+        final int y1 = raster.toYCoord(envelope.getMinY());
+        final int y2 = raster.toYCoord(envelope.getMaxY());
+        final int minX = Math.max(0, Math.min(x1, x2) - 1);
+        final int maxX = Math.min(width - 1, Math.max(x1, x2) + 1);
+        final int minY = Math.max(0, Math.min(y1, y2) - 1);
+        final int maxY = Math.min(height - 1, Math.max(y1, y2) + 1);
+
+        final PreparedGeometry prepared = PreparedGeometryFactory.prepare(geometry);
+        for (int x = minX; x <= maxX; x++)
+            for (int y = minY; y <= maxY; y++)
+                if (prepared.covers(raster.toPoint(x, y)))
+                    mask.set(x * height + y);
+        return mask;
+    }
+}
@@ -22,11 +22,8 @@ package uk.ac.ox.oxfish.geography;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
-import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Table;
 import com.vividsolutions.jts.geom.Coordinate;
-import com.vividsolutions.jts.geom.Point;
 import ec.util.MersenneTwisterFast;
 import sim.engine.SimState;
 import sim.engine.Steppable;
@@ -44,6 +41,8 @@ import uk.ac.ox.oxfish.biology.Species;
 import uk.ac.ox.oxfish.biology.initializer.BiologyInitializer;
 import uk.ac.ox.oxfish.fisher.Fisher;
 import uk.ac.ox.oxfish.geography.pathfinding.Pathfinder;
+import uk.ac.ox.oxfish.geography.pathfinding.PortRouteTable;
+import uk.ac.ox.oxfish.geography.pathfinding.PortRoutesPathfinder;
 import uk.ac.ox.oxfish.geography.ports.Port;
 import uk.ac.ox.oxfish.model.FishState;
 import uk.ac.ox.oxfish.model.Startable;
@@ -51,13 +50,15 @@ import uk.ac.ox.oxfish.model.StepOrder;
 import uk.ac.ox.oxfish.utility.MasonUtils;
 import uk.ac.ox.oxfish.utility.Pair;
 
+import java.nio.file.Path;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.WeakHashMap;
+import java.util.Set;
 
 /**
  * This object stores the map/chart of the sea. It contains all the geometric fields holding locations and boundaries.
@@ -244,37 +245,42 @@ public class NauticalMap implements Startable
     }
 
 
-    @SuppressWarnings("unchecked") //bags are annoying this way
     /**
-     * get all the tiles of the map as a list
+     * get all the tiles of the map as a list, sorted by x and then y. The list is shared and can't be modified
      */
     public List<SeaTile> getAllSeaTilesAsList()
     {
-
-        if(allTiles == null) {
-            allTiles = new LinkedList<>(rasterBackingGrid.elements());
-            Collections.sort(allTiles, (o1, o2) -> {
-                int xComparison = Integer.compare(o1.getGridX(), o2.getGridX());
-                if(xComparison == 0)
-                    return Integer.compare(o1.getGridY(),o2.getGridY());
-                else
-                    return xComparison;
-            });
-        }
-        return allTiles;
+        return getTileIndex().getAllTiles();
     }
-    private List<SeaTile> allTiles = null;
-
-    private LinkedList<SeaTile> waterSeaTiles = null;
 
+    /**
+     * get all the water tiles of the map as a list, sorted by x and then y. The list is shared and can't be modified:
+     * copy it before shuffling or sorting it
+     */
     public List<SeaTile> getAllSeaTilesExcludingLandAsList()
     {
+        return getTileIndex().getWaterTiles();
+    }
+
+    /**
+     * dense int ids for all the tiles of the map and their neighbourhoods. Built when first needed and rebuilt
+     * whenever tiles are swapped out of the map
+     */
+    private transient volatile TileIndex tileIndex = null;
 
-        if(waterSeaTiles == null) {
-            waterSeaTiles = new LinkedList<>(getAllSeaTilesAsList());
-            waterSeaTiles.removeIf(SeaTile::isLand);
+    public TileIndex getTileIndex()
+    {
+        TileIndex index = tileIndex;
+        if(index == null) {
+            synchronized (this) {
+                index = tileIndex;
+                if(index == null) {
+                    index = new TileIndex(rasterBackingGrid);
+                    tileIndex = index;
+                }
+            }
         }
-        return waterSeaTiles;
+        return index;
     }
 
     /**
@@ -293,31 +299,41 @@ public class NauticalMap implements Startable
             tile.turnOff();
         }
 
-        alreadyComputedNeighbors.clear();
+        tileIndex = null;
         coordinateCache.clear();
-        sizeOneNeighborhoods.clear();
     }
 
     /**
      * this is called at initialization but can be called again if there is a change in MPAs. It basically checks
      * for each tile if they belong to an MPA (strictly speaking if their center belongs to an MPA). If there is an MPA it is set to the tile.Bio
+     * <br>
+     * Each MPA is rasterised once (see {@link MpaRasterizer}) so recomputing only goes through the cached cells of
+     * the active MPAs rather than querying the vector field for every tile.
      */
     public void recomputeTilesMPA() {
-        waterSeaTiles = null;
-        allTiles = null;
         lineTiles = null;
-        //todo this works but make a test to be sure
+        final int height = getHeight();
+        final MasonGeometry[] covering = new MasonGeometry[getWidth() * height];
+        for (Object element : mpaVectorField.getGeometries()) {
+            final MasonGeometry mpa = (MasonGeometry) element;
+            if (inactiveMPAs.contains(mpa))
+                continue;
+            final BitSet mask = getMpaRasterizer().getMask(mpa);
+            for (int cell = mask.nextSetBit(0); cell >= 0; cell = mask.nextSetBit(cell + 1)) {
+                assert covering[cell] == null : "got a tile covered by multiple MPAs, is that normal?"; //assume there is no double MPA
+                if (covering[cell] == null)
+                    covering[cell] = mpa;
+            }
+        }
+
         for(int i=0;i<rasterBackingGrid.getWidth(); i++)
             for(int j=0; j<rasterBackingGrid.getHeight(); j++)
             {
-                Point gridPoint = rasterBathymetry.toPoint(i, j);
-                Bag coveringObjects = mpaVectorField.getCoveringObjects(gridPoint);
                 SeaTile seaTile = getSeaTile(i, j);
-
-                if(coveringObjects.size() > 0)
+                MasonGeometry mpa = covering[i * height + j];
+                if(mpa != null)
                 {
-                    assert coveringObjects.size() == 1 : "got a tile covered by multiple MPAs, is that normal?"; //assume there is no double MPA
-                    seaTile.assignMpa((MasonGeometry) coveringObjects.get(0));
+                    seaTile.assignMpa(mpa);
                     assert seaTile.isProtected() : "Set a tile to an MPA but it doesn't set the protected state to true";
                 }
                 else
@@ -333,6 +349,75 @@ public class NauticalMap implements Startable
         resetCoordinateCache(rasterBathymetry);
     }
 
+    /**
+     * adds the MPA to the map and protects the tiles it covers, without going through all the other MPAs.
+     * Tiles already part of another (polygon) MPA keep it
+     */
+    public void addMPA(MasonGeometry mpa)
+    {
+        mpaVectorField.addGeometry(mpa);
+        inactiveMPAs.remove(mpa);
+        protectTiles(mpa);
+    }
+
+    /**
+     * switches an MPA of this map on or off: only the tiles it covers are touched
+     * @param mpa an MPA already in the map's vector field
+     * @param active true if its tiles should be protected
+     */
+    public void setMPAActive(MasonGeometry mpa, boolean active)
+    {
+        Preconditions.checkArgument(mpaVectorField.getGeometries().contains(mpa), "MPA is not part of this map");
+        if(active) {
+            if(inactiveMPAs.remove(mpa))
+                protectTiles(mpa);
+        }
+        else if(inactiveMPAs.add(mpa)) {
+            lineTiles = null;
+            final BitSet mask = getMpaRasterizer().getMask(mpa);
+            final int height = getHeight();
+            for (int cell = mask.nextSetBit(0); cell >= 0; cell = mask.nextSetBit(cell + 1)) {
+                SeaTile seaTile = getSeaTile(cell / height, cell % height);
+                if(seaTile.grabMPA() == mpa)
+                    seaTile.assignMpa(null);
+            }
+        }
+    }
+
+    public boolean isMPAActive(MasonGeometry mpa)
+    {
+        return mpaVectorField.getGeometries().contains(mpa) && !inactiveMPAs.contains(mpa);
+    }
+
+    private void protectTiles(MasonGeometry mpa)
+    {
+        lineTiles = null;
+        final BitSet mask = getMpaRasterizer().getMask(mpa);
+        final int height = getHeight();
+        for (int cell = mask.nextSetBit(0); cell >= 0; cell = mask.nextSetBit(cell + 1)) {
+            SeaTile seaTile = getSeaTile(cell / height, cell % height);
+            if(seaTile.grabMPA() == null || seaTile.grabMPA() == MPA_SINGLETON)
+                seaTile.assignMpa(mpa);
+        }
+    }
+
+    /**
+     * MPAs in the vector field that have been switched off
+     */
+    private final Set<MasonGeometry> inactiveMPAs = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * caches the cells covered by each MPA; rebuilt after deserialization or when the raster bounds change
+     */
+    private transient MpaRasterizer mpaRasterizer;
+
+    private MpaRasterizer getMpaRasterizer()
+    {
+        if(mpaRasterizer == null || !mpaRasterizer.isUpToDate())
+            mpaRasterizer = new MpaRasterizer(rasterBathymetry);
+        return mpaRasterizer;
+    }
+
     /**
      * returns sea tile at that coordinates. If it isn't there returns null
      * @param gridX the x coordinate of the cell
@@ -408,32 +493,25 @@ public Coordinate getCoordinates(int gridX, int gridY) {
 
 
     /**
-     * computing neighborhoods is actually a very expensive computational process so we store here all the
-     * neighborhood we found for each tile and neighborhood size so we compute them but once
+     * computing neighborhoods is actually a very expensive computational process so the tile index keeps the immediate
+     * neighbours of every water tile, and the most recently used of the others. The bag is shared: don't modify it
      */
-    public Table<SeaTile,Integer,Bag> alreadyComputedNeighbors = HashBasedTable.create();
-
-    /**
-     * one size lookups are even more common, so store them here
-     */
-    public Map<SeaTile,Bag> sizeOneNeighborhoods = new WeakHashMap<>();
-
-
     public Bag getMooreNeighbors(SeaTile tile, int neighborhoodSize)
     {
-        Bag neighbors;
-        neighbors =  neighborhoodSize == 1 ? sizeOneNeighborhoods.get(tile) :
-                alreadyComputedNeighbors.get(tile, neighborhoodSize);
-        if(neighbors == null) {
-            neighbors = new Bag();
+        int id = getTileIndex().getId(tile);
+        if(id < 0 && getSeaTile(tile.getGridX(), tile.getGridY()) == tile) {
+            //the tile has been swapped in without telling us, rebuild the index
+            tileIndex = null;
+            id = getTileIndex().getId(tile);
+        }
+        if(id < 0) {
+            //not a tile of this map at all, just ask the grid
+            Bag neighbors = new Bag();
             rasterBackingGrid.getMooreNeighbors(tile.getGridX(), tile.getGridY(), neighborhoodSize,
                     Grid2D.BOUNDED, false, neighbors, null, null);
-            if(neighborhoodSize==1)
-                sizeOneNeighborhoods.put(tile,neighbors);
-            else
-                alreadyComputedNeighbors.put(tile,neighborhoodSize,neighbors);
+            return neighbors;
         }
-        return neighbors;
+        return getTileIndex().getMooreNeighbors(id, neighborhoodSize);
     }
 
     /**
@@ -442,6 +520,7 @@ public Coordinate getCoordinates(int gridX, int gridY) {
      */
     public void reactToSeaTileChange()
     {
+        tileIndex = null;
         recomputeTilesMPA();
     }
 
@@ -601,4 +680,31 @@ public Coordinate getCoordinates(int gridX, int gridY) {
     public Pathfinder getPathfinder() {
         return pathfinder;
     }
+
+    /**
+     * the port routes computed by {@link #precomputePortRoutes(Path)}, or null if they never were
+     */
+    private PortRouteTable portRouteTable = null;
+
+    /**
+     * optional startup stage: floods the map once from each port so that all routes from and to ports are
+     * answered by looking them up rather than searching. All other routes are still computed by the
+     * current pathfinder. Call this after all ports have been added.
+     * @param cacheDirectory where to read/write the precomputed routes so that other runs on the same map can skip
+     *                       the computation. Can be null, in which case nothing is written
+     */
+    public void precomputePortRoutes(Path cacheDirectory)
+    {
+        Preconditions.checkState(!ports.isEmpty(), "No ports to precompute routes from");
+        portRouteTable = cacheDirectory == null ?
+                PortRouteTable.build(this, distance) :
+                PortRouteTable.loadOrBuild(this, distance, cacheDirectory);
+        Pathfinder delegate = pathfinder instanceof PortRoutesPathfinder ?
+                ((PortRoutesPathfinder) pathfinder).getDelegate() : pathfinder;
+        pathfinder = new PortRoutesPathfinder(portRouteTable, delegate);
+    }
+
+    public PortRouteTable getPortRouteTable() {
+        return portRouteTable;
+    }
 }
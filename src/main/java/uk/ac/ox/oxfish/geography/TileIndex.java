@@ -0,0 +1,274 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2017  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+
+package uk.ac.ox.oxfish.geography;
+
+import com.google.common.base.Preconditions;
+import sim.field.grid.Grid2D;
+import sim.field.grid.ObjectGrid2D;
+import sim.util.Bag;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A dense int index over the tiles of a map. Each tile gets a stable id: water tiles first (ids 0 to
+ * {@link #getNumberOfWaterTiles()}-1) then land, each group ordered by x and then y.
+ * <br>
+ * The immediate (radius 1) Moore neighbourhoods of water tiles are stored CSR-style: the ids of the neighbours of
+ * water tile i are neighbors[first[i]] ... neighbors[first[i+1]-1], in the same order MASON would return them. They
+ * are built the first time they are asked for and then never change. Land tiles and larger radii are only asked for
+ * by a handful of callers (ports, search strategies), so those are built per tile when needed and only the most
+ * recent are kept. The index itself is never modified; when tiles are swapped out of the map a new one needs to be
+ * built.
+ */
+public final class TileIndex {
+
+    private static final int OTHER_NEIGHBORHOODS_CACHE_SIZE = 1024;
+
+    private final ObjectGrid2D grid;
+
+    private final int width;
+
+    private final int height;
+
+    /**
+     * tiles by id
+     */
+    private final SeaTile[] tiles;
+
+    /**
+     * id of the tile at x,y is stored at x * height + y
+     */
+    private final int[] idsByCell;
+
+    private final int numberOfWaterTiles;
+
+    private final List<SeaTile> allTiles;
+
+    private final List<SeaTile> waterTiles;
+
+    /**
+     * immediate neighbours of the water tiles, built when first asked for
+     */
+    private volatile Neighborhood waterNeighborhood;
+
+    /**
+     * neighbourhoods of land tiles and larger radii, by radius * size() + id; only the most recently used are kept
+     */
+    private final Map<Long, Bag> otherNeighborhoods = new LinkedHashMap<Long, Bag>(16, .75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Bag> eldest) {
+            return size() > OTHER_NEIGHBORHOODS_CACHE_SIZE;
+        }
+    };
+
+    public TileIndex(ObjectGrid2D grid) {
+        this.grid = grid;
+        this.width = grid.getWidth();
+        this.height = grid.getHeight();
+        final int size = width * height;
+        tiles = new SeaTile[size];
+        idsByCell = new int[size];
+
+        int water = 0;
+        for (int x = 0; x < width; x++)
+            for (int y = 0; y < height; y++)
+                if (((SeaTile) grid.get(x, y)).isWater())
+                    water++;
+        numberOfWaterTiles = water;
+
+        final List<SeaTile> inGridOrder = new ArrayList<>(size);
+        int nextWater = 0;
+        int nextLand = numberOfWaterTiles;
+        for (int x = 0; x < width; x++)
+            for (int y = 0; y < height; y++) {
+                final SeaTile tile = (SeaTile) grid.get(x, y);
+                final int id = tile.isWater() ? nextWater++ : nextLand++;
+                tiles[id] = tile;
+                idsByCell[x * height + y] = id;
+                inGridOrder.add(tile);
+            }
+        allTiles = Collections.unmodifiableList(inGridOrder);
+        waterTiles = Collections.unmodifiableList(Arrays.asList(tiles).subList(0, numberOfWaterTiles));
+    }
+
+    /**
+     * @return the id of the tile, or -1 if the tile is not (or no longer) in the grid this index was built from
+     */
+    public int getId(SeaTile tile) {
+        final int x = tile.getGridX();
+        final int y = tile.getGridY();
+        if (x < 0 || y < 0 || x >= width || y >= height)
+            return -1;
+        final int id = idsByCell[x * height + y];
+        return tiles[id] == tile ? id : -1;
+    }
+
+    /**
+     * @return the id of the tile at x,y or -1 if it is outside the map
+     */
+    public int getId(int gridX, int gridY) {
+        if (gridX < 0 || gridY < 0 || gridX >= width || gridY >= height)
+            return -1;
+        return idsByCell[gridX * height + gridY];
+    }
+
+    public SeaTile getTile(int id) {
+        return tiles[id];
+    }
+
+    public boolean isWater(int id) {
+        return id < numberOfWaterTiles;
+    }
+
+    public int size() {
+        return tiles.length;
+    }
+
+    public int getNumberOfWaterTiles() {
+        return numberOfWaterTiles;
+    }
+
+    /**
+     * @return all the tiles, sorted by x and then y. Not modifiable
+     */
+    public List<SeaTile> getAllTiles() {
+        return allTiles;
+    }
+
+    /**
+     * @return all the water tiles, sorted by x and then y (which is also id order). Not modifiable
+     */
+    public List<SeaTile> getWaterTiles() {
+        return waterTiles;
+    }
+
+    /**
+     * the immediate neighbours of water tile i are getNeighbors()[getFirstNeighbor()[i]] up to (excluding)
+     * getNeighbors()[getFirstNeighbor()[i+1]]. Only water tiles are covered (the array has
+     * {@link #getNumberOfWaterTiles()}+1 entries). The arrays are shared: don't modify them
+     */
+    public int[] getFirstNeighbor() {
+        return getWaterNeighborhood().first;
+    }
+
+    /**
+     * ids of the immediate Moore neighbours of all water tiles (origin excluded, bounded at the map edges, land
+     * included), see {@link #getFirstNeighbor()}
+     */
+    public int[] getNeighbors() {
+        return getWaterNeighborhood().neighbors;
+    }
+
+    /**
+     * the Moore neighbours of the tile as a bag, shared between callers so don't modify it. The immediate neighbours
+     * of water tiles are built once and kept; any other tile and radius goes through a small cache of the most
+     * recently asked for
+     */
+    public Bag getMooreNeighbors(int id, int radius) {
+        Preconditions.checkArgument(radius > 0, "neighborhoods need a positive radius");
+        if (radius == 1 && isWater(id)) {
+            final Neighborhood neighborhood = getWaterNeighborhood();
+            Bag bag = neighborhood.bags.get(id);
+            if (bag == null) {
+                bag = new Bag(neighborhood.first[id + 1] - neighborhood.first[id]);
+                for (int k = neighborhood.first[id]; k < neighborhood.first[id + 1]; k++)
+                    bag.add(tiles[neighborhood.neighbors[k]]);
+                if (!neighborhood.bags.compareAndSet(id, null, bag))
+                    bag = neighborhood.bags.get(id);
+            }
+            return bag;
+        }
+
+        final long key = (long) radius * tiles.length + id;
+        synchronized (otherNeighborhoods) {
+            Bag bag = otherNeighborhoods.get(key);
+            if (bag == null) {
+                bag = askGrid(id, radius, new Bag());
+                otherNeighborhoods.put(key, bag);
+            }
+            return bag;
+        }
+    }
+
+    private Neighborhood getWaterNeighborhood() {
+        Neighborhood neighborhood = waterNeighborhood;
+        if (neighborhood == null) {
+            synchronized (this) {
+                neighborhood = waterNeighborhood;
+                if (neighborhood == null) {
+                    neighborhood = buildWaterNeighborhood();
+                    waterNeighborhood = neighborhood;
+                }
+            }
+        }
+        return neighborhood;
+    }
+
+    /**
+     * asks MASON for each neighbourhood once so that the order of the neighbours is exactly the one callers used
+     * to get from the grid
+     */
+    private Neighborhood buildWaterNeighborhood() {
+        final int[] first = new int[numberOfWaterTiles + 1];
+        final int[] neighbors = new int[numberOfWaterTiles * 8];
+        final Bag found = new Bag();
+        int edges = 0;
+        for (int id = 0; id < numberOfWaterTiles; id++) {
+            first[id] = edges;
+            found.clear();
+            for (Object neighbor : askGrid(id, 1, found))
+                neighbors[edges++] = idsByCell[((SeaTile) neighbor).getGridX() * height +
+                    ((SeaTile) neighbor).getGridY()];
+        }
+        first[numberOfWaterTiles] = edges;
+        return new Neighborhood(first, Arrays.copyOf(neighbors, edges), numberOfWaterTiles);
+    }
+
+    private Bag askGrid(int id, int radius, Bag result) {
+        grid.getMooreNeighbors(tiles[id].getGridX(), tiles[id].getGridY(), radius,
+                               Grid2D.BOUNDED, false, result, null, null);
+        return result;
+    }
+
+    private static final class Neighborhood {
+
+        private final int[] first;
+
+        private final int[] neighbors;
+
+        /**
+         * lazily built bags, for callers still using the MASON api
+         */
+        private final AtomicReferenceArray<Bag> bags;
+
+        private Neighborhood(int[] first, int[] neighbors, int size) {
+            this.first = first;
+            this.neighbors = neighbors;
+            this.bags = new AtomicReferenceArray<>(size);
+        }
+    }
+}
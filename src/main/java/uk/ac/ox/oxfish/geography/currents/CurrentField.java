@@ -0,0 +1,90 @@
+package uk.ac.ox.oxfish.geography.currents;
+
+import org.jetbrains.annotations.Nullable;
+import sim.util.Double2D;
+import uk.ac.ox.oxfish.geography.SeaTile;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * The current vectors over the whole grid at one point in time, stored as dense arrays of grid-xy offsets per day.
+ * The vector of cell x,y is at index x * height + y; cells we have no currents for hold NaN.
+ */
+public final class CurrentField {
+
+    private final int width;
+    private final int height;
+    private final double[] u;
+    private final double[] v;
+
+    CurrentField(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.u = new double[width * height];
+        this.v = new double[width * height];
+        Arrays.fill(u, Double.NaN);
+        Arrays.fill(v, Double.NaN);
+    }
+
+    static CurrentField fromMap(Map<SeaTile, Double2D> vectors, int width, int height) {
+        final CurrentField field = new CurrentField(width, height);
+        vectors.forEach((seaTile, vector) -> {
+            final int i = field.index(seaTile.getGridX(), seaTile.getGridY());
+            field.u[i] = vector.x;
+            field.v[i] = vector.y;
+        });
+        return field;
+    }
+
+    /**
+     * Cell by cell, the same weighted sum {@link CurrentVectors#getInterpolatedVector} computes. Cells missing in
+     * either field are missing in the result.
+     */
+    static CurrentField interpolate(
+        CurrentField before, int offsetBefore,
+        CurrentField after, int offsetAfter
+    ) {
+        final CurrentField field = new CurrentField(before.width, before.height);
+        final double totalOffset = (double) offsetBefore + offsetAfter;
+        final double weightBefore = (totalOffset - offsetBefore) / totalOffset;
+        final double weightAfter = (totalOffset - offsetAfter) / totalOffset;
+        for (int i = 0; i < field.u.length; i++) {
+            // NaN propagates, so a cell missing on either side stays missing
+            field.u[i] = before.u[i] * weightBefore + after.u[i] * weightAfter;
+            field.v[i] = before.v[i] * weightBefore + after.v[i] * weightAfter;
+        }
+        return field;
+    }
+
+    private int index(int x, int y) { return x * height + y; }
+
+    /**
+     * Returns true if we have a current vector for cell x,y.
+     */
+    public boolean hasVector(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height && !Double.isNaN(u[index(x, y)]);
+    }
+
+    /**
+     * The x offset at cell x,y. Only meaningful if {@link #hasVector(int, int)}.
+     */
+    public double getU(int x, int y) { return u[index(x, y)]; }
+
+    /**
+     * The y offset at cell x,y. Only meaningful if {@link #hasVector(int, int)}.
+     */
+    public double getV(int x, int y) { return v[index(x, y)]; }
+
+    /**
+     * Returns the vector at cell x,y or null if we have no currents there.
+     */
+    @Nullable public Double2D getVector(int x, int y) {
+        return hasVector(x, y) ? new Double2D(getU(x, y), getV(x, y)) : null;
+    }
+
+    public int getWidth() { return width; }
+
+    public int getHeight() { return height; }
+
+}
@@ -5,25 +5,50 @@ import sim.util.Double2D;
 import uk.ac.ox.oxfish.geography.SeaTile;
 
 import java.util.EnumMap;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.lang.Math.abs;
+import static java.util.stream.Collectors.toList;
 import static uk.ac.ox.oxfish.geography.currents.CurrentPattern.Y2017;
 
+/**
+ * Currents for every day of the year, one dense {@link CurrentField} per keyed day and pattern. Fields for the
+ * steps in between keyed days are interpolated for the whole grid at once the first time a step is asked for, and
+ * kept until {@link #removeCachedVectors(int)} is called for that step. If prefetching is on, the field for the next
+ * step is built on a background thread (one per instance, stopped by {@link #turnOff()}) as soon as one is asked for.
+ */
 public class CurrentVectors {
 
-    private final Map<Integer, HashMap<SeaTile, Double2D>> vectorCache = new HashMap<>();
-    private final TreeMap<Integer, EnumMap<CurrentPattern, Map<SeaTile, Double2D>>> vectorMaps;
+    private final ConcurrentHashMap<Integer, CurrentField> fieldCache = new ConcurrentHashMap<>();
+    private final TreeMap<Integer, EnumMap<CurrentPattern, CurrentField>> vectorMaps;
     private final Function<Integer, CurrentPattern> currentPatternAtStep;
 
     private final int stepsPerDay;
-    private final int initialHashMapsCapacity;
+    private final int width;
+    private final int height;
+
+    private final boolean prefetching;
+
+    /**
+     * the highest step whose field has been sent to the prefetcher
+     */
+    private final AtomicInteger prefetchedStep = new AtomicInteger(Integer.MIN_VALUE);
+
+    /**
+     * single background thread building the fields ahead; created when first needed (and again after a checkpoint
+     * is restored)
+     */
+    private transient ExecutorService prefetcher;
 
     public CurrentVectors(
         TreeMap<Integer, EnumMap<CurrentPattern, Map<SeaTile, Double2D>>> vectorMaps,
@@ -37,10 +62,34 @@ public class CurrentVectors {
         Function<Integer, CurrentPattern> currentPatternAtStep,
         int stepsPerDay
     ) {
-        this.initialHashMapsCapacity = initialHashMapsCapacity(vectorMaps);
-        this.vectorMaps = vectorMaps;
+        this(vectorMaps, currentPatternAtStep, stepsPerDay, false);
+    }
+
+    /**
+     * @param prefetching when true, asking for the currents at one step starts building the field for the following
+     *                    step in the background
+     */
+    public CurrentVectors(
+        TreeMap<Integer, EnumMap<CurrentPattern, Map<SeaTile, Double2D>>> vectorMaps,
+        Function<Integer, CurrentPattern> currentPatternAtStep,
+        int stepsPerDay,
+        boolean prefetching
+    ) {
+        final List<SeaTile> seaTiles = vectorMaps.values().stream()
+            .flatMap(map -> map.values().stream())
+            .flatMap(map -> map.keySet().stream())
+            .collect(toList());
+        this.width = seaTiles.stream().mapToInt(SeaTile::getGridX).max().orElse(-1) + 1;
+        this.height = seaTiles.stream().mapToInt(SeaTile::getGridY).max().orElse(-1) + 1;
+        this.vectorMaps = new TreeMap<>();
+        vectorMaps.forEach((day, maps) -> {
+            final EnumMap<CurrentPattern, CurrentField> fields = new EnumMap<>(CurrentPattern.class);
+            maps.forEach((pattern, vectors) -> fields.put(pattern, CurrentField.fromMap(vectors, width, height)));
+            this.vectorMaps.put(day, fields);
+        });
         this.currentPatternAtStep = currentPatternAtStep;
         this.stepsPerDay = stepsPerDay;
+        this.prefetching = prefetching;
     }
 
     @NotNull public static Double2D getInterpolatedVector(
@@ -53,17 +102,6 @@ public class CurrentVectors {
         return v1.add(v2);
     }
 
-    private int initialHashMapsCapacity(Map<Integer, EnumMap<CurrentPattern, Map<SeaTile, Double2D>>> vectorMaps) {
-        // use half the size of the largest vector map (though they should all be the same size) as initial capacity.
-        // This should lead to *at most* two rehashings (given the default load factor of .75), but avoids all
-        // rehashings most of the time, as the cached vectors rarely exceed one quarter of the map.
-        return vectorMaps.values().stream()
-            .flatMap(map -> map.values().stream()).mapToInt(Map::size)
-            .max()
-            .orElse(0)
-            / 2;
-    }
-
     private int getDayOfTheYear(int timeStep) { return ((timeStep / stepsPerDay) % 365) + 1; }
 
     int positiveDaysOffset(int sourceDay, int targetDay) {
@@ -78,25 +116,57 @@ public class CurrentVectors {
         return -positiveDaysOffset(targetDay, sourceDay);
     }
 
+    /**
+     * Returns the current vector for seaTile at step, or null if we have no currents for that sea tile.
+     */
     Double2D getVector(int step, SeaTile seaTile) {
-        return vectorCache
-            .computeIfAbsent(step, __ -> new HashMap<>(initialHashMapsCapacity))
-            .computeIfAbsent(seaTile, __ -> computeVector(step, seaTile));
+        return seaTile == null ? null : getField(step).getVector(seaTile.getGridX(), seaTile.getGridY());
     }
 
     /**
-     * Returns the current vector for seaTile at step. Returns null if we have no currents for that sea tile.
+     * Returns the currents over the whole grid at step. Safe to call from multiple threads.
      */
-    private Double2D computeVector(int step, SeaTile seaTile) {
+    public CurrentField getField(int step) {
+        final CurrentField field = fieldCache.computeIfAbsent(step, this::computeField);
+        if (prefetching) {
+            // many threads ask for the same step: only the first one sends the next step to the prefetcher
+            final int previous = prefetchedStep.get();
+            if (previous < step + 1 && prefetchedStep.compareAndSet(previous, step + 1))
+                getPrefetcher().execute(() -> fieldCache.computeIfAbsent(step + 1, this::computeField));
+        }
+        return field;
+    }
+
+    private synchronized ExecutorService getPrefetcher() {
+        if (prefetcher == null)
+            prefetcher = Executors.newSingleThreadExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "current-vectors-prefetcher");
+                thread.setDaemon(true);
+                return thread;
+            });
+        return prefetcher;
+    }
+
+    /**
+     * Stops the prefetching thread, if any; asking for a field afterwards starts a new one.
+     */
+    public synchronized void turnOff() {
+        if (prefetcher != null) {
+            prefetcher.shutdownNow();
+            prefetcher = null;
+        }
+    }
+
+    private CurrentField computeField(int step) {
         final int dayOfTheYear = getDayOfTheYear(step);
         if (vectorMaps.containsKey(dayOfTheYear)) {
-            final Map<CurrentPattern, Map<SeaTile, Double2D>> mapsAtStep = vectorMaps.get(dayOfTheYear);
+            final Map<CurrentPattern, CurrentField> mapsAtStep = vectorMaps.get(dayOfTheYear);
             final CurrentPattern currentPattern = currentPatternAtStep.apply(step);
             if (mapsAtStep.containsKey(currentPattern)) {
-                return mapsAtStep.get(currentPattern).get(seaTile);
+                return mapsAtStep.get(currentPattern);
             }
         }
-        return getInterpolatedVector(seaTile, step);
+        return getInterpolatedField(step);
     }
 
     private VectorMapAtStep lookupVectorMap(
@@ -111,7 +181,7 @@ public class CurrentVectors {
         final int newDay = newKey != null ? newKey : keyFallback.get();
         final int offsetInDays = offsetFunction.apply(oldDay, newDay);
         final int newStep = step + (offsetInDays * stepsPerDay);
-        final Map<CurrentPattern, Map<SeaTile, Double2D>> mapsOnNewDay = vectorMaps.get(newDay);
+        final Map<CurrentPattern, CurrentField> mapsOnNewDay = vectorMaps.get(newDay);
         final CurrentPattern patternAtNewStep = currentPatternAtStep.apply(newStep);
         return mapsOnNewDay.containsKey(patternAtNewStep) ?
             new VectorMapAtStep(newStep, mapsOnNewDay.get(patternAtNewStep)) :
@@ -139,31 +209,29 @@ public class CurrentVectors {
     }
 
     /**
-     * Return the interpolated vector between the currents we have before and after step.
-     * Returns null if we don't have currents for the desired sea tile.
+     * Return the field interpolated between the currents we have before and after step.
      */
-    private Double2D getInterpolatedVector(SeaTile seaTile, int step) {
+    private CurrentField getInterpolatedField(int step) {
+        if (vectorMaps.isEmpty()) return new CurrentField(width, height);
         final VectorMapAtStep vectorMapBefore = getVectorMapBefore(step - 1);
-        final Double2D vectorBefore = vectorMapBefore.vectorMap.get(seaTile);
-        if (vectorBefore == null) return null;
         final int offsetBefore = abs(step - vectorMapBefore.step);
         final VectorMapAtStep vectorMapAfter = getVectorMapAfter(step + 1);
-        final Double2D vectorAfter = vectorMapAfter.vectorMap.get(seaTile);
-        if (vectorAfter == null) return null;
         final int offsetAfter = abs(step - vectorMapAfter.step);
-        return getInterpolatedVector(vectorBefore, offsetBefore, vectorAfter, offsetAfter);
+        return CurrentField.interpolate(vectorMapBefore.field, offsetBefore, vectorMapAfter.field, offsetAfter);
     }
 
-    public void removeCachedVectors(int timeStep) { vectorCache.remove(timeStep); }
+    public void removeCachedVectors(int timeStep) { fieldCache.remove(timeStep); }
+
+    public boolean isPrefetching() { return prefetching; }
 
     static class VectorMapAtStep {
 
         final int step;
-        final Map<SeaTile, Double2D> vectorMap;
+        final CurrentField field;
 
-        VectorMapAtStep(int step, Map<SeaTile, Double2D> vectorMap) {
+        VectorMapAtStep(int step, CurrentField field) {
             this.step = step;
-            this.vectorMap = vectorMap;
+            this.field = field;
         }
 
     }
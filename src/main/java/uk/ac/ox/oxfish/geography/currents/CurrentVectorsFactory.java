@@ -17,6 +17,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.TreeMap;
 
+import static uk.ac.ox.oxfish.geography.currents.CurrentPattern.Y2017;
 import static uk.ac.ox.oxfish.utility.MasonUtils.coordinateToXY;
 import static uk.ac.ox.oxfish.utility.csv.CsvParserUtil.getLocalDate;
 
@@ -25,9 +26,13 @@ public class CurrentVectorsFactory {
     private static final int SECONDS_PER_DAY = 60 * 60 * 24;
 
     public static CurrentVectors makeCurrentVectors(NauticalMap map, int stepsPerDay) {
+        return makeCurrentVectors(map, stepsPerDay, false);
+    }
+
+    public static CurrentVectors makeCurrentVectors(NauticalMap map, int stepsPerDay, boolean prefetching) {
         final TreeMap<Integer, EnumMap<CurrentPattern, Map<SeaTile, Double2D>>> vectorMaps =
             makeVectorMaps(map, TunaScenario.currentFiles);
-        return new CurrentVectors(vectorMaps, stepsPerDay);
+        return new CurrentVectors(vectorMaps, __ -> Y2017, stepsPerDay, prefetching);
     }
 
     private static TreeMap<Integer, EnumMap<CurrentPattern, Map<SeaTile, Double2D>>> makeVectorMaps(
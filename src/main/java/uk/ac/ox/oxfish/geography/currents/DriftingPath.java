@@ -44,14 +44,15 @@ public class DriftingPath {
     }
 
     Optional<Double2D> applyDrift(Double2D position, int timeStep) {
-        final SeaTile tile = getSeaTile.apply((int) position.x, (int) position.y);
-        final Optional<Double2D> vector = Optional.ofNullable(currentVectors.getVector(timeStep, tile));
-        final Optional<Double2D> newPosition = vector.map(position::add);
-        final Optional<SeaTile> newTile = newPosition.flatMap(p ->
-            Optional.ofNullable(getSeaTile.apply((int) p.x, (int) p.y))
-        );
+        final int x = (int) position.x;
+        final int y = (int) position.y;
+        final CurrentField field = currentVectors.getField(timeStep);
+        if (getSeaTile.apply(x, y) == null || !field.hasVector(x, y)) return Optional.empty();
+        final Double2D newPosition = new Double2D(position.x + field.getU(x, y), position.y + field.getV(x, y));
         // only return the new position if it's on a tile
-        return newTile.flatMap(__ -> newPosition);
+        return getSeaTile.apply((int) newPosition.x, (int) newPosition.y) == null ?
+            Optional.empty() :
+            Optional.of(newPosition);
     }
 
     public Map<Integer, Optional<Double2D>> getPositions() { return unmodifiableMap(positions); }
@@ -6,88 +6,220 @@ import sim.util.Bag;
 import sim.util.Double2D;
 import uk.ac.ox.oxfish.geography.NauticalMap;
 import uk.ac.ox.oxfish.geography.SeaTile;
+import uk.ac.ox.oxfish.geography.currents.CurrentField;
 import uk.ac.ox.oxfish.geography.currents.CurrentVectors;
 import uk.ac.ox.oxfish.geography.currents.DriftingPath;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
-import static com.google.common.base.Preconditions.checkState;
-import static java.util.Collections.unmodifiableMap;
-import static uk.ac.ox.oxfish.utility.MasonUtils.bagToStream;
-import static uk.ac.ox.oxfish.utility.MasonUtils.inBounds;
 
+/**
+ * Keeps the drifting objects in parallel arrays (object, position, step of that position, callback) so that a whole
+ * day of drift is one pass over primitive arrays, run in parallel across objects.
+ * <br>
+ * Objects are stored in the order they were added and removing one moves the last object into its slot; that is
+ * the same order MASON keeps in {@link Continuous2D#allObjects}, so iterating over the objects gives the same
+ * sequence it always did. The objects in each cell are kept in MASON-like bags as well. The {@link Continuous2D}
+ * itself is only built (and from then on kept in sync) once someone asks for it, which in practice is the GUI.
+ */
 public class DriftingObjectsMap {
 
-    private final Continuous2D field;
+    private static final int INITIAL_CAPACITY = 16;
+
     private final CurrentVectors currentVectors;
     private final BiFunction<Integer, Integer, SeaTile> getSeaTile;
-    private final Map<Object, DriftingPath> objectPaths = new HashMap<>();
-    private final Map<Object, BiConsumer<Double2D, Optional<Double2D>>> onMoveCallbacks = new HashMap<>();
+    private final int width;
+    private final int height;
+
+    private final Map<Object, Integer> indices = new HashMap<>();
+    private Object[] objects = new Object[INITIAL_CAPACITY];
+    private double[] xs = new double[INITIAL_CAPACITY];
+    private double[] ys = new double[INITIAL_CAPACITY];
+    /**
+     * the time step each object's position refers to
+     */
+    private int[] steps = new int[INITIAL_CAPACITY];
+    private BiConsumer<Double2D, Optional<Double2D>>[] onMoveCallbacks = newCallbacks(INITIAL_CAPACITY);
+    /**
+     * look-ahead paths handed out by {@link #getObjectPath(Object)}; dropped whenever the object moves
+     */
+    private DriftingPath[] paths = new DriftingPath[INITIAL_CAPACITY];
+    private int size = 0;
+
+    /**
+     * objects in each cell (x * height + y), null until something drifts there
+     */
+    private final Bag[] cells;
+
+    @Nullable
+    private Continuous2D field;
+
     DriftingObjectsMap(
         CurrentVectors currentVectors,
         NauticalMap nauticalMap
     ) {
         this(
-            new Continuous2D(1.0, nauticalMap.getWidth(), nauticalMap.getHeight()),
             currentVectors,
-            nauticalMap::getSeaTile
+            nauticalMap::getSeaTile,
+            nauticalMap.getWidth(),
+            nauticalMap.getHeight()
         );
     }
 
     private DriftingObjectsMap(
-        Continuous2D field,
         CurrentVectors currentVectors,
-        BiFunction<Integer, Integer, SeaTile> getSeaTile
+        BiFunction<Integer, Integer, SeaTile> getSeaTile,
+        int width,
+        int height
     ) {
-        this.field = field;
         this.currentVectors = currentVectors;
         this.getSeaTile = getSeaTile;
+        this.width = width;
+        this.height = height;
+        this.cells = new Bag[width * height];
     }
 
-    public DriftingPath getObjectPath(Object o) { return objectPaths.get(o); }
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static BiConsumer<Double2D, Optional<Double2D>>[] newCallbacks(int capacity) {
+        return new BiConsumer[capacity];
+    }
+
+    /**
+     * The path the object will drift along from its current position onward
+     */
+    public DriftingPath getObjectPath(Object o) {
+        final Integer index = indices.get(o);
+        if (index == null) return null;
+        if (paths[index] == null)
+            paths[index] = new DriftingPath(
+                steps[index], new Double2D(xs[index], ys[index]), currentVectors, getSeaTile
+            );
+        return paths[index];
+    }
 
     public void applyDrift(int timeStep) {
-        Bag objects = new Bag(field.allObjects); // make a copy, as objects can be removed
-        bagToStream(objects).forEach(o -> {
-            final Double2D oldLoc = field.getObjectLocationAsDouble2D(o);
-            final Optional<Double2D> newLoc = objectPaths.get(o)
-                .position(timeStep)
-                .filter(location -> inBounds(location, field));
-            if (newLoc.isPresent()) // TODO: use `ifPresentOrElse` once we upgrade to Java >=9.
-                move(o, oldLoc, newLoc.get());
+        final int n = size;
+        // make a copy, as objects can be removed by the callbacks
+        final Object[] snapshot = Arrays.copyOf(objects, n);
+        final double[] newXs = new double[n];
+        final double[] newYs = new double[n];
+        // positions only depend on the currents, so every object drifts independently
+        IntStream.range(0, n).parallel().forEach(i -> drift(i, timeStep, newXs, newYs));
+        for (int i = 0; i < n; i++) {
+            final Object o = snapshot[i];
+            final Integer index = indices.get(o);
+            if (index == null) continue;
+            if (Double.isNaN(newXs[i]))
+                remove(o, index);
             else
-                remove(o, oldLoc);
-        });
+                move(o, index, newXs[i], newYs[i], timeStep);
+        }
         currentVectors.removeCachedVectors(timeStep);
     }
 
-    private void move(Object object, Double2D oldLocation, Double2D newLocation) {
-        setObjectLocation(object, newLocation);
-        Optional
-            .ofNullable(onMoveCallbacks.get(object))
-            .ifPresent(f -> f.accept(oldLocation, Optional.of(newLocation)));
+    /**
+     * Applies the currents to object i, one step at a time, up to the given time step. Writes NaN if the object
+     * drifts somewhere without currents or off the map.
+     */
+    private void drift(int i, int timeStep, double[] newXs, double[] newYs) {
+        checkArgument(timeStep >= steps[i]);
+        double x = xs[i];
+        double y = ys[i];
+        for (int step = steps[i] + 1; step <= timeStep; step++) {
+            final int cellX = (int) x;
+            final int cellY = (int) y;
+            final CurrentField currents = currentVectors.getField(step);
+            if (!inGrid(cellX, cellY) || !currents.hasVector(cellX, cellY)) {
+                x = Double.NaN;
+                break;
+            }
+            x += currents.getU(cellX, cellY);
+            y += currents.getV(cellX, cellY);
+            if (!inGrid((int) x, (int) y)) {
+                x = Double.NaN;
+                break;
+            }
+        }
+        if (!inBounds(x, y)) x = Double.NaN;
+        newXs[i] = x;
+        newYs[i] = y;
+    }
+
+    /**
+     * same test as {@link NauticalMap#getSeaTile(int, int)} returning something
+     */
+    private boolean inGrid(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+
+    private boolean inBounds(double x, double y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
     }
 
-    private void remove(Object object, Double2D oldLocation) {
-        final Object result = field.remove(object);
-        checkNotNull(result, "Object not on the map!");
-        objectPaths.remove(object);
-        Optional
-            .ofNullable(onMoveCallbacks.remove(object))
-            .ifPresent(f -> f.accept(oldLocation, Optional.empty()));
+    private void move(Object object, int index, double newX, double newY, int timeStep) {
+        final Double2D oldLocation = new Double2D(xs[index], ys[index]);
+        setObjectLocation(object, index, newX, newY);
+        if (steps[index] != timeStep) {
+            steps[index] = timeStep;
+            paths[index] = null;
+        }
+        final BiConsumer<Double2D, Optional<Double2D>> onMove = onMoveCallbacks[index];
+        if (onMove != null)
+            onMove.accept(oldLocation, Optional.of(new Double2D(newX, newY)));
     }
 
-    private void setObjectLocation(Object object, Double2D newLocation) {
-        checkArgument(inBounds(newLocation, field));
-        final boolean result = field.setObjectLocation(object, newLocation);
-        checkState(result);
+    private void remove(Object object, int index) {
+        final Double2D oldLocation = new Double2D(xs[index], ys[index]);
+        final BiConsumer<Double2D, Optional<Double2D>> onMove = onMoveCallbacks[index];
+        indices.remove(object);
+        cells[cell(xs[index], ys[index])].remove(object);
+        // fill the hole with the last object, like MASON does
+        final int last = --size;
+        if (index != last) {
+            objects[index] = objects[last];
+            xs[index] = xs[last];
+            ys[index] = ys[last];
+            steps[index] = steps[last];
+            onMoveCallbacks[index] = onMoveCallbacks[last];
+            paths[index] = paths[last];
+            indices.put(objects[index], index);
+        }
+        objects[last] = null;
+        onMoveCallbacks[last] = null;
+        paths[last] = null;
+        if (field != null) field.remove(object);
+        if (onMove != null) onMove.accept(oldLocation, Optional.empty());
+    }
+
+    private void setObjectLocation(Object object, int index, double x, double y) {
+        checkArgument(inBounds(x, y));
+        final int oldCell = cell(xs[index], ys[index]);
+        final int newCell = cell(x, y);
+        if (oldCell != newCell) {
+            cells[oldCell].remove(object);
+            addToCell(object, newCell);
+        }
+        xs[index] = x;
+        ys[index] = y;
+        if (field != null) field.setObjectLocation(object, new Double2D(x, y));
+    }
+
+    private int cell(double x, double y) {
+        return (int) x * height + (int) y;
+    }
+
+    private void addToCell(Object object, int cell) {
+        if (cells[cell] == null) cells[cell] = new Bag();
+        cells[cell].add(object);
     }
 
     /**
@@ -97,7 +229,9 @@ public class DriftingObjectsMap {
      * @param object the object to remove
      */
     public void remove(Object object) {
-        remove(object, field.getObjectLocationAsDouble2D(object));
+        final Integer index = indices.get(object);
+        checkNotNull(index, "Object not on the map!");
+        remove(object, index);
     }
 
     public void add(
@@ -106,20 +240,82 @@ public class DriftingObjectsMap {
         Double2D location,
         BiConsumer<Double2D, Optional<Double2D>> onMove
     ) {
-        setObjectLocation(object, location);
-        onMoveCallbacks.put(object, onMove);
-        objectPaths.put(object, new DriftingPath(timeStep, location, currentVectors, getSeaTile));
+        checkArgument(inBounds(location.x, location.y));
+        Integer index = indices.get(object);
+        if (index == null) {
+            ensureCapacity(size + 1);
+            index = size++;
+            indices.put(object, index);
+            objects[index] = object;
+            xs[index] = location.x;
+            ys[index] = location.y;
+            addToCell(object, cell(location.x, location.y));
+            if (field != null) field.setObjectLocation(object, location);
+        } else
+            setObjectLocation(object, index, location.x, location.y);
+        steps[index] = timeStep;
+        onMoveCallbacks[index] = onMove;
+        paths[index] = null;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= objects.length) return;
+        final int newCapacity = Math.max(capacity, objects.length * 2);
+        objects = Arrays.copyOf(objects, newCapacity);
+        xs = Arrays.copyOf(xs, newCapacity);
+        ys = Arrays.copyOf(ys, newCapacity);
+        steps = Arrays.copyOf(steps, newCapacity);
+        onMoveCallbacks = Arrays.copyOf(onMoveCallbacks, newCapacity);
+        paths = Arrays.copyOf(paths, newCapacity);
     }
 
     @Nullable
     Double2D getObjectLocation(Object object) {
-        return field.getObjectLocation(object);
+        final Integer index = indices.get(object);
+        return index == null ? null : new Double2D(xs[index], ys[index]);
+    }
+
+    /**
+     * the objects in the given cell; like MASON, this is the live bag and must not be modified
+     */
+    @Nullable
+    Bag getObjectsInCell(int x, int y) {
+        return inGrid(x, y) ? cells[x * height + y] : null;
     }
 
     public Stream<Object> objects() {
-        return bagToStream(field.allObjects);
+        final Object[] objects = this.objects;
+        return IntStream.range(0, size).mapToObj(i -> objects[i]);
     }
 
-    public Continuous2D getField() { return field; }
+    /**
+     * number of objects on the map
+     */
+    int size() { return size; }
+
+    /**
+     * the i-th object, in storage order
+     */
+    Object get(int i) { return objects[i]; }
+
+    double getX(int i) { return xs[i]; }
+
+    double getY(int i) { return ys[i]; }
+
+    public CurrentVectors getCurrentVectors() { return currentVectors; }
+
+    /**
+     * A MASON field with all the drifting objects in it. It is built the first time it is asked for and kept in sync
+     * with the map from then on (which costs a hash update per move), so only ask for it if you are going to draw it.
+     */
+    public Continuous2D getField() {
+        if (field == null) {
+            final Continuous2D newField = new Continuous2D(1.0, width, height);
+            for (int i = 0; i < size; i++)
+                newField.setObjectLocation(objects[i], new Double2D(xs[i], ys[i]));
+            field = newField;
+        }
+        return field;
+    }
 
 }
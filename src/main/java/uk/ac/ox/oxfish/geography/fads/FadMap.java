@@ -1,5 +1,6 @@
 package uk.ac.ox.oxfish.geography.fads;
 
+import ec.util.MersenneTwisterFast;
 import org.jetbrains.annotations.NotNull;
 import sim.engine.SimState;
 import sim.engine.Steppable;
@@ -7,7 +8,6 @@ import sim.engine.Stoppable;
 import sim.field.continuous.Continuous2D;
 import sim.util.Bag;
 import sim.util.Double2D;
-import sim.util.Int2D;
 import uk.ac.ox.oxfish.biology.GlobalBiology;
 import uk.ac.ox.oxfish.biology.Species;
 import uk.ac.ox.oxfish.biology.VariableBiomassBasedBiology;
@@ -19,8 +19,11 @@ import uk.ac.ox.oxfish.model.FishState;
 import uk.ac.ox.oxfish.model.Startable;
 import uk.ac.ox.oxfish.model.StepOrder;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 import java.util.function.BiConsumer;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 /**
@@ -58,22 +61,66 @@ public class FadMap implements Startable, Steppable {
     @Override
     public void turnOff() {
         if (stoppable != null) stoppable.stop();
+        driftingObjectsMap.getCurrentVectors().turnOff();
     }
 
     @Override
     public void step(SimState simState) {
         FishState fishState = (FishState) simState;
         driftingObjectsMap.applyDrift(fishState.getStep());
-        allFads().forEach(fad -> {
+        aggregateAndReleaseFish(fishState.getRandom());
+    }
+
+    /**
+     * Every FAD attracts fish from the tile it is on and then, with some probability, releases its fish. FADs on
+     * the same tile compete for the same fish and are processed one after the other, in storage order; different
+     * tiles are processed in parallel. The random draws are made upfront, one per FAD in storage order, and the
+     * biomass lost by released FADs is reported to their owners afterwards in that same order, so the outcome is the
+     * same as going through the FADs one by one.
+     */
+    private void aggregateAndReleaseFish(MersenneTwisterFast random) {
+        final int numberOfFads = driftingObjectsMap.size();
+        final double[] draws = new double[numberOfFads];
+        for (int i = 0; i < numberOfFads; i++)
+            draws[i] = random.nextDouble();
+        final boolean[] released = new boolean[numberOfFads];
+
+        // sort FADs by tile, keeping storage order within each tile
+        final long[] fadsByTile = new long[numberOfFads];
+        for (int i = 0; i < numberOfFads; i++) {
+            final long cell = (long) (int) driftingObjectsMap.getX(i) * nauticalMap.getHeight() +
+                (int) driftingObjectsMap.getY(i);
+            fadsByTile[i] = cell << 32 | i;
+        }
+        Arrays.sort(fadsByTile);
+        final IntStream.Builder tileStarts = IntStream.builder();
+        for (int i = 0; i < numberOfFads; i++)
+            if (i == 0 || fadsByTile[i] >>> 32 != fadsByTile[i - 1] >>> 32)
+                tileStarts.add(i);
+        final int[] starts = tileStarts.build().toArray();
+
+        final List<Species> species = globalBiology.getSpecies();
+        IntStream.range(0, starts.length).parallel().forEach(t -> {
+            final int end = t + 1 < starts.length ? starts[t + 1] : numberOfFads;
+            final int first = (int) fadsByTile[starts[t]];
             final Optional<VariableBiomassBasedBiology> seaTileBiology =
-                getFadTile(fad).flatMap(FadMap::getVariableBiomassBasedBiology);
-            if (seaTileBiology.isPresent()) {
-                fad.aggregateFish(seaTileBiology.get(), globalBiology);
-                fad.maybeReleaseFish(globalBiology.getSpecies(), seaTileBiology.get(), fishState.getRandom());
-            } else {
-                fad.maybeReleaseFish(globalBiology.getSpecies(), fishState.getRandom());
+                getSeaTile(driftingObjectsMap.getX(first), driftingObjectsMap.getY(first))
+                    .flatMap(FadMap::getVariableBiomassBasedBiology);
+            for (int j = starts[t]; j < end; j++) {
+                final int i = (int) fadsByTile[j];
+                final Fad fad = (Fad) driftingObjectsMap.get(i);
+                released[i] = draws[i] < fad.getFishReleaseProbability();
+                if (seaTileBiology.isPresent()) {
+                    fad.aggregateFish(seaTileBiology.get(), globalBiology);
+                    if (released[i]) fad.transferFish(species, seaTileBiology.get());
+                }
             }
         });
+
+        // whatever is left on released FADs is lost; owners are told in storage order
+        for (int i = 0; i < numberOfFads; i++)
+            if (released[i])
+                ((Fad) driftingObjectsMap.get(i)).releaseFish(species);
     }
 
     @NotNull
@@ -100,9 +147,12 @@ public class FadMap implements Startable, Steppable {
 
     @NotNull
     private Optional<SeaTile> getSeaTile(Double2D location) {
-        return Optional.ofNullable(
-            nauticalMap.getSeaTile((int) (location.x), (int) (location.y))
-        );
+        return getSeaTile(location.x, location.y);
+    }
+
+    @NotNull
+    private Optional<SeaTile> getSeaTile(double x, double y) {
+        return Optional.ofNullable(nauticalMap.getSeaTile((int) x, (int) y));
     }
 
     public void deployFad(Fad fad, int timeStep, Double2D location) {
@@ -144,14 +194,13 @@ public class FadMap implements Startable, Steppable {
 
     @NotNull
     public Bag fadsAt(SeaTile seaTile) {
-        Int2D location = new Int2D(seaTile.getGridX(), seaTile.getGridY());
-        final Bag bag = driftingObjectsMap.getField().getObjectsAtDiscretizedLocation(location);
+        final Bag bag = driftingObjectsMap.getObjectsInCell(seaTile.getGridX(), seaTile.getGridY());
         return bag == null ? new Bag() : bag;
     }
 
     /**
-     * Returns the Continuous2D field backing the floating objects map. Only public because the GUI
-     * portrayal needs to access it.
+     * Returns a Continuous2D field mirroring the floating objects map. Only public because the GUI
+     * portrayal needs to access it; the field is only kept up to date once it has been asked for.
      */
     @NotNull
     public Continuous2D getField() { return driftingObjectsMap.getField(); }
@@ -9,10 +9,26 @@ import static uk.ac.ox.oxfish.geography.currents.CurrentVectorsFactory.makeCurre
 
 public class FadMapFactory implements AlgorithmFactory<FadMap> {
 
+    /**
+     * build the currents of the next step on a background thread while FADs drift
+     */
+    private boolean prefetchingCurrents = false;
+
+    public FadMapFactory() { }
+
+    public FadMapFactory(boolean prefetchingCurrents) { this.prefetchingCurrents = prefetchingCurrents; }
+
     @Override public FadMap apply(FishState fishState) {
         final NauticalMap nauticalMap = fishState.getMap();
-        final CurrentVectors currentVectors = makeCurrentVectors(nauticalMap, fishState.getStepsPerDay());
+        final CurrentVectors currentVectors =
+            makeCurrentVectors(nauticalMap, fishState.getStepsPerDay(), prefetchingCurrents);
         return new FadMap(nauticalMap, currentVectors, fishState.getBiology());
     }
 
+    public boolean isPrefetchingCurrents() { return prefetchingCurrents; }
+
+    public void setPrefetchingCurrents(boolean prefetchingCurrents) {
+        this.prefetchingCurrents = prefetchingCurrents;
+    }
+
 }
@@ -0,0 +1,182 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2017  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+
+package uk.ac.ox.oxfish.geography.mapmakers;
+
+import com.esotericsoftware.minlog.Log;
+import com.google.common.hash.Hashing;
+import com.vividsolutions.jts.geom.Envelope;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A binary copy of a map read from file, once its samples have been binned and averaged: grid size, MBR, altitude
+ * and habitat of every cell. The cache file is named after (and stores) a hash of the source file together with the
+ * options used to grid it, so a changed source or different gridding is never served a stale map.
+ * Cells are stored column by column (x * height + y) and are read through a memory-mapped buffer.
+ */
+public class BinaryMapCache {
+
+    private static final int MAGIC_NUMBER = 0x4d415050; //"MAPP"
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 4 + 8 + 1 + 4 + 4 + 4 * 8;
+
+    private final int width;
+
+    private final int height;
+
+    private final Envelope mbr;
+
+    private final DoubleBuffer altitude;
+
+    private final DoubleBuffer hardRock;
+
+    private BinaryMapCache(int width, int height, Envelope mbr, DoubleBuffer altitude, DoubleBuffer hardRock) {
+        this.width = width;
+        this.height = height;
+        this.mbr = mbr;
+        this.altitude = altitude;
+        this.hardRock = hardRock;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public Envelope getMbr() {
+        return mbr;
+    }
+
+    public double getAltitude(int x, int y) {
+        return altitude.get(x * height + y);
+    }
+
+    public double getHardRock(int x, int y) {
+        return hardRock.get(x * height + y);
+    }
+
+    /**
+     * 64 bits of a murmur3 hash of the whole source file
+     */
+    public static long hashSource(Path source) throws IOException {
+        return com.google.common.io.Files.asByteSource(source.toFile()).hash(Hashing.murmur3_128()).asLong();
+    }
+
+    /**
+     * where the map read from source with these options would be cached
+     */
+    public static Path cacheFile(
+        Path cacheDirectory, Path source, long sourceHash, int gridWidthInCells
+    ) {
+        return cacheDirectory.resolve(
+            source.getFileName() + "_" + Long.toHexString(sourceHash) + "_" + gridWidthInCells + ".map");
+    }
+
+    /**
+     * @return the cached map, or null if the file does not exist or was written for a different source or options
+     */
+    public static BinaryMapCache read(
+        Path file, long sourceHash, int gridWidthInCells, double mapPaddingInDegrees, boolean header
+    ) throws IOException {
+        if (!Files.exists(file))
+            return null;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE)
+                return null;
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC_NUMBER || buffer.getInt() != FORMAT_VERSION ||
+                buffer.getLong() != sourceHash || buffer.getInt() != gridWidthInCells ||
+                buffer.getDouble() != mapPaddingInDegrees || (buffer.get() == 1) != header)
+                return null;
+            final int width = buffer.getInt();
+            final int height = buffer.getInt();
+            final Envelope mbr = new Envelope(buffer.getDouble(), buffer.getDouble(),
+                                              buffer.getDouble(), buffer.getDouble());
+            final int cells = width * height;
+            if (channel.size() != HEADER_SIZE + 2L * cells * Double.BYTES)
+                return null;
+            final DoubleBuffer altitude = buffer.slice().asDoubleBuffer();
+            altitude.limit(cells);
+            buffer.position(buffer.position() + cells * Double.BYTES);
+            final DoubleBuffer hardRock = buffer.slice().asDoubleBuffer();
+            return new BinaryMapCache(width, height, mbr, altitude.slice(), hardRock);
+        }
+    }
+
+    /**
+     * writes the map to a temporary file first and then moves it in place, so that runs sharing the cache
+     * never read half a file
+     * @param altitude altitude of each cell, x * height + y
+     * @param hardRock habitat of each cell, x * height + y
+     */
+    public static void write(
+        Path file, long sourceHash, int gridWidthInCells, double mapPaddingInDegrees, boolean header,
+        int width, int height, Envelope mbr, double[] altitude, double[] hardRock
+    ) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        final Path temporary = Files.createTempFile(file.toAbsolutePath().getParent(), "map", ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                final ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + 2 * width * height * Double.BYTES);
+                buffer.putInt(MAGIC_NUMBER).putInt(FORMAT_VERSION).putLong(sourceHash)
+                    .putInt(gridWidthInCells).putDouble(mapPaddingInDegrees).put((byte) (header ? 1 : 0))
+                    .putInt(width).putInt(height)
+                    .putDouble(mbr.getMinX()).putDouble(mbr.getMaxX())
+                    .putDouble(mbr.getMinY()).putDouble(mbr.getMaxY());
+                buffer.asDoubleBuffer().put(altitude).put(hardRock);
+                buffer.position(0);
+                while (buffer.hasRemaining())
+                    channel.write(buffer);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * like {@link #write} but only logs a warning if the cache can't be written
+     */
+    static void tryWrite(
+        Path file, long sourceHash, int gridWidthInCells, double mapPaddingInDegrees, boolean header,
+        int width, int height, Envelope mbr, double[] altitude, double[] hardRock
+    ) {
+        try {
+            write(file, sourceHash, gridWidthInCells, mapPaddingInDegrees, header, width, height, mbr,
+                  altitude, hardRock);
+        } catch (IOException e) {
+            Log.warn("Failed to cache map in " + file + ": " + e);
+        }
+    }
+}
@@ -30,7 +30,7 @@ import sim.field.grid.ObjectGrid2D;
 import uk.ac.ox.oxfish.biology.GlobalBiology;
 import uk.ac.ox.oxfish.geography.*;
 import uk.ac.ox.oxfish.geography.habitat.TileHabitat;
-import uk.ac.ox.oxfish.geography.pathfinding.AStarPathfinder;
+import uk.ac.ox.oxfish.geography.pathfinding.IndexedAStarPathfinder;
 import uk.ac.ox.oxfish.geography.sampling.GeographicalSample;
 import uk.ac.ox.oxfish.geography.sampling.SampledMap;
 import uk.ac.ox.oxfish.model.FishState;
@@ -70,15 +70,28 @@ public class FromFileMapInitializer implements MapInitializer {
      */
     final private boolean latLong;
 
+    /**
+     * where to keep binary copies of csv maps once gridded; null means never cache
+     */
+    final private Path mapCacheDirectory;
+
 
     public FromFileMapInitializer(
         Path filePath, int gridWidthInCells, double mapPaddingInDegrees, boolean header, boolean latLong
+    ) {
+        this(filePath, gridWidthInCells, mapPaddingInDegrees, header, latLong, null);
+    }
+
+    public FromFileMapInitializer(
+        Path filePath, int gridWidthInCells, double mapPaddingInDegrees, boolean header, boolean latLong,
+        Path mapCacheDirectory
     ) {
         this.filePath = filePath;
         this.gridWidthInCells = gridWidthInCells;
         this.mapPaddingInDegrees = mapPaddingInDegrees;
         this.header = header;
         this.latLong = latLong;
+        this.mapCacheDirectory = mapCacheDirectory;
     }
 
     @Override
@@ -110,6 +123,19 @@ public class FromFileMapInitializer implements MapInitializer {
 
                 default:
                 case "csv":
+                    //maybe we gridded this very file before
+                    long sourceHash = 0;
+                    Path cacheFile = null;
+                    if(mapCacheDirectory != null) {
+                        sourceHash = BinaryMapCache.hashSource(filePath);
+                        cacheFile = BinaryMapCache.cacheFile(mapCacheDirectory, filePath, sourceHash,
+                                                             gridWidthInCells);
+                        BinaryMapCache cached = BinaryMapCache.read(cacheFile, sourceHash, gridWidthInCells,
+                                                                    mapPaddingInDegrees, header);
+                        if(cached != null)
+                            return cachedToNauticalMap(cached, latLong);
+                    }
+
                     //otherwise read from data
                     GeographicalSample altitudeSample = new GeographicalSample(filePath,
                             header);
@@ -137,8 +163,11 @@ public class FromFileMapInitializer implements MapInitializer {
                             gridHeightInCells
                     );
 
-                    return sampledAltitudeToNauticalMap(sampledAltitudeGrid, mbr, gridHeightInCells, gridWidthInCells,
-                            latLong);
+                    NauticalMap map = sampledAltitudeToNauticalMap(sampledAltitudeGrid, mbr, gridHeightInCells,
+                                                                   gridWidthInCells, latLong);
+                    if(cacheFile != null)
+                        writeCache(map, cacheFile, sourceHash);
+                    return map;
 
             }
 
@@ -152,6 +181,33 @@ public class FromFileMapInitializer implements MapInitializer {
 
 
 
+    private void writeCache(NauticalMap map, Path cacheFile, long sourceHash) {
+        double[] altitude = new double[map.getWidth() * map.getHeight()];
+        double[] hardRock = new double[altitude.length];
+        for(int x=0;x<map.getWidth();x++)
+            for(int y=0;y<map.getHeight();y++)
+            {
+                SeaTile tile = map.getSeaTile(x, y);
+                altitude[x * map.getHeight() + y] = tile.getAltitude();
+                hardRock[x * map.getHeight() + y] = tile.getHabitat().getHardPercentage();
+            }
+        BinaryMapCache.tryWrite(cacheFile, sourceHash, gridWidthInCells, mapPaddingInDegrees, header,
+                                map.getWidth(), map.getHeight(), map.getRasterBathymetry().getMBR(),
+                                altitude, hardRock);
+    }
+
+    /**
+     * builds the map straight from the binary cache, no sampling or averaging needed
+     */
+    public static NauticalMap cachedToNauticalMap(BinaryMapCache cached, final boolean latLong) {
+        ObjectGrid2D altitudeGrid = new ObjectGrid2D(cached.getWidth(), cached.getHeight());
+        for(int x=0;x<cached.getWidth();x++)
+            for(int y=0;y<cached.getHeight();y++)
+                altitudeGrid.set(x, y,
+                        new SeaTile(x, y, cached.getAltitude(x, y), new TileHabitat(cached.getHardRock(x, y))));
+        return toNauticalMap(altitudeGrid, cached.getMbr(), latLong);
+    }
+
     public static NauticalMap sampledAltitudeToNauticalMap(
             Table<Integer, Integer,
                     LinkedList<Double>> sampledAltitudeGrid,
@@ -174,6 +230,10 @@ public class FromFileMapInitializer implements MapInitializer {
                         new SeaTile(x, y, average.orElseGet(() -> 1000d), new TileHabitat(0)));
             }
 
+        return toNauticalMap(altitudeGrid, mbr, latLong);
+    }
+
+    private static NauticalMap toNauticalMap(ObjectGrid2D altitudeGrid, Envelope mbr, final boolean latLong) {
         GeomGridField unitedMap = new GeomGridField(altitudeGrid);
         unitedMap.setMBR(mbr);
 
@@ -181,7 +241,7 @@ public class FromFileMapInitializer implements MapInitializer {
         Distance distance = latLong ? new EquirectangularDistanceByCoordinate() : new CartesianUTMDistance() ;
         NauticalMap nauticalMap = new NauticalMap(unitedMap, new GeomVectorField(),
                 distance,
-                new AStarPathfinder(distance));
+                new IndexedAStarPathfinder(distance));
 
         //cell distance:
         System.out.println("coordinates for 0,0 are: " + nauticalMap.getCoordinates(0,0) );
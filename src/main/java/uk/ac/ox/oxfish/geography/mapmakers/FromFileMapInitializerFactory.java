@@ -47,6 +47,17 @@ public class FromFileMapInitializerFactory implements AlgorithmFactory<FromFileM
 
     private boolean latLong = true;
 
+    /**
+     * where gridded csv maps are cached so that following runs can skip parsing them
+     */
+    public static final Path DEFAULT_MAP_CACHE_DIRECTORY =
+        Paths.get(System.getProperty("java.io.tmpdir"), "poseidon", "maps");
+
+    /**
+     * when true the gridded map is cached in {@link #DEFAULT_MAP_CACHE_DIRECTORY}
+     */
+    private boolean cachingMap = true;
+
     public FromFileMapInitializerFactory() {
     }
 
@@ -71,7 +82,8 @@ public class FromFileMapInitializerFactory implements AlgorithmFactory<FromFileM
             gridWidthInCell.apply(rng).intValue(),
             mapPaddingInDegrees.apply(rng),
             header,
-            latLong
+            latLong,
+            cachingMap ? DEFAULT_MAP_CACHE_DIRECTORY : null
         );
     }
 
@@ -153,6 +165,24 @@ public class FromFileMapInitializerFactory implements AlgorithmFactory<FromFileM
         this.latLong = latLong;
     }
 
+    /**
+     * Getter for property 'cachingMap'.
+     *
+     * @return Value for property 'cachingMap'.
+     */
+    public boolean isCachingMap() {
+        return cachingMap;
+    }
+
+    /**
+     * Setter for property 'cachingMap'.
+     *
+     * @param cachingMap Value to set for property 'cachingMap'.
+     */
+    public void setCachingMap(boolean cachingMap) {
+        this.cachingMap = cachingMap;
+    }
+
 
 
 }
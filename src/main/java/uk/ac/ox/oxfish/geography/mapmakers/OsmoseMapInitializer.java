@@ -33,7 +33,7 @@ import uk.ac.ox.oxfish.biology.GlobalBiology;
 import uk.ac.ox.oxfish.biology.OsmoseGlobalBiology;
 import uk.ac.ox.oxfish.geography.*;
 import uk.ac.ox.oxfish.geography.habitat.TileHabitat;
-import uk.ac.ox.oxfish.geography.pathfinding.AStarPathfinder;
+import uk.ac.ox.oxfish.geography.pathfinding.IndexedAStarPathfinder;
 import uk.ac.ox.oxfish.geography.pathfinding.Pathfinder;
 import uk.ac.ox.oxfish.model.FishState;
 
@@ -118,7 +118,7 @@ public class OsmoseMapInitializer implements MapInitializer {
             distance = new CartesianUTMDistance();
 
         }
-        Pathfinder astar = new AStarPathfinder(distance);
+        Pathfinder astar = new IndexedAStarPathfinder(distance);
 
         return new NauticalMap(bathymetry,new GeomVectorField(),distance,astar);
 
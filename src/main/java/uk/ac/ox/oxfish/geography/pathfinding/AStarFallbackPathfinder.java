@@ -12,21 +12,21 @@ import java.util.Optional;
 /**
  * This class first tries to find a straight line path, checks if it goes over land
  * and falls back on A* when that is the case. It uses a memory-less {@link StraightLinePathfinder}
- * and shares its own memory with the {@link AStarPathfinder} instance.
+ * and shares its own memory with the {@link IndexedAStarPathfinder} instance (same routes as {@link AStarPathfinder}).
  */
 public class AStarFallbackPathfinder implements Pathfinder {
 
     private final PathMemory memory;
 
     private final Pathfinder straightLinePathfinder = new StraightLinePathfinder(new DiscardingPathMemory());
-    private final AStarPathfinder aStarPathfinder;
+    private final IndexedAStarPathfinder aStarPathfinder;
 
     public AStarFallbackPathfinder(Distance distanceFunction) { this(distanceFunction, new TableBasedPathMemory()); }
 
     @SuppressWarnings("WeakerAccess")
     public AStarFallbackPathfinder(Distance distanceFunction, PathMemory memory) {
         this.memory = memory;
-        this.aStarPathfinder = new AStarPathfinder(distanceFunction, memory);
+        this.aStarPathfinder = new IndexedAStarPathfinder(distanceFunction, memory);
     }
 
     @SuppressWarnings("OptionalAssignedToNull")
@@ -0,0 +1,88 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2017  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+
+package uk.ac.ox.oxfish.geography.pathfinding;
+
+import java.util.Arrays;
+
+/**
+ * binary min-heap of integer indices ordered by a double priority, stored in primitive arrays. Like the
+ * {@link java.util.PriorityQueue} {@link AStarPathfinder} uses, the same index can be added more than once and the
+ * heap is sifted exactly the same way, so that ties come out in the same order
+ */
+final class FrontierHeap {
+
+    private int[] heap = new int[16];
+
+    private double[] priorities = new double[16];
+
+    private int size = 0;
+
+    void clear() {
+        size = 0;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void add(int index, double priority) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+            priorities = Arrays.copyOf(priorities, size * 2);
+        }
+        int position = size++;
+        while (position > 0) {
+            final int parent = (position - 1) >>> 1;
+            if (priority >= priorities[parent])
+                break;
+            heap[position] = heap[parent];
+            priorities[position] = priorities[parent];
+            position = parent;
+        }
+        heap[position] = index;
+        priorities[position] = priority;
+    }
+
+    int poll() {
+        final int top = heap[0];
+        final int last = --size;
+        if (last > 0) {
+            final int index = heap[last];
+            final double priority = priorities[last];
+            final int half = last >>> 1;
+            int position = 0;
+            while (position < half) {
+                int child = 2 * position + 1;
+                final int right = child + 1;
+                if (right < last && priorities[child] > priorities[right])
+                    child = right;
+                if (priority <= priorities[child])
+                    break;
+                heap[position] = heap[child];
+                priorities[position] = priorities[child];
+                position = child;
+            }
+            heap[position] = index;
+            priorities[position] = priority;
+        }
+        return top;
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2017  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+
+package uk.ac.ox.oxfish.geography.pathfinding;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import uk.ac.ox.oxfish.geography.Distance;
+import uk.ac.ox.oxfish.geography.NauticalMap;
+import uk.ac.ox.oxfish.geography.SeaTile;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.Optional;
+
+/**
+ * Same search as {@link AStarPathfinder} but run over integer tile indices rather than SeaTile objects:
+ * g-scores live in a primitive array, the frontier is a binary heap of primitives and the water neighbours of each
+ * tile (together with the cost of moving there) are precomputed once per map. The scratch arrays are kept in a
+ * thread-local so that searching does not allocate besides the returned route.
+ * <br>
+ * Neighbours are visited in the order the map lists them and the heap is sifted like A*'s priority queue, so both
+ * break ties the same way and return the very same routes.
+ * <br>
+ * Like A*, the destination may be a land tile (i.e. a port) but no other land tile is ever crossed.
+ */
+public class IndexedAStarPathfinder implements Pathfinder {
+
+    private static final ThreadLocal<SearchBuffers> BUFFERS = ThreadLocal.withInitial(SearchBuffers::new);
+
+    private final Distance distanceFunction;
+
+    private final PathMemory memory;
+
+    /**
+     * the water graph of the last map we searched; rebuilt whenever the map (or one of its tiles) changes
+     */
+    private transient WaterGraph graph;
+
+    public IndexedAStarPathfinder(Distance distanceFunction, PathMemory memory) {
+        this.distanceFunction = distanceFunction;
+        this.memory = memory;
+    }
+
+    public IndexedAStarPathfinder(Distance distanceFunction) {
+        this(distanceFunction, new TableBasedPathMemory());
+    }
+
+    /**
+     * return the full path that brings us from start to end
+     *
+     * @param map   the map
+     * @param start the starting tile
+     * @param end   the ending tile
+     * @return a queue of steps from start to end or null if it isn't possible to go from start to end
+     */
+    @Override
+    @SuppressWarnings("OptionalAssignedToNull")
+    public Deque<SeaTile> getRoute(NauticalMap map, SeaTile start, SeaTile end) {
+
+        Preconditions.checkNotNull(start);
+        Preconditions.checkNotNull(end);
+        Preconditions.checkNotNull(map);
+
+        // If we already have this path in our memory, return a mutable copy of it
+        final Optional<ImmutableList<SeaTile>> knownPath = memory.getPath(start, end);
+        if (knownPath != null) return knownPath.map(LinkedList::new).orElse(null);
+
+        final WaterGraph graph = getGraph(map, start, end);
+        final int startIndex = graph.indexOf(start);
+        final int endIndex = graph.indexOf(end);
+        final int endX = end.getGridX();
+        final int endY = end.getGridY();
+        //water tiles are in the adjacency already, land destinations need to be checked for explicitly
+        final boolean endIsLand = end.isLand();
+
+        final SearchBuffers buffers = BUFFERS.get();
+        buffers.prepare(graph.size());
+        final double[] costSoFar = buffers.costSoFar;
+        final FrontierHeap frontier = buffers.frontier;
+
+        costSoFar[startIndex] = 0;
+        frontier.add(startIndex, 0);
+
+        while (!frontier.isEmpty()) {
+            final int current = frontier.poll();
+            if (current == endIndex)
+                break;
+
+            if (endIsLand &&
+                Math.abs(graph.xOf(current) - endX) <= 1 && Math.abs(graph.yOf(current) - endY) <= 1) {
+                //next to a land destination: go through the map's neighbours so it is met in the same order A* does
+                for (Object next : map.getMooreNeighbors(graph.tiles[current], 1)) {
+                    final SeaTile neighbor = (SeaTile) next;
+                    if (neighbor.isLand() && neighbor != end)
+                        continue;
+                    relax(buffers, current, graph.indexOf(neighbor),
+                          costSoFar[current] + distanceFunction.distance(graph.tiles[current], neighbor, map),
+                          endX, endY, graph);
+                }
+                continue;
+            }
+            for (int edge = graph.firstEdge[current]; edge < graph.firstEdge[current + 1]; edge++)
+                relax(buffers, current, graph.neighbors[edge], costSoFar[current] + graph.costs[edge],
+                      endX, endY, graph);
+        }
+
+        if (!buffers.isReached(endIndex)) {
+            memory.putImpossiblePath(start, end);
+            return null;
+        }
+
+        //build the path, from end to start
+        final int[] cameFrom = buffers.cameFrom;
+        LinkedList<SeaTile> path = new LinkedList<>();
+        int current = endIndex;
+        path.add(graph.tiles[current]);
+        while (current != startIndex) {
+            current = cameFrom[current];
+            path.add(graph.tiles[current]);
+        }
+
+        // Since the path is from end to start, we use the opportunity to store a reversed version
+        memory.putPath(end, start, path);
+        Collections.reverse(path);
+        memory.putPath(start, end, path);
+
+        return path;
+    }
+
+    /**
+     * same rule as A*: a tile is (re)queued if we never reached it or we found a cheaper way there. The start has no
+     * predecessor, so like in A* it can be reached again from one of its neighbours
+     */
+    private static void relax(
+        SearchBuffers buffers, int from, int to, double newCost,
+        int endX, int endY, WaterGraph graph
+    ) {
+        if (!buffers.isReached(to) || newCost < buffers.costSoFar[to]) {
+            buffers.costSoFar[to] = newCost;
+            buffers.cameFrom[to] = from;
+            buffers.markReached(to);
+            //same straight line heuristic A* uses (Cartesian distance in grid cells)
+            final int dx = graph.xOf(to) - endX;
+            final int dy = graph.yOf(to) - endY;
+            buffers.frontier.add(to, newCost + Math.sqrt(dx * dx + dy * dy));
+        }
+    }
+
+    private synchronized WaterGraph getGraph(NauticalMap map, SeaTile start, SeaTile end) {
+        if (graph == null || !graph.isUpToDate(map, start, end))
+            graph = new WaterGraph(map, distanceFunction);
+        return graph;
+    }
+
+    /**
+     * per-thread scratch arrays. Rather than clearing them before each search we stamp every reached index
+     * with the id of the current search
+     */
+    private static class SearchBuffers {
+
+        private double[] costSoFar = new double[0];
+
+        private int[] cameFrom = new int[0];
+
+        private int[] searchStamp = new int[0];
+
+        private int currentSearch = 0;
+
+        private final FrontierHeap frontier = new FrontierHeap();
+
+        void prepare(int size) {
+            if (costSoFar.length < size) {
+                costSoFar = new double[size];
+                cameFrom = new int[size];
+                searchStamp = new int[size];
+                currentSearch = 0;
+            }
+            currentSearch++;
+            if (currentSearch == Integer.MAX_VALUE) {
+                Arrays.fill(searchStamp, 0);
+                currentSearch = 1;
+            }
+            frontier.clear();
+        }
+
+        /**
+         * @return true if the index has been given a predecessor in this search
+         */
+        boolean isReached(int index) {
+            return searchStamp[index] == currentSearch;
+        }
+
+        void markReached(int index) {
+            searchStamp[index] = currentSearch;
+        }
+    }
+}
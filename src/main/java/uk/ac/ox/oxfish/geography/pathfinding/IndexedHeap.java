@@ -0,0 +1,114 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2017  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+
+package uk.ac.ox.oxfish.geography.pathfinding;
+
+/**
+ * binary min-heap of integer indices ordered by a double priority, which knows where each index sits
+ * so that priorities can be decreased in place
+ */
+final class IndexedHeap {
+
+    private int[] heap = new int[0];
+
+    private double[] priorities = new double[0];
+
+    /**
+     * position of each index in the heap, -1 if it isn't in there
+     */
+    private int[] positions = new int[0];
+
+    private int size = 0;
+
+    void prepare(int capacity) {
+        if (heap.length < capacity) {
+            heap = new int[capacity];
+            priorities = new double[capacity];
+            positions = new int[capacity];
+        }
+        //indices left over from a previous search are forgotten when first touched
+        size = 0;
+    }
+
+    void forget(int index) {
+        positions[index] = -1;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void insertOrDecrease(int index, double priority) {
+        priorities[index] = priority;
+        int position = positions[index];
+        if (position < 0) {
+            position = size++;
+            heap[position] = index;
+            positions[index] = position;
+        }
+        siftUp(position);
+    }
+
+    int poll() {
+        final int top = heap[0];
+        positions[top] = -1;
+        size--;
+        if (size > 0) {
+            heap[0] = heap[size];
+            positions[heap[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    private void siftUp(int position) {
+        final int index = heap[position];
+        final double priority = priorities[index];
+        while (position > 0) {
+            final int parent = (position - 1) >>> 1;
+            if (priorities[heap[parent]] <= priority)
+                break;
+            heap[position] = heap[parent];
+            positions[heap[position]] = position;
+            position = parent;
+        }
+        heap[position] = index;
+        positions[index] = position;
+    }
+
+    private void siftDown(int position) {
+        final int index = heap[position];
+        final double priority = priorities[index];
+        final int half = size >>> 1;
+        while (position < half) {
+            int child = 2 * position + 1;
+            final int right = child + 1;
+            if (right < size && priorities[heap[right]] < priorities[heap[child]])
+                child = right;
+            if (priority <= priorities[heap[child]])
+                break;
+            heap[position] = heap[child];
+            positions[heap[position]] = position;
+            position = child;
+        }
+        heap[position] = index;
+        positions[index] = position;
+    }
+}
@@ -0,0 +1,333 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2017  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+
+package uk.ac.ox.oxfish.geography.pathfinding;
+
+import com.esotericsoftware.minlog.Log;
+import com.google.common.base.Preconditions;
+import uk.ac.ox.oxfish.geography.Distance;
+import uk.ac.ox.oxfish.geography.NauticalMap;
+import uk.ac.ox.oxfish.geography.SeaTile;
+import uk.ac.ox.oxfish.geography.ports.Port;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Shortest routes from every port to every tile of the map, computed with one Dijkstra flood per port over the
+ * water tiles. For each port we keep the distance to every tile and the predecessor of every tile along its
+ * shortest route, so that any port-to-tile route (and its length) is an array lookup.
+ * <br>
+ * Tables can be written to and read from a compressed binary file; the file is keyed by a hash of the map raster,
+ * the port locations and the distance function so that a stale table is never loaded.
+ */
+public class PortRouteTable {
+
+    private static final int MAGIC_NUMBER = 0x504f5254; //"PORT"
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int NO_PREDECESSOR = -1;
+
+    private static final int[][] HASHED_STEPS = {{1, 0}, {0, 1}, {1, 1}, {1, -1}};
+
+    private final NauticalMap map;
+
+    private final long mapHash;
+
+    /**
+     * tile index (x * height + y) of each port
+     */
+    private final int[] portTiles;
+
+    /**
+     * distances[p][tile] is the length of the shortest route from port p to tile (infinity if unreachable)
+     */
+    private final double[][] distances;
+
+    /**
+     * predecessors[p][tile] is the tile before "tile" along the shortest route from port p
+     */
+    private final int[][] predecessors;
+
+    private PortRouteTable(
+        NauticalMap map, long mapHash, int[] portTiles, double[][] distances, int[][] predecessors
+    ) {
+        this.map = map;
+        this.mapHash = mapHash;
+        this.portTiles = portTiles;
+        this.distances = distances;
+        this.predecessors = predecessors;
+    }
+
+    /**
+     * floods the map from each of its ports
+     */
+    public static PortRouteTable build(NauticalMap map, Distance distance) {
+        final WaterGraph graph = new WaterGraph(map, distance);
+        final List<Port> ports = map.getPorts();
+        final int[] portTiles = new int[ports.size()];
+        final double[][] distances = new double[ports.size()][];
+        final int[][] predecessors = new int[ports.size()][];
+        final IndexedHeap frontier = new IndexedHeap();
+        for (int p = 0; p < portTiles.length; p++) {
+            portTiles[p] = graph.indexOf(ports.get(p).getLocation());
+            distances[p] = new double[graph.size()];
+            predecessors[p] = new int[graph.size()];
+            flood(graph, map, distance, portTiles[p], distances[p], predecessors[p], frontier);
+        }
+        return new PortRouteTable(map, hash(map, distance), portTiles, distances, predecessors);
+    }
+
+    /**
+     * Dijkstra from the source tile. Water tiles are expanded as usual; land tiles (i.e. other ports) next to the
+     * water can be reached but are never crossed
+     */
+    private static void flood(
+        WaterGraph graph, NauticalMap map, Distance distance,
+        int source, double[] costSoFar, int[] cameFrom, IndexedHeap frontier
+    ) {
+        Arrays.fill(costSoFar, Double.POSITIVE_INFINITY);
+        Arrays.fill(cameFrom, NO_PREDECESSOR);
+        frontier.prepare(graph.size());
+        costSoFar[source] = 0;
+        frontier.forget(source);
+        frontier.insertOrDecrease(source, 0);
+
+        while (!frontier.isEmpty()) {
+            final int current = frontier.poll();
+            final double currentCost = costSoFar[current];
+            for (int edge = graph.firstEdge[current]; edge < graph.firstEdge[current + 1]; edge++) {
+                final int neighbor = graph.neighbors[edge];
+                final double newCost = currentCost + graph.costs[edge];
+                if (newCost < costSoFar[neighbor]) {
+                    if (costSoFar[neighbor] == Double.POSITIVE_INFINITY)
+                        frontier.forget(neighbor);
+                    costSoFar[neighbor] = newCost;
+                    cameFrom[neighbor] = current;
+                    frontier.insertOrDecrease(neighbor, newCost);
+                }
+            }
+            //land next to water is a possible destination but never a stepping stone
+            for (int dx = -1; dx <= 1; dx++)
+                for (int dy = -1; dy <= 1; dy++) {
+                    final int neighbor = graph.indexAt(graph.xOf(current) + dx, graph.yOf(current) + dy);
+                    if (neighbor < 0 || neighbor == source || graph.tiles[neighbor].isWater())
+                        continue;
+                    final double newCost = currentCost +
+                        distance.distance(graph.tiles[current], graph.tiles[neighbor], map);
+                    if (newCost < costSoFar[neighbor]) {
+                        costSoFar[neighbor] = newCost;
+                        cameFrom[neighbor] = current;
+                    }
+                }
+        }
+    }
+
+    /**
+     * @return true if the tile is the location of one of the ports in this table
+     */
+    public boolean isPortTile(SeaTile tile) {
+        return portNumber(tile) >= 0;
+    }
+
+    private int portNumber(SeaTile tile) {
+        final int index = indexOf(tile);
+        for (int p = 0; p < portTiles.length; p++)
+            if (portTiles[p] == index)
+                return p;
+        return -1;
+    }
+
+    private int indexOf(SeaTile tile) {
+        return tile.getGridX() * map.getHeight() + tile.getGridY();
+    }
+
+    /**
+     * length of the shortest route from the port to the tile
+     * @return the distance or infinity if the tile can't be reached from the port
+     */
+    public double getDistance(Port port, SeaTile destination) {
+        return getDistance(port.getLocation(), destination);
+    }
+
+    /**
+     * length of the shortest route from the port located at portTile to the destination
+     */
+    public double getDistance(SeaTile portTile, SeaTile destination) {
+        final int port = portNumber(portTile);
+        Preconditions.checkArgument(port >= 0, "No port at " + portTile);
+        return distances[port][indexOf(destination)];
+    }
+
+    /**
+     * the shortest route from the port to the destination, port first
+     * @return the route or null if the destination can't be reached
+     */
+    public LinkedList<SeaTile> getRoute(Port port, SeaTile destination) {
+        return getRoute(port.getLocation(), destination);
+    }
+
+    /**
+     * the shortest route from the port located at portTile to the destination, port first
+     * @return the route or null if the destination can't be reached
+     */
+    public LinkedList<SeaTile> getRoute(SeaTile portTile, SeaTile destination) {
+        final int port = portNumber(portTile);
+        Preconditions.checkArgument(port >= 0, "No port at " + portTile);
+        int current = indexOf(destination);
+        if (current == portTiles[port] || predecessors[port][current] == NO_PREDECESSOR)
+            return null;
+        final LinkedList<SeaTile> route = new LinkedList<>();
+        final int height = map.getHeight();
+        while (current != NO_PREDECESSOR) {
+            route.addFirst(map.getSeaTile(current / height, current % height));
+            current = predecessors[port][current];
+        }
+        return route;
+    }
+
+    /**
+     * @return true if this table was built for a map (and distance) identical to this one
+     */
+    public boolean isValidFor(NauticalMap map, Distance distance) {
+        return mapHash == hash(map, distance) && portTiles.length == map.getPorts().size();
+    }
+
+    /**
+     * a hash of the raster (land or sea, for every tile), the port locations, the map bounds and the distance
+     * function; if any of these change the routes need to be recomputed. Distances are compared by what they
+     * measure rather than by class, so two instances with different parameters (cell size, say) hash differently
+     */
+    public static long hash(NauticalMap map, Distance distance) {
+        long hash = 1125899906842597L;
+        hash = 31 * hash + map.getWidth();
+        hash = 31 * hash + map.getHeight();
+        for (int x = 0; x < map.getWidth(); x++)
+            for (int y = 0; y < map.getHeight(); y++)
+                hash = 31 * hash + Double.hashCode(map.getSeaTile(x, y).getAltitude());
+        for (Port port : map.getPorts())
+            hash = 31 * hash + port.getLocation().getGridX() * 7919 + port.getLocation().getGridY();
+        hash = 31 * hash + String.valueOf(map.getRasterBathymetry().getMBR()).hashCode();
+        hash = 31 * hash + distance.getClass().getName().hashCode();
+        //the cost of every step the routes can take (steps are symmetric, so four directions cover all eight)
+        for (int x = 0; x < map.getWidth(); x++)
+            for (int y = 0; y < map.getHeight(); y++) {
+                final SeaTile tile = map.getSeaTile(x, y);
+                for (int[] step : HASHED_STEPS) {
+                    final SeaTile neighbor = map.getSeaTile(x + step[0], y + step[1]);
+                    if (neighbor != null)
+                        hash = 31 * hash + Double.hashCode(distance.distance(tile, neighbor, map));
+                }
+            }
+        return hash;
+    }
+
+    /**
+     * the name of the file a table for this map would be cached in
+     */
+    public static Path cacheFile(Path directory, NauticalMap map, Distance distance) {
+        return directory.resolve("port_routes_" + Long.toHexString(hash(map, distance)) + ".bin.gz");
+    }
+
+    /**
+     * reads the table from the cache directory if it has been computed before for this map, otherwise builds it
+     * and writes it there
+     */
+    public static PortRouteTable loadOrBuild(NauticalMap map, Distance distance, Path cacheDirectory) {
+        final Path file = cacheFile(cacheDirectory, map, distance);
+        if (Files.exists(file)) {
+            try {
+                final PortRouteTable table = read(file, map);
+                if (table.isValidFor(map, distance))
+                    return table;
+            } catch (IOException e) {
+                Log.warn("Failed to read port routes from " + file + ", recomputing them: " + e);
+            }
+        }
+        final PortRouteTable table = build(map, distance);
+        try {
+            Files.createDirectories(cacheDirectory);
+            table.write(file);
+        } catch (IOException e) {
+            Log.warn("Failed to cache port routes in " + file + ": " + e);
+        }
+        return table;
+    }
+
+    public void write(Path file) throws IOException {
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+            new GZIPOutputStream(Files.newOutputStream(file))))) {
+            output.writeInt(MAGIC_NUMBER);
+            output.writeInt(FORMAT_VERSION);
+            output.writeLong(mapHash);
+            output.writeInt(map.getWidth());
+            output.writeInt(map.getHeight());
+            output.writeInt(portTiles.length);
+            for (int p = 0; p < portTiles.length; p++) {
+                output.writeInt(portTiles[p]);
+                for (int i = 0; i < distances[p].length; i++) {
+                    output.writeDouble(distances[p][i]);
+                    output.writeInt(predecessors[p][i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * reads a table previously written with {@link #write(Path)}
+     * @param file the file to read
+     * @param map the map the routes refer to
+     */
+    public static PortRouteTable read(Path file, NauticalMap map) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(
+            new GZIPInputStream(Files.newInputStream(file))))) {
+            if (input.readInt() != MAGIC_NUMBER || input.readInt() != FORMAT_VERSION)
+                throw new IOException("Not a port route table, or an old version of it");
+            final long mapHash = input.readLong();
+            final int width = input.readInt();
+            final int height = input.readInt();
+            if (width != map.getWidth() || height != map.getHeight())
+                throw new IOException("Port route table was built for a map of different size");
+            final int ports = input.readInt();
+            final int[] portTiles = new int[ports];
+            final double[][] distances = new double[ports][width * height];
+            final int[][] predecessors = new int[ports][width * height];
+            for (int p = 0; p < ports; p++) {
+                portTiles[p] = input.readInt();
+                for (int i = 0; i < width * height; i++) {
+                    distances[p][i] = input.readDouble();
+                    predecessors[p][i] = input.readInt();
+                }
+            }
+            return new PortRouteTable(map, mapHash, portTiles, distances, predecessors);
+        }
+    }
+}
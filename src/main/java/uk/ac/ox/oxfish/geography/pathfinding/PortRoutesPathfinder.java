@@ -0,0 +1,75 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2017  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+
+package uk.ac.ox.oxfish.geography.pathfinding;
+
+import uk.ac.ox.oxfish.geography.NauticalMap;
+import uk.ac.ox.oxfish.geography.SeaTile;
+
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedList;
+
+/**
+ * Answers every route that starts or ends in a port from a precomputed {@link PortRouteTable} and delegates
+ * all other routes to another pathfinder
+ */
+public class PortRoutesPathfinder implements Pathfinder {
+
+    private final PortRouteTable table;
+
+    private final Pathfinder delegate;
+
+    public PortRoutesPathfinder(PortRouteTable table, Pathfinder delegate) {
+        this.table = table;
+        this.delegate = delegate;
+    }
+
+    /**
+     * return the full path that brings us from start to end
+     *
+     * @param map   the map
+     * @param start the starting tile
+     * @param end   the ending tile
+     * @return a queue of steps from start to end or null if it isn't possible to go from start to end
+     */
+    @Override
+    public Deque<SeaTile> getRoute(NauticalMap map, SeaTile start, SeaTile end) {
+        if (start != end) {
+            if (table.isPortTile(start))
+                return table.getRoute(start, end);
+            if (table.isPortTile(end)) {
+                final LinkedList<SeaTile> route = table.getRoute(end, start);
+                if (route != null)
+                    Collections.reverse(route);
+                return route;
+            }
+        }
+        return delegate.getRoute(map, start, end);
+    }
+
+    public PortRouteTable getTable() {
+        return table;
+    }
+
+    public Pathfinder getDelegate() {
+        return delegate;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2017  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+
+package uk.ac.ox.oxfish.geography.pathfinding;
+
+import sim.field.grid.Grid2D;
+import sim.field.grid.ObjectGrid2D;
+import sim.util.Bag;
+import uk.ac.ox.oxfish.geography.Distance;
+import uk.ac.ox.oxfish.geography.NauticalMap;
+import uk.ac.ox.oxfish.geography.SeaTile;
+
+import java.util.Arrays;
+
+/**
+ * all tiles of a map indexed as x * height + y, together with a CSR adjacency list of each tile's
+ * water neighbours and the cost of moving there
+ */
+final class WaterGraph {
+
+    private final NauticalMap map;
+
+    private final int width;
+
+    private final int height;
+
+    final SeaTile[] tiles;
+
+    /**
+     * the water neighbors of tile i are neighbors[firstEdge[i]] ... neighbors[firstEdge[i+1]-1], in the order
+     * {@link NauticalMap#getMooreNeighbors(SeaTile, int)} lists them
+     */
+    final int[] firstEdge;
+
+    final int[] neighbors;
+
+    final double[] costs;
+
+    WaterGraph(NauticalMap map, Distance distance) {
+        this.map = map;
+        this.width = map.getWidth();
+        this.height = map.getHeight();
+        final int size = width * height;
+        tiles = new SeaTile[size];
+        for (int x = 0; x < width; x++)
+            for (int y = 0; y < height; y++)
+                tiles[x * height + y] = map.getSeaTile(x, y);
+
+        //ask MASON, so that neighbours are listed in the same order the map gives them to A*
+        final ObjectGrid2D grid = (ObjectGrid2D) map.getRasterBathymetry().getGrid();
+        final Bag found = new Bag();
+        firstEdge = new int[size + 1];
+        int[] neighbors = new int[size * 8];
+        double[] costs = new double[size * 8];
+        int edges = 0;
+        for (int i = 0; i < size; i++) {
+            firstEdge[i] = edges;
+            found.clear();
+            grid.getMooreNeighbors(xOf(i), yOf(i), 1, Grid2D.BOUNDED, false, found, null, null);
+            for (Object next : found) {
+                final SeaTile neighbor = (SeaTile) next;
+                if (neighbor.isLand())
+                    continue;
+                neighbors[edges] = indexOf(neighbor);
+                costs[edges] = distance.distance(tiles[i], neighbor, map);
+                edges++;
+            }
+        }
+        firstEdge[size] = edges;
+        this.neighbors = Arrays.copyOf(neighbors, edges);
+        this.costs = Arrays.copyOf(costs, edges);
+    }
+
+    /**
+     * @return the index of the tile at x,y or -1 if it is outside the map
+     */
+    int indexAt(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height)
+            return -1;
+        return x * height + y;
+    }
+
+    int size() {
+        return tiles.length;
+    }
+
+    int indexOf(SeaTile tile) {
+        return tile.getGridX() * height + tile.getGridY();
+    }
+
+    int xOf(int index) {
+        return index / height;
+    }
+
+    int yOf(int index) {
+        return index % height;
+    }
+
+    /**
+     * tiles can be swapped out of a map, so we check the ones we are about to search from and to
+     */
+    boolean isUpToDate(NauticalMap map, SeaTile start, SeaTile end) {
+        return this.map == map &&
+            tiles.length == map.getWidth() * map.getHeight() &&
+            tiles[indexOf(start)] == start &&
+            tiles[indexOf(end)] == end;
+    }
+}
@@ -44,6 +44,10 @@ public class BatchRunnerFactory
     private String columnsToPrint = "Total Effort,Average Cash-Flow ";
     private int numberOfRuns = 100;
     private Integer heatmapGathererStartYear = -1;
+    /**
+     * threads stepping the fishers of each run, 0 to step them one at a time
+     */
+    private int fisherThreads = 0;
 
     /**
      * Gets a result.
@@ -51,7 +55,7 @@ public class BatchRunnerFactory
      * @return a result
      */
     public BatchRunner build() {
-        return new BatchRunner(
+        BatchRunner runner = new BatchRunner(
                 yamlFile,
                 yearsToRun,
                 columnsToPrint!=null && columnsToPrint.contains(",") ?
@@ -61,6 +65,8 @@ public class BatchRunnerFactory
                 policyFile,
                 randomSeed,
                 heatmapGathererStartYear);
+        runner.setFisherThreads(fisherThreads);
+        return runner;
     }
 
 
@@ -210,4 +216,22 @@ public class BatchRunnerFactory
     public void setHeatmapGathererStartYear(Integer heatmapGathererStartYear) {
         this.heatmapGathererStartYear = heatmapGathererStartYear;
     }
-}
\ No newline at end of file
+
+    /**
+     * Getter for property 'fisherThreads'.
+     *
+     * @return Value for property 'fisherThreads'.
+     */
+    public int getFisherThreads() {
+        return fisherThreads;
+    }
+
+    /**
+     * Setter for property 'fisherThreads'.
+     *
+     * @param fisherThreads Value to set for property 'fisherThreads'.
+     */
+    public void setFisherThreads(int fisherThreads) {
+        this.fisherThreads = fisherThreads;
+    }
+}
@@ -174,8 +174,7 @@ public class MPADrawer implements MouseListener, MouseMotionListener
 
 
             synchronized (scheduler.state.schedule) {
-                map.getMpaVectorField().addGeometry(new MasonGeometry(rectangle));
-                map.recomputeTilesMPA();
+                map.addMPA(new MasonGeometry(rectangle));
                 SwingUtilities.invokeLater(new Runnable() {
                     @Override
                     public void run() {
@@ -20,6 +20,8 @@
 
 package uk.ac.ox.oxfish.maximization;
 
+import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.io.binary.BinaryStreamDriver;
 import eva2.problems.simple.SimpleProblemDouble;
 import uk.ac.ox.oxfish.biology.complicated.factory.HockeyStickRecruitmentFactory;
 import uk.ac.ox.oxfish.biology.complicated.factory.RecruitmentBySpawningJackKnifeMaturity;
@@ -35,9 +37,15 @@ import uk.ac.ox.oxfish.utility.parameters.FixedDoubleParameter;
 import uk.ac.ox.oxfish.utility.yaml.FishYAML;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class GenericOptimization extends SimpleProblemDouble implements Serializable {
 
@@ -261,6 +269,37 @@ public class GenericOptimization extends SimpleProblemDouble implements Serializ
 
     private int simulatedYears = 4;
 
+    /**
+     * how many of the runsPerSetting replicates of the same candidate are run at the same time. Candidates are
+     * already evaluated in parallel by EvA2 (see parallelThreads in {@link OptimizerConsole}), this is on top of it
+     */
+    private int parallelReplicates = 1;
+
+    /**
+     * a run that takes longer than this (wall-clock minutes) is stopped and its error counted as translateNANto.
+     * 0 or less means runs are never stopped
+     */
+    private double maxMinutesPerRun = 0;
+
+    /**
+     * pool the replicates run on; shared by all the optimization problems (and their clones) in the JVM
+     */
+    private static final ExecutorService REPLICATES_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "optimization-replicate");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * candidates and replicates run at the same time must not share a seed
+     */
+    private static final AtomicLong SEEDS = new AtomicLong(System.currentTimeMillis());
+
+    /**
+     * the scenario file, parsed once; each candidate parametrizes its own deep copy of it
+     */
+    private transient volatile ScenarioTemplate scenarioTemplate;
+
     /**
      * create smaller optimization problem trying to climb within a small range of previously found optimal parameters
      * this assumes however all parameters are simple
@@ -315,13 +354,24 @@ public class GenericOptimization extends SimpleProblemDouble implements Serializ
         try {
             double error = 0;
 
-            for (int i = 0; i < runsPerSetting; i++) {
-                //read in and modify parameters
-                Scenario scenario = buildScenario(x);
-
-                //run the model
-                error += computeErrorGivenScenario(scenario, simulatedYears);
-
+            final int threads = Math.max(1, Math.min(parallelReplicates, runsPerSetting));
+            if (threads == 1) {
+                for (int i = 0; i < runsPerSetting; i++)
+                    error += runReplicate(x);
+            } else {
+                //split the replicates among "threads" tasks, each running its share one after the other
+                List<Future<Double>> replicates = new ArrayList<>(threads);
+                for (int task = 0; task < threads; task++) {
+                    final int runs = runsPerSetting / threads + (task < runsPerSetting % threads ? 1 : 0);
+                    replicates.add(REPLICATES_EXECUTOR.submit(() -> {
+                        double sum = 0;
+                        for (int i = 0; i < runs; i++)
+                            sum += runReplicate(x);
+                        return sum;
+                    }));
+                }
+                for (Future<Double> replicate : replicates)
+                    error += replicate.get();
             }
 
             double finalError = error / (double) runsPerSetting;
@@ -340,9 +390,20 @@ public class GenericOptimization extends SimpleProblemDouble implements Serializ
         }
     }
 
+    private double runReplicate(double[] x) throws IOException {
+        //read in and modify parameters
+        Scenario scenario = buildScenario(x);
+
+        //run the model
+        return computeErrorGivenScenario(scenario, simulatedYears);
+    }
+
     public double computeErrorGivenScenario(Scenario scenario,
                                             int simulatedYears) {
-        FishState model = new FishState(System.currentTimeMillis());
+        FishState model = new FishState(SEEDS.getAndIncrement());
+        final long deadline = maxMinutesPerRun > 0 ?
+                System.currentTimeMillis() + (long) (maxMinutesPerRun * 60 * 1000) :
+                Long.MAX_VALUE;
 
         double error = 0;
         model.setScenario(scenario);
@@ -350,6 +411,11 @@ public class GenericOptimization extends SimpleProblemDouble implements Serializ
         System.out.println("starting run");
         while (model.getYear() < simulatedYears) {
             model.schedule.step(model);
+            if (System.currentTimeMillis() > deadline) {
+                System.out.println("run took longer than " + maxMinutesPerRun + " minutes, stopped");
+                model.finish();
+                return Double.NaN;
+            }
         }
         model.schedule.step(model);
 
@@ -360,9 +426,8 @@ public class GenericOptimization extends SimpleProblemDouble implements Serializ
         return error;
     }
 
-    public Scenario buildScenario(double[] x) throws FileNotFoundException {
-        FishYAML yaml = new FishYAML();
-        Scenario scenario = yaml.loadAs(new FileReader(Paths.get(scenarioFile).toFile()),Scenario.class);
+    public Scenario buildScenario(double[] x) throws IOException {
+        Scenario scenario = getScenarioTemplate().newScenario();
         int parameter=0;
        for (OptimizationParameter optimizationParameter : parameters)
         {
@@ -375,6 +440,50 @@ public class GenericOptimization extends SimpleProblemDouble implements Serializ
         return scenario;
     }
 
+    private ScenarioTemplate getScenarioTemplate() throws IOException {
+        ScenarioTemplate template = scenarioTemplate;
+        if (template == null || !template.getFile().equals(scenarioFile)) {
+            FishYAML yaml = new FishYAML();
+            template = new ScenarioTemplate(scenarioFile,
+                                            yaml.loadAs(new String(Files.readAllBytes(Paths.get(scenarioFile)),
+                                                                   StandardCharsets.UTF_8),
+                                                        Scenario.class));
+            scenarioTemplate = template;
+        }
+        return template;
+    }
+
+    /**
+     * a parsed scenario, remembered together with its path. It is kept as a binary XStream snapshot: rebuilding a
+     * deep copy from it is much cheaper than parsing the yaml again and the copies share nothing with each other
+     */
+    private static class ScenarioTemplate {
+
+        private final String file;
+
+        private final XStream xstream = new XStream(new BinaryStreamDriver());
+
+        private final byte[] snapshot;
+
+        private ScenarioTemplate(String file, Scenario scenario) {
+            this.file = file;
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            xstream.toXML(scenario, output);
+            this.snapshot = output.toByteArray();
+        }
+
+        public String getFile() {
+            return file;
+        }
+
+        /**
+         * @return a new deep copy of the scenario
+         */
+        public Scenario newScenario() {
+            return (Scenario) xstream.fromXML(new ByteArrayInputStream(snapshot));
+        }
+    }
+
 
 
 
@@ -489,6 +598,42 @@ public class GenericOptimization extends SimpleProblemDouble implements Serializ
     }
 
 
+    /**
+     * Getter for property 'parallelReplicates'.
+     *
+     * @return Value for property 'parallelReplicates'.
+     */
+    public int getParallelReplicates() {
+        return parallelReplicates;
+    }
+
+    /**
+     * Setter for property 'parallelReplicates'.
+     *
+     * @param parallelReplicates Value to set for property 'parallelReplicates'.
+     */
+    public void setParallelReplicates(int parallelReplicates) {
+        this.parallelReplicates = parallelReplicates;
+    }
+
+    /**
+     * Getter for property 'maxMinutesPerRun'.
+     *
+     * @return Value for property 'maxMinutesPerRun'.
+     */
+    public double getMaxMinutesPerRun() {
+        return maxMinutesPerRun;
+    }
+
+    /**
+     * Setter for property 'maxMinutesPerRun'.
+     *
+     * @param maxMinutesPerRun Value to set for property 'maxMinutesPerRun'.
+     */
+    public void setMaxMinutesPerRun(double maxMinutesPerRun) {
+        this.maxMinutesPerRun = maxMinutesPerRun;
+    }
+
     /**
      * Getter for property 'maximization'.
      *
@@ -33,6 +33,10 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 
@@ -92,6 +96,12 @@ public class BatchRunner
      */
     private Consumer<FishState> beforeStartSetup;
 
+    /**
+     * threads stepping the fishers of each run (see {@link FishState#setParallelFisherThreads(int)}); 0 steps them one
+     * at a time as usual. A scenario's own "Parallel Fishers" plugin still has the last word
+     */
+    private int fisherThreads = 0;
+
 
     /**
      * function to add columns between the year-run columns and the data columns from the model itself.
@@ -124,34 +134,112 @@ public class BatchRunner
 
     public StringBuffer run(@Nullable StringBuffer writer) throws IOException {
 
+        runSingle(runsDone, writer);
+        //new run
+        runsDone++;
+        return writer;
 
-        String simulationName = guessSimulationName() +"_"+runsDone;
+    }
+
+    /**
+     * runs the next "runs" simulations concurrently, at most "threads" at a time. Each run is independent, has seed
+     * initialSeed + its run index and its own output folder, exactly as if {@link #run(StringBuffer)} had been
+     * called "runs" times. The tidy output of each run is kept apart and appended to the writer in run order once
+     * all of them are done, so the result does not depend on which run finishes first.
+     * <br>
+     * Scenario setups, before-start hooks, interruptors and column modifiers are shared between runs and will be
+     * called from multiple threads.
+     * @param runs number of simulations to run
+     * @param threads size of the worker pool
+     * @param writer where to append the tidy output (can be null)
+     * @return the writer
+     */
+    public StringBuffer runInParallel(int runs, int threads, @Nullable StringBuffer writer) throws IOException {
+        Preconditions.checkArgument(runs >= 0);
+        Preconditions.checkArgument(threads > 0);
+
+        final int firstRun = runsDone;
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, runs)));
+        try {
+            List<Future<StringBuffer>> results = new ArrayList<>(runs);
+            for (int i = 0; i < runs; i++) {
+                final int runIndex = firstRun + i;
+                results.add(executor.submit(() -> runSingle(runIndex, writer == null ? null : new StringBuffer())));
+            }
+            for (Future<StringBuffer> result : results) {
+                StringBuffer output = result.get();
+                if (writer != null)
+                    writer.append(output);
+                runsDone++;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for batch runs", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw new IllegalStateException("Batch run failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return writer;
+    }
+
+    /**
+     * runs the simulation with the given index and appends its tidy output to the writer
+     */
+    private StringBuffer runSingle(int runIndex, @Nullable StringBuffer writer) throws IOException {
+
+
+        String simulationName = guessSimulationName() +"_"+runIndex;
 
 
         long startTime = System.currentTimeMillis();
         FishState model = FishStateUtilities.run(simulationName, getYamlFile(),
                 outputFolder == null ? null : getOutputFolder().resolve(simulationName),
-                initialSeed + runsDone,
+                initialSeed + runIndex,
                 Log.LEVEL_INFO,
                 true, policyFile == null ?
                         null : policyFile.toString(),
                 yearsToRun, false,
                 heatmapGathererStartYear,
                 getScenarioSetup(),
-                beforeStartSetup,
+                beforeStart(),
                 modelInterruptors.toArray(new Predicate[modelInterruptors.size()])
         );
         System.out.println("Run took: " + (System.currentTimeMillis()-startTime)/1000 + " seconds");
 
+        printOutput(model, columnsToPrint,
+                    outputFolder == null ? null : outputFolder.resolve(simulationName + "_run" + runIndex + ".csv"),
+                    writer, String.valueOf(runIndex), columnModifier);
+        model.finish();
+        return writer;
+
+    }
+
+    /**
+     * prints the yearly columns of a finished model: one csv file (if a path is given) and the tidy
+     * "run,year,[modifier columns,]variable,value" rows (if a writer is given)
+     * @param model the model, after it has run
+     * @param columnsToPrint names of the yearly columns to print; all of them when empty
+     * @param csvFile where to write the csv (can be null)
+     * @param writer where to append the tidy output (can be null)
+     * @param runName the first column of each tidy row
+     * @param columnModifier adds columns between year and variable (can be null)
+     */
+    static void printOutput(
+            FishState model, List<String> columnsToPrint,
+            @Nullable Path csvFile, @Nullable StringBuffer writer,
+            String runName, @Nullable ColumnModifier columnModifier) {
         //print individually
         ArrayList<DataColumn> columns = new ArrayList<>();
-        if(columnsToPrint==null | columnsToPrint.isEmpty())
+        List<String> columnNames = new ArrayList<>(columnsToPrint);
+        if(columnNames.isEmpty())
             for (DataColumn column : model.getYearlyDataSet().getColumns()) {
-                columnsToPrint.add(column.getName());
+                columnNames.add(column.getName());
             }
 
-        System.out.println(columnsToPrint);
-        for(String column : columnsToPrint) {
+        for(String column : columnNames) {
             DataColumn columnToPrint = model.getYearlyDataSet().getColumn(column);
 
             Preconditions.checkState(columnToPrint!=null, "Can't find column " + column);
@@ -159,9 +247,9 @@ public class BatchRunner
         }
 
 
-        if(outputFolder!=null) {
+        if(csvFile!=null) {
             FishStateUtilities.printCSVColumnsToFile(
-                    outputFolder.resolve(simulationName + "_run" + runsDone + ".csv").toFile(),
+                    csvFile.toFile(),
                     columns.toArray(new DataColumn[columns.size()])
             );
         }
@@ -170,7 +258,7 @@ public class BatchRunner
         if(writer!=null)
             for(DataColumn column : columns)
                 for(int year=0; year<yearsActuallyRan; year++) {
-                    writer.append(runsDone).append(",").append(year).append(",");
+                    writer.append(runName).append(",").append(year).append(",");
                     if(columnModifier!=null)
                         columnModifier.consume(writer,
                                 model,
@@ -180,11 +268,6 @@ public class BatchRunner
                             ",").append(column.get(year)).append("\n");
 
                 }
-        //new run
-        runsDone++;
-        model.finish();
-        return writer;
-
     }
 
     public String guessSimulationName() {
@@ -310,4 +393,36 @@ public class BatchRunner
     public void setModelInterruptors(List<Predicate<FishState>> modelInterruptors) {
         this.modelInterruptors = modelInterruptors;
     }
+
+    /**
+     * the before-start hook, preceded (when fisher threads are set) by switching on the parallel fisher phase
+     */
+    private Consumer<FishState> beforeStart() {
+        if (fisherThreads <= 0)
+            return beforeStartSetup;
+        return model -> {
+            model.setParallelFisherThreads(fisherThreads);
+            if (beforeStartSetup != null)
+                beforeStartSetup.accept(model);
+        };
+    }
+
+    /**
+     * Getter for property 'fisherThreads'.
+     *
+     * @return Value for property 'fisherThreads'.
+     */
+    public int getFisherThreads() {
+        return fisherThreads;
+    }
+
+    /**
+     * Setter for property 'fisherThreads'.
+     *
+     * @param fisherThreads Value to set for property 'fisherThreads'.
+     */
+    public void setFisherThreads(int fisherThreads) {
+        Preconditions.checkArgument(fisherThreads >= 0);
+        this.fisherThreads = fisherThreads;
+    }
 }
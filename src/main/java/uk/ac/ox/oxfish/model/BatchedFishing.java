@@ -0,0 +1,332 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2017  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+
+package uk.ac.ox.oxfish.model;
+
+import com.google.common.base.Preconditions;
+import uk.ac.ox.oxfish.biology.GlobalBiology;
+import uk.ac.ox.oxfish.biology.Species;
+import uk.ac.ox.oxfish.biology.complicated.StructuredAbundance;
+import uk.ac.ox.oxfish.fisher.Fisher;
+import uk.ac.ox.oxfish.fisher.equipment.Catch;
+import uk.ac.ox.oxfish.fisher.equipment.CatchBuffer;
+import uk.ac.ox.oxfish.geography.SeaTile;
+import uk.ac.ox.oxfish.utility.FishStateUtilities;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Collects the fishing the fishers want to do during a step and carries it out all at once, tile by tile. <p>
+ * A fisher asking to fish stops there and waits: once every fisher has been stepped (or is waiting) the
+ * {@link ParallelFisherPhase} resolves the requests and then lets the waiting fishers carry on with their step, with
+ * their catch in the hold, possibly asking to fish again. Requests are grouped by tile and each tile is resolved
+ * independently (so tiles are fished in parallel), according to a {@link ConflictRule}; the tile's biology then
+ * reacts once to the sum of what was caught there. Finally each fisher hauls its catch, serially and in the order the
+ * requests were made.
+ */
+public class BatchedFishing {
+
+    /**
+     * how to split a tile between the fishers fishing it in the same step
+     */
+    public enum ConflictRule {
+
+        /**
+         * fishers fish the tile one after the other, in the (random) order they were stepped, each seeing what the
+         * previous ones left and with its catch in the hold before its next decision. That is fishing immediately,
+         * so requests are settled as soon as they are made and nothing is left to batch
+         */
+        SEQUENTIAL_IN_RANDOM_ORDER,
+
+        /**
+         * every request made in the same round fishes the tile as the previous round left it; where together they
+         * catch more than there is, each gets a share of what is there proportional to what it would have caught
+         * alone. A fisher fishing the same tile for several hours makes one request per hour (one per round), so its
+         * share grows with its effort
+         */
+        PROPORTIONAL_SHARE
+
+    }
+
+    private final ConflictRule rule;
+
+    private final List<Request> requests = new ArrayList<>();
+
+    /**
+     * fishers whose request hasn't been resolved yet
+     */
+    private final Set<Fisher> waiting = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    public BatchedFishing(ConflictRule rule) {
+        this.rule = Preconditions.checkNotNull(rule);
+    }
+
+    /**
+     * the fisher wants to fish where it is for this many hours (as many as the gear fishes at once). With
+     * {@link ConflictRule#SEQUENTIAL_IN_RANDOM_ORDER} it fishes right away, otherwise the request is queued and the
+     * fisher waits (see {@link #isWaitingForCatch(Fisher)}) for it to be resolved
+     */
+    public void request(Fisher fisher, int hoursSpentFishing, FishState model) {
+        Preconditions.checkArgument(hoursSpentFishing > 0);
+        final SeaTile here = fisher.getLocation();
+        Preconditions.checkState(here.isWater(), "can't fish on land!");
+        if (rule == ConflictRule.SEQUENTIAL_IN_RANDOM_ORDER) {
+            fisher.fishHere(model.getBiology(), hoursSpentFishing, model);
+            return;
+        }
+        Preconditions.checkState(waiting.add(fisher), "already waiting for a catch!");
+        requests.add(new Request(fisher, here, hoursSpentFishing));
+    }
+
+    /**
+     * @return true if the fisher asked to fish and the catch is not in its hold yet
+     */
+    public boolean isWaitingForCatch(Fisher fisher) {
+        return waiting.contains(fisher);
+    }
+
+    /**
+     * fishes every tile that was asked for and hands the catches over to the fishers
+     */
+    public void resolve(FishState model, ForkJoinPool pool) {
+        if (requests.isEmpty())
+            return;
+
+        //group by tile, keeping the order the requests were made in
+        final Map<SeaTile, List<Request>> byTile = new LinkedHashMap<>();
+        for (Request request : requests)
+            byTile.computeIfAbsent(request.tile, tile -> new ArrayList<>()).add(request);
+        final List<List<Request>> tiles = new ArrayList<>(byTile.values());
+
+        //only the tile's own biology is touched, so tiles can be fished in parallel
+        pool.submit(() -> tiles.parallelStream().forEach(fishers -> {
+            if (rule == ConflictRule.PROPORTIONAL_SHARE && fishers.size() > 1)
+                shareTile(fishers, model);
+            else
+                fishTileInTurn(fishers, model);
+        })).join();
+
+        final GlobalBiology biology = model.getBiology();
+        for (Request request : requests)
+            request.fisher.haulCatch(
+                biology, request.hours, request.tile, request.caught, request.kept, model);
+        requests.clear();
+        waiting.clear();
+    }
+
+    private static void fishTileInTurn(List<Request> fishers, FishState model) {
+        final GlobalBiology biology = model.getBiology();
+        for (Request request : fishers) {
+            ParallelFisherPhase.runAs(request.fisher.grabRandomizer(), () -> {
+                request.buffer = request.fisher.catchHere(request.tile, request.tile, request.hours, biology);
+                request.kept = request.fisher.keepFromCatchBuffer(request.tile, request.hours, biology, model);
+                request.caught = request.buffer.toCatch(biology);
+            });
+            if (request.caught.totalCatchWeight() > FishStateUtilities.EPSILON)
+                request.tile.reactToThisAmountOfBiomassBeingFished(request.caught, request.kept, biology);
+        }
+    }
+
+    private static void shareTile(List<Request> fishers, FishState model) {
+        final GlobalBiology biology = model.getBiology();
+        final SeaTile tile = fishers.get(0).tile;
+
+        //what each would catch alone
+        for (Request request : fishers)
+            ParallelFisherPhase.runAs(request.fisher.grabRandomizer(), () -> {
+                request.buffer = request.fisher.catchHere(tile, tile, request.hours, biology);
+                request.caught = request.buffer.toCatch(biology);
+            });
+
+        final boolean abundance = fishers.get(0).caught.hasAbundanceInformation();
+        for (Request request : fishers)
+            Preconditions.checkState(
+                request.caught.hasAbundanceInformation() == abundance,
+                "cannot share a tile between incongruent catches!"
+            );
+        if (abundance)
+            shareAbundance(fishers, tile, biology);
+        else
+            shareBiomass(fishers, tile, biology);
+
+        for (Request request : fishers)
+            ParallelFisherPhase.runAs(request.fisher.grabRandomizer(), () -> {
+                request.buffer.set(request.caught);
+                request.kept = request.fisher.keepFromCatchBuffer(tile, request.hours, biology, model);
+            });
+
+        //the tile reacts once, to everything caught there
+        final List<Catch> caught = new ArrayList<>(fishers.size());
+        final List<Catch> kept = new ArrayList<>(fishers.size());
+        for (Request request : fishers) {
+            caught.add(request.caught);
+            kept.add(request.kept);
+        }
+        final Catch totalCaught = sum(caught, biology, tile);
+        if (totalCaught.totalCatchWeight() > FishStateUtilities.EPSILON)
+            tile.reactToThisAmountOfBiomassBeingFished(totalCaught, sum(kept, biology, null), biology);
+    }
+
+    private static void shareBiomass(List<Request> fishers, SeaTile tile, GlobalBiology biology) {
+        final int numberOfSpecies = biology.getSize();
+        final double[][] shares = new double[fishers.size()][];
+        for (int i = 0; i < shares.length; i++)
+            shares[i] = fishers.get(i).caught.getBiomassArray();
+        for (Species species : biology.getSpecies()) {
+            if (species.isImaginary())
+                continue;
+            final int index = species.getIndex();
+            double total = 0;
+            for (double[] share : shares)
+                total += share[index];
+            final double available = tile.getBiomass(species);
+            if (total > available) {
+                final double proportion = available / total;
+                for (double[] share : shares)
+                    share[index] *= proportion;
+            }
+        }
+        for (int i = 0; i < shares.length; i++) {
+            Preconditions.checkState(shares[i].length == numberOfSpecies);
+            fishers.get(i).caught = new Catch(shares[i]);
+        }
+    }
+
+    private static void shareAbundance(List<Request> fishers, SeaTile tile, GlobalBiology biology) {
+        final int numberOfSpecies = biology.getSize();
+        final double[][][][] shares = new double[fishers.size()][numberOfSpecies][][];
+        //the catches are this step's own, so they are scaled in place
+        for (int i = 0; i < shares.length; i++)
+            for (int index = 0; index < numberOfSpecies; index++)
+                shares[i][index] = fishers.get(i).caught.getAbundance(index).asMatrix();
+        for (Species species : biology.getSpecies()) {
+            if (species.isImaginary())
+                continue;
+            final int index = species.getIndex();
+            final double[][] available = tile.getAbundance(species).asMatrix();
+            for (int subdivision = 0; subdivision < available.length; subdivision++)
+                for (int bin = 0; bin < available[subdivision].length; bin++) {
+                    double total = 0;
+                    for (double[][][] share : shares)
+                        total += share[index][subdivision][bin];
+                    if (total > available[subdivision][bin]) {
+                        final double proportion = available[subdivision][bin] / total;
+                        for (double[][][] share : shares)
+                            share[index][subdivision][bin] *= proportion;
+                    }
+                }
+        }
+        for (int i = 0; i < shares.length; i++) {
+            final StructuredAbundance[] share = new StructuredAbundance[numberOfSpecies];
+            for (int index = 0; index < numberOfSpecies; index++)
+                share[index] = new StructuredAbundance(shares[i][index]);
+            fishers.get(i).caught = new Catch(share, biology);
+        }
+    }
+
+    /**
+     * adds up the catches
+     * @param catches the catches to sum
+     * @param biology the global biology
+     * @param available if not null, the sum never goes above what is in this tile (the shares may add up to a
+     *                  rounding error more than that)
+     */
+    private static Catch sum(List<Catch> catches, GlobalBiology biology, SeaTile available) {
+        final int numberOfSpecies = biology.getSize();
+        if (!catches.get(0).hasAbundanceInformation()) {
+            final double[] total = new double[numberOfSpecies];
+            for (Catch toAdd : catches) {
+                final double[] biomass = toAdd.getBiomassArray();
+                for (int index = 0; index < numberOfSpecies; index++)
+                    total[index] += biomass[index];
+            }
+            if (available != null)
+                for (Species species : biology.getSpecies())
+                    if (!species.isImaginary())
+                        total[species.getIndex()] = Math.min(
+                            total[species.getIndex()], available.getBiomass(species));
+            return new Catch(total);
+        }
+        final StructuredAbundance[] total = new StructuredAbundance[numberOfSpecies];
+        for (int index = 0; index < numberOfSpecies; index++) {
+            final double[][] first = catches.get(0).getAbundance(index).asMatrix();
+            final double[][] matrix = new double[first.length][];
+            for (int subdivision = 0; subdivision < matrix.length; subdivision++)
+                matrix[subdivision] = new double[first[subdivision].length];
+            for (Catch toAdd : catches) {
+                final double[][] abundance = toAdd.getAbundance(index).asMatrix();
+                for (int subdivision = 0; subdivision < matrix.length; subdivision++)
+                    for (int bin = 0; bin < matrix[subdivision].length; bin++)
+                        matrix[subdivision][bin] += abundance[subdivision][bin];
+            }
+            final Species species = biology.getSpecie(index);
+            if (available != null && !species.isImaginary()) {
+                final double[][] here = available.getAbundance(species).asMatrix();
+                for (int subdivision = 0; subdivision < matrix.length; subdivision++)
+                    for (int bin = 0; bin < matrix[subdivision].length; bin++)
+                        matrix[subdivision][bin] = Math.min(matrix[subdivision][bin], here[subdivision][bin]);
+            }
+            total[index] = new StructuredAbundance(matrix);
+        }
+        return new Catch(total, biology);
+    }
+
+    public ConflictRule getRule() {
+        return rule;
+    }
+
+    /**
+     * @return number of fishing requests waiting to be resolved
+     */
+    public int getNumberOfRequests() {
+        return requests.size();
+    }
+
+    private static class Request {
+
+        private final Fisher fisher;
+
+        private final SeaTile tile;
+
+        private final int hours;
+
+        /**
+         * the fisher's own catch buffer, filled when the tile is fished
+         */
+        private CatchBuffer buffer;
+
+        private Catch caught;
+
+        private Catch kept;
+
+        private Request(Fisher fisher, SeaTile tile, int hours) {
+            this.fisher = fisher;
+            this.tile = tile;
+            this.hours = hours;
+        }
+    }
+}
@@ -53,6 +53,7 @@ import uk.ac.ox.oxfish.geography.ports.Port;
 import uk.ac.ox.oxfish.model.data.Gatherer;
 import uk.ac.ox.oxfish.model.data.OutputPlugin;
 import uk.ac.ox.oxfish.model.data.collectors.Counter;
+import uk.ac.ox.oxfish.model.data.collectors.FleetAccumulator;
 import uk.ac.ox.oxfish.model.data.collectors.DataColumn;
 import uk.ac.ox.oxfish.model.data.collectors.FishStateYearlyTimeSeries;
 import uk.ac.ox.oxfish.model.data.collectors.IntervalPolicy;
@@ -161,6 +162,11 @@ public class FishState  extends SimState{
      */
     private final Counter dailyCounter = new Counter(IntervalPolicy.EVERY_DAY);
 
+    /**
+     * fleet-wide sums fishers push into as they fish and dock; created once the biology is known
+     */
+    private FleetAccumulator fleetAccumulator;
+
     /**
      * aggregate steppables for phases where there is no need for randomization
      */
@@ -168,6 +174,26 @@ public class FishState  extends SimState{
 
     private HashMap<StepOrder,AggregateSteppable> aggregateDailySteppables = new HashMap<>();
 
+    /**
+     * when positive, each fisher's daily data only remembers this many days (older days survive only through the
+     * yearly aggregates). 0 means fishers remember every day of the simulation
+     */
+    private int fisherDailyDataRetention = 0;
+
+    /**
+     * when positive fishers are stepped by a {@link ParallelFisherPhase} with this many threads rather than one by one
+     * by MASON. 0 keeps the classic single-threaded fisher phase
+     */
+    private int parallelFisherThreads = 0;
+
+    private ParallelFisherPhase parallelFisherPhase = null;
+
+    /**
+     * when not null (and fishers are stepped in parallel) fishing is batched per step and tiles fished by more
+     * than one fisher are split according to this rule
+     */
+    private BatchedFishing.ConflictRule batchedFishingRule = null;
+
     public int getStepsPerDay() {
         return stepsPerDay;
     }
@@ -250,6 +276,8 @@ public class FishState  extends SimState{
         //      map.addCities("cities/cities.shp");
 
         biology = initialization.getBiology();
+        fleetAccumulator = new FleetAccumulator(biology);
+        fleetAccumulator.start(this);
 
 
 
@@ -278,6 +306,16 @@ public class FishState  extends SimState{
                         , Double.NaN);
         }
 
+        //the scenario (or its plugins) may have asked for the fishers to be stepped in parallel
+        Preconditions.checkState(batchedFishingRule == null || parallelFisherThreads > 0,
+                                 "Batched fishing needs fishers to be stepped by the parallel fisher phase");
+        if(parallelFisherThreads > 0) {
+            parallelFisherPhase = new ParallelFisherPhase(
+                    parallelFisherThreads,
+                    batchedFishingRule == null ? null : new BatchedFishing(batchedFishingRule));
+            scheduleEveryStep(parallelFisherPhase, StepOrder.FISHER_PHASE);
+        }
+
         //start the fishers
         for(Fisher fisher : fishers)
             fisher.start(this);
@@ -629,8 +667,16 @@ public class FishState  extends SimState{
         return (int) Math.round(schedule.getTime());
     }
 
+    /**
+     * the model randomizer; while a {@link ParallelFisherPhase} is stepping a fisher this is that fisher's own stream
+     */
     public MersenneTwisterFast getRandom()
     {
+        if(parallelFisherPhase != null) {
+            final MersenneTwisterFast stream = ParallelFisherPhase.getCurrentStream();
+            if(stream != null)
+                return stream;
+        }
         return random;
     }
 
@@ -891,6 +937,13 @@ public class FishState  extends SimState{
         return dailyCounter;
     }
 
+    /**
+     * fleet-wide sums of catches, effort, hours out, fuel and trip earnings/costs; null before the model starts
+     */
+    public FleetAccumulator getFleetAccumulator() {
+        return fleetAccumulator;
+    }
+
     @Override
     public void finish() {
         super.finish();
@@ -904,9 +957,15 @@ public class FishState  extends SimState{
             startable.turnOff();
         }
         toStart.clear();
+        if(parallelFisherPhase != null) {
+            parallelFisherPhase.turnOff();
+            parallelFisherPhase = null;
+        }
         yearlyDataSet.turnOff();
         yearlyCounter.turnOff();
         dailyCounter.turnOff();
+        if(fleetAccumulator != null)
+            fleetAccumulator.turnOff();
         dailyDataSet.turnOff();
         if(map!=null)
             map.turnOff();
@@ -923,6 +982,63 @@ public class FishState  extends SimState{
         return ImmutableList.copyOf(toStart);
     }
 
+    public int getFisherDailyDataRetention() {
+        return fisherDailyDataRetention;
+    }
+
+    /**
+     * limits how many days of data each fisher keeps in its daily time series; needs to be set before fishers start
+     * @param fisherDailyDataRetention number of days to keep, 0 to keep them all
+     */
+    public void setFisherDailyDataRetention(int fisherDailyDataRetention) {
+        Preconditions.checkArgument(fisherDailyDataRetention >= 0);
+        this.fisherDailyDataRetention = fisherDailyDataRetention;
+    }
+
+    public int getParallelFisherThreads() {
+        return parallelFisherThreads;
+    }
+
+    /**
+     * steps the fishers with a {@link ParallelFisherPhase} using this many threads; needs to be set before the fishers
+     * start, so either before the model starts or by a scenario plugin
+     * @param parallelFisherThreads number of threads, 0 to step fishers one at a time as usual
+     */
+    public void setParallelFisherThreads(int parallelFisherThreads) {
+        Preconditions.checkArgument(parallelFisherThreads >= 0);
+        Preconditions.checkState(!started, "Already started!");
+        this.parallelFisherThreads = parallelFisherThreads;
+    }
+
+    /**
+     * @return the phase stepping the fishers in parallel, or null if they are stepped by MASON one at a time
+     */
+    public ParallelFisherPhase getParallelFisherPhase() {
+        return parallelFisherPhase;
+    }
+
+    public BatchedFishing.ConflictRule getBatchedFishingRule() {
+        return batchedFishingRule;
+    }
+
+    /**
+     * batch all the fishing of a step and do it at the end of the (parallel) fisher phase, splitting contested tiles
+     * with this rule; needs to be set before the fishers start, so either before the model starts or by a scenario
+     * plugin
+     * @param batchedFishingRule the rule, or null for fishers to fish immediately
+     */
+    public void setBatchedFishingRule(BatchedFishing.ConflictRule batchedFishingRule) {
+        Preconditions.checkState(!started, "Already started!");
+        this.batchedFishingRule = batchedFishingRule;
+    }
+
+    /**
+     * @return where fishers should send their fishing requests, or null if they should fish immediately
+     */
+    public BatchedFishing getBatchedFishing() {
+        return parallelFisherPhase == null ? null : parallelFisherPhase.getBatchedFishing();
+    }
+
     public String getHopefullyUniqueID() {
         return hopefullyUniqueID;
     }
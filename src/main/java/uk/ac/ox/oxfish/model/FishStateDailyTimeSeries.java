@@ -88,7 +88,9 @@ public class FishStateDailyTimeSeries extends TimeSeries<FishState> {
 
         }
 
-        //add a counter for all catches (including discards) by asking each fisher individually
+        //catches (including discards) and effort are pushed by the fishers into the fleet sums as they happen;
+        //only when the model keeps none (i.e. it's a stub) we ask each fisher individually
+        final FleetAccumulator fleet = observed.getFleetAccumulator();
         for(Species species : observed.getSpecies())
         {
 
@@ -97,6 +99,8 @@ public class FishStateDailyTimeSeries extends TimeSeries<FishState> {
                              new Gatherer<FishState>() {
                                  @Override
                                  public Double apply(FishState ignored) {
+                                     if(fleet != null)
+                                         return fleet.getDailyCatches(species);
                                      return observed.getFishers().stream().mapToDouble(
                                              new ToDoubleFunction<Fisher>() {
                                                  @Override
@@ -115,6 +119,8 @@ public class FishStateDailyTimeSeries extends TimeSeries<FishState> {
         registerGatherer("Total Effort", new Gatherer<FishState>() {
             @Override
             public Double apply(FishState ignored) {
+                if(fleet != null)
+                    return fleet.getDailyEffort();
                 return observed.getFishers().stream().mapToDouble(
                         new ToDoubleFunction<Fisher>() {
                             @Override
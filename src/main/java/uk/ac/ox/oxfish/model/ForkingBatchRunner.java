@@ -0,0 +1,301 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2017  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+
+package uk.ac.ox.oxfish.model;
+
+import com.esotericsoftware.minlog.Log;
+import com.google.common.base.Preconditions;
+import org.jetbrains.annotations.Nullable;
+import uk.ac.ox.oxfish.model.scenario.Scenario;
+import uk.ac.ox.oxfish.utility.AlgorithmFactory;
+import uk.ac.ox.oxfish.utility.FishStateUtilities;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Runs a policy sweep where all the policies share the same spin-up: the scenario is simulated once for the
+ * spin-up years, the model is snapshotted in memory and each policy branch restores its own copy of the snapshot,
+ * applies its policy and runs for the remaining years. Branches run in parallel.
+ * <br>
+ * Because every branch starts from the same snapshot (randomizer included), branches share their random numbers
+ * up to the point where the policy makes them diverge; a branch with no policy is exactly the run you would get
+ * simulating the scenario for spinUpYears+policyYears in one go.
+ */
+public class ForkingBatchRunner {
+
+
+    /**
+     * where is the scenario file?
+     */
+    private final Path yamlFile;
+
+    /**
+     * years simulated once and shared by all branches
+     */
+    private final int spinUpYears;
+
+    /**
+     * years each branch is simulated for, after the spin-up
+     */
+    private final int policyYears;
+
+    /**
+     * list of data columns to print
+     */
+    private final List<String> columnsToPrint;
+
+    /**
+     * where to print output; each branch gets its own folder
+     */
+    @Nullable
+    private final Path outputFolder;
+
+    /**
+     * random seed of the spin-up
+     */
+    private final long seed;
+
+    /**
+     * policy to apply to the restored model, by branch name
+     */
+    private final LinkedHashMap<String, Consumer<FishState>> branches = new LinkedHashMap<>();
+
+    /**
+     * how many branches run at the same time
+     */
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * this is an helper for anything else that we need to do to a scenario
+     */
+    private Consumer<Scenario> scenarioSetup;
+
+    /**
+     * this is a hook for anything you want to do to FishState after the scenario is loaded but BEFORE start is called
+     */
+    private Consumer<FishState> beforeStartSetup;
+
+    /**
+     * threads stepping the fishers of the spin-up and of each branch (see {@link FishState#setParallelFisherThreads(int)}); 0 steps them one
+     * at a time as usual. A scenario's own "Parallel Fishers" plugin still has the last word
+     */
+    private int fisherThreads = 0;
+
+    public ForkingBatchRunner(
+            Path yamlFile, int spinUpYears, int policyYears,
+            @Nullable List<String> columnsToPrint, @Nullable Path outputFolder, long seed) {
+        Preconditions.checkArgument(spinUpYears >= 0);
+        Preconditions.checkArgument(policyYears > 0);
+        this.yamlFile = yamlFile;
+        this.spinUpYears = spinUpYears;
+        this.policyYears = policyYears;
+        this.columnsToPrint = new LinkedList<>();
+        if(columnsToPrint!=null) {
+            for (String column : columnsToPrint)
+                this.columnsToPrint.add(column.trim());
+        }
+        this.outputFolder = outputFolder;
+        this.seed = seed;
+    }
+
+    /**
+     * adds a policy branch
+     * @param name name of the branch (used in the tidy output and as output folder)
+     * @param policy what to do to the model once it has been restored from the spin-up snapshot
+     */
+    public void addBranch(String name, Consumer<FishState> policy) {
+        Preconditions.checkArgument(!branches.containsKey(name), "Branch " + name + " already exists");
+        branches.put(name, policy);
+    }
+
+    /**
+     * a policy that starts the plugins (the same ones you'd put in a scenario) on the restored model
+     */
+    @SafeVarargs
+    public static Consumer<FishState> startPlugins(AlgorithmFactory<? extends AdditionalStartable>... plugins) {
+        return model -> {
+            for (AlgorithmFactory<? extends AdditionalStartable> plugin : plugins)
+                model.registerStartable(plugin.apply(model));
+        };
+    }
+
+    /**
+     * runs the spin-up, then all the branches
+     * @param writer where to append the tidy output, in the order branches were added (can be null)
+     * @return the writer
+     */
+    public StringBuffer run(@Nullable StringBuffer writer) throws IOException {
+        Preconditions.checkState(!branches.isEmpty(), "No policy branches to run");
+
+        long startTime = System.currentTimeMillis();
+        FishState spunUp = FishStateUtilities.run(guessSimulationName() + "_spinup", yamlFile,
+                                                  null,
+                                                  seed,
+                                                  Log.LEVEL_INFO,
+                                                  true,
+                                                  null,
+                                                  spinUpYears, false,
+                                                  null,
+                                                  scenarioSetup,
+                                                  beforeStart()
+        );
+        ByteArrayOutputStream snapshotStream = new ByteArrayOutputStream();
+        FishStateUtilities.writeModel(snapshotStream, spunUp);
+        final byte[] snapshot = snapshotStream.toByteArray();
+        System.out.println("Spin-up took: " + (System.currentTimeMillis() - startTime) / 1000 + " seconds, " +
+                                   "snapshot is " + snapshot.length / 1024 + " KB");
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, branches.size())));
+        try {
+            List<Future<StringBuffer>> results = new ArrayList<>(branches.size());
+            for (Map.Entry<String, Consumer<FishState>> branch : branches.entrySet())
+                results.add(executor.submit(() -> runBranch(branch.getKey(), branch.getValue(), snapshot,
+                                                            writer == null ? null : new StringBuffer())));
+            for (Future<StringBuffer> result : results) {
+                StringBuffer output = result.get();
+                if (writer != null)
+                    writer.append(output);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for policy branches", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw new IllegalStateException("Policy branch failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return writer;
+    }
+
+    private StringBuffer runBranch(
+            String name, Consumer<FishState> policy, byte[] snapshot, @Nullable StringBuffer writer)
+            throws IOException {
+
+        long startTime = System.currentTimeMillis();
+        FishState model = FishStateUtilities.readModel(new ByteArrayInputStream(snapshot));
+        policy.accept(model);
+        while (model.getYear() < spinUpYears + policyYears)
+            model.schedule.step(model);
+        System.out.println("Branch " + name + " took: " + (System.currentTimeMillis() - startTime) / 1000 + " seconds");
+
+        Path csvFile = null;
+        if(outputFolder!=null) {
+            Path branchFolder = outputFolder.resolve(name);
+            branchFolder.toFile().mkdirs();
+            csvFile = branchFolder.resolve(guessSimulationName() + "_" + name + ".csv");
+            FishStateUtilities.writeAdditionalOutputsToFolder(branchFolder, model);
+        }
+        BatchRunner.printOutput(model, columnsToPrint, csvFile, writer, name, null);
+
+        model.finish();
+        return writer;
+    }
+
+    public String guessSimulationName() {
+        return yamlFile.getFileName().toString().split("\\.")[0];
+    }
+
+    public Path getYamlFile() {
+        return yamlFile;
+    }
+
+    public int getSpinUpYears() {
+        return spinUpYears;
+    }
+
+    public int getPolicyYears() {
+        return policyYears;
+    }
+
+    public List<String> getColumnsToPrint() {
+        return columnsToPrint;
+    }
+
+    @Nullable
+    public Path getOutputFolder() {
+        return outputFolder;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        Preconditions.checkArgument(threads > 0);
+        this.threads = threads;
+    }
+
+    public Consumer<Scenario> getScenarioSetup() {
+        return scenarioSetup;
+    }
+
+    public void setScenarioSetup(Consumer<Scenario> scenarioSetup) {
+        this.scenarioSetup = scenarioSetup;
+    }
+
+    public Consumer<FishState> getBeforeStartSetup() {
+        return beforeStartSetup;
+    }
+
+    public void setBeforeStartSetup(Consumer<FishState> beforeStartSetup) {
+        this.beforeStartSetup = beforeStartSetup;
+    }
+
+    /**
+     * the before-start hook, preceded (when fisher threads are set) by switching on the parallel fisher phase
+     */
+    private Consumer<FishState> beforeStart() {
+        if (fisherThreads <= 0)
+            return beforeStartSetup;
+        return model -> {
+            model.setParallelFisherThreads(fisherThreads);
+            if (beforeStartSetup != null)
+                beforeStartSetup.accept(model);
+        };
+    }
+
+    public int getFisherThreads() {
+        return fisherThreads;
+    }
+
+    public void setFisherThreads(int fisherThreads) {
+        Preconditions.checkArgument(fisherThreads >= 0);
+        this.fisherThreads = fisherThreads;
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2017  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+
+package uk.ac.ox.oxfish.model;
+
+import ec.util.MersenneTwisterFast;
+import sim.engine.SimState;
+import sim.engine.Steppable;
+import sim.engine.Stoppable;
+import uk.ac.ox.oxfish.fisher.Fisher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Steps all the fishers in two phases rather than letting MASON step them one at a time. <p>
+ * First every fisher makes the decisions that only read the world in parallel on a fork-join pool: whether to leave
+ * port this step and, for destination strategies that can choose in parallel (see
+ * {@link uk.ac.ox.oxfish.fisher.strategies.destination.DestinationStrategy#canChooseInParallel()}), where to go.
+ * Everything else, including the destinations chosen at sea, gear changes and what fishers learn from finished
+ * trips, still happens in their step. Then each fisher takes its step in a shuffled but seed-determined order, one
+ * at a time, so that anything touching shared state (fishing a tile, selling at a market, trading quotas, filling
+ * route caches) happens serially. Optionally (see {@link BatchedFishing}) fishing itself is done tile by tile, in parallel: fishers asking to
+ * fish stop and wait for their catch, and carry on with their step once the tiles have been fished. <p>
+ * Each fisher draws from its own random stream, split from the model's randomizer when the fisher is added; while a
+ * fisher is being stepped {@link FishState#getRandom()} returns that stream. This way the draws of one fisher never
+ * depend on how the pool scheduled the others, and a seed gives the same run whatever the number of threads.
+ */
+public class ParallelFisherPhase implements Steppable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * the stream of the fisher the current thread is working for, if any
+     */
+    private static final ThreadLocal<MersenneTwisterFast> CURRENT_STREAM = new ThreadLocal<>();
+
+    private final List<Fisher> fishers = new ArrayList<>();
+
+    private final List<MersenneTwisterFast> streams = new ArrayList<>();
+
+    private final int threads;
+
+    /**
+     * not saved with the model: built the first time it's needed, including after a checkpoint is restored
+     */
+    private transient ForkJoinPool pool;
+
+    /**
+     * when not null fishers only ask to fish while stepping and all the fishing is done at the end of the phase
+     */
+    private final BatchedFishing batchedFishing;
+
+    public ParallelFisherPhase(int threads) {
+        this(threads, null);
+    }
+
+    public ParallelFisherPhase(int threads, BatchedFishing batchedFishing) {
+        this.threads = threads;
+        this.batchedFishing = batchedFishing;
+    }
+
+    /**
+     * registers the fisher, giving it its own random stream
+     * @param fisher the fisher to step
+     * @param model the model, whose randomizer seeds the new stream
+     * @return the receipt to stop stepping the fisher
+     */
+    public Stoppable add(Fisher fisher, FishState model) {
+        final MersenneTwisterFast stream = new MersenneTwisterFast(model.random.nextLong());
+        fishers.add(fisher);
+        streams.add(stream);
+        fisher.assignRandomStream(stream);
+        return new Stoppable() {
+            @Override
+            public void stop() {
+                final int index = fishers.indexOf(fisher);
+                if (index >= 0) {
+                    fishers.remove(index);
+                    streams.remove(index);
+                }
+                fisher.assignRandomStream(null);
+            }
+        };
+    }
+
+    @Override
+    public void step(SimState simState) {
+        final FishState model = (FishState) simState;
+        final int size = fishers.size();
+        final Fisher[] toStep = fishers.toArray(new Fisher[size]);
+        final MersenneTwisterFast[] toStepStreams = streams.toArray(new MersenneTwisterFast[size]);
+
+        //decide in parallel
+        getPool().submit(() -> IntStream.range(0, size).parallel().forEach(
+            i -> runAs(toStepStreams[i], () -> toStep[i].prepareStep(model))
+        )).join();
+
+        //commit serially, in an order drawn from the model's randomizer
+        final int[] order = new int[size];
+        for (int i = 0; i < size; i++)
+            order[i] = i;
+        for (int i = size - 1; i > 0; i--) {
+            final int j = model.random.nextInt(i + 1);
+            final int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+        for (int i : order) {
+            //skip fishers that have been turned off by someone stepping before them
+            if (toStep[i].grabRandomizer() != toStepStreams[i])
+                continue;
+            runAs(toStepStreams[i], () -> toStep[i].step(model));
+        }
+
+        //fishers that asked to fish wait for their catch, then carry on (in the same order) with the rest of their step
+        while (batchedFishing != null && batchedFishing.getNumberOfRequests() > 0) {
+            batchedFishing.resolve(model, getPool());
+            for (int i : order) {
+                if (toStep[i].grabRandomizer() != toStepStreams[i] || !toStep[i].hasStepLeft())
+                    continue;
+                runAs(toStepStreams[i], () -> toStep[i].resumeStep(model));
+            }
+        }
+    }
+
+    static void runAs(MersenneTwisterFast stream, Runnable work) {
+        CURRENT_STREAM.set(stream);
+        try {
+            work.run();
+        } finally {
+            CURRENT_STREAM.remove();
+        }
+    }
+
+    /**
+     * @return the random stream of the fisher the current thread is stepping, or null outside of the fisher phase
+     */
+    static MersenneTwisterFast getCurrentStream() {
+        return CURRENT_STREAM.get();
+    }
+
+    public BatchedFishing getBatchedFishing() {
+        return batchedFishing;
+    }
+
+    public int getNumberOfFishers() {
+        return fishers.size();
+    }
+
+    private ForkJoinPool getPool() {
+        if (pool == null)
+            pool = new ForkJoinPool(threads);
+        return pool;
+    }
+
+    public void turnOff() {
+        if (pool != null)
+            pool.shutdown();
+        pool = null;
+    }
+}
@@ -32,20 +32,29 @@ import java.util.*;
 import java.util.function.BiFunction;
 
 /**
- * A simple map String--->Double that auto-resets once started
+ * A simple map String--->Double that auto-resets once started.
+ * <br>
+ * Each column is given an int handle when added; the counts themselves live in a primitive array indexed by that
+ * handle. Callers on hot paths should resolve the handle once (see {@link #getHandle(String)}) and count through
+ * it; counting by name still works but costs a hash lookup every time.
  * Created by carrknight on 6/8/15.
  */
 public class Counter implements Startable, Steppable
 {
 
-    final private Map<String,Double> data;
+    /**
+     * column name ---> handle (index in values), in the order the columns were added
+     */
+    final private Map<String,Integer> handles;
+
+    private double[] values = new double[8];
 
     final private IntervalPolicy policy;
 
     private Stoppable receipt = null;
 
     public Counter(IntervalPolicy policy) {
-        this.data = new LinkedHashMap<>();
+        this.handles = new LinkedHashMap<>();
         this.policy = policy;
     }
 
@@ -60,17 +69,23 @@ public class Counter implements Startable, Steppable
         /**
          * reset all stuff
          */
-        data.entrySet().forEach(datum -> datum.setValue(0d));
+        Arrays.fill(values, 0, handles.size(), 0d);
     }
 
     /**
      * adds a new data column, ready to be counted. It can't be already there
      * @param columnName the name of the column
+     * @return the handle to count this column with
      */
-    public void addColumn(String columnName)
+    public int addColumn(String columnName)
     {
         Preconditions.checkArgument(!hasColumn(columnName), columnName + " column already exists!");
-        data.put(columnName,0d);
+        final int handle = handles.size();
+        if(handle == values.length)
+            values = Arrays.copyOf(values, values.length * 2);
+        values[handle] = 0d;
+        handles.put(columnName,handle);
+        return handle;
     }
 
 
@@ -80,7 +95,18 @@ public class Counter implements Startable, Steppable
      * @return
      */
     public boolean hasColumn(String columnName){
-        return data.containsKey(columnName);
+        return handles.containsKey(columnName);
+    }
+
+    /**
+     * the handle of an existing column; it stays valid for the life of the counter
+     * @param columnName the name of the column
+     * @return the handle to count this column with
+     */
+    public int getHandle(String columnName){
+        final Integer handle = handles.get(columnName);
+        Preconditions.checkArgument(handle != null, "No column exists: " + columnName);
+        return handle;
     }
 
     /**
@@ -94,14 +120,21 @@ public class Counter implements Startable, Steppable
         if(add==0)
             return;
 
-        data.compute(columnName,
-                     (s, oldValue) -> {
-                         if(oldValue==null)
-                             throw new NullPointerException("No column exists");
-                         else
-                             return oldValue + add;
+        final Integer handle = handles.get(columnName);
+        if(handle==null)
+            throw new NullPointerException("No column exists");
+        values[handle] += add;
+    }
 
-                     });
+    /**
+     * increment the column with this handle by this
+     * @param handle the handle returned by {@link #addColumn(String)} or {@link #getHandle(String)}
+     * @param add by how much to increment
+     */
+    public void count(int handle, double add)
+    {
+        assert handle < handles.size();
+        values[handle] += add;
     }
 
     /**
@@ -115,12 +148,18 @@ public class Counter implements Startable, Steppable
 
 
     public Double getColumn(String columnName){
-        return data.get(columnName);
+        final Integer handle = handles.get(columnName);
+        return handle == null ? null : values[handle];
+    }
+
+    public double getColumn(int handle){
+        assert handle < handles.size();
+        return values[handle];
     }
 
 
     public Set<String> getValidCounters(){
-        return data.keySet();
+        return handles.keySet();
     }
 
 }
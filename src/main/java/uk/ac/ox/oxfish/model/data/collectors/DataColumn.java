@@ -20,26 +20,68 @@
 
 package uk.ac.ox.oxfish.model.data.collectors;
 
+import com.google.common.base.Preconditions;
+
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.NoSuchElementException;
 import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.function.Consumer;
 import java.util.stream.DoubleStream;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
- * basically a linked-list for double values that cannot be modified easily
+ * basically a list for double values that cannot be modified easily.
+ * Observations are kept in a growable primitive array so that random access (and looking back x steps) is O(1)
+ * and adding a new observation does not allocate. <br>
+ * If a maximum size is given the column becomes a ring buffer: only the latest maxSize observations are kept
+ * and indices (as well as {@link #size()}) refer to the retained window only.
  * Created by carrknight on 6/9/15.
  */
 public class DataColumn implements Iterable<Double>, Serializable{
 
-    private final LinkedList<Double> data = new LinkedList<>();
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * the observations; when bounded this is used as a circular buffer starting at {@link #head}
+     */
+    private double[] data;
+
+    /**
+     * position in the array of the oldest retained observation
+     */
+    private int head = 0;
+
+    /**
+     * number of observations currently retained
+     */
+    private int size = 0;
+
+    /**
+     * maximum number of observations to retain; Integer.MAX_VALUE if unbounded
+     */
+    private final int maxSize;
 
     private final String name;
 
     public DataColumn(String name) {
+        this(name, Integer.MAX_VALUE);
+    }
+
+    /**
+     * creates a bounded column that only remembers the last maxSize observations
+     * @param name name of the column
+     * @param maxSize maximum number of observations retained, older ones get dropped
+     */
+    public DataColumn(String name, int maxSize) {
+        Preconditions.checkArgument(maxSize > 0, "bounded columns need to keep at least one observation");
         this.name = name;
+        this.maxSize = maxSize;
+        this.data = new double[Math.min(INITIAL_CAPACITY, maxSize)];
     }
 
     /**
@@ -52,11 +94,53 @@ public class DataColumn implements Iterable<Double>, Serializable{
 
     /**
      * add latest observation
-     * @param newValue latest observation to add
+     * @param newValue latest observation to add (nulls are stored as NaN)
      */
     public void add(Double newValue)
     {
-        data.addLast(newValue);
+        add(newValue == null ? Double.NaN : newValue.doubleValue());
+    }
+
+    /**
+     * add latest observation without boxing
+     * @param newValue latest observation to add
+     */
+    public void add(double newValue)
+    {
+        if(size == maxSize)
+        {
+            //ring buffer is full: overwrite the oldest
+            data[head] = newValue;
+            head = (head + 1) % data.length;
+            return;
+        }
+        if(size == data.length)
+            grow();
+        data[(head + size) % data.length] = newValue;
+        size++;
+    }
+
+    /**
+     * double the array (never above maxSize), unrolling the ring buffer in the process
+     */
+    private void grow()
+    {
+        int newCapacity = (int) Math.min((long) data.length * 2, maxSize);
+        double[] newData = new double[newCapacity];
+        copyInto(newData);
+        data = newData;
+        head = 0;
+    }
+
+    /**
+     * copy all retained observations, oldest first, into the given array
+     */
+    private void copyInto(double[] destination)
+    {
+        int firstChunk = Math.min(size, data.length - head);
+        System.arraycopy(data, head, destination, 0, firstChunk);
+        if(firstChunk < size)
+            System.arraycopy(data, 0, destination, firstChunk, size - firstChunk);
     }
 
     /**
@@ -65,7 +149,7 @@ public class DataColumn implements Iterable<Double>, Serializable{
      */
     public Double getLatest()
     {
-        return data.isEmpty() ? Double.NaN : data.peekLast();
+        return size == 0 ? Double.NaN : getAsDouble(size - 1);
     }
 
     /**
@@ -76,12 +160,23 @@ public class DataColumn implements Iterable<Double>, Serializable{
      * @throws IndexOutOfBoundsException {@inheritDoc}
      */
     public Double get(int index) {
-        return data.get(index);
+        return getAsDouble(index);
+    }
+
+    /**
+     * like {@link #get(int)} but without boxing
+     * @param index index of the element to return (0 is the oldest retained observation)
+     * @return the element at the specified position
+     */
+    public double getAsDouble(int index) {
+        if(index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        return data[(head + index) % data.length];
     }
 
     public Double getDatumXStepsAgo(int daysAgo)
     {
-        return data.get(data.size()-daysAgo-1);
+        return getAsDouble(size-daysAgo-1);
     }
 
     /**
@@ -90,7 +185,21 @@ public class DataColumn implements Iterable<Double>, Serializable{
      * @return the number of elements in this list
      */
     public int size() {
-        return data.size();
+        return size;
+    }
+
+    /**
+     * @return the maximum number of observations this column retains (Integer.MAX_VALUE when unbounded)
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return true if this column drops its oldest observations once full
+     */
+    public boolean isBounded() {
+        return maxSize != Integer.MAX_VALUE;
     }
 
     /**
@@ -100,69 +209,107 @@ public class DataColumn implements Iterable<Double>, Serializable{
      */
     @Override
     public Iterator<Double> iterator() {
-        return data.iterator();
+        return new Iterator<Double>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Double next() {
+                if(next >= size)
+                    throw new NoSuchElementException();
+                return getAsDouble(next++);
+            }
+        };
     }
 
 
     /**
-     * @since 1.6
+     * iterates from the latest observation backwards
      */
     public Iterator<Double> descendingIterator() {
-        return data.descendingIterator();
+        return new Iterator<Double>() {
+            private int next = size - 1;
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public Double next() {
+                if(next < 0)
+                    throw new NoSuchElementException();
+                return getAsDouble(next--);
+            }
+        };
     }
 
     /**
      */
     @Override
     public void forEach(Consumer<? super Double> action) {
-        data.forEach(action);
+        for(int i=0; i<size; i++)
+            action.accept(getAsDouble(i));
     }
 
     /**
      */
     @Override
     public Spliterator<Double> spliterator() {
-        return data.spliterator();
+        return Spliterators.spliterator(iterator(), size, Spliterator.ORDERED | Spliterator.SIZED);
     }
 
 
     /**
      * Returns a sequential {@code Stream} with this collection as its source.
      *
-     * <p>This method should be overridden when the {@link #spliterator()}
-     * method cannot return a spliterator that is {@code IMMUTABLE},
-     * {@code CONCURRENT}, or <em>late-binding</em>. (See {@link #spliterator()}
-     * for details.)
-     *
-     * @implSpec
-     * The default implementation creates a sequential {@code Stream} from the
-     * collection's {@code Spliterator}.
-     *
      * @return a sequential {@code Stream} over the elements in this collection
      * @since 1.8
      */
     public Stream<Double> stream() {
-        return data.stream();
+        return StreamSupport.stream(spliterator(), false);
     }
 
+    /**
+     * a primitive stream over a snapshot of the observations, oldest first
+     */
+    public DoubleStream doubleStream() {
+        return Arrays.stream(toArray());
+    }
 
+    /**
+     * @return a new array containing all retained observations, oldest first
+     */
+    public double[] toArray(){
+        double[] copy = new double[size];
+        copyInto(copy);
+        return copy;
+    }
 
 
 
     public LinkedList<Double> copy(){
-        return new LinkedList<>(data);
+        LinkedList<Double> copy = new LinkedList<>();
+        forEach(copy::add);
+        return copy;
     }
 
 
     @Override
     public String toString() {
         final StringBuffer sb = new StringBuffer("DataColumn{");
-        sb.append("data=").append(data);
+        sb.append("data=").append(Arrays.toString(toArray()));
         sb.append('}');
         return sb.toString();
     }
 
     public void clear(){
-        data.clear();
+        data = new double[Math.min(INITIAL_CAPACITY, maxSize)];
+        head = 0;
+        size = 0;
     }
 }
@@ -68,10 +68,16 @@ public class FishStateYearlyTimeSeries extends TimeSeries<FishState>
         super.start(state, observed);
 
 
+        //sums the fishers pushed in during the year; only when the model keeps none (i.e. it's a stub)
+        //we go through each fisher or sum up the daily observations instead
+        final FleetAccumulator fleet = observed.getFleetAccumulator();
+
         final String fuel = FisherYearlyTimeSeries.FUEL_CONSUMPTION;
         registerGatherer(fuel, new Gatherer<FishState>() {
             @Override
             public Double apply(FishState state1) {
+                if(fleet != null)
+                    return fleet.getYearlyFuelConsumption();
                 Double sum = 0d;
                 for (Fisher fisher : state1.getFishers())
                     sum += fisher.getYearlyData().getColumn(fuel).getLatest();
@@ -96,9 +102,17 @@ public class FishStateYearlyTimeSeries extends TimeSeries<FishState>
 
             //catches (includes discards)
             final String catchesColumn = species + " " + FisherDailyTimeSeries.CATCHES_COLUMN_NAME;
+            final Gatherer<FishState> summedCatches = FishStateUtilities.generateYearlySum(
+                    originalGatherer.getColumn(catchesColumn));
             registerGatherer(catchesColumn,
-                             FishStateUtilities.generateYearlySum(originalGatherer.getColumn(
-                                     catchesColumn)), 0d);
+                             new Gatherer<FishState>() {
+                                 @Override
+                                 public Double apply(FishState fishState) {
+                                     if(fleet != null)
+                                         return fleet.getYearlyCatches(species);
+                                     return summedCatches.apply(fishState);
+                                 }
+                             }, 0d);
 
 
             //CPUE
@@ -106,6 +120,9 @@ public class FishStateYearlyTimeSeries extends TimeSeries<FishState>
                     new Gatherer<FishState>() {
                         @Override
                         public Double apply(FishState fishState) {
+                            if(fleet != null)
+                                return fleet.getYearlyCatches(species) / fleet.getYearlyEffort();
+
                             final String catches =  catchesColumn;
                             final String effort = "Total Effort";
 
@@ -135,6 +152,9 @@ public class FishStateYearlyTimeSeries extends TimeSeries<FishState>
                     new Gatherer<FishState>() {
                         @Override
                         public Double apply(FishState fishState) {
+                            if(fleet != null)
+                                return fleet.getYearlyCatches(species) / fleet.getYearlyHoursOut();
+
                             final String catches =  catchesColumn;
 
                             DataColumn numerator = originalGatherer.getColumn(catches);
@@ -350,9 +370,16 @@ public class FishStateYearlyTimeSeries extends TimeSeries<FishState>
         }, 0d);
 
 
-        registerGatherer("Total Effort",
-                         FishStateUtilities.generateYearlySum(originalGatherer.getColumn("Total Effort")),
-                         0d);
+        final Gatherer<FishState> summedEffort = FishStateUtilities.generateYearlySum(
+                originalGatherer.getColumn("Total Effort"));
+        registerGatherer("Total Effort", new Gatherer<FishState>() {
+            @Override
+            public Double apply(FishState fishState) {
+                if(fleet != null)
+                    return fleet.getYearlyEffort();
+                return summedEffort.apply(fishState);
+            }
+        }, 0d);
 
 
         registerGatherer("Average Distance From Port", new Gatherer<FishState>() {
@@ -39,14 +39,18 @@ public class FisherDailyCounter extends Counter {
 
     private double[][][] landingsPerBin;
 
+    private final int cashFlowColumn;
+
+    private final int effortColumn;
+
     public FisherDailyCounter(int numberOfSpecies) {
         super(IntervalPolicy.EVERY_DAY);
         landings = new double[numberOfSpecies];
         earnings = new double[numberOfSpecies];
         catches = new double[numberOfSpecies];
         landingsPerBin = new double[numberOfSpecies][][];
-        super.addColumn(FisherYearlyTimeSeries.CASH_FLOW_COLUMN);
-        super.addColumn(FisherYearlyTimeSeries.EFFORT);
+        cashFlowColumn = super.addColumn(FisherYearlyTimeSeries.CASH_FLOW_COLUMN);
+        effortColumn = super.addColumn(FisherYearlyTimeSeries.EFFORT);
     }
 
     @Override
@@ -88,6 +92,20 @@ public class FisherDailyCounter extends Counter {
 
     }
 
+    /**
+     * same as counting the {@link FisherYearlyTimeSeries#CASH_FLOW_COLUMN} column, without looking it up
+     */
+    public void countCashFlow(double add) {
+        count(cashFlowColumn, add);
+    }
+
+    /**
+     * same as counting the {@link FisherYearlyTimeSeries#EFFORT} column, without looking it up
+     */
+    public void countEffort(double add) {
+        count(effortColumn, add);
+    }
+
     public void countEarnings(Species species, double add) {
         earnings[species.getIndex()]+=add;
     }
@@ -20,6 +20,7 @@
 
 package uk.ac.ox.oxfish.model.data.collectors;
 
+import com.google.common.base.Preconditions;
 import sim.engine.SimState;
 import uk.ac.ox.oxfish.biology.Species;
 import uk.ac.ox.oxfish.fisher.Fisher;
@@ -38,11 +39,30 @@ public class FisherDailyTimeSeries extends TimeSeries<Fisher> {
     public static final String CATCHES_COLUMN_NAME = "Catches (kg)";
 
 
+    /**
+     * the yearly time series sums up the last 365 days of daily columns, so we can never forget more recent days
+     * than that
+     */
+    public static final int MINIMUM_RETENTION_WINDOW = 365;
+
+
     public FisherDailyTimeSeries() {
         super(IntervalPolicy.EVERY_DAY);
 
     }
 
+    /**
+     * only keep the last retentionWindow days; older days are only remembered through the yearly aggregates
+     * of {@link FisherYearlyTimeSeries}
+     * @param retentionWindow days to keep (at least a year) or 0 to keep them all
+     */
+    @Override
+    public void setRetentionWindow(int retentionWindow) {
+        Preconditions.checkArgument(retentionWindow == 0 || retentionWindow >= MINIMUM_RETENTION_WINDOW,
+                                    "Fishers need to remember at least " + MINIMUM_RETENTION_WINDOW + " days");
+        super.setRetentionWindow(retentionWindow);
+    }
+
     /**
      * call this to start the observation
      *
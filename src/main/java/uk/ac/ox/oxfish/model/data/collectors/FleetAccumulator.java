@@ -0,0 +1,223 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2017  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+package uk.ac.ox.oxfish.model.data.collectors;
+
+import com.google.common.base.Preconditions;
+import uk.ac.ox.oxfish.biology.GlobalBiology;
+import uk.ac.ox.oxfish.biology.Species;
+import uk.ac.ox.oxfish.fisher.Fisher;
+import uk.ac.ox.oxfish.geography.ports.Port;
+import uk.ac.ox.oxfish.model.FishState;
+import uk.ac.ox.oxfish.model.Startable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Fleet-wide sums that fishers push into as things happen (catches, effort, hours out, fuel, earnings and costs),
+ * so that fleet columns don't need to go through every fisher every day. Each quantity is kept both in a daily
+ * and in a yearly counter; they reset at the same time as the fishers' own counters so that reading them during
+ * data gathering gives the same sums polling the fishers would.
+ * <br>
+ * Sums for a subset of the fleet can be kept by tracking a tag or a port: fishers carrying that tag (or based in
+ * that port) when they push also push into the group. {@link uk.ac.ox.oxfish.model.plugins.FleetGroupCollectors}
+ * turns groups into data columns.
+ */
+public class FleetAccumulator implements Startable {
+
+    private final Counter daily = new Counter(IntervalPolicy.EVERY_DAY);
+
+    private final Counter yearly = new Counter(IntervalPolicy.EVERY_YEAR);
+
+    /**
+     * handles (the same in both counters) of each quantity
+     */
+    private final int[] catchesColumns;
+
+    private final int effortColumn;
+
+    private final int hoursOutColumn;
+
+    private final int fuelColumn;
+
+    private final int earningsColumn;
+
+    private final int variableCostsColumn;
+
+    private final Map<String,FleetAccumulator> tagGroups = new LinkedHashMap<>();
+
+    private final Map<Port,FleetAccumulator> portGroups = new LinkedHashMap<>();
+
+    private final GlobalBiology biology;
+
+    private FishState model;
+
+    public FleetAccumulator(GlobalBiology biology) {
+        this.biology = biology;
+        catchesColumns = new int[biology.getSize()];
+        for(Species species : biology.getSpecies())
+            catchesColumns[species.getIndex()] = addColumn(species + " " + FisherDailyTimeSeries.CATCHES_COLUMN_NAME);
+        effortColumn = addColumn(FisherYearlyTimeSeries.EFFORT);
+        hoursOutColumn = addColumn(FisherYearlyTimeSeries.HOURS_OUT);
+        fuelColumn = addColumn(FisherYearlyTimeSeries.FUEL_CONSUMPTION);
+        earningsColumn = addColumn(FisherYearlyTimeSeries.EARNINGS);
+        variableCostsColumn = addColumn(FisherYearlyTimeSeries.VARIABLE_COSTS);
+    }
+
+    private int addColumn(String columnName){
+        final int handle = daily.addColumn(columnName);
+        Preconditions.checkState(handle == yearly.addColumn(columnName));
+        return handle;
+    }
+
+    @Override
+    public void start(FishState model) {
+        Preconditions.checkState(this.model == null, "Already Started!");
+        this.model = model;
+        daily.start(model);
+        yearly.start(model);
+        for (FleetAccumulator group : tagGroups.values())
+            group.start(model);
+        for (FleetAccumulator group : portGroups.values())
+            group.start(model);
+    }
+
+    @Override
+    public void turnOff() {
+        daily.turnOff();
+        yearly.turnOff();
+        for (FleetAccumulator group : tagGroups.values())
+            group.turnOff();
+        for (FleetAccumulator group : portGroups.values())
+            group.turnOff();
+    }
+
+    /**
+     * the sums of the fishers carrying this tag; the group is created (and started, if need be) the first time
+     * the tag is asked for and only counts what happens from then on
+     */
+    public FleetAccumulator trackTag(String tag){
+        FleetAccumulator group = tagGroups.get(tag);
+        if(group == null) {
+            group = newGroup();
+            tagGroups.put(tag, group);
+        }
+        return group;
+    }
+
+    /**
+     * the sums of the fishers whose home port is this one; like tags, the group only counts what happens
+     * from the moment it is first asked for
+     */
+    public FleetAccumulator trackPort(Port port){
+        FleetAccumulator group = portGroups.get(port);
+        if(group == null) {
+            group = newGroup();
+            portGroups.put(port, group);
+        }
+        return group;
+    }
+
+    private FleetAccumulator newGroup(){
+        FleetAccumulator group = new FleetAccumulator(biology);
+        if(model != null)
+            group.start(model);
+        return group;
+    }
+
+    private void push(Fisher fisher, int column, double amount){
+        if(amount == 0)
+            return;
+        daily.count(column, amount);
+        yearly.count(column, amount);
+        if(!tagGroups.isEmpty())
+            for (Map.Entry<String, FleetAccumulator> group : tagGroups.entrySet())
+                if(fisher.getTags().contains(group.getKey()))
+                    group.getValue().push(fisher, column, amount);
+        if(!portGroups.isEmpty()) {
+            FleetAccumulator group = portGroups.get(fisher.getHomePort());
+            if(group != null)
+                group.push(fisher, column, amount);
+        }
+    }
+
+    /**
+     * pounds caught (discards included)
+     */
+    public void countCatches(Fisher fisher, Species species, double pounds){
+        push(fisher, catchesColumns[species.getIndex()], pounds);
+    }
+
+    public void countEffort(Fisher fisher, double hours){
+        push(fisher, effortColumn, hours);
+    }
+
+    /**
+     * hours spent out of port, counted when the trip ends
+     */
+    public void countHoursOut(Fisher fisher, double hours){
+        push(fisher, hoursOutColumn, hours);
+    }
+
+    public void countFuelConsumption(Fisher fisher, double liters){
+        push(fisher, fuelColumn, liters);
+    }
+
+    /**
+     * earnings and costs of a finished trip
+     */
+    public void countTrip(Fisher fisher, double earnings, double variableCosts){
+        push(fisher, earningsColumn, earnings);
+        push(fisher, variableCostsColumn, variableCosts);
+    }
+
+    public double getDailyCatches(Species species){
+        return daily.getColumn(catchesColumns[species.getIndex()]);
+    }
+
+    public double getYearlyCatches(Species species){
+        return yearly.getColumn(catchesColumns[species.getIndex()]);
+    }
+
+    public double getDailyEffort(){
+        return daily.getColumn(effortColumn);
+    }
+
+    public double getYearlyEffort(){
+        return yearly.getColumn(effortColumn);
+    }
+
+    public double getYearlyHoursOut(){
+        return yearly.getColumn(hoursOutColumn);
+    }
+
+    public double getYearlyFuelConsumption(){
+        return yearly.getColumn(fuelColumn);
+    }
+
+    public double getYearlyEarnings(){
+        return yearly.getColumn(earningsColumn);
+    }
+
+    public double getYearlyVariableCosts(){
+        return yearly.getColumn(variableCostsColumn);
+    }
+
+}
@@ -48,6 +48,11 @@ public class TimeSeries<T> implements Steppable
 
     private T observed;
 
+    /**
+     * when positive each column only keeps the latest retentionWindow observations
+     */
+    private int retentionWindow = 0;
+
     /**
      * Create a new data column
      * @param title the title of the column
@@ -59,7 +64,7 @@ public class TimeSeries<T> implements Steppable
     {
         Preconditions.checkArgument(!data.containsKey(title), "Column already exists: " + title);
         int size =noGatherers() ? 0 : numberOfObservations();
-        DataColumn column = new DataColumn(title);
+        DataColumn column = retentionWindow > 0 ? new DataColumn(title, retentionWindow) : new DataColumn(title);
         //fill if needed
         for(int i=0; i<size; i++)
             column.add(defaultValue);
@@ -186,6 +191,21 @@ public class TimeSeries<T> implements Steppable
         return columns;
     }
 
+    public int getRetentionWindow() {
+        return retentionWindow;
+    }
+
+    /**
+     * bounds how many observations each column keeps; older observations are dropped so memory stays flat
+     * no matter how long the simulation runs. Must be set before any gatherer is registered
+     * @param retentionWindow number of observations to keep per column, 0 to keep them all
+     */
+    public void setRetentionWindow(int retentionWindow) {
+        Preconditions.checkArgument(retentionWindow >= 0, "Retention window can't be negative");
+        Preconditions.checkState(noGatherers(), "Retention window must be set before registering gatherers");
+        this.retentionWindow = retentionWindow;
+    }
+
     public IntervalPolicy getPolicy() {
         return policy;
     }
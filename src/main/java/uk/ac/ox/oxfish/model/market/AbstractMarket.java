@@ -46,6 +46,13 @@ public abstract class AbstractMarket implements Market {
 
     private final Counter dailyCounter;
 
+    /**
+     * handles of the counter columns updated at every sale
+     */
+    private int earningsColumn = -1;
+
+    private int landingsColumn = -1;
+
 
     private final TimeSeries<Market> dailyObservations = new TimeSeries<>(IntervalPolicy.EVERY_DAY);
 
@@ -84,8 +91,8 @@ public abstract class AbstractMarket implements Market {
 
         //start the counter
         dailyCounter.start(state);
-        dailyCounter.addColumn(EARNINGS_COLUMN_NAME);
-        dailyCounter.addColumn(LANDINGS_COLUMN_NAME);
+        earningsColumn = dailyCounter.addColumn(EARNINGS_COLUMN_NAME);
+        landingsColumn = dailyCounter.addColumn(LANDINGS_COLUMN_NAME);
         dailyCounter.addColumn(PRICE_COLUMN_NAME);
 
         //start the data-set where we are going to store the history of the counter
@@ -94,7 +101,7 @@ public abstract class AbstractMarket implements Market {
         dailyObservations.registerGatherer(EARNINGS_COLUMN_NAME, new Gatherer<Market>() {
                                                @Override
                                                public Double apply(Market market) {
-                                                   return dailyCounter.getColumn(EARNINGS_COLUMN_NAME);
+                                                   return dailyCounter.getColumn(earningsColumn);
                                                }
                                            },
                                            Double.NaN);
@@ -102,7 +109,7 @@ public abstract class AbstractMarket implements Market {
         dailyObservations.registerGatherer(LANDINGS_COLUMN_NAME, new Gatherer<Market>() {
                                                @Override
                                                public Double apply(Market market) {
-                                                   return dailyCounter.getColumn(LANDINGS_COLUMN_NAME);
+                                                   return dailyCounter.getColumn(landingsColumn);
                                                }
                                            },
                                            Double.NaN);
@@ -151,8 +158,8 @@ public abstract class AbstractMarket implements Market {
     {
         if(Log.TRACE && info.getBiomassTraded() >  0)
             Log.trace("recorded the following trade: " + info);
-        dailyCounter.count(EARNINGS_COLUMN_NAME,info.getMoneyExchanged());
-        dailyCounter.count(LANDINGS_COLUMN_NAME, info.getBiomassTraded());
+        dailyCounter.count(earningsColumn,info.getMoneyExchanged());
+        dailyCounter.count(landingsColumn, info.getBiomassTraded());
 
 
 
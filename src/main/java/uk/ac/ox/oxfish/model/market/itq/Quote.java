@@ -23,6 +23,8 @@ package uk.ac.ox.oxfish.model.market.itq;
 import com.google.common.base.Preconditions;
 import uk.ac.ox.oxfish.fisher.Fisher;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * The promise to buy or sell at a specified price
  * Created by carrknight on 8/20/15.
@@ -35,16 +37,19 @@ public class Quote implements Comparable<Quote>{
 
     final private Fisher trader;
 
-    private static int counter = 0;
+    /**
+     * breaks price ties by creation order; atomic because quotes can be created by models running in parallel
+     */
+    private static final AtomicLong counter = new AtomicLong();
 
-    final private int splitter;
+    final private long splitter;
 
 
     public Quote(double price, Fisher trader) {
         Preconditions.checkArgument(price >=0);
         this.price = price;
         this.trader = trader;
-        splitter = counter++;
+        splitter = counter.getAndIncrement();
 
     }
 
@@ -55,7 +60,7 @@ public class Quote implements Comparable<Quote>{
     public int compareTo(Quote o) {
         int compare = Double.compare(this.price, o.price);
         return compare == 0 ?
-                Integer.compare(this.splitter, o.splitter) : compare;
+                Long.compare(this.splitter, o.splitter) : compare;
     }
 
     public double getPrice() {
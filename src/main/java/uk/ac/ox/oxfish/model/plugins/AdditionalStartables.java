@@ -51,6 +51,9 @@ public class AdditionalStartables {
         NAMES.put(AdditionalFishStateDailyCollectorsFactory.class, "Additional Daily Collectors");
         NAMES.put(CatchAtBinFactory.class, "Catch at bin Collectors");
         NAMES.put(HerfindalndexCollectorFactory.class, "Herfindal Index");
+        NAMES.put(PortRoutesPluginFactory.class, "Port Routes Precomputation");
+        NAMES.put(FleetGroupCollectorsFactory.class, "Fleet Group Collectors");
+        NAMES.put(ParallelFishersFactory.class, "Parallel Fishers");
 
 
         NAMES.put(ISlopeTACController.class, "ISlope-TAC Controller");
@@ -0,0 +1,119 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2017  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+
+package uk.ac.ox.oxfish.model.plugins;
+
+import com.google.common.base.Preconditions;
+import uk.ac.ox.oxfish.biology.Species;
+import uk.ac.ox.oxfish.geography.ports.Port;
+import uk.ac.ox.oxfish.model.AdditionalStartable;
+import uk.ac.ox.oxfish.model.FishState;
+import uk.ac.ox.oxfish.model.data.collectors.FisherDailyTimeSeries;
+import uk.ac.ox.oxfish.model.data.collectors.FisherYearlyTimeSeries;
+import uk.ac.ox.oxfish.model.data.collectors.FleetAccumulator;
+
+import java.util.List;
+
+/**
+ * data columns for parts of the fleet: for each tag (and, optionally, each port) the fleet sums of catches, effort,
+ * hours out, fuel, earnings and costs are kept as fishers push into them, so that the columns are as cheap
+ * as the fleet-wide ones. Columns are named like the fleet-wide ones, followed by " of " and the tag or port name.
+ */
+public class FleetGroupCollectors implements AdditionalStartable {
+
+
+    private final List<String> tags;
+
+    private final boolean byPort;
+
+    public FleetGroupCollectors(List<String> tags, boolean byPort) {
+        this.tags = tags;
+        this.byPort = byPort;
+    }
+
+    /**
+     * this gets called by the fish-state right after the scenario has started. It's useful to set up steppables
+     * or just to percolate a reference to the model
+     *
+     * @param model the model
+     */
+    @Override
+    public void start(FishState model) {
+
+        final FleetAccumulator fleet = model.getFleetAccumulator();
+        Preconditions.checkState(fleet != null, "the model keeps no fleet sums");
+
+        for (String tag : tags)
+            registerColumns(model, tag, fleet.trackTag(tag));
+        if(byPort)
+            for (Port port : model.getPorts())
+                registerColumns(model, port.getName(), fleet.trackPort(port));
+
+    }
+
+    private static void registerColumns(FishState model, String groupName, FleetAccumulator group){
+
+        final String suffix = " of " + groupName;
+        if(model.getYearlyDataSet().getColumn("Total Effort" + suffix) != null)
+            return;
+
+        for (Species species : model.getSpecies()) {
+            final String catches = species + " " + FisherDailyTimeSeries.CATCHES_COLUMN_NAME + suffix;
+            model.getDailyDataSet().registerGatherer(catches,
+                                                     state -> group.getDailyCatches(species), 0d);
+            model.getYearlyDataSet().registerGatherer(catches,
+                                                      state -> group.getYearlyCatches(species), 0d);
+            model.getYearlyDataSet().registerGatherer(species + " CPUE" + suffix,
+                                                      state -> group.getYearlyCatches(species) /
+                                                              group.getYearlyEffort(),
+                                                      Double.NaN);
+        }
+
+        model.getDailyDataSet().registerGatherer("Total Effort" + suffix,
+                                                 state -> group.getDailyEffort(), 0d);
+        model.getYearlyDataSet().registerGatherer("Total Effort" + suffix,
+                                                  state -> group.getYearlyEffort(), 0d);
+        model.getYearlyDataSet().registerGatherer("Total Hours Out" + suffix,
+                                                  state -> group.getYearlyHoursOut(), 0d);
+        model.getYearlyDataSet().registerGatherer(FisherYearlyTimeSeries.FUEL_CONSUMPTION + suffix,
+                                                  state -> group.getYearlyFuelConsumption(), Double.NaN);
+        model.getYearlyDataSet().registerGatherer("Total Earnings" + suffix,
+                                                  state -> group.getYearlyEarnings(), 0d);
+        model.getYearlyDataSet().registerGatherer("Total Variable Costs" + suffix,
+                                                  state -> group.getYearlyVariableCosts(), 0d);
+
+    }
+
+    /**
+     * tell the startable to turnoff,
+     */
+    @Override
+    public void turnOff() {
+
+    }
+
+    public List<String> getTags() {
+        return tags;
+    }
+
+    public boolean isByPort() {
+        return byPort;
+    }
+}
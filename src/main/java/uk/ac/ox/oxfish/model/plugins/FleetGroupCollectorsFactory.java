@@ -0,0 +1,93 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2017  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+
+package uk.ac.ox.oxfish.model.plugins;
+
+import uk.ac.ox.oxfish.model.FishState;
+import uk.ac.ox.oxfish.utility.AlgorithmFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class FleetGroupCollectorsFactory implements AlgorithmFactory<FleetGroupCollectors> {
+
+
+    /**
+     * comma separated fisher tags (populations, for example) to keep fleet sums for
+     */
+    private String tags = "";
+
+    /**
+     * when true each port also gets the fleet sums of the fishers based there
+     */
+    private boolean byPort = true;
+
+
+    /**
+     * Applies this function to the given argument.
+     *
+     * @param state the function argument
+     * @return the function result
+     */
+    @Override
+    public FleetGroupCollectors apply(FishState state) {
+        List<String> tagList = new ArrayList<>();
+        for (String tag : tags.split(","))
+            if(!tag.trim().isEmpty())
+                tagList.add(tag.trim());
+        return new FleetGroupCollectors(tagList, byPort);
+    }
+
+    /**
+     * Getter for property 'tags'.
+     *
+     * @return Value for property 'tags'.
+     */
+    public String getTags() {
+        return tags;
+    }
+
+    /**
+     * Setter for property 'tags'.
+     *
+     * @param tags Value to set for property 'tags'.
+     */
+    public void setTags(String tags) {
+        this.tags = tags;
+    }
+
+    /**
+     * Getter for property 'byPort'.
+     *
+     * @return Value for property 'byPort'.
+     */
+    public boolean isByPort() {
+        return byPort;
+    }
+
+    /**
+     * Setter for property 'byPort'.
+     *
+     * @param byPort Value to set for property 'byPort'.
+     */
+    public void setByPort(boolean byPort) {
+        this.byPort = byPort;
+    }
+}
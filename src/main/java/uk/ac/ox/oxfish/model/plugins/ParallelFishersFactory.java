@@ -0,0 +1,95 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2017  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+
+package uk.ac.ox.oxfish.model.plugins;
+
+import uk.ac.ox.oxfish.model.AdditionalStartable;
+import uk.ac.ox.oxfish.model.BatchedFishing;
+import uk.ac.ox.oxfish.model.FishState;
+import uk.ac.ox.oxfish.utility.AlgorithmFactory;
+
+/**
+ * Lets a scenario step its fishers with a {@link uk.ac.ox.oxfish.model.ParallelFisherPhase} and, optionally, batch
+ * their fishing. Plugins are built while the scenario populates the model, before the fishers start, which is the
+ * last moment this can be set; there is nothing left to do once started.
+ */
+public class ParallelFishersFactory implements AlgorithmFactory<AdditionalStartable> {
+
+
+    /**
+     * number of threads stepping the fishers; 0 keeps the classic single-threaded fisher phase
+     */
+    private int threads = 4;
+
+    /**
+     * how tiles fished by more than one fisher in the same step are split; null to fish immediately
+     */
+    private BatchedFishing.ConflictRule batchedFishingRule = null;
+
+
+    /**
+     * Applies this function to the given argument.
+     *
+     * @param state the function argument
+     * @return the function result
+     */
+    @Override
+    public AdditionalStartable apply(FishState state) {
+        state.setParallelFisherThreads(threads);
+        state.setBatchedFishingRule(batchedFishingRule);
+        return model -> { };
+    }
+
+    /**
+     * Getter for property 'threads'.
+     *
+     * @return Value for property 'threads'.
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Setter for property 'threads'.
+     *
+     * @param threads Value to set for property 'threads'.
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * Getter for property 'batchedFishingRule'.
+     *
+     * @return Value for property 'batchedFishingRule'.
+     */
+    public BatchedFishing.ConflictRule getBatchedFishingRule() {
+        return batchedFishingRule;
+    }
+
+    /**
+     * Setter for property 'batchedFishingRule'.
+     *
+     * @param batchedFishingRule Value to set for property 'batchedFishingRule'.
+     */
+    public void setBatchedFishingRule(BatchedFishing.ConflictRule batchedFishingRule) {
+        this.batchedFishingRule = batchedFishingRule;
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2019  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+
+package uk.ac.ox.oxfish.model.plugins;
+
+import uk.ac.ox.oxfish.model.AdditionalStartable;
+import uk.ac.ox.oxfish.model.FishState;
+
+import java.nio.file.Path;
+
+/**
+ * Precomputes all routes from and to ports when the model starts (see NauticalMap#precomputePortRoutes)
+ */
+public class PortRoutesPlugin implements AdditionalStartable {
+
+
+    /**
+     * where to cache the routes between runs; null means the routes are recomputed every time
+     */
+    private final Path cacheDirectory;
+
+
+    public PortRoutesPlugin(Path cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    /**
+     * this gets called by the fish-state right after the scenario has started. It's useful to set up steppables
+     * or just to percolate a reference to the model
+     *
+     * @param model the model
+     */
+    @Override
+    public void start(FishState model) {
+        model.getMap().precomputePortRoutes(cacheDirectory);
+    }
+
+    /**
+     * tell the startable to turnoff,
+     */
+    @Override
+    public void turnOff() {
+
+    }
+}
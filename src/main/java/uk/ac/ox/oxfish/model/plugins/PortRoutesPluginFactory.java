@@ -0,0 +1,67 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2019  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+
+package uk.ac.ox.oxfish.model.plugins;
+
+import uk.ac.ox.oxfish.model.FishState;
+import uk.ac.ox.oxfish.utility.AlgorithmFactory;
+
+import java.nio.file.Paths;
+
+public class PortRoutesPluginFactory implements AlgorithmFactory<PortRoutesPlugin> {
+
+
+    /**
+     * folder where precomputed routes are stored between runs; leave empty to never store them
+     */
+    private String cacheDirectory = "";
+
+
+    /**
+     * Applies this function to the given argument.
+     *
+     * @param state the function argument
+     * @return the function result
+     */
+    @Override
+    public PortRoutesPlugin apply(FishState state) {
+        return new PortRoutesPlugin(
+                cacheDirectory == null || cacheDirectory.trim().isEmpty() ? null : Paths.get(cacheDirectory)
+        );
+    }
+
+    /**
+     * Getter for property 'cacheDirectory'.
+     *
+     * @return Value for property 'cacheDirectory'.
+     */
+    public String getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    /**
+     * Setter for property 'cacheDirectory'.
+     *
+     * @param cacheDirectory Value to set for property 'cacheDirectory'.
+     */
+    public void setCacheDirectory(String cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+}
@@ -18,8 +18,7 @@ abstract public class SpecificProtectedAreaFactory implements AlgorithmFactory<S
         ImmutableSet<MasonGeometry> geometries = buildGeometries(fishState);
         fishState.registerStartable(model -> {
             final NauticalMap map = model.getMap();
-            geometries.forEach(map.getMpaVectorField()::addGeometry);
-            map.recomputeTilesMPA(); // this destroys MPAs created through StartingMPA::buildMPA
+            geometries.forEach(map::addMPA);
         });
         return new SpecificProtectedArea(geometries);
     }
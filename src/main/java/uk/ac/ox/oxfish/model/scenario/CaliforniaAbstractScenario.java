@@ -64,7 +64,7 @@ import uk.ac.ox.oxfish.geography.NauticalMap;
 import uk.ac.ox.oxfish.geography.SeaTile;
 import uk.ac.ox.oxfish.geography.discretization.CentroidMapFileFactory;
 import uk.ac.ox.oxfish.geography.habitat.TileHabitat;
-import uk.ac.ox.oxfish.geography.pathfinding.AStarPathfinder;
+import uk.ac.ox.oxfish.geography.pathfinding.IndexedAStarPathfinder;
 import uk.ac.ox.oxfish.geography.ports.Port;
 import uk.ac.ox.oxfish.geography.sampling.SampledMap;
 import uk.ac.ox.oxfish.model.FishState;
@@ -426,7 +426,7 @@ public abstract class CaliforniaAbstractScenario implements Scenario {
             CartesianUTMDistance distance = new CartesianUTMDistance();
             map = new NauticalMap(unitedMap, new GeomVectorField(),
                                   distance,
-                                  new AStarPathfinder(distance));
+                                  new IndexedAStarPathfinder(distance));
             //for all species, find the total observations you get
 
 
@@ -200,6 +200,7 @@ public class TunaScenario implements Scenario {
     private Path costsFile = input("costs.csv");
     private int targetYear = 2017;
     private boolean fadMortalityIncludedInExogenousCatches = true;
+    private boolean prefetchingCurrents = false;
     private final BiomassDrivenTimeSeriesExogenousCatchesFactory exogenousCatchesFactory =
         new BiomassDrivenTimeSeriesExogenousCatchesFactory(
             input("exogenous_catches.csv"),
@@ -432,7 +433,7 @@ public class TunaScenario implements Scenario {
 
         System.out.println("populating model");
 
-        final FadMap fadMap = (new FadMapFactory()).apply(model);
+        final FadMap fadMap = (new FadMapFactory(prefetchingCurrents)).apply(model);
         model.setFadMap(fadMap);
         model.registerStartable(fadMap);
 
@@ -687,6 +688,15 @@ public class TunaScenario implements Scenario {
         this.fadMortalityIncludedInExogenousCatches = fadMortalityIncludedInExogenousCatches;
     }
 
+    @SuppressWarnings("unused") public boolean isPrefetchingCurrents() { return prefetchingCurrents; }
+
+    /**
+     * When true, the currents of the next step are built on a background thread while FADs drift.
+     */
+    @SuppressWarnings("unused") public void setPrefetchingCurrents(boolean prefetchingCurrents) {
+        this.prefetchingCurrents = prefetchingCurrents;
+    }
+
     private static class Monitors {
 
         private final RegionalDivision regionalDivision;
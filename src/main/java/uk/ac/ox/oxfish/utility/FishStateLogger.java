@@ -23,6 +23,7 @@ package uk.ac.ox.oxfish.utility;
 import com.esotericsoftware.minlog.Log;
 import uk.ac.ox.oxfish.model.FishState;
 
+import java.io.Closeable;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.file.Path;
@@ -31,7 +32,7 @@ import java.nio.file.Path;
  * Just a logger formatter that prints out as date the model date rather than the clock time
  * Created by carrknight on 6/30/15.
  */
-public class FishStateLogger extends Log.Logger{
+public class FishStateLogger extends Log.Logger implements Closeable {
 
     private FileWriter writer;
 
@@ -71,5 +72,13 @@ public class FishStateLogger extends Log.Logger{
         }
     }
 
-
+    /**
+     * closes the file, if anything was ever written to it
+     */
+    @Override
+    public void close() throws IOException {
+        if(writer!=null)
+            writer.close();
+        writer = null;
+    }
 }
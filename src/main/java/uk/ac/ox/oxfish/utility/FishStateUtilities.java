@@ -22,6 +22,9 @@ package uk.ac.ox.oxfish.utility;
 import com.esotericsoftware.minlog.Log;
 import com.google.common.base.Preconditions;
 import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.io.HierarchicalStreamReader;
+import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
+import com.thoughtworks.xstream.io.binary.BinaryStreamDriver;
 import com.thoughtworks.xstream.io.xml.StaxDriver;
 import ec.util.MersenneTwisterFast;
 import org.jetbrains.annotations.Nullable;
@@ -49,10 +52,16 @@ import uk.ac.ox.oxfish.utility.yaml.FishYAML;
 import uk.ac.ox.oxfish.utility.yaml.ModelResults;
 
 import java.awt.geom.Point2D;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
 import java.lang.reflect.Array;
 import java.net.*;
@@ -66,6 +75,8 @@ import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Just a collector of all the utilities function i need
@@ -819,14 +830,23 @@ public class FishStateUtilities {
     }
 
 
+    /**
+     * reads a checkpoint written by {@link #writeModelToFile(File, FishState)}. Old XML checkpoints are still
+     * readable: they are recognized because they are not compressed
+     * @return the model or null if reading failed
+     */
     public static FishState readModelFromFile(File file)
     {
         Log.info("Reading from File");
-        XStream xstream = new XStream(new StaxDriver());
-        String xml = null;
-        try {
-            xml = new String(Files.readAllBytes(file.toPath()));
-            return  (FishState) xstream.fromXML(xml);
+        try (InputStream input = new BufferedInputStream(new FileInputStream(file), CHECKPOINT_BUFFER_SIZE)) {
+            input.mark(2);
+            final boolean compressed = input.read() == (GZIPInputStream.GZIP_MAGIC & 0xff) &&
+                    input.read() == (GZIPInputStream.GZIP_MAGIC >> 8);
+            input.reset();
+            if(compressed)
+                return readModel(input);
+            else
+                return (FishState) new XStream(new StaxDriver()).unmarshal(new StaxDriver().createReader(input));
         } catch (IOException e) {
             e.printStackTrace();
             Log.error("Failed to read file " + file);
@@ -835,14 +855,16 @@ public class FishStateUtilities {
     }
 
 
+    /**
+     * writes the whole model as a compressed binary checkpoint. The model is streamed to file so that, unlike the
+     * old XML checkpoints, it is never held in memory as one big string
+     */
     public static void writeModelToFile(File file, FishState state)
     {
-        XStream xstream = new XStream(new StaxDriver());
         Log.info("Writing to file!");
-        String xml = xstream.toXML(state);
 
-        try {
-            Files.write(file.toPath(),xml.getBytes());
+        try (OutputStream output = new FileOutputStream(file)) {
+            writeModel(output, state);
             Log.info("State saved at " + file);
         } catch (IOException e) {
             e.printStackTrace();
@@ -850,6 +872,31 @@ public class FishStateUtilities {
         }
     }
 
+    private static final int CHECKPOINT_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * writes the model as a gzipped XStream binary stream (tokens rather than XML text) to the output stream,
+     * which is not closed
+     */
+    public static void writeModel(OutputStream output, FishState state) throws IOException {
+        GZIPOutputStream compressed = new GZIPOutputStream(output, CHECKPOINT_BUFFER_SIZE);
+        BinaryStreamDriver driver = new BinaryStreamDriver();
+        HierarchicalStreamWriter writer = driver.createWriter(new BufferedOutputStream(compressed, CHECKPOINT_BUFFER_SIZE));
+        new XStream(driver).marshal(state, writer);
+        writer.flush();
+        compressed.finish();
+    }
+
+    /**
+     * reads a model written by {@link #writeModel(OutputStream, FishState)}
+     */
+    public static FishState readModel(InputStream input) throws IOException {
+        BinaryStreamDriver driver = new BinaryStreamDriver();
+        HierarchicalStreamReader reader = driver.createReader(
+                new BufferedInputStream(new GZIPInputStream(input, CHECKPOINT_BUFFER_SIZE), CHECKPOINT_BUFFER_SIZE));
+        return (FishState) new XStream(driver).unmarshal(reader);
+    }
+
 
 
     public static void deleteRecursively(File f) throws IOException
@@ -976,6 +1023,7 @@ public class FishStateUtilities {
 
 
 
+    @SafeVarargs
     public static FishState  run(
             String simulationName, Path scenarioYaml,
             @Nullable final Path outputFolder,
@@ -1012,94 +1060,97 @@ public class FishStateUtilities {
         FishState model = new FishState(seed);
 
         if(outputFolder!=null)
-        {
-            Log.setLogger(new FishStateLogger(model,
-                    outputFolder.resolve(simulationName+ "_log.txt")));
-            Log.set(logLevel);
-        }
-
+            ThreadLocalLogger.attach(new FishStateLogger(model,
+                    outputFolder.resolve(simulationName+ "_log.txt")), logLevel);
+        try {
 
-        model.setScenario(scenario);
+            model.setScenario(scenario);
 
-        TowHeatmapGatherer gatherer;
-        if(heatmapGathererYear != null && heatmapGathererYear >=0)
-        {
-            gatherer = new TowHeatmapGatherer(heatmapGathererYear);
-            model.registerStartable(gatherer);
-        }
-        else
-            gatherer=null;
+            TowHeatmapGatherer gatherer;
+            if(heatmapGathererYear != null && heatmapGathererYear >=0)
+            {
+                gatherer = new TowHeatmapGatherer(heatmapGathererYear);
+                model.registerStartable(gatherer);
+            }
+            else
+                gatherer=null;
 
-        if(preStartSetup!=null)
-            preStartSetup.accept(model);
-        model.start();
+            if(preStartSetup!=null)
+                preStartSetup.accept(model);
+            model.start();
 
-        if(additionalData) {
-            Log.info("adding additional data");
-            model.attachAdditionalGatherers();
-        }
+            if(additionalData) {
+                Log.info("adding additional data");
+                model.attachAdditionalGatherers();
+            }
 
-        //if you have a policy script, then follow it
-        if(policyScript != null && !policyScript.isEmpty())
-        {
-            String policyScriptString = new String(Files.readAllBytes(Paths.get(policyScript)));
-            PolicyScripts scripts = yaml.loadAs(policyScriptString, PolicyScripts.class);
-            model.registerStartable(scripts);
-            Files.write(outputFolder.resolve("policy_script.yaml"),
-                        yaml.dump(scripts.getScripts()).getBytes());
-        }
+            //if you have a policy script, then follow it
+            if(policyScript != null && !policyScript.isEmpty())
+            {
+                String policyScriptString = new String(Files.readAllBytes(Paths.get(policyScript)));
+                PolicyScripts scripts = yaml.loadAs(policyScriptString, PolicyScripts.class);
+                model.registerStartable(scripts);
+                Files.write(outputFolder.resolve("policy_script.yaml"),
+                            yaml.dump(scripts.getScripts()).getBytes());
+            }
 
-   //     System.out.println("random " + model.random.nextDouble());
+       //     System.out.println("random " + model.random.nextDouble());
 
-        mainloop:
-        while(model.getYear()< yearsToRun) {
-            model.schedule.step(model);
- //           System.out.println("random_day" + model.getDay() +"  ---- " + model.random.nextDouble());
+            mainloop:
+            while(model.getYear()< yearsToRun) {
+                model.schedule.step(model);
+     //           System.out.println("random_day" + model.getDay() +"  ---- " + model.random.nextDouble());
 
-            if(model.getDayOfTheYear()==1)
-            {
+                if(model.getDayOfTheYear()==1)
+                {
 
-                //if you fail any of the 
-                for (Predicate<FishState> circuitBreaker : circuitBreakers) {
-                    if(circuitBreaker.test(model))
-                        break mainloop;
+                    //if you fail any of the 
+                    for (Predicate<FishState> circuitBreaker : circuitBreakers) {
+                        if(circuitBreaker.test(model))
+                            break mainloop;
+                    }
+                    if(Log.DEBUG)
+                        Log.debug("Year " + model.getYear() + " starting");
                 }
-                if(Log.DEBUG)
-                    Log.debug("Year " + model.getYear() + " starting");
-            }
 
 
 
 
-        }
-
-        if(outputFolder!=null) {
+            }
 
-            FileWriter writer = new FileWriter(outputFolder.resolve("result.yaml").toFile());
-            ModelResults results = new ModelResults(model);
-            yaml.dump(results, writer);
+            if(outputFolder!=null) {
 
-            writer = new FileWriter(outputFolder.resolve("seed.txt").toFile());
-            writer.write(Long.toString(seed));
-            writer.close();
+                FileWriter writer = new FileWriter(outputFolder.resolve("result.yaml").toFile());
+                ModelResults results = new ModelResults(model);
+                yaml.dump(results, writer);
 
-            if(gatherer != null)
-            {
-                writer = new FileWriter(outputFolder.resolve("tow_heatmap.txt").toFile());
-                writer.write(FishStateUtilities.gridToCSV(gatherer.getTowHeatmap()));
+                writer = new FileWriter(outputFolder.resolve("seed.txt").toFile());
+                writer.write(Long.toString(seed));
                 writer.close();
 
+                if(gatherer != null)
+                {
+                    writer = new FileWriter(outputFolder.resolve("tow_heatmap.txt").toFile());
+                    writer.write(FishStateUtilities.gridToCSV(gatherer.getTowHeatmap()));
+                    writer.close();
+
+                }
+                writeAdditionalOutputsToFolder(outputFolder, model);
+                if(saveOnExit)
+                    writeModelToFile(
+                            outputFolder.resolve(simulationName+".checkpoint").toFile(),
+                            model);
             }
-            writeAdditionalOutputsToFolder(outputFolder, model);
-            if(saveOnExit)
-                writeModelToFile(
-                        outputFolder.resolve(simulationName+".checkpoint").toFile(),
-                        model);
-        }
 
 
 
-        return model;
+            return model;
+        }
+        finally {
+            //pooled threads would otherwise keep writing to this run's log
+            if(outputFolder!=null)
+                ThreadLocalLogger.detach();
+        }
     }
 
     public static void writeAdditionalOutputsToFolder(Path outputFolder, FishState model) throws IOException {
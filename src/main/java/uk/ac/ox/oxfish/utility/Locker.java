@@ -45,7 +45,7 @@ public class Locker<K,I>
      * @param constructor used to create item if the key has changed
      * @return old item if the key is unchanged, new item otherwise
      */
-    public I presentKey(K key, Supplier<I> constructor){
+    public synchronized I presentKey(K key, Supplier<I> constructor){
         if(this.key!= null && key.equals(this.key))
         {
             assert itemHeld != null;
@@ -63,7 +63,7 @@ public class Locker<K,I>
     /**
      * returns the current Key
      */
-    public K getCurrentKey() {
+    public synchronized K getCurrentKey() {
         return key;
     }
 
@@ -0,0 +1,133 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2017  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+
+package uk.ac.ox.oxfish.utility;
+
+import com.esotericsoftware.minlog.Log;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Minlog has only one, global, logger. When more than one model runs in the same JVM (batch runs in parallel) this
+ * logger dispatches each message to the logger attached by the thread that is logging, so that each run writes
+ * to its own log file. Threads that never attached a logger use the default minlog one. <p>
+ * Minlog's level is global too and it's checked before any logger is called, so it is kept at the most verbose level
+ * any attached thread asked for and each thread's messages are then filtered against its own level.
+ */
+public class ThreadLocalLogger extends Log.Logger {
+
+    private final static ThreadLocalLogger INSTANCE = new ThreadLocalLogger();
+
+    private final static Log.Logger DEFAULT = new Log.Logger();
+
+    private final ThreadLocal<Log.Logger> delegate = ThreadLocal.withInitial(() -> DEFAULT);
+
+    /**
+     * the level of the current thread, null if it never attached a logger
+     */
+    private final ThreadLocal<Integer> threadLevel = new ThreadLocal<>();
+
+    /**
+     * levels of all the threads currently attached
+     */
+    private final Map<Thread, Integer> attachedLevels = new HashMap<>();
+
+    /**
+     * the minlog level before the first thread attached; used by threads that never attached and restored once
+     * every thread has detached
+     */
+    private volatile int defaultLevel = Log.LEVEL_INFO;
+
+    private ThreadLocalLogger() {
+    }
+
+    /**
+     * sets the logger and the log level for the current thread only (and makes sure minlog goes through this
+     * dispatcher). Call {@link #detach()} from the same thread when done
+     * @param logger the logger this thread should use
+     * @param level the minlog level (Log.LEVEL_...) this thread should log at
+     */
+    public static void attach(Log.Logger logger, int level) {
+        synchronized (INSTANCE) {
+            if (INSTANCE.attachedLevels.isEmpty())
+                INSTANCE.defaultLevel = currentLevel();
+            Log.setLogger(INSTANCE);
+            INSTANCE.delegate.set(logger);
+            INSTANCE.threadLevel.set(level);
+            INSTANCE.attachedLevels.put(Thread.currentThread(), level);
+            INSTANCE.updateGlobalLevel();
+        }
+    }
+
+    /**
+     * goes back to the default logger and level for the current thread, closing the logger it had attached if it
+     * is closeable
+     */
+    public static void detach() {
+        final Log.Logger logger = INSTANCE.delegate.get();
+        synchronized (INSTANCE) {
+            INSTANCE.delegate.remove();
+            INSTANCE.threadLevel.remove();
+            INSTANCE.attachedLevels.remove(Thread.currentThread());
+            INSTANCE.updateGlobalLevel();
+        }
+        if (logger instanceof Closeable)
+            try {
+                ((Closeable) logger).close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+    }
+
+    /**
+     * minlog is set to the most verbose level needed by anybody (the lowest number)
+     */
+    private void updateGlobalLevel() {
+        int level = defaultLevel;
+        for (Integer attached : attachedLevels.values())
+            level = Math.min(level, attached);
+        Log.set(level);
+    }
+
+    private static int currentLevel() {
+        if (Log.TRACE)
+            return Log.LEVEL_TRACE;
+        if (Log.DEBUG)
+            return Log.LEVEL_DEBUG;
+        if (Log.INFO)
+            return Log.LEVEL_INFO;
+        if (Log.WARN)
+            return Log.LEVEL_WARN;
+        if (Log.ERROR)
+            return Log.LEVEL_ERROR;
+        return Log.LEVEL_NONE;
+    }
+
+    @Override
+    public void log(int level, String category, String message, Throwable ex) {
+        final Integer ownLevel = threadLevel.get();
+        if (level < (ownLevel == null ? defaultLevel : ownLevel))
+            return;
+        delegate.get().log(level, category, message, ex);
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2017  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+package uk.ac.ox.oxfish.biology;
+
+import ec.util.MersenneTwisterFast;
+import org.junit.Test;
+import uk.ac.ox.oxfish.geography.NauticalMap;
+import uk.ac.ox.oxfish.geography.SeaTile;
+import uk.ac.ox.oxfish.utility.Pair;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static uk.ac.ox.oxfish.geography.TestUtilities.makeMap;
+
+public class BiomassDiffuserContainerTest {
+
+
+    @Test
+    public void parallelMovesLikeTheSmoothRule() throws Exception {
+
+        Species species = new Species("only");
+        GlobalBiology biology = new GlobalBiology(species);
+        NauticalMap map = makeMap(new int[][]{{-1}, {-1}, {1}});
+        BiomassLocalBiology full = new BiomassLocalBiology(new double[]{100}, new double[]{1000});
+        BiomassLocalBiology empty = new BiomassLocalBiology(new double[]{0}, new double[]{1000});
+        map.getSeaTile(0, 0).setBiology(full);
+        map.getSeaTile(1, 0).setBiology(empty);
+
+        BiomassDiffuserContainer diffuser = new BiomassDiffuserContainer(
+                map, new MersenneTwisterFast(), biology,
+                new Pair<>(species, new SmoothMovementRule(.5, .1)));
+        diffuser.setParallel(true);
+        diffuser.step(null);
+
+        //half the differential would be 50, but only 10% of the biomass can leave
+        assertEquals(90, full.getBiomass(species), .0001);
+        assertEquals(10, empty.getBiomass(species), .0001);
+    }
+
+    @Test
+    public void parallelConservesBiomassAndRespectsCapacity() throws Exception {
+
+        Species species = new Species("only");
+        GlobalBiology biology = new GlobalBiology(species);
+        //a map with an island
+        int[][] altitude = new int[40][30];
+        for (int x = 0; x < 40; x++)
+            for (int y = 0; y < 30; y++)
+                altitude[x][y] = x > 15 && x < 20 && y > 10 ? 10 : -10;
+        NauticalMap map = makeMap(altitude);
+        MersenneTwisterFast random = new MersenneTwisterFast(42);
+        double total = 0;
+        for (SeaTile tile : map.getAllSeaTilesExcludingLandAsList()) {
+            double capacity = random.nextDouble() < .1 ? 0 : random.nextDouble() * 1000;
+            double biomass = random.nextDouble() * capacity;
+            tile.setBiology(new BiomassLocalBiology(new double[]{biomass}, new double[]{capacity}));
+            total += biomass;
+        }
+
+        //movement rates high enough that tiles would give or receive too much if left unchecked
+        BiomassDiffuserContainer diffuser = new BiomassDiffuserContainer(
+                map, random, biology,
+                new Pair<>(species, new SmoothMovementRule(.9, .5)));
+        diffuser.setParallel(true);
+        for (int day = 0; day < 100; day++)
+            diffuser.step(null);
+
+        double after = 0;
+        for (SeaTile tile : map.getAllSeaTilesExcludingLandAsList()) {
+            BiomassLocalBiology local = (BiomassLocalBiology) tile.getBiology();
+            assertTrue(local.getBiomass(species) >= 0);
+            assertTrue(local.getBiomass(species) <= local.getCarryingCapacity(species) + .0001);
+            after += local.getBiomass(species);
+        }
+        assertEquals(total, after, total * 1e-10);
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2017  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+package uk.ac.ox.oxfish.biology.boxcars;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import uk.ac.ox.oxfish.biology.GlobalBiology;
+import uk.ac.ox.oxfish.biology.Species;
+import uk.ac.ox.oxfish.biology.complicated.AbundanceLocalBiology;
+import uk.ac.ox.oxfish.biology.complicated.ExponentialMortalityProcess;
+import uk.ac.ox.oxfish.biology.complicated.GrowthBinByList;
+import uk.ac.ox.oxfish.biology.complicated.RecruitmentBySpawningBiomass;
+import uk.ac.ox.oxfish.biology.complicated.StructuredAbundance;
+import uk.ac.ox.oxfish.biology.complicated.factory.RecruitmentBySpawningJackKnifeMaturity;
+import uk.ac.ox.oxfish.model.FishState;
+import uk.ac.ox.oxfish.utility.parameters.FixedDoubleParameter;
+
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class VirginEquilibriumTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+
+    @Test
+    public void solvesTheYearlyPulseEquilibrium() throws Exception {
+        sameAsBruteForce(false);
+    }
+
+    @Test
+    public void solvesTheDailyRecruitmentEquilibrium() throws Exception {
+        sameAsBruteForce(true);
+    }
+
+    @Test
+    public void remembersSolutionsOnDisk() throws Exception {
+
+        FishState state = new FishState();
+        Path cache = folder.getRoot().toPath();
+        VirginEquilibrium.clearMemoryCache();
+        VirginEquilibrium first = equilibrium(state, false, cache);
+        StructuredAbundance solved = first.virginCondition(state, 10000, 100);
+        assertTrue(first.getYearsSimulated() > 0);
+
+        //a new run: nothing in memory, but the file is there
+        VirginEquilibrium.clearMemoryCache();
+        VirginEquilibrium second = equilibrium(state, false, cache);
+        StructuredAbundance recalled = second.virginCondition(state, 10000, 100);
+        assertEquals(0, second.getYearsSimulated());
+        for (int bin = 0; bin < solved.getBins(); bin++)
+            assertEquals(solved.getAbundance(0, bin), recalled.getAbundance(0, bin), 0);
+
+        //different parameters, different answer
+        VirginEquilibrium other = equilibrium(state, true, cache);
+        other.virginCondition(state, 10000, 100);
+        assertTrue(other.getYearsSimulated() > 0);
+    }
+
+    private void sameAsBruteForce(boolean recruitEveryday) {
+        FishState state = new FishState();
+        VirginEquilibrium.clearMemoryCache();
+        VirginEquilibrium equilibrium = equilibrium(state, recruitEveryday, null);
+        StructuredAbundance solved = equilibrium.virginCondition(state, 10000, 1000);
+        assertTrue(equilibrium.isSolvedDirectly());
+        //solving leaves at most a year or two to simulate
+        assertTrue(equilibrium.getYearsSimulated() <= 2);
+
+        StructuredAbundance simulated = bruteForce(state, recruitEveryday, 1000);
+        double largest = 0;
+        for (int bin = 0; bin < simulated.getBins(); bin++)
+            largest = Math.max(largest, simulated.getAbundance(0, bin));
+        assertTrue(largest > 0);
+        for (int bin = 0; bin < simulated.getBins(); bin++)
+            assertEquals(simulated.getAbundance(0, bin), solved.getAbundance(0, bin), largest * 1e-6);
+    }
+
+    /**
+     * the original spin-up: a thousand years stepping day by day
+     */
+    private StructuredAbundance bruteForce(FishState state, boolean recruitEveryday, int years) {
+        GrowthBinByList meristics = meristics(state);
+        FixedBoxcarAging aging = new FixedBoxcarAging(.364, 125);
+        RecruitmentBySpawningBiomass recruitment = recruitment(state, recruitEveryday);
+        ExponentialMortalityProcess mortality = new ExponentialMortalityProcess(.2);
+        Species species = new Species("simulated", meristics);
+        aging.start(species);
+        AbundanceLocalBiology biology = new AbundanceLocalBiology(new GlobalBiology(species));
+        biology.getAbundance(species).asMatrix()[0][0] = 10000;
+        for (int year = 0; year < years; year++)
+            for (int day = 0; day < 365; day++) {
+                aging.ageLocally(biology, species, state, false, 1);
+                double recruit = recruitment.recruit(species, meristics, biology.getAbundance(species), day, 1);
+                mortality.cull(meristics, false, biology.getAbundance(species), 1);
+                biology.getAbundance(species).asMatrix()[0][0] += recruit;
+            }
+        return biology.getAbundance(species);
+    }
+
+    private VirginEquilibrium equilibrium(FishState state, boolean recruitEveryday, Path cache) {
+        return new VirginEquilibrium(
+            new FixedBoxcarAging(.364, 125),
+            recruitment(state, recruitEveryday),
+            meristics(state),
+            new ExponentialMortalityProcess(.2),
+            cache
+        );
+    }
+
+    private GrowthBinByList meristics(FishState state) {
+        EquallySpacedBertalanffyFactory meristics = new EquallySpacedBertalanffyFactory();
+        meristics.setCmPerBin(5d);
+        meristics.setMaxLengthInCm(new FixedDoubleParameter(125));
+        meristics.setRecruitLengthInCm(new FixedDoubleParameter(0));
+        return meristics.apply(state);
+    }
+
+    private RecruitmentBySpawningBiomass recruitment(FishState state, boolean recruitEveryday) {
+        RecruitmentBySpawningJackKnifeMaturity maturity = new RecruitmentBySpawningJackKnifeMaturity();
+        maturity.setCumulativePhi(new FixedDoubleParameter(6));
+        maturity.setSteepness(new FixedDoubleParameter(0.8));
+        maturity.setVirginRecruits(new FixedDoubleParameter(10000));
+        maturity.setRecruitsDaily(recruitEveryday);
+        return maturity.apply(state);
+    }
+}
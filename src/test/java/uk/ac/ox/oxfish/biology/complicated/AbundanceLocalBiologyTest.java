@@ -27,6 +27,7 @@ import uk.ac.ox.oxfish.fisher.equipment.Catch;
 import uk.ac.ox.oxfish.utility.FishStateUtilities;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 
 public class AbundanceLocalBiologyTest
@@ -94,4 +95,26 @@ public class AbundanceLocalBiologyTest
 
     }
 
-}
\ No newline at end of file
+    @Test
+    public void viewsAreReusedAndOnlyTheirSpeciesIsRecounted() throws Exception {
+
+        Species first = new Species("first", longspineTestInput);
+        Species second = new Species("second", longspineTestInput);
+        GlobalBiology biology = new GlobalBiology(first, second);
+        AbundanceLocalBiology local = new AbundanceLocalBiology(biology);
+
+        StructuredAbundance view = local.getAbundance(first);
+        assertSame(view, local.getAbundance(first));
+
+        view.asMatrix()[FishStateUtilities.MALE][5] = 100;
+        local.getAbundance(second).asMatrix()[FishStateUtilities.MALE][5] = 200;
+        assertEquals(100 * 0.019880139, local.getBiomass(first), .001);
+        assertEquals(200 * 0.019880139, local.getBiomass(second), .001);
+
+        //asking for the abundance of a species means it might change
+        local.getAbundance(second).asMatrix()[FishStateUtilities.MALE][5] = 0;
+        assertEquals(0, local.getBiomass(second), .001);
+        assertEquals(100 * 0.019880139, local.getBiomass(first), .001);
+    }
+
+}
@@ -0,0 +1,129 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2017  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+package uk.ac.ox.oxfish.biology.complicated;
+
+import org.junit.Test;
+import uk.ac.ox.oxfish.biology.GlobalBiology;
+import uk.ac.ox.oxfish.biology.Species;
+import uk.ac.ox.oxfish.model.FishState;
+import uk.ac.ox.oxfish.utility.FishStateUtilities;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+public class FlatAbundanceStoreTest {
+
+
+    @Test
+    public void viewsCheckOutAndIn() throws Exception {
+
+        Species species = new Species("only", new FromListMeristics(new double[]{10d, 20d, 30d}, 2));
+        GlobalBiology biology = new GlobalBiology(species);
+        FlatAbundanceStore store = new FlatAbundanceStore(biology);
+        FlatAbundanceLocalBiology first = store.newLocal();
+        FlatAbundanceLocalBiology second = store.newLocal();
+
+        first.getAbundance(species).asMatrix()[FishStateUtilities.MALE][1] = 100;
+        second.getAbundance(species).asMatrix()[FishStateUtilities.FEMALE][2] = 10;
+        //the matrices hold the numbers until checked in
+        assertEquals(0, store.getAbundance(0)[1], 0);
+        assertEquals(100 * 20, first.getBiomass(species), .0001);
+
+        double[] numbers = store.checkIn(species);
+        assertArrayEquals(new double[]{0, 100, 0, 0, 0, 0, 0, 0, 0, 0, 0, 10},
+                          Arrays.copyOf(numbers, 12), 0);
+        //weighed from the store now
+        assertEquals(100 * 20, first.getBiomass(species), .0001);
+        assertEquals(10 * 30, second.getBiomass(species), .0001);
+
+        //changes to the store show up in the views
+        numbers[1] = 50;
+        store.forget(species);
+        assertEquals(50 * 20, first.getBiomass(species), .0001);
+        assertEquals(50, first.getAbundance(species).asMatrix()[FishStateUtilities.MALE][1], 0);
+    }
+
+    @Test
+    public void growsAndFindsItsTiles() throws Exception {
+
+        Species species = new Species("only", new FromListMeristics(new double[]{10d, 20d}, 1));
+        GlobalBiology biology = new GlobalBiology(species);
+        FlatAbundanceStore store = new FlatAbundanceStore(biology);
+        List<AbundanceLocalBiology> locals = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            FlatAbundanceLocalBiology local = store.newLocal();
+            local.getAbundance(species).asMatrix()[0][0] = i;
+            locals.add(local);
+        }
+        store.compact();
+        for (int i = 0; i < 40; i++) {
+            locals.get(i).start(mock(FishState.class));
+            assertEquals(i * 10, locals.get(i).getBiomass(species), .0001);
+        }
+
+        //only all of its tiles, in any order
+        assertNull(FlatAbundanceStore.of(locals.subList(0, 39)));
+        List<AbundanceLocalBiology> shuffled = new ArrayList<>(locals);
+        shuffled.add(shuffled.remove(0));
+        assertSame(store, FlatAbundanceStore.of(shuffled));
+        assertEquals(0, FlatAbundanceStore.slotsOf(shuffled)[39]);
+        shuffled.set(0, new AbundanceLocalBiology(biology));
+        assertNull(FlatAbundanceStore.of(shuffled));
+    }
+
+    @Test
+    public void flatLoopsMatchTheTileByTileOnes() throws Exception {
+
+        Species species = new Species("only", new FromListMeristics(new double[]{10d, 20d, 30d, 40d}, 2));
+        GlobalBiology biology = new GlobalBiology(species);
+        FlatAbundanceStore store = new FlatAbundanceStore(biology);
+        List<AbundanceLocalBiology> tiles = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            AbundanceLocalBiology classic = new AbundanceLocalBiology(biology);
+            FlatAbundanceLocalBiology flat = store.newLocal();
+            for (int subdivision = 0; subdivision < 2; subdivision++)
+                for (int bin = 0; bin < 4; bin++) {
+                    classic.getAbundance(species).asMatrix()[subdivision][bin] = 1000 * (i + 1) + bin;
+                    flat.getAbundance(species).asMatrix()[subdivision][bin] = 1000 * (i + 1) + bin;
+                }
+            tiles.add(classic);
+        }
+
+        ExponentialMortalityProcess mortality = new ExponentialMortalityProcess(new double[]{.1, .2});
+        StandardAgingProcess aging = new StandardAgingProcess(false);
+        for (AbundanceLocalBiology classic : tiles) {
+            mortality.cull(species.getMeristics(), false, classic.getAbundance(species), 365);
+            aging.ageLocally(classic, species, null, false, 365);
+        }
+        double[] numbers = store.checkIn(species);
+        mortality.cull(species.getMeristics(), false, numbers, 5, 365);
+        assertTrue(aging.age(species, numbers, 5, false, 365));
+
+        for (int i = 0; i < 5; i++)
+            for (int subdivision = 0; subdivision < 2; subdivision++)
+                for (int bin = 0; bin < 4; bin++)
+                    assertEquals(tiles.get(i).getAbundance(species).asMatrix()[subdivision][bin],
+                                 numbers[i * 8 + subdivision * 4 + bin], .0001);
+    }
+}
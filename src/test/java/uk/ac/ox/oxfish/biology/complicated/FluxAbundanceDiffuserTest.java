@@ -0,0 +1,161 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2017  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+package uk.ac.ox.oxfish.biology.complicated;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+import sim.util.Bag;
+import uk.ac.ox.oxfish.biology.GlobalBiology;
+import uk.ac.ox.oxfish.biology.Species;
+import uk.ac.ox.oxfish.geography.NauticalMap;
+import uk.ac.ox.oxfish.geography.SeaTile;
+import uk.ac.ox.oxfish.geography.habitat.TileHabitat;
+import uk.ac.ox.oxfish.model.FishState;
+import uk.ac.ox.oxfish.utility.FishStateUtilities;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static uk.ac.ox.oxfish.geography.TestUtilities.makeMap;
+
+public class FluxAbundanceDiffuserTest {
+
+
+    @Test
+    public void movesCorrectly() throws Exception {
+
+        Species species = new Species("only", new FromListMeristics(new double[]{10d, 20d, 30d}, 2));
+        GlobalBiology biology = new GlobalBiology(species);
+
+        SeaTile full = new SeaTile(0, 0, -1, new TileHabitat(0d));
+        AbundanceLocalBiology fullBio = new AbundanceLocalBiology(biology);
+        fullBio.getAbundance(species).asMatrix()[FishStateUtilities.MALE][0] = 1000;
+        fullBio.getAbundance(species).asMatrix()[FishStateUtilities.MALE][1] = 500;
+        fullBio.getAbundance(species).asMatrix()[FishStateUtilities.FEMALE][2] = 10;
+        SeaTile empty = new SeaTile(0, 1, -1, new TileHabitat(0d));
+        AbundanceLocalBiology emptyBio = new AbundanceLocalBiology(biology);
+
+        Map<SeaTile, AbundanceLocalBiology> tiles = new LinkedHashMap<>();
+        tiles.put(full, fullBio);
+        tiles.put(empty, emptyBio);
+
+        NauticalMap map = mock(NauticalMap.class);
+        FishState state = mock(FishState.class);
+        when(state.getMap()).thenReturn(map);
+        when(map.getMooreNeighbors(full, 1)).thenReturn(new Bag(Lists.newArrayList(empty)));
+        when(map.getMooreNeighbors(empty, 1)).thenReturn(new Bag(Lists.newArrayList(full)));
+
+        //10% of the difference moves, no rounding involved
+        FluxAbundanceDiffuser diffuser = new FluxAbundanceDiffuser(1, .1);
+        diffuser.step(species, tiles, state);
+        assertArrayEquals(fullBio.getAbundance(species).asMatrix()[FishStateUtilities.MALE], new double[]{900, 450, 0}, .001);
+        assertArrayEquals(fullBio.getAbundance(species).asMatrix()[FishStateUtilities.FEMALE], new double[]{0, 0, 9}, .001);
+        assertArrayEquals(emptyBio.getAbundance(species).asMatrix()[FishStateUtilities.MALE], new double[]{100, 50, 0}, .001);
+        assertArrayEquals(emptyBio.getAbundance(species).asMatrix()[FishStateUtilities.FEMALE], new double[]{0, 0, 1}, .001);
+
+        diffuser.step(species, tiles, state);
+        assertArrayEquals(fullBio.getAbundance(species).asMatrix()[FishStateUtilities.MALE], new double[]{820, 410, 0}, .001);
+        assertArrayEquals(emptyBio.getAbundance(species).asMatrix()[FishStateUtilities.FEMALE], new double[]{0, 0, 1.8}, .001);
+    }
+
+    @Test
+    public void onlyMovesAllowedBins() throws Exception {
+
+        Species species = new Species("only", new FromListMeristics(new double[]{10d, 20d, 30d}, 1));
+        GlobalBiology biology = new GlobalBiology(species);
+        NauticalMap map = makeMap(2, 1, -1);
+        Map<SeaTile, AbundanceLocalBiology> tiles = new LinkedHashMap<>();
+        for (SeaTile tile : map.getAllSeaTilesAsList())
+            tiles.put(tile, new AbundanceLocalBiology(biology));
+        AbundanceLocalBiology full = tiles.get(map.getSeaTile(0, 0));
+        full.getAbundance(species).asMatrix()[0][0] = 100;
+        full.getAbundance(species).asMatrix()[0][1] = 100;
+        full.getAbundance(species).asMatrix()[0][2] = 100;
+
+        FishState state = mock(FishState.class);
+        when(state.getMap()).thenReturn(map);
+        new FluxAbundanceDiffuser(1, .5, 1, 1, false).step(species, tiles, state);
+
+        assertArrayEquals(full.getAbundance(species).asMatrix()[0], new double[]{100, 50, 100}, .001);
+        assertArrayEquals(tiles.get(map.getSeaTile(1, 0)).getAbundance(species).asMatrix()[0],
+                          new double[]{0, 50, 0}, .001);
+    }
+
+    @Test
+    public void parallelIsTheSameAndConservesFish() throws Exception {
+
+        Species species = new Species("only", new FromListMeristics(new double[]{10d, 20d, 30d, 40d}, 2));
+        GlobalBiology biology = new GlobalBiology(species);
+        //a map with a bit of land in the middle
+        int[][] altitude = new int[30][20];
+        for (int x = 0; x < 30; x++)
+            for (int y = 0; y < 20; y++)
+                altitude[x][y] = x > 10 && x < 15 && y > 5 ? 10 : -10;
+        NauticalMap map = makeMap(altitude);
+        FishState state = mock(FishState.class);
+        when(state.getMap()).thenReturn(map);
+
+        Map<SeaTile, AbundanceLocalBiology> sequential = new LinkedHashMap<>();
+        Map<SeaTile, AbundanceLocalBiology> parallel = new LinkedHashMap<>();
+        Random random = new Random(42);
+        double total = 0;
+        for (SeaTile tile : map.getAllSeaTilesExcludingLandAsList()) {
+            AbundanceLocalBiology one = new AbundanceLocalBiology(biology);
+            AbundanceLocalBiology two = new AbundanceLocalBiology(biology);
+            for (int subdivision = 0; subdivision < 2; subdivision++)
+                for (int bin = 0; bin < 4; bin++) {
+                    double fish = random.nextDouble() < .1 ? random.nextDouble() * 10000 : 0;
+                    one.getAbundance(species).asMatrix()[subdivision][bin] = fish;
+                    two.getAbundance(species).asMatrix()[subdivision][bin] = fish;
+                    total += fish;
+                }
+            sequential.put(tile, one);
+            parallel.put(tile, two);
+        }
+
+        FluxAbundanceDiffuser sequentialDiffuser = new FluxAbundanceDiffuser(2, .1, 0, 100, false);
+        FluxAbundanceDiffuser parallelDiffuser = new FluxAbundanceDiffuser(2, .1, 0, 100, true);
+        for (int day = 0; day < 50; day++) {
+            sequentialDiffuser.step(species, sequential, state);
+            parallelDiffuser.step(species, parallel, state);
+        }
+
+        double after = 0;
+        for (SeaTile tile : sequential.keySet()) {
+            double[][] one = sequential.get(tile).getAbundance(species).asMatrix();
+            double[][] two = parallel.get(tile).getAbundance(species).asMatrix();
+            for (int subdivision = 0; subdivision < 2; subdivision++) {
+                //bit for bit the same
+                assertArrayEquals(one[subdivision], two[subdivision], 0);
+                for (double fish : one[subdivision]) {
+                    assertTrue(fish >= 0);
+                    after += fish;
+                }
+            }
+        }
+        assertEquals(total, after, total * 1e-10);
+    }
+}
@@ -306,4 +306,62 @@ public class SingleSpeciesNaturalProcessesTest {
 
 
     }
-}
\ No newline at end of file
+
+
+    @Test
+    public void parallelStepIsSameAsSequential() throws Exception {
+        FishState model = mock(FishState.class);
+        when(model.getRandom()).thenReturn(new MersenneTwisterFast());
+        when(model.getDayOfTheYear()).thenReturn(1);
+
+        Log.info("culling and aging tiles in parallel gives exactly the same abundance as doing it in order");
+        RecruitmentProcess recruitment = mock(RecruitmentProcess.class);
+        when(recruitment.recruit(any(), any() , any(),anyInt(),anyInt() )).thenReturn(1000d);
+
+        Path testInput = Paths.get("inputs", "tests", "abundance", "fake");
+        SingleSpeciesAbundanceInitializer initializer = new SingleSpeciesAbundanceInitializer(
+                testInput, "fake", 2.0,model);
+        GlobalBiology biology = initializer.generateGlobal(new MersenneTwisterFast(), mock(FishState.class));
+        Species species = biology.getSpecie(0);
+
+        double[][] graduating = new double[species.getNumberOfSubdivisions()][species.getNumberOfBins()];
+        for (double[] subdivision : graduating)
+            Arrays.fill(subdivision, 0, subdivision.length - 1, .3);
+        SingleSpeciesNaturalProcesses sequential = new SingleSpeciesNaturalProcesses(
+                recruitment, species, false, new VariableProportionAging(graduating),
+                new NoAbundanceDiffusion(), new ExponentialMortalityProcess(.2,.3), true);
+        SingleSpeciesNaturalProcesses parallel = new SingleSpeciesNaturalProcesses(
+                recruitment, species, false, new VariableProportionAging(graduating),
+                new NoAbundanceDiffusion(), new ExponentialMortalityProcess(.2,.3), true);
+        parallel.setParallel(true);
+        sequential.start(model);
+        parallel.start(model);
+
+        MersenneTwisterFast random = new MersenneTwisterFast(0);
+        AbundanceLocalBiology[] sequentialCells = new AbundanceLocalBiology[200];
+        AbundanceLocalBiology[] parallelCells = new AbundanceLocalBiology[200];
+        for (int i = 0; i < sequentialCells.length; i++) {
+            sequentialCells[i] = new AbundanceLocalBiology(biology);
+            parallelCells[i] = new AbundanceLocalBiology(biology);
+            for (int subdivision = 0; subdivision < species.getNumberOfSubdivisions(); subdivision++)
+                for (int bin = 0; bin < species.getNumberOfBins(); bin++) {
+                    double fish = random.nextDouble() * 1000;
+                    sequentialCells[i].getAbundance(species).asMatrix()[subdivision][bin] = fish;
+                    parallelCells[i].getAbundance(species).asMatrix()[subdivision][bin] = fish;
+                }
+            SeaTile tile = mock(SeaTile.class);
+            sequential.add(sequentialCells[i], tile);
+            parallel.add(parallelCells[i], tile);
+        }
+
+        for (int day = 0; day < 10; day++) {
+            sequential.step(model);
+            parallel.step(model);
+        }
+        for (int i = 0; i < sequentialCells.length; i++)
+            for (int subdivision = 0; subdivision < species.getNumberOfSubdivisions(); subdivision++)
+                Assert.assertArrayEquals(sequentialCells[i].getAbundance(species).asMatrix()[subdivision],
+                                         parallelCells[i].getAbundance(species).asMatrix()[subdivision],
+                                         0d);
+    }
+}
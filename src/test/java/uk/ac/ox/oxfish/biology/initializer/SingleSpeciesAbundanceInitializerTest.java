@@ -25,20 +25,28 @@ import org.jfree.util.Log;
 import org.junit.Test;
 import uk.ac.ox.oxfish.biology.GlobalBiology;
 import uk.ac.ox.oxfish.biology.Species;
+import uk.ac.ox.oxfish.biology.complicated.factory.FluxDiffuserFactory;
 import uk.ac.ox.oxfish.biology.complicated.factory.NoDiffuserFactory;
+import uk.ac.ox.oxfish.biology.complicated.factory.StandardAgingFactory;
 import uk.ac.ox.oxfish.biology.initializer.allocator.BiomassAllocator;
 import uk.ac.ox.oxfish.biology.initializer.factory.SingleSpeciesAbundanceFactory;
 import uk.ac.ox.oxfish.fisher.actions.MovingTest;
+import uk.ac.ox.oxfish.fisher.equipment.gear.factory.SimpleLogisticGearFactory;
 import uk.ac.ox.oxfish.geography.NauticalMap;
 import uk.ac.ox.oxfish.geography.SeaTile;
 import uk.ac.ox.oxfish.model.FishState;
+import uk.ac.ox.oxfish.model.scenario.PrototypeScenario;
 import uk.ac.ox.oxfish.utility.AlgorithmFactory;
 import uk.ac.ox.oxfish.utility.FishStateUtilities;
+import uk.ac.ox.oxfish.utility.parameters.FixedDoubleParameter;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -159,4 +167,46 @@ public class SingleSpeciesAbundanceInitializerTest {
         assertEquals(325,map.getSeaTile(2,3).getAbundance(fakeSpecies).asMatrix()[FishStateUtilities.FEMALE][1],.0001);
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void flatAbundanceRunsTheSame() throws Exception {
+
+        List<Double> classic = biomassThroughTheYears(false, false);
+        List<Double> flat = biomassThroughTheYears(true, false);
+        assertEquals(classic.size(), flat.size());
+        for (int day = 0; day < classic.size(); day++)
+            assertEquals(classic.get(day), flat.get(day), classic.get(day) * 1e-10);
+        //the fish did move and age
+        assertNotEquals(classic.get(0), classic.get(classic.size() - 1), 1);
+
+        //processes without a flat loop go through the tiles one by one, and that is the same run too
+        classic = biomassThroughTheYears(false, true);
+        flat = biomassThroughTheYears(true, true);
+        for (int day = 0; day < classic.size(); day++)
+            assertEquals(classic.get(day), flat.get(day), classic.get(day) * 1e-10);
+    }
+
+    private List<Double> biomassThroughTheYears(boolean flatAbundance, boolean proportionalAging) {
+        FishState state = new FishState(42);
+        PrototypeScenario scenario = new PrototypeScenario();
+        SingleSpeciesAbundanceFactory biology = new SingleSpeciesAbundanceFactory();
+        biology.setDiffuser(new FluxDiffuserFactory());
+        if (!proportionalAging)
+            biology.setAging(new StandardAgingFactory());
+        biology.setFlatAbundance(flatAbundance);
+        scenario.setBiologyInitializer(biology);
+        //fishing goes through the views
+        SimpleLogisticGearFactory gear = new SimpleLogisticGearFactory();
+        gear.setAverageCatchability(new FixedDoubleParameter(.1));
+        scenario.setGear(gear);
+        state.setScenario(scenario);
+        state.start();
+        List<Double> biomass = new ArrayList<>();
+        for (int day = 0; day < 400; day++) {
+            state.schedule.step(state);
+            biomass.add(state.getTotalBiomass(state.getBiology().getSpecie(0)));
+        }
+        state.finish();
+        return biomass;
+    }
+}
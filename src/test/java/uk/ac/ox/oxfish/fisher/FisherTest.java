@@ -46,6 +46,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -82,6 +83,13 @@ public class FisherTest {
         Gear gear = mock(Gear.class);
         //catch 1 pound of fish a day
         when(gear.fish(any(), any(),any() , anyInt(), any())).thenReturn(new Catch(species, 1, biology));
+        //the buffered overload wraps the call above, like the default one
+        doAnswer(invocation -> {
+            invocation.<CatchBuffer>getArgument(0).set(gear.fish(invocation.getArgument(1), invocation.getArgument(2),
+                                                                 invocation.getArgument(3), invocation.getArgument(4),
+                                                                 invocation.getArgument(5)));
+            return null;
+        }).when(gear).fish(any(CatchBuffer.class), any(), any(), any(), anyInt(), any());
         //9 liters each time you fish
         when(gear.getFuelConsumptionPerHourOfFishing(any(),any(),any())).thenReturn(9d);
         Fisher fisher = new Fisher(0, port,
@@ -161,6 +169,13 @@ public class FisherTest {
         Gear gear = mock(Gear.class);
         //catch 1 pound of fish a day
         when(gear.fish(any(), any(),any() , anyInt(), any())).thenReturn(new Catch(species, 1, biology));
+        //the buffered overload wraps the call above, like the default one
+        doAnswer(invocation -> {
+            invocation.<CatchBuffer>getArgument(0).set(gear.fish(invocation.getArgument(1), invocation.getArgument(2),
+                                                                 invocation.getArgument(3), invocation.getArgument(4),
+                                                                 invocation.getArgument(5)));
+            return null;
+        }).when(gear).fish(any(CatchBuffer.class), any(), any(), any(), anyInt(), any());
         //10 liters each time you fish
         when(gear.getFuelConsumptionPerHourOfFishing(any(),any(),any())).thenReturn(10d);
         Fisher fisher = new Fisher(0, port,
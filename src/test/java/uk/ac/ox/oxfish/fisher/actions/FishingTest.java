@@ -80,6 +80,13 @@ public class FishingTest {
 
         Gear gear = mock(Gear.class);
         when(gear.fish(any(), any(),any() , anyInt(), any())).thenReturn(new Catch(species, 50.0, biology));
+        //the buffered overload wraps the call above, like the default one
+        doAnswer(invocation -> {
+            invocation.<CatchBuffer>getArgument(0).set(gear.fish(invocation.getArgument(1), invocation.getArgument(2),
+                                                                 invocation.getArgument(3), invocation.getArgument(4),
+                                                                 invocation.getArgument(5)));
+            return null;
+        }).when(gear).fish(any(CatchBuffer.class), any(), any(), any(), anyInt(), any());
         Fisher fisher = new Fisher(0, port,
                                    new MersenneTwisterFast(),
                                    new AnarchyFactory().apply(fishState),
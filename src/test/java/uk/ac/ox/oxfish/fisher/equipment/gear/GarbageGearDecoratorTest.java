@@ -27,7 +27,6 @@ import uk.ac.ox.oxfish.biology.LocalBiology;
 import uk.ac.ox.oxfish.biology.Species;
 import uk.ac.ox.oxfish.biology.complicated.MeristicsInput;
 import uk.ac.ox.oxfish.biology.complicated.StockAssessmentCaliforniaMeristics;
-import uk.ac.ox.oxfish.biology.complicated.StructuredAbundance;
 import uk.ac.ox.oxfish.fisher.Fisher;
 import uk.ac.ox.oxfish.fisher.equipment.Catch;
 import uk.ac.ox.oxfish.geography.SeaTile;
@@ -36,7 +35,6 @@ import uk.ac.ox.oxfish.utility.Pair;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.*;
-import static uk.ac.ox.oxfish.utility.FishStateUtilities.FEMALE;
 import static uk.ac.ox.oxfish.utility.FishStateUtilities.MALE;
 
 /**
@@ -127,12 +125,11 @@ public class GarbageGearDecoratorTest {
 
 
         HomogeneousAbundanceGear gear1 = mock(HomogeneousAbundanceGear.class,RETURNS_DEEP_STUBS);
-        double[][] catches = new double[2][81];
-        catches[0][5]=1000; //total catch weight = 19.880139
-        when(gear1.catchesAsAbundanceForThisSpecies(any(),anyInt(), any())).
-                thenReturn(
-                        new StructuredAbundance(catches[MALE], catches[FEMALE])
-                );
+        //total catch weight = 19.880139
+        doAnswer(invocation -> {
+            invocation.<double[][]>getArgument(0)[MALE][5] += 1000;
+            return null;
+        }).when(gear1).addCatchesOfThisSpecies(any(), any(), anyInt(), any());
 
 
         Gear gear = new GarbageGearDecorator(imaginary, .5,
@@ -24,7 +24,6 @@ import org.junit.Test;
 import uk.ac.ox.oxfish.biology.GlobalBiology;
 import uk.ac.ox.oxfish.biology.Species;
 import uk.ac.ox.oxfish.biology.complicated.MeristicsInput;
-import uk.ac.ox.oxfish.biology.complicated.StructuredAbundance;
 import uk.ac.ox.oxfish.fisher.Fisher;
 import uk.ac.ox.oxfish.fisher.equipment.Catch;
 import uk.ac.ox.oxfish.geography.SeaTile;
@@ -34,7 +33,6 @@ import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.*;
-import static uk.ac.ox.oxfish.utility.FishStateUtilities.FEMALE;
 import static uk.ac.ox.oxfish.utility.FishStateUtilities.MALE;
 
 
@@ -62,18 +60,17 @@ public class HeterogeneousAbundanceGearTest
 
 
         HomogeneousAbundanceGear gear1 = mock(HomogeneousAbundanceGear.class,RETURNS_DEEP_STUBS);
-        double[][] catches = new double[2][81];
-        catches[0][5]=1000; //total catch weight = 19.880139
-        when(gear1.catchesAsAbundanceForThisSpecies(any(),anyInt(), any())).
-                thenReturn(
-                new StructuredAbundance(catches[MALE],catches[FEMALE])
-        );
+        //total catch weight = 19.880139
+        doAnswer(invocation -> {
+            invocation.<double[][]>getArgument(0)[MALE][5] += 1000;
+            return null;
+        }).when(gear1).addCatchesOfThisSpecies(any(), any(), anyInt(), any());
         HomogeneousAbundanceGear gear2 = mock(HomogeneousAbundanceGear.class,RETURNS_DEEP_STUBS);
-        double[][] catches2 = new double[2][81];
-        catches2[0][5]=2000; //total catch weight = 19.880139*2
-        when(gear2.catchesAsAbundanceForThisSpecies(any(),anyInt(), any())).thenReturn(
-                new StructuredAbundance(catches2[MALE],catches2[FEMALE])
-        );
+        //total catch weight = 19.880139*2
+        doAnswer(invocation -> {
+            invocation.<double[][]>getArgument(0)[MALE][5] += 2000;
+            return null;
+        }).when(gear2).addCatchesOfThisSpecies(any(), any(), anyInt(), any());
 
 
         HeterogeneousAbundanceGear gear = new HeterogeneousAbundanceGear(
@@ -91,4 +88,29 @@ public class HeterogeneousAbundanceGearTest
 
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void copiesFishWithTheirOwnSubGears() throws Exception {
+
+        Species species = new Species("longspine",new MeristicsInput(80, 40, 3, 8.573, 27.8282, 0.108505, 4.30E-06, 3.352,
+                                                                     0.111313, 3, 8.573, 27.8282, 0.108505, 4.30E-06, 3.352,
+                                                                     0.111313, 17.826, -1.79, 1,
+                                                                     0, 168434124,
+                                                                     0.6, false)
+        );
+        species.resetIndexTo(0);
+        GlobalBiology biology = new GlobalBiology(species);
+
+        //the sub-gears keep scratch space, fishers fishing in parallel can't share them
+        HomogeneousAbundanceGear original = mock(HomogeneousAbundanceGear.class,RETURNS_DEEP_STUBS);
+        HomogeneousAbundanceGear copied = mock(HomogeneousAbundanceGear.class,RETURNS_DEEP_STUBS);
+        when(original.makeCopy()).thenReturn(copied);
+
+        Gear copy = new HeterogeneousAbundanceGear(new Pair<>(species, original)).makeCopy();
+        SeaTile mock = mock(SeaTile.class,RETURNS_DEEP_STUBS);
+        copy.fish(mock(Fisher.class), mock, mock, 1, biology);
+        verify(copied).addCatchesOfThisSpecies(any(), any(), anyInt(), any());
+        verify(original, never()).addCatchesOfThisSpecies(any(), any(), anyInt(), any());
+
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2017  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+
+package uk.ac.ox.oxfish.fisher.heatmap.regression;
+
+import ec.util.MersenneTwisterFast;
+import org.junit.Test;
+import uk.ac.ox.oxfish.fisher.actions.MovingTest;
+import uk.ac.ox.oxfish.fisher.heatmap.regression.extractors.GridXExtractor;
+import uk.ac.ox.oxfish.fisher.heatmap.regression.extractors.GridYExtractor;
+import uk.ac.ox.oxfish.fisher.heatmap.regression.numerical.CompactKernelTransduction;
+import uk.ac.ox.oxfish.fisher.heatmap.regression.numerical.GeographicalObservation;
+import uk.ac.ox.oxfish.fisher.heatmap.regression.numerical.KernelStencil;
+import uk.ac.ox.oxfish.fisher.heatmap.regression.numerical.KernelTransduction;
+import uk.ac.ox.oxfish.geography.NauticalMap;
+import uk.ac.ox.oxfish.geography.SeaTile;
+import uk.ac.ox.oxfish.model.FishState;
+import uk.ac.ox.oxfish.utility.Pair;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+
+public class CompactKernelTransductionTest {
+
+
+    @Test
+    public void sameAsFullTransductionWhenCutoffIsTiny() throws Exception {
+
+        FishState state = MovingTest.generateSimple50x50Map();
+        NauticalMap map = state.getMap();
+
+        KernelTransduction full = new KernelTransduction(
+                map,
+                .9,
+                new Pair<>(new GridXExtractor(), 5d),
+                new Pair<>(new GridYExtractor(), 5d));
+        CompactKernelTransduction compact = new CompactKernelTransduction(
+                map, .9, new KernelStencil(5d, 1e-12));
+
+        MersenneTwisterFast random = new MersenneTwisterFast(0);
+        for (int i = 0; i < 200; i++) {
+            GeographicalObservation<Double> observation = new GeographicalObservation<>(
+                    map.getSeaTile(random.nextInt(50), random.nextInt(50)),
+                    i,
+                    random.nextDouble() * 100);
+            full.addObservation(observation, null, mock(FishState.class));
+            compact.addObservation(observation, null, mock(FishState.class));
+        }
+
+        for (SeaTile tile : map.getAllSeaTilesExcludingLandAsList()) {
+            double expected = full.predict(tile, 0, null, state);
+            assertEquals(expected, compact.predict(tile, 0, null, state), 1e-6);
+            assertEquals(expected, compact.getHeatmap()[tile.getGridX() * 50 + tile.getGridY()], 1e-6);
+        }
+    }
+
+    @Test
+    public void onlyNearbyTilesLearn() throws Exception {
+
+        FishState state = MovingTest.generateSimple50x50Map();
+        NauticalMap map = state.getMap();
+
+        CompactKernelTransduction compact = new CompactKernelTransduction(
+                map, 1, new KernelStencil(5d, 0.001));
+        compact.addObservation(
+                new GeographicalObservation<>(map.getSeaTile(25, 25), 0d, 100d),
+                null, mock(FishState.class));
+
+        //sqrt(5 * ln(1000)) is about 5.9 cells
+        assertEquals(100, compact.predict(map.getSeaTile(25, 25), 0, null, state), .0001);
+        assertEquals(100, compact.predict(map.getSeaTile(30, 25), 0, null, state), .0001);
+        assertEquals(0, compact.predict(map.getSeaTile(31, 25), 0, null, state), .0001);
+        assertEquals(0, compact.predict(map.getSeaTile(30, 30), 0, null, state), .0001);
+    }
+
+}
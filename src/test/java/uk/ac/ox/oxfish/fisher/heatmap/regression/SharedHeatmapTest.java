@@ -0,0 +1,125 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2017  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+
+package uk.ac.ox.oxfish.fisher.heatmap.regression;
+
+import ec.util.MersenneTwisterFast;
+import org.junit.Test;
+import uk.ac.ox.oxfish.fisher.actions.MovingTest;
+import uk.ac.ox.oxfish.fisher.heatmap.regression.numerical.CompactKernelTransduction;
+import uk.ac.ox.oxfish.fisher.heatmap.regression.numerical.GeographicalObservation;
+import uk.ac.ox.oxfish.fisher.heatmap.regression.numerical.KernelStencil;
+import uk.ac.ox.oxfish.fisher.heatmap.regression.numerical.SharedHeatmap;
+import uk.ac.ox.oxfish.fisher.heatmap.regression.numerical.SharedHeatmapRegression;
+import uk.ac.ox.oxfish.geography.NauticalMap;
+import uk.ac.ox.oxfish.geography.SeaTile;
+import uk.ac.ox.oxfish.model.FishState;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+
+public class SharedHeatmapTest {
+
+
+    @Test
+    public void concurrentWritersLearnWhatOneWriterWould() throws Exception {
+
+        FishState state = MovingTest.generateSimple50x50Map();
+        NauticalMap map = state.getMap();
+        KernelStencil stencil = new KernelStencil(5d, 0.001);
+
+        List<GeographicalObservation<Double>> observations = randomObservations(map, 4000);
+        SharedHeatmap shared = new SharedHeatmap(map, 1, stencil);
+        IntStream.range(0, 8).parallel().forEach(
+                writer -> {
+                    for (int i = writer; i < observations.size(); i += 8)
+                        shared.addObservation(observations.get(i).getTile(), observations.get(i).getValue());
+                });
+        CompactKernelTransduction alone = new CompactKernelTransduction(map, 1, stencil);
+        for (GeographicalObservation<Double> observation : observations)
+            alone.addObservation(observation, null, mock(FishState.class));
+
+        for (SeaTile tile : map.getAllSeaTilesExcludingLandAsList())
+            assertEquals(alone.predict(tile, 0, null, state), shared.predict(tile), 1e-6);
+    }
+
+    @Test
+    public void forgettingSurvivesNewEpochs() throws Exception {
+
+        FishState state = MovingTest.generateSimple50x50Map();
+        NauticalMap map = state.getMap();
+        KernelStencil stencil = new KernelStencil(5d, 0.001);
+
+        //at .5 an epoch lasts about 330 observations
+        SharedHeatmap shared = new SharedHeatmap(map, .5, stencil);
+        CompactKernelTransduction alone = new CompactKernelTransduction(map, .5, stencil);
+        for (GeographicalObservation<Double> observation : randomObservations(map, 2000)) {
+            shared.addObservation(observation.getTile(), observation.getValue());
+            alone.addObservation(observation, null, mock(FishState.class));
+        }
+
+        for (SeaTile tile : map.getAllSeaTilesExcludingLandAsList())
+            assertEquals(alone.predict(tile, 0, null, state), shared.predict(tile), 1e-6);
+    }
+
+    @Test
+    public void personalOffsetsOnlyAffectTheirOwner() throws Exception {
+
+        FishState state = MovingTest.generateSimple50x50Map();
+        NauticalMap map = state.getMap();
+        KernelStencil stencil = new KernelStencil(5d, 0.001);
+        SharedHeatmap shared = new SharedHeatmap(map, 1, stencil);
+
+        SharedHeatmapRegression plain = new SharedHeatmapRegression(shared, null);
+        SharedHeatmapRegression personal = new SharedHeatmapRegression(
+                shared, new CompactKernelTransduction(map, 1, stencil));
+        SeaTile tile = map.getSeaTile(25, 25);
+
+        personal.addObservation(new GeographicalObservation<>(tile, 0d, 100d), null, state);
+        plain.addObservation(new GeographicalObservation<>(tile, 0d, 50d), null, state);
+        assertEquals(75, plain.predict(tile, 0, null, state), .0001);
+        assertEquals(75, personal.predict(tile, 0, null, state), .0001);
+
+        //the personal fisher keeps finding more than the fleet expects there
+        personal.addObservation(new GeographicalObservation<>(tile, 0d, 100d), null, state);
+        double fleet = plain.predict(tile, 0, null, state);
+        assertEquals(250d / 3, fleet, .0001);
+        assertEquals(fleet + (100 - fleet) / 2, personal.predict(tile, 0, null, state), .0001);
+        assertEquals(personal.predict(tile, 0, null, state),
+                     personal.getHeatmap()[25 * 50 + 25], .0001);
+        assertEquals(fleet, plain.getHeatmap()[25 * 50 + 25], .0001);
+    }
+
+    private static List<GeographicalObservation<Double>> randomObservations(NauticalMap map, int size) {
+        MersenneTwisterFast random = new MersenneTwisterFast(0);
+        List<GeographicalObservation<Double>> observations = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+            observations.add(new GeographicalObservation<>(
+                    map.getSeaTile(random.nextInt(50), random.nextInt(50)),
+                    (double) i,
+                    random.nextDouble() * 100));
+        return observations;
+    }
+
+}
@@ -25,7 +25,11 @@ import ec.util.MersenneTwisterFast;
 import org.junit.Test;
 import uk.ac.ox.oxfish.fisher.Fisher;
 import uk.ac.ox.oxfish.fisher.heatmap.acquisition.AcquisitionFunction;
+import uk.ac.ox.oxfish.fisher.heatmap.regression.ErrorTrackingRegression;
+import uk.ac.ox.oxfish.fisher.heatmap.regression.PersonalTuningRegression;
+import uk.ac.ox.oxfish.fisher.heatmap.regression.SocialTuningRegression;
 import uk.ac.ox.oxfish.fisher.heatmap.regression.numerical.GeographicalRegression;
+import uk.ac.ox.oxfish.fisher.heatmap.regression.numerical.SharedHeatmapRegression;
 import uk.ac.ox.oxfish.fisher.log.TripRecord;
 import uk.ac.ox.oxfish.fisher.selfanalysis.HourlyProfitInTripObjective;
 import uk.ac.ox.oxfish.geography.SeaTile;
@@ -33,7 +37,9 @@ import uk.ac.ox.oxfish.model.FishState;
 import uk.ac.ox.oxfish.utility.adaptation.probability.FixedProbability;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
 
 /**
@@ -134,6 +140,56 @@ public class HeatmapDestinationStrategyTest {
 
     }
 
+    @Test
+    public void wrappedSharedHeatmapIgnoresFriends() throws Exception {
+
+        //the friend's trips are already in the shared heatmap, even behind a tuning regression
+        SharedHeatmapRegression shared = mock(SharedHeatmapRegression.class);
+        Fisher user = mock(Fisher.class);
+        Fisher friend = mock(Fisher.class);
+        when(user.getDirectedFriends()).thenReturn(Lists.newArrayList(friend));
+
+        FishState model = mock(FishState.class,RETURNS_DEEP_STUBS);
+        when(model.getRandom()).thenReturn(new MersenneTwisterFast());
+        AcquisitionFunction optimizer = mock(AcquisitionFunction.class);
+
+        HeatmapDestinationStrategy strategy = new HeatmapDestinationStrategy(
+                new PersonalTuningRegression(shared, .05, .01, 100),
+                optimizer,
+                false,
+                new FixedProbability(0d,1d),
+                model.getMap(),
+                model.getRandom(),
+                10,
+                new HourlyProfitInTripObjective(true));
+        SeaTile optimal = mock(SeaTile.class);
+
+        when(optimal.isWater()).thenReturn(true);
+        when(optimizer.pick(any(), any(), any(),any(),any() )).thenReturn(optimal);
+
+        strategy.start(model,user);
+
+        when(friend.getLastFinishedTrip()).thenReturn(mock(TripRecord.class,RETURNS_DEEP_STUBS));
+
+        //only our own observation
+        strategy.reactToFinishedTrip(mock(TripRecord.class,RETURNS_DEEP_STUBS), mock(Fisher.class,RETURNS_DEEP_STUBS));
+        verify(shared,times(1)).addObservation(any(),any(),any() );
+
+    }
+
+    @Test
+    public void findsSharedHeatmapsThroughAnyWrapper() throws Exception {
+
+        SharedHeatmapRegression shared = mock(SharedHeatmapRegression.class);
+        assertTrue(HeatmapDestinationStrategy.isShared(shared));
+        assertTrue(HeatmapDestinationStrategy.isShared(new ErrorTrackingRegression<>(
+                new SocialTuningRegression<>(new PersonalTuningRegression(shared, .05, .01, 100),
+                                             new FixedProbability(0d, 1d), false))));
+        assertFalse(HeatmapDestinationStrategy.isShared(new SocialTuningRegression<>(
+                mock(GeographicalRegression.class), new FixedProbability(0d, 1d), false)));
+
+    }
+
     @Test
     public void acquisitionWorks() throws Exception {
 
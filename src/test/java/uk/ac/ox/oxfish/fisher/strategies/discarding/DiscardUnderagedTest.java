@@ -28,12 +28,16 @@ import uk.ac.ox.oxfish.biology.complicated.FromListMeristics;
 import uk.ac.ox.oxfish.biology.complicated.Meristics;
 import uk.ac.ox.oxfish.fisher.Fisher;
 import uk.ac.ox.oxfish.fisher.equipment.Catch;
+import uk.ac.ox.oxfish.fisher.equipment.CatchBuffer;
 import uk.ac.ox.oxfish.geography.SeaTile;
 import uk.ac.ox.oxfish.model.FishState;
 import uk.ac.ox.oxfish.model.regs.Regulation;
 import uk.ac.ox.oxfish.utility.FishStateUtilities;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -84,4 +88,61 @@ public class DiscardUnderagedTest {
                           newCatch.getAbundance(secondSpecies).asMatrix()[FishStateUtilities.FEMALE], .001);
 
     }
-}
\ No newline at end of file
+
+
+    @Test
+    public void bufferedDiscardingKeepsTheSameBins() throws Exception {
+
+        Meristics first = new FromListMeristics(new double[]{100,100,100}, 2);
+        Meristics second = new FromListMeristics(new double[]{100,100},2);
+        Species firstSpecies = new Species("first", first);
+        Species secondSpecies = new Species("second",second);
+        GlobalBiology bio = new GlobalBiology(firstSpecies, secondSpecies);
+        FishState model = mock(FishState.class); when(model.getBiology()).thenReturn(bio);
+
+        CatchBuffer caught = new CatchBuffer();
+        caught.set(new Catch(
+                new double[]{100,10,1}, new double[]{100,0,0},
+                firstSpecies,
+                bio
+        ));
+        CatchBuffer kept = new CatchBuffer();
+        assertTrue(new DiscardUnderaged(1).chooseWhatToKeep(
+                mock(SeaTile.class),
+                mock(Fisher.class),
+                caught,
+                kept,
+                1000,
+                mock(Regulation.class),
+                model,
+                new MersenneTwisterFast()
+        ));
+
+        Catch newCatch = kept.toCatch(bio);
+        assertArrayEquals(new double[]{0,10,1},
+                          newCatch.getAbundance(firstSpecies).asMatrix()[FishStateUtilities.MALE], .001);
+        assertArrayEquals(new double[]{0,0,0},
+                          newCatch.getAbundance(firstSpecies).asMatrix()[FishStateUtilities.FEMALE], .001);
+        assertArrayEquals(new double[]{0,0},
+                          newCatch.getAbundance(secondSpecies).asMatrix()[FishStateUtilities.FEMALE], .001);
+        assertEquals(newCatch.getWeightCaught(firstSpecies), kept.getWeightCaught(firstSpecies), .001);
+
+        //nothing underaged, nothing discarded
+        caught.set(new Catch(
+                new double[]{0,10,1}, new double[]{0,0,0},
+                firstSpecies,
+                bio
+        ));
+        assertFalse(new DiscardUnderaged(1).chooseWhatToKeep(
+                mock(SeaTile.class),
+                mock(Fisher.class),
+                caught,
+                kept,
+                1000,
+                mock(Regulation.class),
+                model,
+                new MersenneTwisterFast()
+        ));
+
+    }
+}
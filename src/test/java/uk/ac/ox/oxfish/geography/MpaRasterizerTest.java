@@ -0,0 +1,105 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2017  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+
+package uk.ac.ox.oxfish.geography;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import org.junit.Test;
+import sim.util.geo.MasonGeometry;
+
+import java.util.BitSet;
+
+import static org.junit.Assert.*;
+import static uk.ac.ox.oxfish.geography.TestUtilities.makeMap;
+
+public class MpaRasterizerTest {
+
+    private static NauticalMap makeSquareMap() {
+        NauticalMap map = makeMap(10, 10, -1);
+        map.getRasterBathymetry().setMBR(new Envelope(0, 10, 0, 10));
+        map.getMpaVectorField().setMBR(new Envelope(0, 10, 0, 10));
+        map.recomputeTilesMPA();
+        return map;
+    }
+
+    private static MasonGeometry triangle() {
+        return new MasonGeometry(new GeometryFactory().createPolygon(new Coordinate[]{
+            new Coordinate(1, 1), new Coordinate(8, 1), new Coordinate(1, 8), new Coordinate(1, 1)
+        }));
+    }
+
+    @Test
+    public void sameCellsAsCoveringQueries() {
+
+        NauticalMap map = makeSquareMap();
+        MasonGeometry mpa = triangle();
+        map.getMpaVectorField().addGeometry(mpa);
+
+        BitSet mask = new MpaRasterizer(map.getRasterBathymetry()).getMask(mpa);
+        int covered = 0;
+        for (int x = 0; x < 10; x++)
+            for (int y = 0; y < 10; y++) {
+                boolean expected = map.getMpaVectorField().getCoveringObjects(
+                    map.getRasterBathymetry().toPoint(x, y)).size() > 0;
+                assertEquals(expected, mask.get(x * 10 + y));
+                if (expected)
+                    covered++;
+            }
+        assertTrue(covered > 0);
+        assertTrue(covered < 100);
+    }
+
+    @Test
+    public void togglingAnMpaOnlyTouchesItsTiles() {
+
+        NauticalMap map = makeSquareMap();
+        MasonGeometry mpa = triangle();
+        map.addMPA(mpa);
+        assertTrue(map.isMPAActive(mpa));
+        assertTrue(map.getSeaTile(2, 7).isProtected());
+        assertSame(mpa, map.getSeaTile(2, 7).grabMPA());
+        assertFalse(map.getSeaTile(8, 8).isProtected());
+
+        //the incremental add gives the same answer as recomputing from scratch
+        boolean[][] protectedTiles = new boolean[10][10];
+        for (int x = 0; x < 10; x++)
+            for (int y = 0; y < 10; y++)
+                protectedTiles[x][y] = map.getSeaTile(x, y).isProtected();
+        map.recomputeTilesMPA();
+        for (int x = 0; x < 10; x++)
+            for (int y = 0; y < 10; y++)
+                assertEquals(protectedTiles[x][y], map.getSeaTile(x, y).isProtected());
+
+        map.setMPAActive(mpa, false);
+        assertFalse(map.isMPAActive(mpa));
+        for (SeaTile tile : map.getAllSeaTilesAsList())
+            assertFalse(tile.isProtected());
+        //stays off when recomputing
+        map.recomputeTilesMPA();
+        assertFalse(map.getSeaTile(2, 7).isProtected());
+
+        map.setMPAActive(mpa, true);
+        for (int x = 0; x < 10; x++)
+            for (int y = 0; y < 10; y++)
+                assertEquals(protectedTiles[x][y], map.getSeaTile(x, y).isProtected());
+    }
+}
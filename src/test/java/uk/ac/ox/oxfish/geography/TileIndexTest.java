@@ -0,0 +1,114 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2017  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+
+package uk.ac.ox.oxfish.geography;
+
+import org.junit.Test;
+import sim.field.grid.Grid2D;
+import sim.field.grid.ObjectGrid2D;
+import sim.util.Bag;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static uk.ac.ox.oxfish.geography.TestUtilities.makeMap;
+
+public class TileIndexTest {
+
+    private static NauticalMap makeCoastMap() {
+        return makeMap(new int[][]{
+            {10, 10, 10, 10},
+            {-1, -1, 10, -1},
+            {-1, -1, -1, -1},
+            {-1, 10, -1, -1}
+        });
+    }
+
+    @Test
+    public void waterTilesComeFirst() {
+
+        NauticalMap map = makeCoastMap();
+        TileIndex index = new TileIndex((ObjectGrid2D) map.getRasterBathymetry().getGrid());
+
+        assertEquals(16, index.size());
+        assertEquals(10, index.getNumberOfWaterTiles());
+        for (int id = 0; id < index.size(); id++) {
+            assertEquals(id, index.getId(index.getTile(id)));
+            assertEquals(index.getTile(id).isWater(), index.isWater(id));
+        }
+        //water list is in grid order, same as the old map lists
+        List<SeaTile> water = index.getWaterTiles();
+        assertEquals(10, water.size());
+        for (int i = 1; i < water.size(); i++) {
+            SeaTile previous = water.get(i - 1);
+            SeaTile current = water.get(i);
+            assertTrue(previous.getGridX() < current.getGridX() ||
+                           (previous.getGridX() == current.getGridX() && previous.getGridY() < current.getGridY()));
+        }
+        assertEquals(-1, index.getId(-1, 0));
+        assertEquals(-1, index.getId(4, 0));
+    }
+
+    @Test
+    public void neighborhoodsAreTheSameMasonReturns() {
+
+        NauticalMap map = makeCoastMap();
+        ObjectGrid2D grid = (ObjectGrid2D) map.getRasterBathymetry().getGrid();
+        TileIndex index = new TileIndex(grid);
+
+        //immediate neighbours of water tiles, as arrays
+        int[] first = index.getFirstNeighbor();
+        int[] neighbors = index.getNeighbors();
+        assertEquals(index.getNumberOfWaterTiles() + 1, first.length);
+        for (int id = 0; id < index.getNumberOfWaterTiles(); id++) {
+            Bag expected = masonNeighbors(grid, index.getTile(id), 1);
+            assertEquals(expected.size(), first[id + 1] - first[id]);
+            for (int k = 0; k < expected.size(); k++)
+                assertSame(expected.get(k), index.getTile(neighbors[first[id] + k]));
+        }
+
+        //and any tile and radius as bags
+        for (int radius = 1; radius <= 3; radius++) {
+            for (int id = 0; id < index.size(); id++) {
+                Bag expected = masonNeighbors(grid, index.getTile(id), radius);
+                Bag bag = index.getMooreNeighbors(id, radius);
+                assertSame(bag, index.getMooreNeighbors(id, radius));
+                assertEquals(expected.size(), bag.size());
+                for (int k = 0; k < expected.size(); k++)
+                    assertSame(expected.get(k), bag.get(k));
+            }
+        }
+    }
+
+    private Bag masonNeighbors(ObjectGrid2D grid, SeaTile tile, int radius) {
+        Bag neighbors = new Bag();
+        grid.getMooreNeighbors(tile.getGridX(), tile.getGridY(), radius,
+                               Grid2D.BOUNDED, false, neighbors, null, null);
+        return neighbors;
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void mapListsCannotBeShuffledInPlace() {
+
+        NauticalMap map = makeCoastMap();
+        assertEquals(10, map.getAllSeaTilesExcludingLandAsList().size());
+        map.getAllSeaTilesExcludingLandAsList().remove(0);
+    }
+}
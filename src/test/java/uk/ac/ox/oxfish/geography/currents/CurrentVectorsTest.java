@@ -12,6 +12,8 @@ import java.util.TreeMap;
 
 import static java.util.stream.IntStream.range;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static uk.ac.ox.oxfish.Main.STEPS_PER_DAY;
 import static uk.ac.ox.oxfish.geography.currents.CurrentPattern.NEUTRAL;
 import static uk.ac.ox.oxfish.geography.currents.CurrentVectors.getInterpolatedVector;
@@ -78,4 +80,34 @@ public class CurrentVectorsTest {
             assertEquals(expectedVectors.get(i), currentVectors.getVector(i, seaTile));
         });
     }
-}
\ No newline at end of file
+
+    @Test public void fieldsMissTilesMissingOnEitherSide() {
+        final SeaTile both = new SeaTile(0, 0, 0, null);
+        final SeaTile onlyBefore = new SeaTile(1, 2, 0, null);
+        final TreeMap<Integer, EnumMap<CurrentPattern, Map<SeaTile, Double2D>>> vectorMaps = new TreeMap<>();
+        vectorMaps.put(1, new EnumMap<>(ImmutableMap.of(NEUTRAL, ImmutableMap.of(
+            both, new Double2D(0, 0),
+            onlyBefore, new Double2D(1, 1)
+        ))));
+        vectorMaps.put(5, new EnumMap<>(ImmutableMap.of(NEUTRAL, ImmutableMap.of(both, new Double2D(0, 1)))));
+        final CurrentVectors currentVectors = new CurrentVectors(vectorMaps, __ -> NEUTRAL, 1, true);
+
+        // on a keyed day we get exactly what we were given
+        assertEquals(new Double2D(1, 1), currentVectors.getVector(0, onlyBefore));
+        final CurrentField field = currentVectors.getField(2);
+        assertEquals(2, field.getWidth());
+        assertEquals(3, field.getHeight());
+        assertEquals(new Double2D(0, 0.5), field.getVector(0, 0));
+        assertFalse(field.hasVector(1, 2));
+        assertNull(currentVectors.getVector(2, onlyBefore));
+        // outside of the tiles we know about
+        assertFalse(field.hasVector(5, 5));
+        assertFalse(field.hasVector(-1, 0));
+        // prefetched (or not) steps are the same as computing them on the spot
+        assertEquals(new Double2D(0, 0.75), currentVectors.getVector(3, both));
+        currentVectors.turnOff();
+        // and after turning off
+        assertEquals(new Double2D(0, 0.25), currentVectors.getVector(1, both));
+        currentVectors.turnOff();
+    }
+}
@@ -0,0 +1,106 @@
+package uk.ac.ox.oxfish.geography.fads;
+
+import org.junit.Test;
+import sim.field.continuous.Continuous2D;
+import sim.util.Bag;
+import sim.util.Double2D;
+import sim.util.Int2D;
+import uk.ac.ox.oxfish.geography.NauticalMap;
+import uk.ac.ox.oxfish.geography.currents.CurrentVectors;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static uk.ac.ox.oxfish.fisher.equipment.fads.TestUtilities.makeUniformCurrentVectors;
+import static uk.ac.ox.oxfish.geography.TestUtilities.makeMap;
+
+public class DriftingObjectsMapTest {
+
+    @Test
+    public void driftFollowsPathsAndKeepsMasonOrder() {
+
+        final NauticalMap nauticalMap = makeMap(new int[][]{
+            {-1, -1, -1, -1, -1},
+            {-1, -1, -1, -1, -1},
+            {-1, -1, -1, -1, -1},
+            {-1, -1, -1, -1, -1},
+            {-1, -1, -1, -1, -1}
+        });
+        final CurrentVectors currentVectors =
+            makeUniformCurrentVectors(nauticalMap, new Double2D(0.4, 0.3), 1);
+        final DriftingObjectsMap driftingObjectsMap = new DriftingObjectsMap(currentVectors, nauticalMap);
+
+        final List<Object> removed = new ArrayList<>();
+        final Double2D[] deployments = {
+            new Double2D(0.5, 0.5), new Double2D(4.5, 0.5), new Double2D(2.5, 2.5),
+            new Double2D(0.5, 4.5), new Double2D(1.2, 1.9), new Double2D(3.9, 3.1)
+        };
+        final List<Object> objects = new ArrayList<>();
+        for (int i = 0; i < deployments.length; i++) {
+            final Object object = "object " + i;
+            objects.add(object);
+            driftingObjectsMap.add(object, 0, deployments[i], (oldLoc, newLoc) -> {
+                if (!newLoc.isPresent()) removed.add(object);
+            });
+            // the MASON field is only built halfway through and must catch up
+            if (i == 2) driftingObjectsMap.getField();
+        }
+        assertSameAsField(driftingObjectsMap, nauticalMap);
+
+        for (int step = 1; step <= 6; step++) {
+            final Map<Object, Optional<Double2D>> expected = new HashMap<>();
+            final int nextStep = step;
+            driftingObjectsMap.objects().forEach(o ->
+                expected.put(o, driftingObjectsMap.getObjectPath(o).position(nextStep))
+            );
+            driftingObjectsMap.applyDrift(step);
+            expected.forEach((o, location) -> {
+                assertEquals(location.orElse(null), driftingObjectsMap.getObjectLocation(o));
+                assertEquals(!location.isPresent(), removed.contains(o));
+            });
+            assertSameAsField(driftingObjectsMap, nauticalMap);
+        }
+        assertFalse(removed.isEmpty());
+
+        final Object survivor = driftingObjectsMap.objects().findFirst().get();
+        driftingObjectsMap.remove(survivor);
+        assertTrue(removed.contains(survivor));
+        assertNull(driftingObjectsMap.getObjectLocation(survivor));
+        assertSameAsField(driftingObjectsMap, nauticalMap);
+        assertEquals(objects.size(), removed.size() + driftingObjectsMap.size());
+    }
+
+    private static void assertSameAsField(DriftingObjectsMap driftingObjectsMap, NauticalMap nauticalMap) {
+        final Continuous2D field = driftingObjectsMap.getField();
+        assertEquals(
+            asList(field.allObjects),
+            driftingObjectsMap.objects().collect(Collectors.toList())
+        );
+        driftingObjectsMap.objects().forEach(o ->
+            assertEquals(field.getObjectLocation(o), driftingObjectsMap.getObjectLocation(o))
+        );
+        for (int x = 0; x < nauticalMap.getWidth(); x++)
+            for (int y = 0; y < nauticalMap.getHeight(); y++)
+                assertEquals(
+                    asList(field.getObjectsAtDiscretizedLocation(new Int2D(x, y))),
+                    asList(driftingObjectsMap.getObjectsInCell(x, y))
+                );
+    }
+
+    private static List<Object> asList(Bag bag) {
+        final List<Object> list = new ArrayList<>();
+        if (bag != null)
+            for (int i = 0; i < bag.numObjs; i++)
+                list.add(bag.objs[i]);
+        return list;
+    }
+
+}
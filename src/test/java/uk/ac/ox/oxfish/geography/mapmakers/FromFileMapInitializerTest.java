@@ -8,10 +8,12 @@ import uk.ac.ox.oxfish.biology.Species;
 import uk.ac.ox.oxfish.geography.NauticalMap;
 import uk.ac.ox.oxfish.model.FishState;
 
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static uk.ac.ox.oxfish.geography.mapmakers.FromFileMapInitializerFactory.DEFAULT_MAP_PADDING_IN_DEGREES;
 
@@ -53,4 +55,33 @@ public class FromFileMapInitializerTest {
         assertEquals(map.getSeaTile(0,0).getAltitude(),-6,.0001);
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void cachedMapIsTheSame() throws Exception {
+        Path path = Paths.get("inputs", "tests", "map.csv");
+        Path cacheDirectory = Files.createTempDirectory("maps");
+        NauticalMap original = new FromFileMapInitializer(
+                path, 2, DEFAULT_MAP_PADDING_IN_DEGREES, true, false, cacheDirectory
+        ).makeMap(new MersenneTwisterFast(), new GlobalBiology(mock(Species.class)), mock(FishState.class));
+        Path cacheFile = BinaryMapCache.cacheFile(cacheDirectory, path, BinaryMapCache.hashSource(path), 2);
+        assertTrue(Files.exists(cacheFile));
+
+        //second time around it's read from the cache
+        NauticalMap cached = new FromFileMapInitializer(
+                path, 2, DEFAULT_MAP_PADDING_IN_DEGREES, true, false, cacheDirectory
+        ).makeMap(new MersenneTwisterFast(), new GlobalBiology(mock(Species.class)), mock(FishState.class));
+        assertEquals(original.getWidth(), cached.getWidth());
+        assertEquals(original.getHeight(), cached.getHeight());
+        assertEquals(original.getRasterBathymetry().getMBR(), cached.getRasterBathymetry().getMBR());
+        for (int x = 0; x < original.getWidth(); x++)
+            for (int y = 0; y < original.getHeight(); y++)
+                assertEquals(original.getSeaTile(x, y).getAltitude(), cached.getSeaTile(x, y).getAltitude(), 0d);
+        assertEquals(cached.getSeaTile(0, 1), cached.getSeaTile(new Coordinate(3, 3)));
+
+        //a different padding does not use the same cache
+        assertEquals(null, BinaryMapCache.read(cacheFile, BinaryMapCache.hashSource(path), 2, 1, true));
+
+        Files.delete(cacheFile);
+        Files.delete(cacheDirectory);
+    }
+}
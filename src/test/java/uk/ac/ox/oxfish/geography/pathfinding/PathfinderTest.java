@@ -27,6 +27,7 @@ import uk.ac.ox.oxfish.geography.NauticalMap;
 import uk.ac.ox.oxfish.geography.SeaTile;
 
 import java.util.Deque;
+import java.util.Random;
 
 import static com.google.common.collect.Iterables.elementsEqual;
 import static org.junit.Assert.*;
@@ -137,7 +138,70 @@ public class PathfinderTest {
         final SeaTile end = impassableMap.getSeaTile(0, 2);
         assertNull(fallbackPathfinder.getRoute(impassableMap, start, end));
         assertNull(aStarPathfinder.getRoute(impassableMap, start, end));
+        assertNull(new IndexedAStarPathfinder(distance).getRoute(impassableMap, start, end));
         assertNotNull(straightLinePathfinder.getRoute(impassableMap, start, end));
     }
 
+
+    @Test
+    public void indexedAStarMatchesAStar() {
+
+        //a coast with an island in the middle and a port on the right side
+        NauticalMap map = makeMap(new int[][]{
+            {-1, -1, -1, -1, -1, 10},
+            {-1, 10, 10, -1, -1, 10},
+            {-1, 10, 10, 10, -1, 10},
+            {-1, -1, -1, 10, -1, 10},
+            {-1, -1, -1, -1, -1, 10}
+        });
+
+        assertSameRoutes(map);
+    }
+
+    @Test
+    public void indexedAStarMatchesAStarOnARaggedCoast() {
+
+        //lots of equally long routes to choose from: both pathfinders must pick the same one
+        final Random random = new Random(42);
+        final int[][] altitudes = new int[20][20];
+        for (int x = 0; x < 20; x++)
+            for (int y = 0; y < 20; y++)
+                altitudes[x][y] = y > 15 || random.nextDouble() < .2 ? 10 : -1;
+        assertSameRoutes(makeMap(altitudes));
+    }
+
+    private static void assertSameRoutes(NauticalMap map) {
+        final CartesianDistance distance = new CartesianDistance(1);
+        final AStarPathfinder aStarPathfinder = new AStarPathfinder(distance);
+        final IndexedAStarPathfinder indexedPathfinder = new IndexedAStarPathfinder(distance);
+
+        for (SeaTile start : map.getAllSeaTilesExcludingLandAsList())
+            for (SeaTile end : map.getAllSeaTilesAsList()) {
+                if (start == end || (end.isLand() && !map.isCoastal(end)))
+                    continue;
+                final Deque<SeaTile> expected = aStarPathfinder.getRoute(map, start, end);
+                final Deque<SeaTile> route = indexedPathfinder.getRoute(map, start, end);
+                if (expected == null) {
+                    assertNull(route);
+                    continue;
+                }
+                assertTrue(elementsEqual(expected, route));
+                assertEquals(routeLength(expected, distance, map), routeLength(route, distance, map), .0001);
+                //never crosses land, except to reach the destination
+                route.pollLast();
+                assertTrue(route.stream().allMatch(SeaTile::isWater));
+            }
+    }
+
+    private static double routeLength(Deque<SeaTile> route, CartesianDistance distance, NauticalMap map) {
+        double length = 0;
+        SeaTile previous = null;
+        for (SeaTile step : route) {
+            if (previous != null)
+                length += distance.distance(previous, step, map);
+            previous = step;
+        }
+        return length;
+    }
+
 }
\ No newline at end of file
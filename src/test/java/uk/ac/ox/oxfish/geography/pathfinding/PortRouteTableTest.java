@@ -0,0 +1,153 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2019  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+
+package uk.ac.ox.oxfish.geography.pathfinding;
+
+import org.junit.Test;
+import uk.ac.ox.oxfish.biology.GlobalBiology;
+import uk.ac.ox.oxfish.geography.CartesianDistance;
+import uk.ac.ox.oxfish.geography.NauticalMap;
+import uk.ac.ox.oxfish.geography.SeaTile;
+import uk.ac.ox.oxfish.geography.ports.Port;
+import uk.ac.ox.oxfish.model.market.MarketMap;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Deque;
+
+import static org.junit.Assert.*;
+import static uk.ac.ox.oxfish.geography.TestUtilities.makeMap;
+
+public class PortRouteTableTest {
+
+
+    private static NauticalMap makeIslandMap() {
+        //two ports on the left coast and an island in the middle
+        NauticalMap map = makeMap(new int[][]{
+            {10, 10, 10, 10, 10},
+            {-1, -1, -1, -1, -1},
+            {-1, 10, 10, -1, -1},
+            {-1, 10, -1, -1, -1},
+            {-1, -1, -1, -1, 10}
+        });
+        map.addPort(new Port("north", map.getSeaTile(0, 0), new MarketMap(new GlobalBiology()), 0));
+        map.addPort(new Port("south", map.getSeaTile(0, 4), new MarketMap(new GlobalBiology()), 0));
+        return map;
+    }
+
+    @Test
+    public void tableRoutesAreAsShortAsAStar() {
+
+        NauticalMap map = makeIslandMap();
+        CartesianDistance distance = new CartesianDistance(1);
+        PortRouteTable table = PortRouteTable.build(map, distance);
+        AStarPathfinder star = new AStarPathfinder(distance);
+
+        for (Port port : map.getPorts())
+            for (SeaTile tile : map.getAllSeaTilesAsList()) {
+                if (tile == port.getLocation() || (tile.isLand() && !map.isCoastal(tile)))
+                    continue;
+                Deque<SeaTile> expected = star.getRoute(map, port.getLocation(), tile);
+                Deque<SeaTile> route = table.getRoute(port, tile);
+                if (expected == null) {
+                    assertNull(route);
+                    assertTrue(Double.isInfinite(table.getDistance(port, tile)));
+                    continue;
+                }
+                assertEquals(port.getLocation(), route.peekFirst());
+                assertEquals(tile, route.peekLast());
+                double length = routeLength(expected, distance, map);
+                assertEquals(length, routeLength(route, distance, map), .0001);
+                assertEquals(length, table.getDistance(port, tile), .0001);
+            }
+
+        //port to port works too (diagonally off the coast, down two tiles, diagonally back in)
+        assertEquals(2 + 2 * Math.sqrt(2), table.getDistance(map.getPorts().get(0), map.getSeaTile(0, 4)), .0001);
+    }
+
+    @Test
+    public void pathfinderUsesTableForPortsOnly() {
+
+        NauticalMap map = makeIslandMap();
+        map.setPathfinder(new AStarPathfinder(new CartesianDistance(1)));
+        map.precomputePortRoutes(null);
+        assertTrue(map.getPathfinder() instanceof PortRoutesPathfinder);
+
+        SeaTile port = map.getSeaTile(0, 0);
+        SeaTile target = map.getSeaTile(3, 3);
+        Deque<SeaTile> outbound = map.getRoute(port, target);
+        Deque<SeaTile> inbound = map.getRoute(target, port);
+        assertEquals(port, outbound.peekFirst());
+        assertEquals(target, outbound.peekLast());
+        assertEquals(target, inbound.peekFirst());
+        assertEquals(port, inbound.peekLast());
+        assertEquals(outbound.size(), inbound.size());
+
+        //routes not involving ports still go through A*
+        Deque<SeaTile> seaRoute = map.getRoute(map.getSeaTile(1, 0), map.getSeaTile(4, 0));
+        assertEquals(4, seaRoute.size());
+    }
+
+    @Test
+    public void writesAndReadsBack() throws Exception {
+
+        NauticalMap map = makeIslandMap();
+        CartesianDistance distance = new CartesianDistance(1);
+        Path directory = Files.createTempDirectory("port_routes");
+
+        PortRouteTable built = PortRouteTable.loadOrBuild(map, distance, directory);
+        Path file = PortRouteTable.cacheFile(directory, map, distance);
+        assertTrue(Files.exists(file));
+
+        PortRouteTable read = PortRouteTable.read(file, map);
+        assertTrue(read.isValidFor(map, distance));
+        for (Port port : map.getPorts())
+            for (SeaTile tile : map.getAllSeaTilesExcludingLandAsList()) {
+                assertEquals(built.getDistance(port, tile), read.getDistance(port, tile), .0001);
+                assertEquals(built.getRoute(port, tile), read.getRoute(port, tile));
+            }
+
+        //a different map doesn't pick up the old file
+        NauticalMap other = makeMap(new int[][]{
+            {10, -1},
+            {-1, -1}
+        });
+        other.addPort(new Port("other", other.getSeaTile(0, 0), new MarketMap(new GlobalBiology()), 0));
+        assertNotEquals(file, PortRouteTable.cacheFile(directory, other, distance));
+        //and neither does the same kind of distance with different parameters
+        assertNotEquals(file, PortRouteTable.cacheFile(directory, map, new CartesianDistance(2)));
+        assertFalse(read.isValidFor(map, new CartesianDistance(2)));
+        assertEquals(file, PortRouteTable.cacheFile(directory, map, new CartesianDistance(1)));
+
+        Files.delete(file);
+        Files.delete(directory);
+    }
+
+    private static double routeLength(Deque<SeaTile> route, CartesianDistance distance, NauticalMap map) {
+        double length = 0;
+        SeaTile previous = null;
+        for (SeaTile step : route) {
+            if (previous != null)
+                length += distance.distance(previous, step, map);
+            previous = step;
+        }
+        return length;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2017  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+
+package uk.ac.ox.oxfish.maximization;
+
+import org.junit.Test;
+import uk.ac.ox.oxfish.model.scenario.PrototypeScenario;
+import uk.ac.ox.oxfish.utility.yaml.FishYAML;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+public class GenericOptimizationTest {
+
+
+    @Test
+    public void replicatesRunInParallelAndSlowRunsAreStopped() throws Exception {
+
+        Path scenarioFile = Files.createTempFile("prototype", ".yaml");
+        PrototypeScenario scenario = new PrototypeScenario();
+        scenario.setFishers(5);
+        Files.write(scenarioFile, new FishYAML().dump(scenario).getBytes());
+
+        GenericOptimization optimization = new GenericOptimization();
+        optimization.setScenarioFile(scenarioFile.toString());
+        optimization.setParameters(new LinkedList<>());
+        optimization.setTargets(new LinkedList<>());
+        optimization.setSimulatedYears(1);
+        optimization.setRunsPerSetting(3);
+        optimization.setParallelReplicates(2);
+
+        //no targets, no error
+        assertEquals(0, optimization.evaluate(new double[0])[0], .0001);
+
+        //the scenario is read once: deleting the file doesn't matter anymore
+        Files.delete(scenarioFile);
+        optimization.setMaxMinutesPerRun(.000001);
+        assertEquals(optimization.getTranslateNANto(), optimization.evaluate(new double[0])[0], .0001);
+
+    }
+
+
+    @Test
+    public void eachCandidateGetsItsOwnCopyOfTheParsedScenario() throws Exception {
+
+        Path scenarioFile = Files.createTempFile("prototype", ".yaml");
+        PrototypeScenario scenario = new PrototypeScenario();
+        scenario.setFishers(5);
+        FishYAML yaml = new FishYAML();
+        Files.write(scenarioFile, yaml.dump(scenario).getBytes());
+
+        GenericOptimization optimization = new GenericOptimization();
+        optimization.setScenarioFile(scenarioFile.toString());
+        optimization.setParameters(new LinkedList<>());
+
+        PrototypeScenario first = (PrototypeScenario) optimization.buildScenario(new double[0]);
+        Files.delete(scenarioFile);
+        PrototypeScenario second = (PrototypeScenario) optimization.buildScenario(new double[0]);
+
+        assertNotSame(first, second);
+        assertNotSame(first.getFishingStrategy(), second.getFishingStrategy());
+        assertEquals(yaml.dump(scenario), yaml.dump(first));
+        assertEquals(yaml.dump(scenario), yaml.dump(second));
+
+        //changing a copy leaves the others alone
+        first.setFishers(100);
+        assertEquals(5, second.getFishers());
+        assertEquals(5, ((PrototypeScenario) optimization.buildScenario(new double[0])).getFishers());
+
+    }
+}
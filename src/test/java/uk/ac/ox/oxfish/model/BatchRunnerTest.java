@@ -0,0 +1,101 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2017  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+
+package uk.ac.ox.oxfish.model;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+import uk.ac.ox.oxfish.model.scenario.PrototypeScenario;
+import uk.ac.ox.oxfish.utility.yaml.FishYAML;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BatchRunnerTest {
+
+
+    @Test
+    public void parallelRunsGiveTheSameOutputAsSequentialOnes() throws Exception {
+
+        Path directory = Files.createTempDirectory("batch");
+        Path scenarioFile = directory.resolve("prototype.yaml");
+        PrototypeScenario scenario = new PrototypeScenario();
+        scenario.setFishers(20);
+        Files.write(scenarioFile, new FishYAML().dump(scenario).getBytes());
+
+        BatchRunner sequential = new BatchRunner(scenarioFile, 1,
+                                                 Lists.newArrayList("Average Cash-Flow", "Species 0 Landings"),
+                                                 null, null, 10, -1);
+        StringBuffer sequentialOutput = new StringBuffer();
+        for (int run = 0; run < 3; run++)
+            sequential.run(sequentialOutput);
+
+        BatchRunner parallel = new BatchRunner(scenarioFile, 1,
+                                               Lists.newArrayList("Average Cash-Flow", "Species 0 Landings"),
+                                               null, null, 10, -1);
+        StringBuffer parallelOutput = parallel.runInParallel(3, 2, new StringBuffer());
+
+        assertEquals(3, parallel.getRunsDone());
+        assertEquals(sequentialOutput.toString(), parallelOutput.toString());
+
+        Files.delete(scenarioFile);
+        Files.delete(directory);
+    }
+
+    @Test
+    public void fisherThreadsStepTheFishersInParallel() throws Exception {
+
+        Path directory = Files.createTempDirectory("batch");
+        Path scenarioFile = directory.resolve("prototype.yaml");
+        PrototypeScenario scenario = new PrototypeScenario();
+        scenario.setFishers(20);
+        Files.write(scenarioFile, new FishYAML().dump(scenario).getBytes());
+
+        List<Boolean> parallelPhase = Collections.synchronizedList(new ArrayList<>());
+        StringBuffer[] outputs = new StringBuffer[2];
+        int[] threads = {1, 3};
+        for (int i = 0; i < 2; i++) {
+            BatchRunner runner = new BatchRunner(scenarioFile, 1,
+                                                 Lists.newArrayList("Average Cash-Flow", "Species 0 Landings"),
+                                                 null, null, 10, -1);
+            runner.setFisherThreads(threads[i]);
+            runner.getModelInterruptors().add(model -> {
+                parallelPhase.add(model.getParallelFisherPhase() != null);
+                return false;
+            });
+            outputs[i] = runner.run(new StringBuffer());
+        }
+
+        assertFalse(parallelPhase.isEmpty());
+        assertTrue(parallelPhase.stream().allMatch(Boolean::booleanValue));
+        //same seed, same run whatever the number of threads
+        assertEquals(outputs[0].toString(), outputs[1].toString());
+
+        Files.delete(scenarioFile);
+        Files.delete(directory);
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2017  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+
+package uk.ac.ox.oxfish.model;
+
+import ec.util.MersenneTwisterFast;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import uk.ac.ox.oxfish.biology.GlobalBiology;
+import uk.ac.ox.oxfish.biology.Species;
+import uk.ac.ox.oxfish.biology.initializer.factory.SingleSpeciesAbundanceFactory;
+import uk.ac.ox.oxfish.fisher.Fisher;
+import uk.ac.ox.oxfish.fisher.equipment.Catch;
+import uk.ac.ox.oxfish.fisher.equipment.CatchBuffer;
+import uk.ac.ox.oxfish.fisher.equipment.gear.factory.SimpleLogisticGearFactory;
+import uk.ac.ox.oxfish.geography.SeaTile;
+import uk.ac.ox.oxfish.model.data.collectors.DataColumn;
+import uk.ac.ox.oxfish.model.data.collectors.FisherDailyTimeSeries;
+import uk.ac.ox.oxfish.model.market.AbstractMarket;
+import uk.ac.ox.oxfish.model.plugins.ParallelFishersFactory;
+import uk.ac.ox.oxfish.model.scenario.PrototypeScenario;
+import uk.ac.ox.oxfish.utility.parameters.FixedDoubleParameter;
+import uk.ac.ox.oxfish.utility.yaml.FishYAML;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.*;
+
+public class BatchedFishingTest {
+
+
+    @Test
+    public void proportionalShareReactsOnce() throws Exception {
+
+        GlobalBiology biology = new GlobalBiology(new Species("A"));
+        FishState state = mock(FishState.class);
+        when(state.getBiology()).thenReturn(biology);
+        SeaTile tile = mock(SeaTile.class);
+        when(tile.isWater()).thenReturn(true);
+        when(tile.getBiomass(any())).thenReturn(100d);
+
+        //both would catch 60 alone, but there are only 100 here
+        Fisher first = fisherCatching(tile, 60);
+        Fisher second = fisherCatching(tile, 60);
+
+        BatchedFishing batchedFishing = new BatchedFishing(BatchedFishing.ConflictRule.PROPORTIONAL_SHARE);
+        batchedFishing.request(first, 1, state);
+        batchedFishing.request(second, 1, state);
+        assertEquals(2, batchedFishing.getNumberOfRequests());
+        assertTrue(batchedFishing.isWaitingForCatch(first));
+        batchedFishing.resolve(state, new ForkJoinPool(2));
+        assertEquals(0, batchedFishing.getNumberOfRequests());
+        assertFalse(batchedFishing.isWaitingForCatch(first));
+
+        ArgumentCaptor<Catch> reacted = ArgumentCaptor.forClass(Catch.class);
+        verify(tile, times(1)).reactToThisAmountOfBiomassBeingFished(reacted.capture(), any(), eq(biology));
+        assertEquals(100, reacted.getValue().getTotalWeight(), .0001);
+        assertEquals(50, hauled(first, biology).getTotalWeight(), .0001);
+        assertEquals(50, hauled(second, biology).getTotalWeight(), .0001);
+
+    }
+
+    @Test
+    public void sequentialFishesRightAway() throws Exception {
+
+        GlobalBiology biology = new GlobalBiology(new Species("A"));
+        FishState state = mock(FishState.class);
+        when(state.getBiology()).thenReturn(biology);
+        SeaTile tile = mock(SeaTile.class);
+        when(tile.isWater()).thenReturn(true);
+
+        Fisher first = fisherCatching(tile, 60);
+        Fisher second = fisherCatching(tile, 30);
+
+        //the catch needs to be in the hold before the fisher decides anything else: nothing to batch
+        BatchedFishing batchedFishing = new BatchedFishing(BatchedFishing.ConflictRule.SEQUENTIAL_IN_RANDOM_ORDER);
+        batchedFishing.request(first, 1, state);
+        verify(first).fishHere(biology, 1, state);
+        verify(second, never()).fishHere(any(), anyInt(), any());
+        batchedFishing.request(second, 1, state);
+        verify(second).fishHere(biology, 1, state);
+        assertEquals(0, batchedFishing.getNumberOfRequests());
+        assertFalse(batchedFishing.isWaitingForCatch(first));
+
+    }
+
+    @Test
+    public void batchedSequentialIsFishingImmediately() throws Exception {
+
+        FishState immediate = prototype(null, 1);
+        FishState sequential = prototype(BatchedFishing.ConflictRule.SEQUENTIAL_IN_RANDOM_ORDER, 1);
+        for (int i = 0; i < 200; i++) {
+            immediate.schedule.step(immediate);
+            sequential.schedule.step(sequential);
+        }
+        Species species = immediate.getBiology().getSpecie(0);
+        assertEquals(landings(immediate), landings(sequential));
+        assertTrue(landings(immediate).stream().mapToDouble(Double::doubleValue).sum() > 0);
+        assertEquals(immediate.getTotalBiomass(species),
+                     sequential.getTotalBiomass(sequential.getBiology().getSpecie(0)), 0);
+        immediate.finish();
+        sequential.finish();
+
+    }
+
+    @Test
+    public void proportionalShareFishersSeeTheirCatchBeforeActingAgain() throws Exception {
+
+        //every fisher is done with its step, catch in the hold, by the time the phase is over
+        FishState state = prototype(BatchedFishing.ConflictRule.PROPORTIONAL_SHARE, 2);
+        for (int i = 0; i < 200; i++) {
+            state.schedule.step(state);
+            assertEquals(0, state.getBatchedFishing().getNumberOfRequests());
+            for (Fisher fisher : state.getFishers()) {
+                assertFalse(fisher.hasStepLeft());
+                assertFalse(state.getBatchedFishing().isWaitingForCatch(fisher));
+            }
+        }
+        double proportional = landings(state).stream().mapToDouble(Double::doubleValue).sum();
+        state.finish();
+
+        //so it lands about as much as fishing immediately (it used to lag a quarter behind)
+        state = prototype(null, 1);
+        for (int i = 0; i < 200; i++)
+            state.schedule.step(state);
+        double immediate = landings(state).stream().mapToDouble(Double::doubleValue).sum();
+        state.finish();
+        assertTrue(immediate > 0);
+        assertEquals(immediate, proportional, immediate * .05);
+
+    }
+
+    @Test
+    public void parallelTilesFishLikeSerialTiles() throws Exception {
+
+        //abundance gears with memoized selectivity filters, tiles fished in parallel or one by one
+        List<Double> serial = abundanceLandings(1);
+        assertEquals(serial, abundanceLandings(4));
+        assertTrue(serial.stream().mapToDouble(Double::doubleValue).sum() > 0);
+
+    }
+
+    @Test
+    public void pluginBatchesTheScenarioFishing() throws Exception {
+
+        ParallelFishersFactory plugin = new ParallelFishersFactory();
+        plugin.setThreads(2);
+        plugin.setBatchedFishingRule(BatchedFishing.ConflictRule.PROPORTIONAL_SHARE);
+        PrototypeScenario scenario = new PrototypeScenario();
+        scenario.getPlugins().add(plugin);
+        //through yaml, like a scenario file would
+        FishYAML yaml = new FishYAML();
+        scenario = yaml.loadAs(yaml.dump(scenario), PrototypeScenario.class);
+
+        FishState state = new FishState(42);
+        state.setScenario(scenario);
+        state.start();
+        assertEquals(2, state.getParallelFisherThreads());
+        assertEquals(BatchedFishing.ConflictRule.PROPORTIONAL_SHARE, state.getBatchedFishing().getRule());
+        for (int i = 0; i < 100; i++)
+            state.schedule.step(state);
+        assertEquals(landings(2), landings(state));
+        state.finish();
+
+    }
+
+    @Test
+    public void sameSeedSameRunWhateverTheThreads() throws Exception {
+
+        List<Double> oneThread = landings(1);
+        assertEquals(oneThread, landings(4));
+        assertTrue(oneThread.stream().mapToDouble(Double::doubleValue).sum() > 0);
+
+    }
+
+    private Fisher fisherCatching(SeaTile tile, double pounds) {
+        Fisher fisher = mock(Fisher.class);
+        when(fisher.getLocation()).thenReturn(tile);
+        when(fisher.grabRandomizer()).thenReturn(new MersenneTwisterFast());
+        CatchBuffer buffer = new CatchBuffer();
+        when(fisher.catchHere(any(), any(), anyInt(), any())).then(invocation -> {
+            buffer.set(new Catch(new double[]{pounds}));
+            return buffer;
+        });
+        //keeps everything
+        when(fisher.keepFromCatchBuffer(any(), anyInt(), any(), any())).then(
+            invocation -> buffer.toCatch(invocation.getArgument(2)));
+        return fisher;
+    }
+
+    private Catch hauled(Fisher fisher, GlobalBiology biology) {
+        ArgumentCaptor<Catch> hauled = ArgumentCaptor.forClass(Catch.class);
+        verify(fisher).haulCatch(eq(biology), eq(1), any(), hauled.capture(), any(), any());
+        return hauled.getValue();
+    }
+
+    private List<Double> landings(int threads) {
+        FishState state = prototype(BatchedFishing.ConflictRule.PROPORTIONAL_SHARE, threads);
+        for (int i = 0; i < 100; i++)
+            state.schedule.step(state);
+        List<Double> landings = landings(state);
+        state.finish();
+        return landings;
+    }
+
+    private List<Double> abundanceLandings(int threads) {
+        FishState state = new FishState(42);
+        PrototypeScenario scenario = new PrototypeScenario();
+        scenario.setBiologyInitializer(new SingleSpeciesAbundanceFactory());
+        SimpleLogisticGearFactory gear = new SimpleLogisticGearFactory();
+        gear.setAverageCatchability(new FixedDoubleParameter(.1));
+        scenario.setGear(gear);
+        state.setScenario(scenario);
+        state.setParallelFisherThreads(threads);
+        state.setBatchedFishingRule(BatchedFishing.ConflictRule.PROPORTIONAL_SHARE);
+        state.start();
+        for (int i = 0; i < 100; i++)
+            state.schedule.step(state);
+        List<Double> landings = landings(state);
+        state.finish();
+        return landings;
+    }
+
+    private FishState prototype(BatchedFishing.ConflictRule rule, int threads) {
+        FishState state = new FishState(42);
+        state.setScenario(new PrototypeScenario());
+        state.setParallelFisherThreads(threads);
+        state.setBatchedFishingRule(rule);
+        state.start();
+        return state;
+    }
+
+    private List<Double> landings(FishState state) {
+        DataColumn column = state.getDailyDataSet().getColumn(
+                state.getBiology().getSpecie(0) + " " + AbstractMarket.LANDINGS_COLUMN_NAME);
+        List<Double> landings = new ArrayList<>();
+        for (Double landing : column)
+            landings.add(landing);
+        return landings;
+    }
+}
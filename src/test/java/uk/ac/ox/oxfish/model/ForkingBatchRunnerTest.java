@@ -0,0 +1,80 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2017  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+
+package uk.ac.ox.oxfish.model;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+import uk.ac.ox.oxfish.fisher.Fisher;
+import uk.ac.ox.oxfish.model.regs.FishingSeason;
+import uk.ac.ox.oxfish.model.scenario.PrototypeScenario;
+import uk.ac.ox.oxfish.utility.yaml.FishYAML;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ForkingBatchRunnerTest {
+
+
+    @Test
+    public void untouchedBranchIsTheSameAsAStraightRun() throws Exception {
+
+        Path directory = Files.createTempDirectory("fork");
+        Path scenarioFile = directory.resolve("prototype.yaml");
+        PrototypeScenario scenario = new PrototypeScenario();
+        scenario.setFishers(20);
+        Files.write(scenarioFile, new FishYAML().dump(scenario).getBytes());
+        List<String> columns = Lists.newArrayList("Species 0 Landings");
+
+        //two years in one go
+        BatchRunner straight = new BatchRunner(scenarioFile, 2, columns, null, null, 10, -1);
+        String straightOutput = straight.run(new StringBuffer()).toString();
+
+        //one year of spin-up, one of policy
+        ForkingBatchRunner fork = new ForkingBatchRunner(scenarioFile, 1, 1, columns, null, 10);
+        fork.addBranch("BAU", model -> {
+        });
+        fork.addBranch("closed", model -> {
+            for (Fisher fisher : model.getFishers())
+                fisher.setRegulation(new FishingSeason(true, 0));
+        });
+        fork.setThreads(2);
+        String[] forkOutput = fork.run(new StringBuffer()).toString().split("\n");
+
+        assertEquals(4, forkOutput.length);
+        String[] straightLines = straightOutput.split("\n");
+        assertEquals(straightLines[0].replaceFirst("0,", "BAU,"), forkOutput[0]);
+        assertEquals(straightLines[1].replaceFirst("0,", "BAU,"), forkOutput[1]);
+        //same spin-up
+        assertEquals(forkOutput[0].replaceFirst("BAU,", "closed,"), forkOutput[2]);
+        //but no fishing afterwards
+        double bauLandings = Double.parseDouble(forkOutput[1].split(",")[3]);
+        double closedLandings = Double.parseDouble(forkOutput[3].split(",")[3]);
+        assertTrue(bauLandings > 0);
+        assertTrue(closedLandings < bauLandings * .1);
+
+        Files.delete(scenarioFile);
+        Files.delete(directory);
+    }
+}
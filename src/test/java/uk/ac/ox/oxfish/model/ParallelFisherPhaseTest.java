@@ -0,0 +1,173 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2017  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+
+package uk.ac.ox.oxfish.model;
+
+import ec.util.MersenneTwisterFast;
+import org.junit.Test;
+import uk.ac.ox.oxfish.fisher.Fisher;
+import uk.ac.ox.oxfish.fisher.actions.Action;
+import uk.ac.ox.oxfish.fisher.strategies.destination.DestinationStrategy;
+import uk.ac.ox.oxfish.fisher.strategies.destination.FavoriteDestinationStrategy;
+import uk.ac.ox.oxfish.geography.SeaTile;
+import uk.ac.ox.oxfish.model.data.collectors.DataColumn;
+import uk.ac.ox.oxfish.model.scenario.PrototypeScenario;
+import uk.ac.ox.oxfish.utility.FishStateUtilities;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelFisherPhaseTest {
+
+
+    @Test
+    public void sameSeedSameRunWhateverTheThreads() throws Exception {
+
+        List<Double> oneThread = landings(1);
+        List<Double> fourThreads = landings(4);
+        assertEquals(oneThread, fourThreads);
+        assertEquals(oneThread, landings(4));
+        //people actually went out fishing
+        assertTrue(oneThread.stream().mapToDouble(Double::doubleValue).sum() > 0);
+
+    }
+
+    @Test
+    public void stepsEveryFisher() throws Exception {
+
+        FishState state = new FishState(42);
+        state.setScenario(new PrototypeScenario());
+        state.setParallelFisherThreads(2);
+        state.start();
+        assertNotNull(state.getParallelFisherPhase());
+        assertEquals(state.getFishers().size(), state.getParallelFisherPhase().getNumberOfFishers());
+        for (int i = 0; i < 10; i++)
+            state.schedule.step(state);
+        state.getFishers().get(0).turnOff();
+        assertEquals(state.getFishers().size() - 1, state.getParallelFisherPhase().getNumberOfFishers());
+        state.finish();
+
+    }
+
+    @Test
+    public void keepsSteppingAfterACheckpoint() throws Exception {
+
+        FishState state = new FishState(42);
+        state.setScenario(new PrototypeScenario());
+        state.setParallelFisherThreads(2);
+        state.start();
+        for (int i = 0; i < 10; i++)
+            state.schedule.step(state);
+
+        //the pool isn't saved: the restored phase must build its own
+        ByteArrayOutputStream checkpoint = new ByteArrayOutputStream();
+        FishStateUtilities.writeModel(checkpoint, state);
+        FishState restored = FishStateUtilities.readModel(new ByteArrayInputStream(checkpoint.toByteArray()));
+        for (int i = 0; i < 10; i++) {
+            state.schedule.step(state);
+            restored.schedule.step(restored);
+        }
+        assertEquals(landings(state), landings(restored));
+        state.finish();
+        restored.finish();
+
+    }
+
+    @Test
+    public void choosesDestinationsWhilePreparingWhenTheStrategyAllowsIt() throws Exception {
+
+        List<Boolean> fromThePool = destinationsChosenAtPort(true);
+        assertTrue(fromThePool.contains(true));
+        //fishers who only decide to leave later in the step choose then
+        assertFalse(destinationsChosenAtPort(false).contains(true));
+
+    }
+
+    /**
+     * @return for each destination chosen at port, whether it was chosen by the pool (while preparing the step)
+     */
+    private List<Boolean> destinationsChosenAtPort(boolean canChooseInParallel) {
+        FishState state = new FishState(42);
+        state.setScenario(new PrototypeScenario());
+        state.setParallelFisherThreads(2);
+        state.start();
+        List<Boolean> fromThePool = Collections.synchronizedList(new ArrayList<>());
+        for (Fisher fisher : state.getFishers()) {
+            FavoriteDestinationStrategy favorite =
+                new FavoriteDestinationStrategy(state.getMap(), new MersenneTwisterFast(fisher.getID()));
+            fisher.setDestinationStrategy(new DestinationStrategy() {
+                @Override
+                public SeaTile chooseDestination(
+                    Fisher fisher, MersenneTwisterFast random, FishState model, Action currentAction) {
+                    if (fisher.isAtPort())
+                        fromThePool.add(Thread.currentThread() instanceof ForkJoinWorkerThread);
+                    return favorite.chooseDestination(fisher, random, model, currentAction);
+                }
+
+                @Override
+                public boolean canChooseInParallel() {
+                    return canChooseInParallel;
+                }
+
+                @Override
+                public void start(FishState model, Fisher fisher) {
+                }
+
+                @Override
+                public void turnOff(Fisher fisher) {
+                }
+            });
+        }
+        for (int i = 0; i < 30; i++)
+            state.schedule.step(state);
+        state.finish();
+        assertFalse(fromThePool.isEmpty());
+        return fromThePool;
+    }
+
+    private List<Double> landings(int threads) {
+        FishState state = new FishState(42);
+        state.setScenario(new PrototypeScenario());
+        state.setParallelFisherThreads(threads);
+        state.start();
+        for (int i = 0; i < 100; i++)
+            state.schedule.step(state);
+        List<Double> landings = landings(state);
+        state.finish();
+        return landings;
+    }
+
+    private List<Double> landings(FishState state) {
+        DataColumn column = state.getDailyDataSet().getColumn("Species 0 Landings");
+        List<Double> landings = new ArrayList<>();
+        for (Double landing : column)
+            landings.add(landing);
+        return landings;
+    }
+}
@@ -69,4 +69,34 @@ public class CounterTest {
         counter.count("Variable1",100);
 
     }
-}
\ No newline at end of file
+
+
+    @Test
+    public void handlesAndNamesCountTheSameColumn() throws Exception {
+
+        Counter counter = new Counter(IntervalPolicy.EVERY_DAY);
+        counter.start(mock(FishState.class));
+        //more columns than the initial capacity
+        for(int i=0; i<20; i++)
+            assertEquals(i, counter.addColumn("Variable" + i));
+        int handle = counter.getHandle("Variable15");
+        assertEquals(15, handle);
+
+        counter.count(handle,100);
+        counter.count("Variable15",1);
+        assertEquals(101, counter.getColumn("Variable15"),.0001);
+        assertEquals(101, counter.getColumn(handle),.0001);
+        assertEquals(0, counter.getColumn("Variable14"),.0001);
+        assertEquals(20, counter.getValidCounters().size());
+        assertEquals("Variable0", counter.getValidCounters().iterator().next());
+        //reset
+        counter.step(mock(FishState.class));
+        assertEquals(0, counter.getColumn(handle),.0001);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void handleOfMissingColumn() {
+        Counter counter = new Counter(IntervalPolicy.EVERY_DAY);
+        counter.getHandle("Variable1");
+    }
+}
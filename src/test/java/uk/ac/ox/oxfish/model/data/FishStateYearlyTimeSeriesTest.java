@@ -26,8 +26,11 @@ import uk.ac.ox.oxfish.model.FishState;
 import uk.ac.ox.oxfish.model.FishStateDailyTimeSeries;
 import uk.ac.ox.oxfish.model.data.collectors.DataColumn;
 import uk.ac.ox.oxfish.model.data.collectors.FishStateYearlyTimeSeries;
+import uk.ac.ox.oxfish.model.data.collectors.FisherYearlyTimeSeries;
 import uk.ac.ox.oxfish.utility.FishStateUtilities;
+import uk.ac.ox.oxfish.utility.fxcollections.ObservableList;
 
+import java.util.LinkedList;
 import java.util.ListIterator;
 import java.util.function.Function;
 
@@ -54,4 +57,26 @@ public class FishStateYearlyTimeSeriesTest {
 
 
     }
-}
\ No newline at end of file
+
+
+    @Test
+    public void sumsTheDailyColumnsWhenThereAreNoFleetSums() throws Exception {
+
+        FishStateDailyTimeSeries daily = mock(FishStateDailyTimeSeries.class);
+        DataColumn effort = new DataColumn("Total Effort");
+        for (int day = 0; day < 10; day++)
+            effort.add(2d);
+        when(daily.getColumn("Total Effort")).thenReturn(effort);
+
+        //a stub: no fleet sums, no fishers, no species
+        FishState model = mock(FishState.class);
+        when(model.getFishers()).thenReturn(ObservableList.observableList(new LinkedList<>()));
+
+        FishStateYearlyTimeSeries dataSet = new FishStateYearlyTimeSeries(daily);
+        dataSet.start(model, model);
+        dataSet.step(model);
+        Assert.assertEquals(20d, dataSet.getLatestObservation("Total Effort"), .001);
+        Assert.assertEquals(0d, dataSet.getLatestObservation(FisherYearlyTimeSeries.FUEL_CONSUMPTION), .001);
+
+    }
+}
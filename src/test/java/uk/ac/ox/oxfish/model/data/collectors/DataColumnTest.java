@@ -0,0 +1,90 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2017  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+
+package uk.ac.ox.oxfish.model.data.collectors;
+
+import org.junit.Test;
+
+import java.util.Iterator;
+
+import static org.junit.Assert.*;
+
+public class DataColumnTest {
+
+
+    @Test
+    public void growsAndIndexes() {
+
+        DataColumn column = new DataColumn("test");
+        assertTrue(Double.isNaN(column.getLatest()));
+        for(int i=0; i<100; i++)
+            column.add((double) i);
+
+        assertEquals(100, column.size());
+        assertEquals(0d, column.get(0), .0001);
+        assertEquals(57d, column.get(57), .0001);
+        assertEquals(99d, column.getLatest(), .0001);
+        assertEquals(97d, column.getDatumXStepsAgo(2), .0001);
+        assertFalse(column.isBounded());
+
+        Iterator<Double> descending = column.descendingIterator();
+        assertEquals(99d, descending.next(), .0001);
+        assertEquals(98d, descending.next(), .0001);
+
+        double sum = column.stream().mapToDouble(x -> x).sum();
+        assertEquals(4950d, sum, .0001);
+        assertEquals(100, column.copy().size());
+
+        column.clear();
+        assertEquals(0, column.size());
+    }
+
+    @Test
+    public void boundedColumnOnlyKeepsTheLatest() {
+
+        DataColumn column = new DataColumn("test", 5);
+        for(int i=0; i<3; i++)
+            column.add((double) i);
+        assertEquals(3, column.size());
+        assertEquals(0d, column.get(0), .0001);
+
+        for(int i=3; i<12; i++)
+            column.add((double) i);
+
+        //only 7,8,9,10,11 remain
+        assertEquals(5, column.size());
+        assertEquals(7d, column.get(0), .0001);
+        assertEquals(11d, column.getLatest(), .0001);
+        assertEquals(10d, column.getDatumXStepsAgo(1), .0001);
+        assertArrayEquals(new double[]{7, 8, 9, 10, 11}, column.toArray(), .0001);
+
+        Iterator<Double> ascending = column.iterator();
+        assertEquals(7d, ascending.next(), .0001);
+        Iterator<Double> descending = column.descendingIterator();
+        assertEquals(11d, descending.next(), .0001);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void outOfBounds() {
+        DataColumn column = new DataColumn("test");
+        column.add(1d);
+        column.get(1);
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2017  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+package uk.ac.ox.oxfish.model.data.collectors;
+
+import org.junit.Test;
+import uk.ac.ox.oxfish.biology.Species;
+import uk.ac.ox.oxfish.fisher.Fisher;
+import uk.ac.ox.oxfish.geography.ports.Port;
+import uk.ac.ox.oxfish.model.FishState;
+import uk.ac.ox.oxfish.model.StepOrder;
+import uk.ac.ox.oxfish.model.plugins.FleetGroupCollectorsFactory;
+import uk.ac.ox.oxfish.model.scenario.PrototypeScenario;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FleetAccumulatorTest {
+
+
+    @Test
+    public void pushedSumsMatchPollingTheFishers() throws Exception {
+
+        FishState state = new FishState(42);
+        state.setScenario(new PrototypeScenario());
+        state.start();
+        final Species species = state.getSpecies().get(0);
+        for (int i = 0; i < 10; i++)
+            state.getFishers().get(i).getTags().add("tagged");
+        final FleetAccumulator fleet = state.getFleetAccumulator();
+        final FleetAccumulator tagged = fleet.trackTag("tagged");
+
+        //right before the counters reset, compare what was pushed with what the fishers counted today
+        double[] totalEffort = new double[1];
+        state.scheduleEveryDay(simState -> {
+            double effort = 0;
+            double catches = 0;
+            double taggedEffort = 0;
+            for (Fisher fisher : state.getFishers()) {
+                double fisherEffort = fisher.getDailyCounter().getColumn(FisherYearlyTimeSeries.EFFORT);
+                effort += fisherEffort;
+                catches += fisher.getDailyCounter().getCatchesPerSpecie(species.getIndex());
+                if (fisher.getTags().contains("tagged"))
+                    taggedEffort += fisherEffort;
+            }
+            assertEquals(effort, fleet.getDailyEffort(), .0001);
+            assertEquals(catches, fleet.getDailyCatches(species), .0001);
+            assertEquals(taggedEffort, tagged.getDailyEffort(), .0001);
+            totalEffort[0] += effort;
+        }, StepOrder.AGGREGATE_DATA_GATHERING);
+
+        for (int i = 0; i < 366; i++)
+            state.schedule.step(state);
+        assertTrue(totalEffort[0] > 0);
+
+        //yearly columns are the pushed yearly sums
+        double fuel = 0;
+        double hoursOut = 0;
+        for (Fisher fisher : state.getFishers()) {
+            fuel += fisher.getLatestYearlyObservation(FisherYearlyTimeSeries.FUEL_CONSUMPTION);
+            hoursOut += fisher.getLatestYearlyObservation(FisherYearlyTimeSeries.HOURS_OUT);
+        }
+        double yearlyCatches = 0;
+        for (Double dailyCatches : state.getDailyDataSet().getColumn(
+            species + " " + FisherDailyTimeSeries.CATCHES_COLUMN_NAME))
+            yearlyCatches += dailyCatches;
+        //the last day belongs to next year
+        yearlyCatches -= state.getDailyDataSet().getLatestObservation(
+            species + " " + FisherDailyTimeSeries.CATCHES_COLUMN_NAME);
+        double yearlyEffort = totalEffort[0] -
+            state.getDailyDataSet().getLatestObservation("Total Effort");
+
+        assertEquals(fuel, state.getYearlyDataSet().getLatestObservation(
+            FisherYearlyTimeSeries.FUEL_CONSUMPTION), .0001);
+        assertEquals(yearlyEffort, state.getYearlyDataSet().getLatestObservation("Total Effort"), .0001);
+        assertEquals(yearlyCatches / yearlyEffort,
+                     state.getYearlyDataSet().getLatestObservation(species + " CPUE"), .0001);
+        assertEquals(yearlyCatches / hoursOut,
+                     state.getYearlyDataSet().getLatestObservation(species + " CPHO"), .0001);
+        state.finish();
+
+    }
+
+
+    @Test
+    public void groupColumnsSumTheirPartOfTheFleet() throws Exception {
+
+        FishState state = new FishState(42);
+        PrototypeScenario scenario = new PrototypeScenario();
+        scenario.setPorts(2);
+        FleetGroupCollectorsFactory collectors = new FleetGroupCollectorsFactory();
+        collectors.setTags("tagged");
+        scenario.getPlugins().add(collectors);
+        state.setScenario(scenario);
+        state.start();
+        final Species species = state.getSpecies().get(0);
+        for (int i = 0; i < 10; i++)
+            state.getFishers().get(i).getTags().add("tagged");
+
+        double[] taggedEffort = new double[1];
+        state.scheduleEveryDay(simState -> {
+            for (Fisher fisher : state.getFishers())
+                if (fisher.getTags().contains("tagged"))
+                    taggedEffort[0] += fisher.getDailyCounter().getColumn(FisherYearlyTimeSeries.EFFORT);
+        }, StepOrder.AGGREGATE_DATA_GATHERING);
+
+        for (int i = 0; i < 365; i++)
+            state.schedule.step(state);
+        assertTrue(taggedEffort[0] > 0);
+
+        double dailyTaggedEffort = 0;
+        for (Double effort : state.getDailyDataSet().getColumn("Total Effort of tagged"))
+            dailyTaggedEffort += effort;
+        assertEquals(taggedEffort[0], dailyTaggedEffort, .0001);
+        assertEquals(taggedEffort[0], state.getYearlyDataSet().getLatestObservation("Total Effort of tagged"), .0001);
+
+        //the ports split the fleet between them
+        double portEffort = 0;
+        double portCatches = 0;
+        for (Port port : state.getPorts()) {
+            portEffort += state.getYearlyDataSet().getLatestObservation("Total Effort of " + port.getName());
+            portCatches += state.getYearlyDataSet().getLatestObservation(
+                species + " " + FisherDailyTimeSeries.CATCHES_COLUMN_NAME + " of " + port.getName());
+        }
+        assertEquals(state.getYearlyDataSet().getLatestObservation("Total Effort"), portEffort, .0001);
+        assertEquals(state.getYearlyDataSet().getLatestObservation(
+            species + " " + FisherDailyTimeSeries.CATCHES_COLUMN_NAME), portCatches, .0001);
+        state.finish();
+
+    }
+}
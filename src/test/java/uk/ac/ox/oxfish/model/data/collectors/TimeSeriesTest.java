@@ -0,0 +1,68 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2017  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+
+package uk.ac.ox.oxfish.model.data.collectors;
+
+import org.junit.Test;
+import uk.ac.ox.oxfish.model.FishState;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+public class TimeSeriesTest {
+
+
+    @Test
+    public void retentionWindowKeepsMemoryFlat() {
+
+        TimeSeries<double[]> series = new TimeSeries<>(IntervalPolicy.EVERY_DAY);
+        series.setRetentionWindow(10);
+        double[] observed = new double[1];
+        DataColumn column = series.registerGatherer("value", array -> array[0], Double.NaN);
+        series.start(mock(FishState.class), observed);
+
+        for(int day=0; day<100; day++) {
+            observed[0] = day;
+            series.step(mock(FishState.class));
+        }
+
+        assertEquals(10, series.numberOfObservations());
+        assertEquals(99d, column.getLatest(), .0001);
+        assertEquals(90d, column.getDatumXStepsAgo(9), .0001);
+
+        //columns added later are aligned with the others
+        DataColumn late = series.registerGatherer("late", array -> 0d, -1d);
+        assertEquals(10, late.size());
+        assertEquals(-1d, late.getLatest(), .0001);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void retentionWindowMustComeFirst() {
+
+        TimeSeries<double[]> series = new TimeSeries<>(IntervalPolicy.EVERY_DAY);
+        series.registerGatherer("value", array -> array[0], Double.NaN);
+        series.setRetentionWindow(10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fishersRememberAtLeastAYear() {
+        new FisherDailyTimeSeries().setRetentionWindow(30);
+    }
+}
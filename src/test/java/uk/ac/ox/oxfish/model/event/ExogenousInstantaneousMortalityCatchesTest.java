@@ -92,13 +92,13 @@ public class ExogenousInstantaneousMortalityCatchesTest {
         state.schedule.step(state);
         Assert.assertEquals(
                 state.getMap().getSeaTile(2,2).getBiomass(state.getSpecies("Red Fish")),
-                2266886,1);
+                2267091,1);
 
     //    catches.start(state);
         catches.step(state);
         Assert.assertEquals(
                 state.getMap().getSeaTile(2,2).getBiomass(state.getSpecies("Red Fish")),
-                1374936,1);
+                1375060,1);
 
 
 
@@ -35,6 +35,7 @@ import uk.ac.ox.oxfish.model.scenario.DerisoCaliforniaScenario;
 import uk.ac.ox.oxfish.model.scenario.PrototypeScenario;
 import uk.ac.ox.oxfish.utility.yaml.FishYAML;
 
+import java.io.File;
 import java.io.FileReader;
 import java.nio.file.Files;
 import java.nio.file.Paths;
@@ -42,6 +43,7 @@ import java.util.Arrays;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Created by carrknight on 4/20/16.
@@ -110,6 +112,45 @@ public class SerializeTest {
     }
 
 
+    @Test
+    public void binaryCheckpointProgressesCorrectly() throws Exception {
+
+        FishState state = new FishState(System.currentTimeMillis());
+        PrototypeScenario scenario = new PrototypeScenario();
+        scenario.setFishers(20);
+        state.setScenario(scenario);
+        state.start();
+        for(int i=0; i<100; i++)
+            state.schedule.step(state);
+
+        File checkpoint = Files.createTempFile("binary", ".checkpoint").toFile();
+        FishStateUtilities.writeModelToFile(checkpoint, state);
+        FishState state2 = FishStateUtilities.readModelFromFile(checkpoint);
+
+        //old xml checkpoints can still be read
+        File xmlCheckpoint = Files.createTempFile("xml", ".checkpoint").toFile();
+        Files.write(xmlCheckpoint.toPath(), new XStream(new StaxDriver()).toXML(state).getBytes());
+        FishState state3 = FishStateUtilities.readModelFromFile(xmlCheckpoint);
+
+        for(int i=0; i<100; i++) {
+            state.schedule.step(state);
+            state2.schedule.step(state2);
+            state3.schedule.step(state3);
+            double expected = state.random.nextDouble();
+            assertEquals(expected, state2.random.nextDouble(), .001);
+            assertEquals(expected, state3.random.nextDouble(), .001);
+        }
+        assertEquals(state.getFishers().get(5).getDailyData().getLatestObservation(FisherYearlyTimeSeries.CASH_COLUMN),
+                     state2.getFishers().get(5).getDailyData().getLatestObservation(FisherYearlyTimeSeries.CASH_COLUMN),
+                     .001);
+        //binary is much smaller than the xml
+        assertTrue(checkpoint.length() * 5 < xmlCheckpoint.length());
+
+        checkpoint.delete();
+        xmlCheckpoint.delete();
+    }
+
+
     @Test
     public void randomSeedWorks1() throws Exception {
 
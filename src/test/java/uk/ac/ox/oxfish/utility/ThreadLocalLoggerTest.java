@@ -0,0 +1,80 @@
+/*
+ *     POSEIDON, an agent-based model of fisheries
+ *     Copyright (C) 2017  CoHESyS Lab cohesys.lab@gmail.com
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+
+package uk.ac.ox.oxfish.utility;
+
+import com.esotericsoftware.minlog.Log;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ThreadLocalLoggerTest {
+
+
+    @Test
+    public void eachThreadLogsAtItsOwnLevel() throws Exception {
+
+        Log.set(Log.LEVEL_WARN);
+        List<String> quiet = new ArrayList<>();
+        List<String> verbose = new ArrayList<>();
+
+        ThreadLocalLogger.attach(recordingInto(quiet), Log.LEVEL_ERROR);
+        Thread other = new Thread(() -> {
+            ThreadLocalLogger.attach(recordingInto(verbose), Log.LEVEL_DEBUG);
+            //minlog itself needs to let debug messages through while this thread is attached
+            assertTrue(Log.DEBUG);
+            Log.debug("debug");
+            Log.info("info");
+            ThreadLocalLogger.detach();
+        });
+        other.start();
+        other.join();
+
+        Log.info("info");
+        Log.error("error");
+        ThreadLocalLogger.detach();
+
+        assertEquals(2, verbose.size());
+        assertEquals(1, quiet.size());
+        assertEquals("error", quiet.get(0));
+
+        //everybody detached: back to how minlog was set before
+        assertTrue(Log.WARN);
+        assertFalse(Log.INFO);
+        Log.info("after");
+        assertEquals(1, quiet.size());
+        Log.set(Log.LEVEL_INFO);
+
+    }
+
+    private Log.Logger recordingInto(List<String> messages) {
+        return new Log.Logger() {
+            @Override
+            public void log(int level, String category, String message, Throwable ex) {
+                messages.add(message);
+            }
+        };
+    }
+}